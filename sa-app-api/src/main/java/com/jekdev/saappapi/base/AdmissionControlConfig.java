@@ -0,0 +1,48 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.base.AdmissionControlFilter.Budget;
+import com.jekdev.saappapi.controller.EmotionController;
+import com.jekdev.saappapi.utils.RequestLane;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Puts the {@link AdmissionControlFilter} in front of the endpoints that wait on the sentiment provider or read the
+ * whole table: {@code POST /emotions/create} in the lane chosen by the client, and the export and local-model training
+ * in the bulk lane. Other reads stay unthrottled. Disabled with {@code emotion.admission.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "emotion.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+  private static final String CREATE = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
+  private static final String EXPORT = EmotionController.BASE_PATH + EmotionController.EXPORT_PATH;
+  private static final String LOCAL_MODEL = EmotionController.BASE_PATH + EmotionController.LOCAL_MODEL_PATH;
+
+  @Bean
+  FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+      @Value("${emotion.admission.max-in-flight:32}") int maxInFlight,
+      @Value("${emotion.admission.max-queue:64}") int maxQueue,
+      @Value("${emotion.admission.queue-timeout:250ms}") Duration queueTimeout,
+      @Value("${emotion.admission.bulk.max-in-flight:4}") int bulkMaxInFlight,
+      @Value("${emotion.admission.bulk.max-queue:16}") int bulkMaxQueue,
+      @Value("${emotion.admission.bulk.queue-timeout:5s}") Duration bulkQueueTimeout,
+      MeterRegistry meterRegistry) {
+    Map<RequestLane, Budget> budgets =
+        Map.of(
+            RequestLane.INTERACTIVE, new Budget(maxInFlight, maxQueue, queueTimeout),
+            RequestLane.BULK, new Budget(bulkMaxInFlight, bulkMaxQueue, bulkQueueTimeout));
+    FilterRegistrationBean<AdmissionControlFilter> registration =
+        new FilterRegistrationBean<>(
+            new AdmissionControlFilter(budgets, Set.of(EXPORT, LOCAL_MODEL), meterRegistry));
+    registration.addUrlPatterns(CREATE, EXPORT, LOCAL_MODEL);
+    return registration;
+  }
+}
@@ -0,0 +1,213 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.utils.RequestDeadline;
+import com.jekdev.saappapi.utils.RequestLane;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admission control for expensive endpoints, with a separate budget per {@link RequestLane}: in each lane at most
+ * {@code maxInFlight} requests are processed at once, at most {@code maxQueue} more wait for a slot, and none waits
+ * longer than {@code queueTimeout}, or than the time left until its {@link RequestDeadline}.
+ *
+ * <p>A request runs in the bulk lane if its path is one of the {@code bulkPaths} or if it sends {@code
+ * X-Request-Lane: bulk}; every other request is interactive. The lane is set on the request thread while the request
+ * is processed, so further budgets such as the provider concurrency of the {@code SentimentAnalysisService} apply to
+ * it as well. Since each lane only waits for its own slots, a bulk job can fill its own lane but never the interactive
+ * one.
+ *
+ * <p>A request that finds the queue of its lane full, or whose wait runs out, is shed right away with 503 Service
+ * Unavailable and a {@code Retry-After} header, before it ties up a worker thread on the provider. The admitted
+ * requests therefore keep the latency of a lightly loaded server instead of all requests slowing down together. The
+ * filter publishes the gauges {@value #QUEUE_METRIC} and {@value #IN_FLIGHT_METRIC}, the timer {@value #WAIT_METRIC}
+ * of the time spent waiting for admission, and the counter {@value #SHED_METRIC}, tagged {@code reason=queue-full} or
+ * {@code reason=timeout}; all of them are tagged with the {@code lane}.
+ */
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+  /** Name of the gauge of requests waiting for admission. */
+  public static final String QUEUE_METRIC = "emotion.admission.queue";
+
+  /** Name of the gauge of admitted requests in progress. */
+  public static final String IN_FLIGHT_METRIC = "emotion.admission.in-flight";
+
+  /** Name of the timer of the time requests waited for admission. */
+  public static final String WAIT_METRIC = "emotion.admission.wait";
+
+  /** Name of the counter of shed requests. */
+  public static final String SHED_METRIC = "emotion.admission.shed";
+
+  private final Map<RequestLane, Lane> lanes = new EnumMap<>(RequestLane.class);
+  private final Set<String> bulkPaths;
+
+  /**
+   * @param budgets the admission budget of every lane
+   * @param bulkPaths request paths, relative to the context path, that always run in the bulk lane
+   * @param meterRegistry the registry of the admission metrics
+   */
+  public AdmissionControlFilter(Map<RequestLane, Budget> budgets, Set<String> bulkPaths, MeterRegistry meterRegistry) {
+    for (RequestLane lane : RequestLane.values()) {
+      lanes.put(lane, new Lane(lane, budgets.get(lane), meterRegistry));
+    }
+    this.bulkPaths = bulkPaths;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    RequestLane requestLane =
+        bulkPaths.contains(request.getRequestURI().substring(request.getContextPath().length()))
+            ? RequestLane.BULK
+            : RequestLane.fromHeader(request.getHeader(RequestLane.HEADER));
+    Lane lane = lanes.get(requestLane);
+    if (!lane.admit(response)) {
+      return;
+    }
+
+    boolean async = false;
+    try (RequestLane.Scope scope = requestLane.enter()) {
+      filterChain.doFilter(request, response);
+      async = request.isAsyncStarted();
+    } finally {
+      if (async) {
+        // streamed responses, such as the export, hold their slot until the stream is complete
+        request.getAsyncContext().addListener(new ReleasingListener(lane.slots));
+      } else {
+        lane.slots.release();
+      }
+    }
+  }
+
+  /**
+   * The admission budget of a lane.
+   *
+   * @param maxInFlight the maximum number of requests processed at once
+   * @param maxQueue the maximum number of requests waiting for a slot
+   * @param queueTimeout the longest time a request waits for a slot
+   */
+  public record Budget(int maxInFlight, int maxQueue, Duration queueTimeout) {}
+
+  private static final class Lane {
+
+    private final RequestLane lane;
+    private final Budget budget;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer wait;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    private Lane(RequestLane lane, Budget budget, MeterRegistry meterRegistry) {
+      this.lane = lane;
+      this.budget = budget;
+      this.slots = new Semaphore(budget.maxInFlight(), true);
+      Tags tags = Tags.of("lane", lane.name().toLowerCase(Locale.ROOT));
+      meterRegistry.gauge(QUEUE_METRIC, tags, queued);
+      meterRegistry.gauge(
+          IN_FLIGHT_METRIC, tags, slots, semaphore -> budget.maxInFlight() - semaphore.availablePermits());
+      this.wait = meterRegistry.timer(WAIT_METRIC, tags);
+      this.queueFull = meterRegistry.counter(SHED_METRIC, tags.and("reason", "queue-full"));
+      this.timedOut = meterRegistry.counter(SHED_METRIC, tags.and("reason", "timeout"));
+    }
+
+    /** Takes a slot, waiting in the queue if necessary, or sheds the request. */
+    private boolean admit(HttpServletResponse response) throws IOException {
+      if (slots.tryAcquire()) {
+        wait.record(0, TimeUnit.NANOSECONDS);
+        return true;
+      }
+      if (queued.incrementAndGet() > budget.maxQueue()) {
+        queued.decrementAndGet();
+        queueFull.increment();
+        shed(response, "Too many requests are waiting.");
+        return false;
+      }
+      long start = System.nanoTime();
+      boolean admitted;
+      try {
+        admitted = slots.tryAcquire(RequestDeadline.cap(budget.queueTimeout()).toNanos(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        admitted = false;
+      } finally {
+        queued.decrementAndGet();
+        wait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      if (!admitted) {
+        timedOut.increment();
+        shed(response, "The request could not be admitted within " + budget.queueTimeout().toMillis() + " ms.");
+      }
+      return admitted;
+    }
+
+    private void shed(HttpServletResponse response, String message) throws IOException {
+      log.debug("Shedding {} request: {} ({} queued)", lane, message, queued.get());
+      long retryAfterSeconds = Math.max(1, (budget.queueTimeout().toMillis() + 999) / 1000);
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write("{\"error\":\"Server is overloaded. " + message + "\"}");
+    }
+  }
+
+  /** Releases the slot of an asynchronous request once, when it completes, fails or times out. */
+  private static final class ReleasingListener implements AsyncListener {
+
+    private final Semaphore slots;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private ReleasingListener(Semaphore slots) {
+      this.slots = slots;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      release();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+
+    private void release() {
+      if (released.compareAndSet(false, true)) {
+        slots.release();
+      }
+    }
+  }
+}
@@ -1,15 +1,36 @@
 package com.jekdev.saappapi.base;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 @Configuration
 public class ApiClientConfig {
 
+  /**
+   * The client of the sentiment provider. It sends through the JDK {@link HttpClient}, whose blocking calls park the
+   * calling thread instead of holding a lock, so a provider call on a virtual thread releases its carrier while it
+   * waits. With {@code spring.threads.virtual.enabled} the internal tasks of the client run on virtual threads too.
+   * Connecting and waiting for the response are bounded by {@code sentiment.api.connect-timeout} and {@code
+   * sentiment.api.read-timeout}; calls of a request with a deadline are cancelled earlier if the deadline passes.
+   */
   @Bean("sentimentRestClient")
-  RestClient sentimentRestClient(@Value("${sentiment.api.base-url}") String baseUrl) {
-    return RestClient.builder().baseUrl(baseUrl).build();
+  RestClient sentimentRestClient(
+      @Value("${sentiment.api.base-url}") String baseUrl,
+      @Value("${sentiment.api.connect-timeout:2s}") Duration connectTimeout,
+      @Value("${sentiment.api.read-timeout:10s}") Duration readTimeout,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    HttpClient.Builder httpClient = HttpClient.newBuilder().connectTimeout(connectTimeout);
+    if (virtualThreads) {
+      httpClient.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient.build());
+    requestFactory.setReadTimeout(readTimeout);
+    return RestClient.builder().baseUrl(baseUrl).requestFactory(requestFactory).build();
   }
 }
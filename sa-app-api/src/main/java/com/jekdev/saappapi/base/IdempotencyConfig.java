@@ -0,0 +1,32 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.controller.ClientController;
+import com.jekdev.saappapi.controller.EmotionController;
+import com.jekdev.saappapi.service.IdempotencyService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Puts the {@link IdempotencyFilter} in front of the create endpoints, {@code POST /emotions/create} and {@code POST
+ * /client/create}. It runs before the {@link AdmissionControlFilter}, so a replayed retry does not take an admission
+ * slot. Disabled with {@code emotion.idempotency.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "emotion.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+  private static final String EMOTION_CREATE = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
+  private static final String CLIENT_CREATE = ClientController.BASE_PATH + ClientController.CREATE_PATH;
+
+  @Bean
+  FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyService idempotencyService) {
+    FilterRegistrationBean<IdempotencyFilter> registration =
+        new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyService));
+    registration.addUrlPatterns(EMOTION_CREATE, CLIENT_CREATE);
+    registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+    return registration;
+  }
+}
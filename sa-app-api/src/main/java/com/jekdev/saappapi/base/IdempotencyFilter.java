@@ -0,0 +1,266 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.entities.IdempotencyRecord;
+import com.jekdev.saappapi.service.IdempotencyService;
+import com.jekdev.saappapi.service.IdempotencyService.Decision;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Handles the {@value #HEADER} header of {@code POST} requests with the {@link IdempotencyService}, so that a client
+ * can retry a create after a timeout without creating the record twice.
+ *
+ * <p>The key is scoped to the request path and fingerprinted with the SHA-256 hash of the request body. A retry of a
+ * finished request receives the stored status, content type and body together with {@code Idempotent-Replayed: true},
+ * without reaching the controller. A key reused with another body is rejected with 422 Unprocessable Entity, and a
+ * retry whose first request is still in progress after the wait with 409 Conflict and a {@code Retry-After} header.
+ * Requests without the header pass through unchanged.
+ *
+ * <p>The response of a request that proceeds is recorded when it is complete, which for asynchronous requests is the
+ * end of the async dispatch. If the request fails with an exception, or its async processing ends without a dispatch,
+ * the key is released so that the next retry runs again.
+ */
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  /** Name of the request header with the idempotency key. */
+  public static final String HEADER = "Idempotency-Key";
+
+  /** Name of the response header that marks a replayed response. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  /** The longest idempotency key that is accepted. */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private static final String CLAIM_ATTRIBUTE = IdempotencyFilter.class.getName() + ".claim";
+
+  private final IdempotencyService idempotencyService;
+
+  /**
+   * @param idempotencyService the service that decides how requests with a key are handled
+   */
+  public IdempotencyFilter(IdempotencyService idempotencyService) {
+    this.idempotencyService = idempotencyService;
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    if (isAsyncDispatch(request)) {
+      Claim claim = (Claim) request.getAttribute(CLAIM_ATTRIBUTE);
+      if (claim == null) {
+        filterChain.doFilter(request, response);
+      } else {
+        proceed(request, response, filterChain, claim);
+      }
+      return;
+    }
+
+    String idempotencyKey = request.getHeader(HEADER);
+    if (idempotencyKey == null || idempotencyKey.isBlank() || !HttpMethod.POST.matches(request.getMethod())) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      reject(response, HttpStatus.BAD_REQUEST, "The " + HEADER + " must not exceed " + MAX_KEY_LENGTH + " characters.");
+      return;
+    }
+
+    byte[] body = request.getInputStream().readAllBytes();
+    String key = request.getRequestURI().substring(request.getContextPath().length()) + " " + idempotencyKey.strip();
+    Decision decision = idempotencyService.begin(key, fingerprint(body));
+    switch (decision.outcome()) {
+      case REPLAYED -> replay(response, decision.idempotencyRecord());
+      case MISMATCH ->
+          reject(
+              response,
+              HttpStatus.UNPROCESSABLE_CONTENT,
+              "The " + HEADER + " was already used for a request with another body.");
+      case IN_PROGRESS -> {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        reject(response, HttpStatus.CONFLICT, "A request with this " + HEADER + " is still in progress.");
+      }
+      case PROCEED -> {
+        Claim claim = new Claim(key, new ContentCachingResponseWrapper(response));
+        request.setAttribute(CLAIM_ATTRIBUTE, claim);
+        proceed(new CachedBodyRequest(request, body), claim.response(), filterChain, claim);
+      }
+    }
+  }
+
+  /** Runs a dispatch of a request that claimed its key and records the response once it is complete. */
+  private void proceed(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, Claim claim)
+      throws ServletException, IOException {
+    try {
+      filterChain.doFilter(request, response);
+    } catch (IOException | ServletException | RuntimeException exception) {
+      claim.release(idempotencyService);
+      throw exception;
+    }
+    if (request.isAsyncStarted()) {
+      request.getAsyncContext().addListener(new ReleasingListener(claim, idempotencyService));
+      return;
+    }
+
+    ContentCachingResponseWrapper capture = claim.response();
+    if (claim.finish()) {
+      String body = new String(capture.getContentAsByteArray(), Charset.forName(capture.getCharacterEncoding()));
+      idempotencyService.complete(claim.key(), capture.getStatus(), capture.getContentType(), body);
+    }
+    capture.copyBodyToResponse();
+  }
+
+  private static void replay(HttpServletResponse response, IdempotencyRecord idempotencyRecord) throws IOException {
+    response.setStatus(idempotencyRecord.getResponseStatus());
+    response.setHeader(REPLAYED_HEADER, "true");
+    if (idempotencyRecord.getContentType() != null) {
+      response.setContentType(idempotencyRecord.getContentType());
+    }
+    if (idempotencyRecord.getResponseBody() != null) {
+      response.getWriter().write(idempotencyRecord.getResponseBody());
+    }
+  }
+
+  private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.getWriter().write("{\"error\":\"" + message + "\"}");
+  }
+
+  private static String fingerprint(byte[] body) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    } catch (NoSuchAlgorithmException exception) {
+      throw new IllegalStateException("SHA-256 is not available", exception);
+    }
+  }
+
+  /** A claimed key and the response that is recorded for it, finished exactly once. */
+  private record Claim(String key, ContentCachingResponseWrapper response, AtomicBoolean finished) {
+
+    private Claim(String key, ContentCachingResponseWrapper response) {
+      this(key, response, new AtomicBoolean());
+    }
+
+    private boolean finish() {
+      return finished.compareAndSet(false, true);
+    }
+
+    private void release(IdempotencyService idempotencyService) {
+      if (finish()) {
+        idempotencyService.release(key);
+      }
+    }
+  }
+
+  /** Releases the key of an asynchronous request whose processing ended without recording a response. */
+  private record ReleasingListener(Claim claim, IdempotencyService idempotencyService) implements AsyncListener {
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+      claim.release(idempotencyService);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      // the async dispatch that follows the timeout records the response
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+      claim.release(idempotencyService);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+      event.getAsyncContext().addListener(this);
+    }
+  }
+
+  /** Replays the request body that was read to compute the fingerprint. */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream input = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+
+        @Override
+        public int read() {
+          return input.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+          return input.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+          return input.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        /** The whole body is already in memory, so the listener is told right away that it can read all of it. */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          try {
+            if (!isFinished()) {
+              readListener.onDataAvailable();
+            }
+            readListener.onAllDataRead();
+          } catch (IOException | RuntimeException exception) {
+            readListener.onError(exception);
+          }
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+  }
+}
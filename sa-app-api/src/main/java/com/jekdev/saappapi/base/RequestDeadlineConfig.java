@@ -0,0 +1,55 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.utils.RequestDeadline;
+import java.time.Duration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.transaction.autoconfigure.TransactionManagerCustomizers;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Honours the {@value RequestDeadline#HEADER} header of clients: the {@link RequestDeadlineFilter} runs in front of
+ * every endpoint and before the idempotency and admission filters, and the transaction manager caps the timeout of
+ * every transaction, and with it of every query, at the time left until the deadline of the request.
+ */
+@Configuration
+public class RequestDeadlineConfig {
+
+  @Bean
+  FilterRegistrationBean<RequestDeadlineFilter> requestDeadlineFilter(
+      @Value("${emotion.deadline.max-timeout:30s}") Duration maxTimeout) {
+    FilterRegistrationBean<RequestDeadlineFilter> registration =
+        new FilterRegistrationBean<>(new RequestDeadlineFilter(maxTimeout));
+    registration.addUrlPatterns("/*");
+    registration.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
+    return registration;
+  }
+
+  /**
+   * The JPA transaction manager Spring Boot would create, except that transactions started under a
+   * {@link RequestDeadline} time out when the deadline passes. Spring applies the transaction timeout to every JPA and
+   * JDBC query of the transaction, so a slow query is cancelled by the database instead of running on for nobody.
+   */
+  @Bean
+  JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> customizers) {
+    JpaTransactionManager transactionManager =
+        new JpaTransactionManager() {
+
+          @Override
+          protected int determineTimeout(TransactionDefinition definition) {
+            int timeout = super.determineTimeout(definition);
+            return RequestDeadline.current()
+                .map(deadline -> (int) Math.max(1, (deadline.remaining().toMillis() + 999) / 1000))
+                .map(seconds -> timeout == TransactionDefinition.TIMEOUT_DEFAULT ? seconds : Math.min(seconds, timeout))
+                .orElse(timeout);
+          }
+        };
+    customizers.ifAvailable(customizer -> customizer.customize(transactionManager));
+    return transactionManager;
+  }
+}
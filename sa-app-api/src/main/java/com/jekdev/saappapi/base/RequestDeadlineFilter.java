@@ -0,0 +1,52 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.utils.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Puts every request that sends the {@value RequestDeadline#HEADER} header under its {@link RequestDeadline}, capped
+ * at {@code maxTimeout}. The deadline bounds the wait for admission, the database transactions and the sentiment
+ * provider calls of the request; a request that arrives with no time left is answered with 504 Gateway Timeout right
+ * away. Requests without the header have no deadline.
+ */
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+  private final Duration maxTimeout;
+
+  /**
+   * @param maxTimeout the longest timeout a client may ask for
+   */
+  public RequestDeadlineFilter(Duration maxTimeout) {
+    this.maxTimeout = maxTimeout;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    Optional<Duration> timeout = RequestDeadline.parseHeader(request.getHeader(RequestDeadline.HEADER));
+    if (timeout.isEmpty()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    if (timeout.get().isZero()) {
+      response.setStatus(HttpStatus.GATEWAY_TIMEOUT.value());
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write("{\"error\":\"The request deadline has already passed.\"}");
+      return;
+    }
+
+    Duration capped = timeout.get().compareTo(maxTimeout) < 0 ? timeout.get() : maxTimeout;
+    try (RequestDeadline.Scope scope = RequestDeadline.after(capped).enter()) {
+      filterChain.doFilter(request, response);
+    }
+  }
+}
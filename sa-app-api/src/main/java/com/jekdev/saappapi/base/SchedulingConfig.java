@@ -0,0 +1,12 @@
+package com.jekdev.saappapi.base;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables Spring's {@code @Scheduled} support for the background jobs of the API. Each job reads its own schedule from
+ * the application properties; a cron expression of {@code -} disables it.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
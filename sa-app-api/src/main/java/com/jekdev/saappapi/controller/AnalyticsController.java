@@ -0,0 +1,65 @@
+package com.jekdev.saappapi.controller;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+import com.jekdev.saappapi.dto.LabelStatistics;
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.service.EmotionAnalyticsService;
+import com.jekdev.saappapi.service.ScorePercentileService;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for score aggregations. All endpoints are answered from in-memory structures, the analytics store of
+ * {@link EmotionAnalyticsService} and the quantile sketches of {@link ScorePercentileService}, and never query the
+ * database.
+ */
+@RestController
+@RequestMapping(value = AnalyticsController.BASE_PATH, produces = APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+@Tag(name = "Analytics Controller", description = "Score aggregations served from the in-memory analytics store")
+public class AnalyticsController {
+
+  /** The base path of all analytics endpoints. */
+  public static final String BASE_PATH = "/analytics";
+
+  /** Path segment for the score distribution per sentiment label. */
+  public static final String LABEL_STATISTICS_PATH = "/labels";
+
+  /** Path segment for the approximate percentiles of the signed score over all emotions. */
+  public static final String PERCENTILES_PATH = "/percentiles";
+
+  private final EmotionAnalyticsService emotionAnalyticsService;
+
+  private final ScorePercentileService scorePercentileService;
+
+  /**
+   * Returns count, mean, minimum, maximum and a score histogram for every sentiment label.
+   *
+   * @param clientId optional client id to restrict the aggregation to one client
+   * @return a {@link ResponseEntity} with one entry per label and an HTTP status of 200 (OK)
+   */
+  @GetMapping(value = LABEL_STATISTICS_PATH)
+  public ResponseEntity<List<LabelStatistics>> getLabelStatistics(
+      @Parameter(description = "restrict the aggregation to this client") @RequestParam(required = false)
+          Long clientId) {
+    return ResponseEntity.ok().body(emotionAnalyticsService.labelStatistics(clientId));
+  }
+
+  /**
+   * Returns the approximate p50, p90 and p99 of the signed sentiment score over all emotions.
+   *
+   * @return a {@link ResponseEntity} containing the global percentiles with an HTTP status of 200 (OK)
+   */
+  @GetMapping(value = PERCENTILES_PATH)
+  public ResponseEntity<ScorePercentiles> getPercentiles() {
+    return ResponseEntity.ok().body(scorePercentileService.globalPercentiles());
+  }
+}
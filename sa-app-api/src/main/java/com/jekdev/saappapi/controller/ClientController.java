@@ -4,13 +4,25 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import com.jekdev.saappapi.dto.ClientRequest;
 import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.LeaderboardEntry;
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.service.ClientLeaderboardService;
 import com.jekdev.saappapi.service.ClientService;
+import com.jekdev.saappapi.service.ResourceVersionService;
+import com.jekdev.saappapi.service.ScorePercentileService;
+import com.jekdev.saappapi.utils.LeaderboardOrder;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
 import java.util.List;
+import java.util.Locale;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * REST controller responsible for managing client-related endpoints. This controller provides several HTTP-based APIs
@@ -61,8 +73,25 @@ public class ClientController {
 
   public static final String CREATE_PATH = "/create";
 
+  /**
+   * Path segment for the approximate score percentiles of one client, answered from the client's quantile sketch.
+   */
+  public static final String PERCENTILES_PATH = "/{id}/percentiles";
+
+  /**
+   * Path segment for the leaderboard of clients ranked by their mean signed sentiment score, answered from an
+   * incrementally maintained ranking.
+   */
+  public static final String LEADERBOARD_PATH = "/leaderboard";
+
   private final ClientService clientService;
 
+  private final ScorePercentileService scorePercentileService;
+
+  private final ClientLeaderboardService clientLeaderboardService;
+
+  private final ResourceVersionService resourceVersionService;
+
   /**
    * Creates a new client based on the provided request data. This method accepts a JSON payload representing the
    * client's information, validates it, and attempts to create the client in the database. If the creation is
@@ -82,19 +111,65 @@ public class ClientController {
    * Handles HTTP GET requests to search for a client by their unique identifier. This method retrieves the client's
    * details using the provided ID and returns a JSON representation of the {@code ClientResponse}.
    *
+   * <p>The response carries the {@code ETag} of the current client and emotion data; a request whose {@code
+   * If-None-Match} still matches it is answered with 304 (Not Modified) without reading the client.
+   *
    * @param id the unique identifier of the client to be searched; must not be null
+   * @param request the request, checked for {@code If-None-Match}
    * @return a {@link ResponseEntity} containing the client's information in JSON format, with an HTTP status of 200
-   *     (OK) if the client is found
+   *     (OK) if the client is found, or {@code null} once the 304 (Not Modified) response is prepared
    */
   @GetMapping(value = SINGLE_ID_CLIENT_PATH, produces = APPLICATION_JSON_VALUE)
-  @ResponseStatus(value = HttpStatus.OK)
-  public ResponseEntity<ClientResponse> searchClientWithID(@Valid @PathVariable Long id) {
-    return ResponseEntity.ok().body(clientService.searchClient(id));
+  public ResponseEntity<ClientResponse> searchClientWithID(@Valid @PathVariable Long id, WebRequest request) {
+    String eTag = resourceVersionService.currentETag();
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(clientService.searchClient(id));
   }
 
+  /**
+   * Returns every client with the summaries of its emotions. Like {@link #searchClientWithID(Long, WebRequest)}, the
+   * response carries an {@code ETag} and a matching {@code If-None-Match} is answered with 304 (Not Modified).
+   *
+   * @param request the request, checked for {@code If-None-Match}
+   * @return a {@link ResponseEntity} containing all clients with an HTTP status of 200 (OK), or {@code null} once the
+   *     304 (Not Modified) response is prepared
+   */
   @GetMapping(value = CLIENT_LIST_PATH, produces = APPLICATION_JSON_VALUE)
-  @ResponseStatus(value = HttpStatus.OK)
-  public ResponseEntity<List<ClientResponse>> getAllClient() {
-    return ResponseEntity.ok().body(clientService.getAllClients());
+  public ResponseEntity<List<ClientResponse>> getAllClient(WebRequest request) {
+    String eTag = resourceVersionService.currentETag();
+    if (request.checkNotModified(eTag)) {
+      return null;
+    }
+    return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(clientService.getAllClients());
+  }
+
+  /**
+   * Returns the approximate p50, p90 and p99 of a client's signed sentiment scores. The values come from a quantile
+   * sketch that is maintained as emotions are created, so the request does not read the client's emotions.
+   *
+   * @param id the unique identifier of the client
+   * @return a {@link ResponseEntity} containing the client's percentiles with an HTTP status of 200 (OK)
+   */
+  @GetMapping(value = PERCENTILES_PATH, produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<ScorePercentiles> getPercentiles(@PathVariable Long id) {
+    return ResponseEntity.ok().body(scorePercentileService.clientPercentiles(id));
+  }
+
+  /**
+   * Returns the clients with the most negative or most positive mean signed sentiment score. The ranking is kept up to
+   * date on every created and deleted emotion, so the request only walks {@code k} entries.
+   *
+   * @param order {@code negative} for the most negative clients first, {@code positive} for the most positive first
+   * @param k the maximum number of clients to return, between 1 and 100
+   * @return a {@link ResponseEntity} containing the leaderboard with an HTTP status of 200 (OK)
+   */
+  @GetMapping(value = LEADERBOARD_PATH, produces = APPLICATION_JSON_VALUE)
+  public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(
+      @RequestParam(defaultValue = "negative") @Pattern(regexp = "(?i)negative|positive") String order,
+      @RequestParam(defaultValue = "10") @Min(1) @Max(100) int k) {
+    LeaderboardOrder leaderboardOrder = LeaderboardOrder.valueOf(order.toUpperCase(Locale.ROOT));
+    return ResponseEntity.ok().body(clientLeaderboardService.top(leaderboardOrder, k));
   }
 }
@@ -1,17 +1,29 @@
 package com.jekdev.saappapi.controller;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 import com.jekdev.saappapi.dto.EmotionRequest;
 import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.dto.LocalModelReport;
+import com.jekdev.saappapi.dto.RescoringStatus;
 import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.service.EmotionRescoringService;
 import com.jekdev.saappapi.service.EmotionService;
+import com.jekdev.saappapi.service.LocalSentimentService;
+import com.jekdev.saappapi.service.ResourceVersionService;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -20,7 +32,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
 /** */
 @RestController
@@ -62,25 +78,71 @@ public class EmotionController {
 
     public static final String ALL_EMOTION_PATH = "/all";
 
+    /**
+     * Path segment for looking up a single emotion by its identifier, including emotions that were moved to the
+     * archive.
+     */
+    public static final String SINGLE_ID_EMOTION_PATH = "/search/{id}";
+
+    /**
+     * Path segment for exporting every emotion, hot and archived, as newline-delimited JSON.
+     */
+    public static final String EXPORT_PATH = "/export";
+
+    /**
+     * Path segment for starting and monitoring the re-scoring of emotions that were scored by another model than the
+     * configured one.
+     */
+    public static final String RESCORING_PATH = "/rescoring";
+
+    /**
+     * Path segment for training the local sentiment model on the stored provider labels and reading its report.
+     */
+    public static final String LOCAL_MODEL_PATH = "/local-model";
+
     private final EmotionService emotionService;
 
+    private final EmotionRescoringService emotionRescoringService;
+
+    private final LocalSentimentService localSentimentService;
+
+    private final ResourceVersionService resourceVersionService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Handles the creation of a new emotion based on the provided request data. This method processes HTTP POST
      * requests sent to the specified endpoint, validates the incoming {@link EmotionRequest}, and passes it to the
-     * underlying service for further processing. If successful, it returns an HTTP status of 201 (CREATED).
+     * underlying service for further processing. If successful, it returns an HTTP status of 201 (CREATED). When the
+     * write-behind mode is enabled, the emotion is stored through the group-commit buffer and the response is sent
+     * once its batch has committed. If the sentiment provider is unavailable, the emotion is stored as pending and
+     * the method returns 202 (ACCEPTED); it is scored in the background once the provider recovers.
+     * <p>
+     * In the asynchronous mode ({@code emotion.create.async}) the method returns a future instead: the request thread
+     * is released while the provider scores the text, and the response is written from the thread that completes the
+     * future. Otherwise the response is returned directly, so a synchronous request never goes through an async
+     * dispatch.
      *
      * @param emotion
      *            the {@link EmotionRequest} containing the information needed to create a new emotion; must include
      *            valid details such as text and, optionally, type and client context
      *
-     * @return a {@link ResponseEntity} with no content and an HTTP status of 201 (CREATED) to indicate successful
-     *         creation
+     * @return a {@link ResponseEntity}, or in the asynchronous mode a future of one, with no content and an HTTP
+     *         status of 201 (CREATED) to indicate successful creation, or 202 (ACCEPTED) if scoring was deferred
      */
     @PostMapping(value = CREATE_PATH, consumes = APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> createEmotion(
+    public Object createEmotion(
             @Parameter(name = "emotion", description = "the emotion to be created") @Valid @RequestBody EmotionRequest emotion) {
-        emotionService.createEmotion(emotion);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        if (emotionService.isAsyncEnabled()) {
+            return emotionService.createEmotionAsync(emotion).thenApply(EmotionController::createdResponse);
+        }
+        return createdResponse(emotionService.isWriteBehindEnabled() ? emotionService.createEmotionWriteBehind(emotion)
+                : emotionService.createEmotion(emotion));
+    }
+
+    private static ResponseEntity<String> createdResponse(EmotionStatus status) {
+        return ResponseEntity.status(status == EmotionStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.CREATED)
+                .build();
     }
 
     /**
@@ -88,14 +150,103 @@ public class EmotionController {
      * response containing a collection of all emotions. Each emotion is represented as an {@code EmotionResponse}
      * object and includes relevant details such as its unique identifier, text, type, and associated client
      * information.
+     * <p>
+     * The response carries the {@code ETag} of the current client and emotion data; a request whose {@code
+     * If-None-Match} still matches it is answered with 304 (Not Modified) without reading the emotions.
+     *
+     * @param language
+     *            optional ISO 639-1 code restricting the result to emotions detected in that language
+     * @param request
+     *            the request, checked for {@code If-None-Match}
      *
      * @return a {@link ResponseEntity} containing a JSON-formatted string representation of all emotions, along with an
-     *         HTTP status of 200 (OK)
+     *         HTTP status of 200 (OK), or {@code null} once the 304 (Not Modified) response is prepared
      */
     @GetMapping(value = ALL_EMOTION_PATH, produces = APPLICATION_JSON_VALUE)
-    public ResponseEntity<List<EmotionResponse>> getAllEmotions() {
-        List<EmotionResponse> emotionResponseList = emotionService.findAllEmotion();
-        return ResponseEntity.ok().body(emotionResponseList);
+    public ResponseEntity<List<EmotionResponse>> getAllEmotions(
+            @Parameter(description = "only emotions detected in this language, e.g. de") @RequestParam(
+                    required = false) String language,
+            WebRequest request) {
+        String eTag = resourceVersionService.currentETag();
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        List<EmotionResponse> emotionResponseList = language == null ? emotionService.findAllEmotion()
+                : emotionService.findAllEmotion(language);
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(eTag).body(emotionResponseList);
+    }
+
+    /**
+     * Retrieves a single emotion by its unique identifier. Emotions that were moved to the archive are read from their
+     * segment file, so the lookup works regardless of the emotion's age.
+     *
+     * @param id
+     *            the unique identifier of the emotion; must not be null
+     *
+     * @return a {@link ResponseEntity} containing the emotion with an HTTP status of 200 (OK)
+     */
+    @GetMapping(value = SINGLE_ID_EMOTION_PATH, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<EmotionResponse> getEmotion(@PathVariable Long id) {
+        return ResponseEntity.ok().body(emotionService.findEmotion(id));
+    }
+
+    /**
+     * Exports every emotion, archived and hot, as newline-delimited JSON. The response is streamed, so the export never
+     * holds the full data set in memory.
+     *
+     * @return a {@link ResponseEntity} streaming one {@link EmotionResponse} JSON document per line
+     */
+    @GetMapping(value = EXPORT_PATH, produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEmotions() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            emotionService.exportEmotions(emotion -> writeLine(out, emotion));
+            out.flush();
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    /**
+     * Starts re-scoring every emotion that was scored by another model than the configured one, or resumes the
+     * unfinished run. The work runs in the background.
+     *
+     * @return a {@link ResponseEntity} with the progress of the run and an HTTP status of 202 (ACCEPTED)
+     */
+    @PostMapping(value = RESCORING_PATH)
+    public ResponseEntity<RescoringStatus> startRescoring() {
+        return ResponseEntity.accepted().body(emotionRescoringService.start());
+    }
+
+    /**
+     * Returns the progress, throughput and estimated remaining time of the re-scoring run for the configured model.
+     *
+     * @return a {@link ResponseEntity} with the progress of the run and an HTTP status of 200 (OK)
+     */
+    @GetMapping(value = RESCORING_PATH)
+    public ResponseEntity<RescoringStatus> getRescoringStatus() {
+        return ResponseEntity.ok().body(emotionRescoringService.status());
+    }
+
+    /**
+     * Trains a new local sentiment model on the emotions scored by the provider and starts answering confident texts
+     * with it. The training runs synchronously.
+     *
+     * @return a {@link ResponseEntity} with the accuracy and coverage of the new model on held-out emotions and an HTTP
+     *         status of 200 (OK)
+     */
+    @PostMapping(value = LOCAL_MODEL_PATH)
+    public ResponseEntity<LocalModelReport> trainLocalModel() {
+        return ResponseEntity.ok().body(localSentimentService.train());
+    }
+
+    /**
+     * Returns the accuracy and coverage report of the last local sentiment model trained by this instance.
+     *
+     * @return a {@link ResponseEntity} with the report and an HTTP status of 200 (OK)
+     */
+    @GetMapping(value = LOCAL_MODEL_PATH)
+    public ResponseEntity<LocalModelReport> getLocalModelReport() {
+        return ResponseEntity.ok().body(localSentimentService.report());
     }
 
     /**
@@ -113,4 +264,13 @@ public class EmotionController {
         emotionService.deleteEmotion(id);
         return ResponseEntity.noContent().build();
     }
+
+    private void writeLine(OutputStream out, EmotionResponse emotion) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(emotion));
+            out.write('\n');
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
 }
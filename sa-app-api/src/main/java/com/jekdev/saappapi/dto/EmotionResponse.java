@@ -1,5 +1,6 @@
 package com.jekdev.saappapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -12,7 +13,8 @@ import lombok.Setter;
  * text}: The textual representation or description of the emotion. - {@code type}: The type of emotion, represented by
  * the label returned from the external sentiment provider. - {@code client}: A {@code ClientResponse} instance that
  * provides details about the
- * client related to the emotion.
+ * client related to the emotion. - {@code duplicateOf}: The id of an earlier emotion with nearly the same text, if
+ * any; omitted otherwise. - {@code language}: The detected language of the text, if known.
  * <p>
  * This class leverages Lombok annotations to generate boilerplate code such as constructors, getters, and setters,
  * enabling a streamlined approach to handling emotion-response data in the application. It serves as a Data Transfer
@@ -32,4 +34,10 @@ public class EmotionResponse {
     private final Double score;
 
     private final ClientResponse client;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long duplicateOf;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String language;
 }
@@ -0,0 +1,27 @@
+package com.jekdev.saappapi.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Score distribution of one sentiment label, as aggregated by the in-memory analytics store.
+ *
+ * <p>{@code histogram} holds the number of emotions per score bucket; bucket {@code i} covers scores in {@code [i /
+ * n, (i + 1) / n)} with {@code n = histogram.length}, and a score of exactly {@code 1.0} is counted in the last bucket.
+ */
+@RequiredArgsConstructor
+@Getter
+public class LabelStatistics {
+
+  private final String label;
+
+  private final long count;
+
+  private final double meanScore;
+
+  private final double minScore;
+
+  private final double maxScore;
+
+  private final long[] histogram;
+}
@@ -0,0 +1,19 @@
+package com.jekdev.saappapi.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One row of the client leaderboard: a client with the mean of its signed sentiment scores ({@code -1} very negative,
+ * {@code +1} very positive) and the number of scored emotions the mean is based on.
+ */
+@RequiredArgsConstructor
+@Getter
+public class LeaderboardEntry {
+
+  private final Long clientId;
+
+  private final double meanScore;
+
+  private final long emotionCount;
+}
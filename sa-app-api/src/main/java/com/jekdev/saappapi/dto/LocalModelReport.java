@@ -0,0 +1,44 @@
+package com.jekdev.saappapi.dto;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Quality of the local sentiment model, measured on held-out emotions that were not used for training. {@code
+ * accuracy} is the share of held-out emotions whose provider label the model predicts. {@code coverage} is the share
+ * the router answers locally at the configured {@code minConfidence}, and {@code coveredAccuracy} the accuracy on that
+ * share; {@code thresholds} lists the same two figures for other confidence thresholds.
+ */
+@RequiredArgsConstructor
+@Getter
+public class LocalModelReport {
+
+  private final String modelVersion;
+
+  private final Instant trainedAt;
+
+  private final int trainingExamples;
+
+  private final int heldOutExamples;
+
+  private final double accuracy;
+
+  private final double minConfidence;
+
+  private final double coverage;
+
+  private final double coveredAccuracy;
+
+  private final List<Threshold> thresholds;
+
+  /**
+   * Coverage and accuracy of the local model at one confidence threshold.
+   *
+   * @param minConfidence the minimum probability of a local answer
+   * @param coverage the share of held-out emotions answered locally
+   * @param accuracy the accuracy of the local answers, or {@code 0} if there are none
+   */
+  public record Threshold(double minConfidence, double coverage, double accuracy) {}
+}
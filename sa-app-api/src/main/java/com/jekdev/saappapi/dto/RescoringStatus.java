@@ -0,0 +1,32 @@
+package com.jekdev.saappapi.dto;
+
+import java.time.Instant;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Progress of the re-scoring run for one model version. {@code state} is {@code RUNNING} while a replica holds the
+ * run, {@code PAUSED} while nobody does (for example after a provider failure, until the run is resumed) and {@code
+ * COMPLETED} once every emotion has been re-scored. {@code throughputPerSecond} is measured over the time spent
+ * processing pages; {@code etaSeconds} is {@code null} until it can be estimated.
+ */
+@RequiredArgsConstructor
+@Getter
+public class RescoringStatus {
+
+  private final String modelVersion;
+
+  private final String state;
+
+  private final long processed;
+
+  private final long total;
+
+  private final double throughputPerSecond;
+
+  private final Long etaSeconds;
+
+  private final Instant startedAt;
+
+  private final Instant updatedAt;
+}
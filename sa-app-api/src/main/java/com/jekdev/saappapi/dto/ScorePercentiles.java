@@ -0,0 +1,23 @@
+package com.jekdev.saappapi.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Approximate percentiles of the signed sentiment score ({@code -1} very negative, {@code +1} very positive) of one
+ * client, or of all emotions when {@code clientId} is {@code null}.
+ */
+@RequiredArgsConstructor
+@Getter
+public class ScorePercentiles {
+
+  private final Long clientId;
+
+  private final long count;
+
+  private final double p50;
+
+  private final double p90;
+
+  private final double p99;
+}
@@ -4,8 +4,10 @@ import static jakarta.persistence.CascadeType.MERGE;
 import static jakarta.persistence.CascadeType.PERSIST;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.jekdev.saappapi.utils.MinHash;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
+import java.time.Instant;
 import lombok.*;
 
 /**
@@ -16,11 +18,21 @@ import lombok.*;
  * identifier for the emotion. - {@code text}: A description of the emotion, which is mandatory. - {@code type}: The
  * type of the emotion, provided by an external sentiment provider. This field is optional. - {@code client}: The
  * client
- * associated with this emotion. This association is mandatory and uses a many-to-one relationship.
+ * associated with this emotion. This association is mandatory and uses a many-to-one relationship. - {@code createdAt}:
+ * The creation instant, used to move cold emotions to the archive. Rows created before this column existed keep a
+ * {@code null} value and are treated as cold. - {@code status}: Whether the emotion has been scored or is waiting for
+ * the provider ({@link EmotionStatus}); {@code type} and {@code score} stay {@code null} while it is pending, and the
+ * retry state lives in its {@link ScoringJob}. - {@code modelVersion}: The model that produced {@code type} and
+ * {@code score}; emotions scored by another model are re-scored by the re-scoring job. - {@code minHash}: The
+ * {@link com.jekdev.saappapi.utils.MinHash} signature of the text, used to find near-duplicates. - {@code duplicateOf}:
+ * The id of an earlier emotion whose text is nearly identical, or {@code null}. - {@code language}: The ISO 639-1
+ * code of the language detected from the text, or {@code null} if it could not be determined.
  */
 @Getter
 @Setter
 @Entity
+@Table(indexes = { @Index(name = "idx_emotion_created_at", columnList = "created_at"),
+        @Index(name = "idx_emotion_language", columnList = "language") })
 @NoArgsConstructor
 @RequiredArgsConstructor
 public class Emotion {
@@ -33,7 +45,7 @@ public class Emotion {
     @NonNull
     private String text;
 
-    @Column(nullable = false)
+    @Column(nullable = true)
     @Nullable
     private String type;
 
@@ -46,4 +58,36 @@ public class Emotion {
     @NonNull
     @JsonBackReference
     private Client client;
+
+    @Column(name = "created_at", nullable = true, updatable = false)
+    @Nullable
+    private Instant createdAt;
+
+    @Column(name = "model_version")
+    @Nullable
+    private String modelVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    @Nullable
+    private EmotionStatus status;
+
+    @Column(name = "min_hash", length = MinHash.BYTES)
+    @Nullable
+    private byte[] minHash;
+
+    @Column(name = "duplicate_of")
+    @Nullable
+    private Long duplicateOf;
+
+    @Column(length = 8)
+    @Nullable
+    private String language;
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
 }
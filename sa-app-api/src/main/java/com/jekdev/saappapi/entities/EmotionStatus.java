@@ -0,0 +1,15 @@
+package com.jekdev.saappapi.entities;
+
+/**
+ * Scoring state of an {@link Emotion}.
+ * <p>
+ * - {@code SCORED}: type and score were returned by the sentiment provider.<br>
+ * - {@code PENDING}: the provider was unavailable when the emotion was created; type and score are {@code null} until
+ * the background retry scores it.
+ * <p>
+ * Rows created before the status column existed have a {@code null} status and are treated as {@code SCORED}.
+ */
+public enum EmotionStatus {
+    SCORED,
+    PENDING
+}
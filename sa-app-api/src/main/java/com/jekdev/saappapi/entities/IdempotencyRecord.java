@@ -0,0 +1,64 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A request made with an {@code Idempotency-Key} and, once it has finished, the response it received.
+ * <p>
+ * Fields:<br>
+ * - {@code idempotencyKey}: the endpoint path followed by the key sent by the client, so that the same key can be
+ * used on different endpoints.<br>
+ * - {@code fingerprint}: the SHA-256 hash of the request body; a retry with another body is rejected.<br>
+ * - {@code expiresAt}: the time after which the key is forgotten and may be used for a new request.<br>
+ * - {@code responseStatus}: the HTTP status of the response, {@code null} while the first request is in
+ * progress.<br>
+ * - {@code contentType} and {@code responseBody}: the response that is replayed to retries.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_record_expires_at",
+        columnList = "expires_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String idempotencyKey;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "response_status")
+    @Nullable
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 128)
+    @Nullable
+    private String contentType;
+
+    @Column(name = "response_body", length = 4000)
+    @Nullable
+    private String responseBody;
+
+    /**
+     * @return {@code true} once the first request has finished and its response can be replayed
+     */
+    public boolean isCompleted() {
+        return responseStatus != null;
+    }
+}
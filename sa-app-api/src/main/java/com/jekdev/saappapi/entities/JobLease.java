@@ -0,0 +1,43 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The lease of a background job that must only run on one replica at a time.
+ * <p>
+ * Fields:<br>
+ * - {@code name}: the name of the job, e.g. {@code emotion-archive}; there is one row per job.<br>
+ * - {@code leasedBy} and {@code leaseExpiresAt}: the replica currently running the job, so another replica only
+ * takes over once the lease is released or expired.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "job_lease")
+@NoArgsConstructor
+public class JobLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "leased_by", length = 128)
+    @Nullable
+    private String leasedBy;
+
+    @Column(name = "lease_expires_at")
+    @Nullable
+    private Instant leaseExpiresAt;
+
+    public JobLease(String name) {
+        this.name = name;
+    }
+}
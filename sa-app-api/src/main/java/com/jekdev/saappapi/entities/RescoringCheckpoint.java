@@ -0,0 +1,75 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress of the re-scoring run that brings all emotions to one model version.
+ * <p>
+ * Fields:<br>
+ * - {@code modelVersion}: the target model version; there is one run per version.<br>
+ * - {@code lastId}: the keyset cursor, the highest emotion id already handled. Updated in the transaction that writes
+ * the scores, so a resumed run continues exactly after the last committed page.<br>
+ * - {@code processed} and {@code total}: emotions re-scored so far and emotions that needed re-scoring when the run
+ * started.<br>
+ * - {@code activeMillis}: time spent processing pages, used for the throughput and ETA.<br>
+ * - {@code startedAt}, {@code updatedAt} and {@code completedAt}: lifecycle timestamps; {@code completedAt} is
+ * {@code null} while the run is unfinished.<br>
+ * - {@code leasedBy} and {@code leaseExpiresAt}: the replica currently running the job, so only one replica runs it
+ * at a time and another one takes over when the lease expires.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "rescoring_checkpoint")
+@NoArgsConstructor
+public class RescoringCheckpoint {
+
+    @Id
+    @Column(name = "model_version")
+    private String modelVersion;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(nullable = false)
+    private long processed;
+
+    @Column(nullable = false)
+    private long total;
+
+    @Column(name = "active_millis", nullable = false)
+    private long activeMillis;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    @Column(name = "completed_at")
+    @Nullable
+    private Instant completedAt;
+
+    @Column(name = "leased_by", length = 128)
+    @Nullable
+    private String leasedBy;
+
+    @Column(name = "lease_expires_at")
+    @Nullable
+    private Instant leaseExpiresAt;
+
+    public RescoringCheckpoint(String modelVersion, long total, Instant startedAt) {
+        this.modelVersion = modelVersion;
+        this.total = total;
+        this.startedAt = startedAt;
+        this.updatedAt = startedAt;
+    }
+}
@@ -0,0 +1,43 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Persisted snapshot of a serialized quantile sketch of signed sentiment scores.
+ * <p>
+ * Fields:<br>
+ * - {@code name}: {@code global} for the sketch over all emotions, {@code client-<id>} for the sketch of one
+ * client.<br>
+ * - {@code digest}: the serialized t-digest.<br>
+ * - {@code watermark}: the highest emotion id included when the snapshot was taken; emotions above it are replayed
+ * from the table on startup.<br>
+ * - {@code updatedAt}: the time of the snapshot.
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreSketch {
+
+    @Id
+    private String name;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] digest;
+
+    @Column(nullable = false)
+    private long watermark;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,48 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.annotation.Nullable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entry of the scoring work queue for an emotion that is waiting for the sentiment provider.
+ * <p>
+ * Fields:<br>
+ * - {@code emotionId}: the id of the pending emotion; there is at most one job per emotion.<br>
+ * - {@code attempts}: the number of failed scoring attempts so far.<br>
+ * - {@code availableAt}: the earliest time a worker may claim the job. A claim moves it to the end of the lease, so a
+ * job whose worker died becomes available again once the lease has expired; a failed attempt moves it to the end of
+ * the backoff.<br>
+ * - {@code leasedBy}: the worker holding the current lease, {@code null} if the job is not leased. Only the lease
+ * holder can complete or reschedule the job.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "scoring_job", indexes = @Index(name = "idx_scoring_job_available_at", columnList = "available_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoringJob {
+
+    @Id
+    @Column(name = "emotion_id")
+    private Long emotionId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "available_at", nullable = false)
+    private Instant availableAt;
+
+    @Column(name = "leased_by", length = 128)
+    @Nullable
+    private String leasedBy;
+}
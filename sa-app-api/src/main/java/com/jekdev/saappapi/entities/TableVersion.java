@@ -0,0 +1,33 @@
+package com.jekdev.saappapi.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The change counter of a table, incremented by every write to it.
+ * <p>
+ * Fields:<br>
+ * - {@code tableName}: the name of the counted table, e.g. {@code emotion}.<br>
+ * - {@code version}: the number of writes to the table so far; a table without a row has not been written to yet.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "table_version")
+@NoArgsConstructor
+@AllArgsConstructor
+public class TableVersion {
+
+    @Id
+    @Column(name = "table_name", length = 64)
+    private String tableName;
+
+    @Column(nullable = false)
+    private long version;
+}
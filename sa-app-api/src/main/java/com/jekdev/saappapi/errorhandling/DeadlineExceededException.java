@@ -0,0 +1,18 @@
+package com.jekdev.saappapi.errorhandling;
+
+/**
+ * Exception thrown when the deadline of a request has passed, or will pass before the sentiment provider can answer.
+ * The work of the request is abandoned and its transaction rolled back, since the client no longer waits for it. It is
+ * also thrown when a group commit of the write-behind buffer does not finish in time.
+ * <p>
+ * The {@link GlobalExceptionHandler} maps it to 504 Gateway Timeout.
+ *
+ * @see com.jekdev.saappapi.utils.RequestDeadline
+ * @see GlobalExceptionHandler
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -4,12 +4,14 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.time.LocalDateTime;
 import java.util.Map;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 /**
  * A centralized exception handler for managing and customizing the responses to application-specific exceptions. This
@@ -24,6 +26,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
  * - {@code PresentElementException}: Generates a 400 Bad Request response with an error message when there is a
  * conflict due to the element already being present.
  * <p>
+ * - {@code QuotaExceededException}: Generates a 429 Too Many Requests response with a {@code Retry-After} header when
+ * a client has used up its sentiment provider quota.
+ * <p>
+ * - {@code DeadlineExceededException}: Generates a 504 Gateway Timeout response when the deadline of the request has
+ * passed before its work could be done.
+ * <p>
  * Each exception handler returns a {@code ResponseEntity} containing a JSON response body with an error message.
  */
 @RestControllerAdvice
@@ -65,6 +73,38 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(Map.of("error", ex.getMessage()));
     }
 
+    /**
+     * Handles {@code QuotaExceededException} thrown when a client has used up its sentiment provider quota.
+     *
+     * @param ex
+     *            the {@code QuotaExceededException} instance carrying the time until the quota allows another request
+     *
+     * @return a {@code ResponseEntity} object with a 429 Too Many Requests status, a {@code Retry-After} header in
+     *         whole seconds and a body containing an error message in JSON format
+     */
+    @ExceptionHandler(value = QuotaExceededException.class, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, String>> handleQuotaExceededException(QuotaExceededException ex) {
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    /**
+     * Handles {@code DeadlineExceededException} thrown when the deadline sent by the client has passed, or will pass
+     * before the sentiment provider can answer, and when a write-behind group commit does not finish in time.
+     *
+     * @param ex
+     *            the {@code DeadlineExceededException} instance containing details about the error
+     *
+     * @return a {@code ResponseEntity} object with a 504 Gateway Timeout status and a body containing an error message
+     *         in JSON format
+     */
+    @ExceptionHandler(value = DeadlineExceededException.class, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, String>> handleDeadlineExceededException(DeadlineExceededException ex) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(Map.of("error", ex.getMessage()));
+    }
+
     /**
      * Handles {@code MethodArgumentNotValidException} thrown within the application. This method processes validation
      * errors, retrieves the first validation error message, and constructs a standardized JSON response containing
@@ -85,6 +125,27 @@ public class GlobalExceptionHandler {
         return buildErrorResponse(message, ex);
     }
 
+    /**
+     * Handles {@code HandlerMethodValidationException} raised when constraint annotations on controller method
+     * parameters, such as request parameters, are violated.
+     *
+     * @param ex
+     *            the {@code HandlerMethodValidationException} instance containing the violated constraints
+     *
+     * @return a {@code ResponseEntity} object with a 400 Bad Request status and a body containing the first validation
+     *         error message in JSON format
+     */
+    @ExceptionHandler(value = HandlerMethodValidationException.class, produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> handleParameterValidationErrors(HandlerMethodValidationException ex) {
+
+        String message = ex.getParameterValidationResults().stream().findFirst()
+                .map(result -> result.getMethodParameter().getParameterName() + ": "
+                        + result.getResolvableErrors().getFirst().getDefaultMessage())
+                .orElse("Validation failed");
+
+        return buildErrorResponse(message, ex);
+    }
+
     private ResponseEntity<Map<String, Object>> buildErrorResponse(String message, Exception ex) {
         Map<String, Object> error = Map.of("timestamp", LocalDateTime.now(), "status", 400, "error",
                 ex.getClass().getSimpleName(), "message", message);
@@ -0,0 +1,23 @@
+package com.jekdev.saappapi.errorhandling;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when a client has used up its quota of sentiment provider calls.
+ * <p>
+ * The {@link GlobalExceptionHandler} maps it to 429 Too Many Requests with a {@code Retry-After} header carrying
+ * {@link #getRetryAfter()} in whole seconds.
+ *
+ * @see GlobalExceptionHandler
+ */
+@Getter
+public class QuotaExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public QuotaExceededException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
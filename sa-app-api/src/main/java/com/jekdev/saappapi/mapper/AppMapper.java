@@ -7,6 +7,7 @@ import com.jekdev.saappapi.dto.EmotionResponse;
 import com.jekdev.saappapi.dto.EmotionSummary;
 import com.jekdev.saappapi.entities.Client;
 import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
 import java.util.List;
 import org.springframework.stereotype.Component;
 
@@ -123,4 +124,24 @@ public class AppMapper {
         ClientResponse clientResponse = new ClientResponse(emotion.getClient().getId(), emotion.getClient().getEmail());
         return new EmotionResponse(emotion.getId(), emotion.getText(), emotion.getType(), emotion.getScore(), clientResponse);
     }
+
+    /**
+     * Maps an {@link ArchivedEmotion} read from an archive segment to an {@link EmotionResponse} object.
+     * <p>
+     * Archived rows carry a denormalized copy of the client email, so the response is built without touching the
+     * client table. The duplicate and language are kept as archived, like those of a live emotion.
+     *
+     * @param emotion
+     *            the {@link ArchivedEmotion} to be mapped; must not be null
+     *
+     * @return an {@link EmotionResponse} object containing the archived emotion details and client information
+     */
+    public EmotionResponse mapArchivedEmotionToResponse(ArchivedEmotion emotion) {
+        ClientResponse clientResponse = new ClientResponse(emotion.clientId(), emotion.clientEmail());
+        EmotionResponse response =
+                new EmotionResponse(emotion.id(), emotion.text(), emotion.type(), emotion.score(), clientResponse);
+        response.setDuplicateOf(emotion.duplicateOf());
+        response.setLanguage(emotion.language());
+        return response;
+    }
 }
@@ -0,0 +1,276 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.dto.EmotionSummary;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Read-side repository that maps query results directly into the response DTOs.
+ *
+ * <p>The JPA repositories stay responsible for writes. The list and detail endpoints only need flat projections, so
+ * this repository reads them through {@link JdbcClient} and skips entity hydration, persistence-context dirty tracking
+ * and the extra {@code AppMapper} copy. Client lists are produced from a single ordered join instead of one lazy
+ * emotion collection per client.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmotionReadRepository {
+
+  private static final String EMOTION_SELECT =
+      """
+      SELECT e.id, e.text, e.type, e.score, e.duplicate_of, e.language, c.id AS client_id, c.email AS client_email
+      FROM emotion e
+      JOIN client c ON c.id = e.client_id
+      """;
+
+  private static final String CLIENT_SELECT =
+      """
+      SELECT c.id, c.email, e.id AS emotion_id, e.text, e.type, e.score
+      FROM client c
+      LEFT JOIN emotion e ON e.client_id = c.id
+      """;
+
+  private static final RowMapper<EmotionResponse> EMOTION_ROW_MAPPER =
+      (rs, rowNum) -> {
+        EmotionResponse emotion =
+            new EmotionResponse(
+                rs.getLong("id"),
+                rs.getString("text"),
+                rs.getString("type"),
+                nullableDouble(rs, "score"),
+                new ClientResponse(rs.getLong("client_id"), rs.getString("client_email")));
+        emotion.setDuplicateOf(rs.getObject("duplicate_of", Long.class));
+        emotion.setLanguage(rs.getString("language"));
+        return emotion;
+      };
+
+  private static final RowMapper<ArchivedEmotion> ARCHIVE_ROW_MAPPER =
+      (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new ArchivedEmotion(
+            rs.getLong("id"),
+            rs.getLong("client_id"),
+            rs.getString("client_email"),
+            rs.getString("text"),
+            rs.getString("type"),
+            nullableDouble(rs, "score"),
+            createdAt == null ? null : createdAt.toInstant(),
+            rs.getString("model_version"),
+            rs.getObject("duplicate_of", Long.class),
+            rs.getString("language"));
+      };
+
+  private static final RowMapper<ScoredSignature> SIGNATURE_ROW_MAPPER =
+      (rs, rowNum) ->
+          new ScoredSignature(
+              rs.getLong("id"),
+              rs.getString("text"),
+              rs.getString("type"),
+              rs.getDouble("score"),
+              rs.getString("model_version"),
+              rs.getBytes("min_hash"));
+
+  private final JdbcClient jdbcClient;
+
+  /**
+   * Reads all emotions together with their owning client.
+   *
+   * @return every stored emotion ordered by id
+   */
+  public List<EmotionResponse> findAllEmotions() {
+    return jdbcClient.sql(EMOTION_SELECT + "ORDER BY e.id").query(EMOTION_ROW_MAPPER).list();
+  }
+
+  /**
+   * Reads all emotions in one language together with their owning client.
+   *
+   * @param language the ISO 639-1 language code
+   * @return the emotions detected as {@code language}, ordered by id
+   */
+  public List<EmotionResponse> findAllEmotions(String language) {
+    return jdbcClient
+        .sql(EMOTION_SELECT + "WHERE e.language = :language ORDER BY e.id")
+        .param("language", language)
+        .query(EMOTION_ROW_MAPPER)
+        .list();
+  }
+
+  /**
+   * Reads a single emotion together with its owning client.
+   *
+   * @param id the emotion id
+   * @return the emotion, or an empty optional if the hot table has no emotion with this id
+   */
+  public Optional<EmotionResponse> findEmotionById(Long id) {
+    return jdbcClient.sql(EMOTION_SELECT + "WHERE e.id = :id").param("id", id).query(EMOTION_ROW_MAPPER).optional();
+  }
+
+  /**
+   * Streams all emotions in id order to the given consumer without materializing the full list.
+   *
+   * @param consumer receives each emotion
+   */
+  public void forEachEmotion(Consumer<EmotionResponse> consumer) {
+    forEachEmotionAfter(0, consumer);
+  }
+
+  /**
+   * Streams all emotions with an id greater than {@code afterId} in id order to the given consumer.
+   *
+   * @param afterId exclusive lower bound of the emotion ids
+   * @param consumer receives each emotion
+   */
+  public void forEachEmotionAfter(long afterId, Consumer<EmotionResponse> consumer) {
+    jdbcClient
+        .sql(EMOTION_SELECT + "WHERE e.id > :afterId ORDER BY e.id")
+        .param("afterId", afterId)
+        .query((ResultSet rs) -> consumer.accept(EMOTION_ROW_MAPPER.mapRow(rs, rs.getRow())));
+  }
+
+  /**
+   * Streams the scored emotions with their MinHash signature in id order. Emotions stored before signatures existed
+   * are returned with a {@code null} signature and their text.
+   *
+   * @param consumer receives each scored emotion
+   */
+  public void forEachScoredSignature(Consumer<ScoredSignature> consumer) {
+    jdbcClient
+        .sql(
+            """
+            SELECT id, text, type, score, model_version, min_hash
+            FROM emotion
+            WHERE type IS NOT NULL AND score IS NOT NULL
+            ORDER BY id
+            """)
+        .query((ResultSet rs) -> consumer.accept(SIGNATURE_ROW_MAPPER.mapRow(rs, rs.getRow())));
+  }
+
+  /**
+   * Reads the scored emotion with its MinHash signature.
+   *
+   * @param id the emotion id
+   * @return the emotion, or an empty optional if it does not exist or is not scored
+   */
+  public Optional<ScoredSignature> findScoredSignature(long id) {
+    return jdbcClient
+        .sql(
+            """
+            SELECT id, text, type, score, model_version, min_hash
+            FROM emotion
+            WHERE id = :id AND type IS NOT NULL AND score IS NOT NULL
+            """)
+        .param("id", id)
+        .query(SIGNATURE_ROW_MAPPER)
+        .optional();
+  }
+
+  /**
+   * Reads the oldest emotions created before the cutoff, in id order. Rows without a creation timestamp predate the
+   * column and are always considered cold. Pending emotions stay in the table until they are scored.
+   *
+   * @param cutoff only emotions created strictly before this instant are returned
+   * @param afterId exclusive lower bound of the returned ids
+   * @param upToId inclusive upper bound of the returned ids
+   * @param limit maximum number of rows
+   * @return the archive candidates with their client email denormalized
+   */
+  public List<ArchivedEmotion> findArchiveCandidates(Instant cutoff, long afterId, long upToId, int limit) {
+    return jdbcClient
+        .sql(
+            """
+            SELECT e.id, e.text, e.type, e.score, e.created_at, e.model_version, e.duplicate_of, e.language,
+                   c.id AS client_id, c.email AS client_email
+            FROM emotion e
+            JOIN client c ON c.id = e.client_id
+            WHERE e.id > :afterId AND e.id <= :upToId
+              AND (e.created_at IS NULL OR e.created_at < :cutoff)
+              AND (e.status IS NULL OR e.status <> 'PENDING')
+            ORDER BY e.id
+            LIMIT :limit
+            """)
+        .param("afterId", afterId)
+        .param("upToId", upToId)
+        .param("cutoff", Timestamp.from(cutoff))
+        .param("limit", limit)
+        .query(ARCHIVE_ROW_MAPPER)
+        .list();
+  }
+
+  /**
+   * Reads all clients with their emotion summaries from one ordered join.
+   *
+   * @return every stored client ordered by id; clients without emotions carry a {@code null} emotion list
+   */
+  public List<ClientResponse> findAllClients() {
+    return jdbcClient.sql(CLIENT_SELECT + "ORDER BY c.id, e.id").query(this::groupClients);
+  }
+
+  /**
+   * Reads a single client with its emotion summaries.
+   *
+   * @param id the client id
+   * @return the client, or an empty optional if no client has this id
+   */
+  public Optional<ClientResponse> findClientById(Long id) {
+    List<ClientResponse> clients =
+        jdbcClient.sql(CLIENT_SELECT + "WHERE c.id = :id ORDER BY e.id").param("id", id).query(this::groupClients);
+    return clients.stream().findFirst();
+  }
+
+  private List<ClientResponse> groupClients(ResultSet rs) throws SQLException {
+    List<ClientResponse> clients = new ArrayList<>();
+    ClientResponse current = null;
+    List<EmotionSummary> emotions = null;
+
+    while (rs.next()) {
+      long clientId = rs.getLong("id");
+      if (current == null || current.getId() != clientId) {
+        emotions = null;
+        current = new ClientResponse(clientId, rs.getString("email"));
+        clients.add(current);
+      }
+
+      long emotionId = rs.getLong("emotion_id");
+      if (rs.wasNull()) {
+        continue;
+      }
+      if (emotions == null) {
+        emotions = new ArrayList<>();
+        current.setEmotions(emotions);
+      }
+      emotions.add(new EmotionSummary(emotionId, rs.getString("text"), rs.getString("type"), nullableDouble(rs, "score")));
+    }
+    return clients;
+  }
+
+  /**
+   * A scored emotion as needed by the near-duplicate index.
+   *
+   * @param id the emotion id
+   * @param text the emotion text
+   * @param type the sentiment label
+   * @param score the sentiment score
+   * @param modelVersion the model that produced the score, or {@code null} for rows scored before versions existed
+   * @param minHash the serialized MinHash signature, or {@code null} for rows stored before signatures existed
+   */
+  public record ScoredSignature(
+      long id, String text, String type, double score, String modelVersion, byte[] minHash) {}
+
+  private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+    double value = rs.getDouble(column);
+    return rs.wasNull() ? null : value;
+  }
+}
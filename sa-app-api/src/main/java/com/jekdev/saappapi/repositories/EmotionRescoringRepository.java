@@ -0,0 +1,95 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.utils.SentimentResult;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keyset reads and JDBC batch writes for the re-scoring job.
+ *
+ * <p>Pages are read with {@code WHERE id > :cursor ORDER BY id LIMIT :size}, which uses the primary key index and costs
+ * the same on the last page as on the first, unlike {@code OFFSET}. Scores are written with one JDBC batch per page
+ * instead of an entity merge per row. Pending emotions are skipped; the scoring queue scores them with the current
+ * model.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EmotionRescoringRepository {
+
+  private static final String STALE =
+      "(model_version IS NULL OR model_version <> ?) AND (status IS NULL OR status <> 'PENDING')";
+
+  private static final RowMapper<RescoringCandidate> CANDIDATE_ROW_MAPPER =
+      (rs, rowNum) ->
+          new RescoringCandidate(
+              rs.getLong("id"),
+              rs.getLong("client_id"),
+              rs.getString("text"),
+              rs.getString("type"),
+              rs.getObject("score") == null ? null : rs.getDouble("score"));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Counts the emotions that were not scored by the given model.
+   *
+   * @param modelVersion the target model version
+   * @return the number of emotions to re-score
+   */
+  public long countStale(String modelVersion) {
+    Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM emotion WHERE " + STALE, Long.class, modelVersion);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Reads the next page of emotions that were not scored by the given model.
+   *
+   * @param afterId exclusive lower bound of the emotion ids
+   * @param modelVersion the target model version
+   * @param limit the page size
+   * @return up to {@code limit} emotions ordered by id
+   */
+  public List<RescoringCandidate> findPage(long afterId, String modelVersion, int limit) {
+    return jdbcTemplate.query(
+        "SELECT id, client_id, text, type, score FROM emotion WHERE id > ? AND " + STALE + " ORDER BY id LIMIT ?",
+        CANDIDATE_ROW_MAPPER,
+        afterId,
+        modelVersion,
+        limit);
+  }
+
+  /**
+   * Writes new scores as one JDBC batch. Runs in the caller's transaction.
+   *
+   * @param candidates the re-scored emotions
+   * @param results the new sentiments, in the order of {@code candidates}
+   * @param modelVersion the model that produced the sentiments
+   * @return the number of updated rows per emotion; {@code 0} if the emotion was deleted meanwhile
+   */
+  public int[] updateScores(List<RescoringCandidate> candidates, List<SentimentResult> results, String modelVersion) {
+    List<Object[]> arguments =
+        IntStream.range(0, candidates.size())
+            .mapToObj(
+                i ->
+                    new Object[] {
+                      results.get(i).label(), results.get(i).score(), modelVersion, candidates.get(i).id()
+                    })
+            .toList();
+    return jdbcTemplate.batchUpdate("UPDATE emotion SET type = ?, score = ?, model_version = ? WHERE id = ?", arguments);
+  }
+
+  /**
+   * An emotion to re-score, with its current sentiment.
+   *
+   * @param id the emotion id
+   * @param clientId the id of the owning client
+   * @param text the emotion text
+   * @param type the current label, {@code null} if never scored
+   * @param score the current score, {@code null} if never scored
+   */
+  public record RescoringCandidate(long id, long clientId, String text, String type, Double score) {}
+}
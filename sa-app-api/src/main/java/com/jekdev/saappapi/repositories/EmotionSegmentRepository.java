@@ -0,0 +1,430 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Stores archived emotions in compressed, append-only segment files on local disk.
+ *
+ * <p>Each archive run writes one immutable segment. Records are sorted by id and grouped into blocks of
+ * {@code emotion.archive.block-size} records; every block is deflate-compressed on its own. The segment ends with a
+ * footer listing the id range, offset and length of each block. At startup the footers of all segments are loaded into
+ * a sparse in-memory index (one entry per block), so a lookup by id inflates a single block instead of the whole file.
+ * Segments never overlap: every segment only holds ids above the {@link #highestId() highest archived id}, so the block
+ * covering an id is the one with the greatest first id at or below it.
+ *
+ * <p>Segment layout:
+ *
+ * <pre>
+ * [block 0] ... [block n-1]
+ * [firstId, lastId, offset, length] x n
+ * [footerOffset: long][blockCount: int][version: byte][magic: int]
+ * </pre>
+ *
+ * <p>The version byte names the record layout of the segment's blocks. Version 2 adds the model version, duplicate
+ * and language of each emotion; segments of the first layout end with a different magic and no version byte, and are
+ * still read, with those fields left empty.
+ *
+ * <p>Segments are written to a temporary file, forced to disk and atomically renamed, so a crash never leaves a
+ * partially written segment visible.
+ *
+ * <p>The directory may be shared by several replicas, only one of which writes at a time. {@link #refresh()} adds the
+ * segments written by another replica to the index; it runs before every append, before a full scan and after a
+ * lookup misses, so a replica never overlaps or misses a segment it has not seen yet.
+ */
+@Slf4j
+@Repository
+public class EmotionSegmentRepository {
+
+  private static final int LEGACY_MAGIC = 0x454d5331; // "EMS1", no version byte
+  private static final int MAGIC = 0x454d5356; // "EMSV"
+  private static final int LEGACY_TAIL_BYTES = Long.BYTES + Integer.BYTES + Integer.BYTES;
+  private static final int TAIL_BYTES = LEGACY_TAIL_BYTES + Byte.BYTES;
+  private static final byte LEGACY_VERSION = 1;
+  private static final byte VERSION = 2;
+  private static final int BLOCK_ENTRY_BYTES = Long.BYTES * 3 + Integer.BYTES;
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+  private static final long NO_DUPLICATE = -1;
+
+  private final Path directory;
+  private final int blockSize;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<Long, Block> index = new TreeMap<>();
+  private final Set<Path> segments = new HashSet<>();
+
+  /**
+   * Opens the archive directory and loads the sparse block index of every existing segment.
+   *
+   * @param directory directory holding the segment files; created on the first write
+   * @param blockSize number of records per compressed block
+   */
+  public EmotionSegmentRepository(
+      @Value("${emotion.archive.directory:data/archive}") Path directory,
+      @Value("${emotion.archive.block-size:128}") int blockSize) {
+    this.directory = directory;
+    this.blockSize = blockSize;
+    refresh();
+  }
+
+  /**
+   * Writes the given emotions as a new segment and makes them visible to lookups.
+   *
+   * @param emotions the emotions to archive; may be in any order, but all above the {@link #highestId() highest
+   *     archived id}
+   * @throws IllegalArgumentException if an emotion is not above the highest archived id
+   */
+  public void append(List<ArchivedEmotion> emotions) {
+    if (emotions.isEmpty()) {
+      return;
+    }
+    List<ArchivedEmotion> sorted = emotions.stream().sorted(Comparator.comparingLong(ArchivedEmotion::id)).toList();
+    String name =
+        "emotions-%019d-%019d-%d%s"
+            .formatted(sorted.getFirst().id(), sorted.getLast().id(), System.currentTimeMillis(), SEGMENT_SUFFIX);
+
+    lock.writeLock().lock();
+    try {
+      refresh();
+      long highestId = highestId();
+      if (sorted.getFirst().id() <= highestId) {
+        throw new IllegalArgumentException(
+            "Emotion " + sorted.getFirst().id() + " is not above the highest archived id " + highestId);
+      }
+      Files.createDirectories(directory);
+      Path target = directory.resolve(name);
+      Path temp = directory.resolve(name + ".tmp");
+      List<Block> blocks = writeSegment(temp, target, sorted);
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+      blocks.forEach(block -> index.put(block.firstId(), block));
+      segments.add(target);
+      log.info("Archived {} emotions into segment {} ({} blocks)", sorted.size(), target.getFileName(), blocks.size());
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to write archive segment " + name, exception);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the segments that appeared in the directory since the last refresh, such as those written by another
+   * replica, to the index.
+   *
+   * @return {@code true} if a new segment was found
+   */
+  public boolean refresh() {
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+    lock.writeLock().lock();
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> added =
+          files
+              .filter(file -> file.toString().endsWith(SEGMENT_SUFFIX))
+              .filter(file -> !segments.contains(file))
+              .sorted()
+              .toList();
+      for (Path segment : added) {
+        for (Block block : readFooter(segment)) {
+          Map.Entry<Long, Block> floor = index.floorEntry(block.lastId());
+          if (floor != null && floor.getValue().lastId() >= block.firstId()) {
+            log.warn(
+                "Skipping block {}-{} of segment {}: it overlaps segment {}",
+                block.firstId(),
+                block.lastId(),
+                segment.getFileName(),
+                floor.getValue().segment().getFileName());
+            continue;
+          }
+          index.put(block.firstId(), block);
+        }
+        segments.add(segment);
+      }
+      if (!added.isEmpty()) {
+        log.info("Loaded {} archive segments into the index ({} blocks in total)", added.size(), index.size());
+      }
+      return !added.isEmpty();
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to load archive index from " + directory, exception);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Looks up an archived emotion by id, inflating only the block whose id range covers it.
+   *
+   * @param id the emotion id
+   * @return the archived emotion, or an empty optional if it was never archived
+   */
+  public Optional<ArchivedEmotion> findById(long id) {
+    Optional<ArchivedEmotion> found = lookup(id);
+    return found.isPresent() || !refresh() ? found : lookup(id);
+  }
+
+  private Optional<ArchivedEmotion> lookup(long id) {
+    lock.readLock().lock();
+    try {
+      Map.Entry<Long, Block> entry = index.floorEntry(id);
+      if (entry == null || entry.getValue().lastId() < id) {
+        return Optional.empty();
+      }
+      return readBlock(entry.getValue()).stream().filter(emotion -> emotion.id() == id).findFirst();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the highest archived emotion id, or {@code 0} if nothing was archived yet
+   */
+  public long highestId() {
+    lock.readLock().lock();
+    try {
+      return index.isEmpty() ? 0 : index.lastEntry().getValue().lastId();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the lowest emotion id of the most recently written segment, or {@code 0} if nothing was archived yet
+   */
+  public long lastSegmentFirstId() {
+    lock.readLock().lock();
+    try {
+      if (index.isEmpty()) {
+        return 0;
+      }
+      Path last = index.lastEntry().getValue().segment();
+      long firstId = index.lastKey();
+      for (Block block : index.descendingMap().values()) {
+        if (!block.segment().equals(last)) {
+          break;
+        }
+        firstId = block.firstId();
+      }
+      return firstId;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Streams every archived emotion to the given consumer, block by block in ascending id order.
+   *
+   * @param consumer receives each archived emotion
+   */
+  public void forEach(Consumer<ArchivedEmotion> consumer) {
+    refresh();
+    lock.readLock().lock();
+    try {
+      for (Block block : index.values()) {
+        readBlock(block).forEach(consumer);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private List<Block> writeSegment(Path temp, Path target, List<ArchivedEmotion> sorted) throws IOException {
+    List<Block> blocks = new ArrayList<>();
+    try (FileChannel channel =
+        FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      long offset = 0;
+      for (int start = 0; start < sorted.size(); start += blockSize) {
+        List<ArchivedEmotion> records = sorted.subList(start, Math.min(start + blockSize, sorted.size()));
+        byte[] compressed = compress(records);
+        offset += writeFully(channel, ByteBuffer.wrap(compressed));
+        blocks.add(
+            new Block(
+                target,
+                VERSION,
+                records.getFirst().id(),
+                records.getLast().id(),
+                offset - compressed.length,
+                compressed.length));
+      }
+
+      ByteBuffer footer = ByteBuffer.allocate(blocks.size() * BLOCK_ENTRY_BYTES + TAIL_BYTES);
+      for (Block block : blocks) {
+        footer.putLong(block.firstId()).putLong(block.lastId()).putLong(block.offset()).putInt(block.length());
+      }
+      footer.putLong(offset).putInt(blocks.size()).put(VERSION).putInt(MAGIC).flip();
+      writeFully(channel, footer);
+      channel.force(true);
+    }
+    return blocks;
+  }
+
+  private byte[] compress(List<ArchivedEmotion> records) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+      out.writeInt(records.size());
+      for (ArchivedEmotion emotion : records) {
+        out.writeLong(emotion.id());
+        out.writeLong(emotion.clientId());
+        writeString(out, emotion.clientEmail());
+        writeString(out, emotion.text());
+        writeString(out, emotion.type());
+        out.writeBoolean(emotion.score() != null);
+        out.writeDouble(emotion.score() == null ? 0 : emotion.score());
+        out.writeLong(emotion.createdAt() == null ? NO_TIMESTAMP : emotion.createdAt().toEpochMilli());
+        writeString(out, emotion.modelVersion());
+        out.writeLong(emotion.duplicateOf() == null ? NO_DUPLICATE : emotion.duplicateOf());
+        writeString(out, emotion.language());
+      }
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+  private List<ArchivedEmotion> readBlock(Block block) {
+    ByteBuffer buffer = ByteBuffer.allocate(block.length());
+    try (FileChannel channel = FileChannel.open(block.segment(), StandardOpenOption.READ)) {
+      readFully(channel, buffer, block.offset());
+      try (DataInputStream in =
+          new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(buffer.array())))) {
+        int count = in.readInt();
+        List<ArchivedEmotion> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          long id = in.readLong();
+          long clientId = in.readLong();
+          String email = readString(in);
+          String text = readString(in);
+          String type = readString(in);
+          boolean hasScore = in.readBoolean();
+          double score = in.readDouble();
+          long createdAt = in.readLong();
+          String modelVersion = null;
+          long duplicateOf = NO_DUPLICATE;
+          String language = null;
+          if (block.version() >= VERSION) {
+            modelVersion = readString(in);
+            duplicateOf = in.readLong();
+            language = readString(in);
+          }
+          records.add(
+              new ArchivedEmotion(
+                  id,
+                  clientId,
+                  email,
+                  text,
+                  type,
+                  hasScore ? score : null,
+                  createdAt == NO_TIMESTAMP ? null : Instant.ofEpochMilli(createdAt),
+                  modelVersion,
+                  duplicateOf == NO_DUPLICATE ? null : duplicateOf,
+                  language));
+        }
+        return records;
+      }
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Failed to read archive block of " + block.segment(), exception);
+    }
+  }
+
+  private List<Block> readFooter(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+      readFully(channel, magic, size - Integer.BYTES);
+      int tailBytes =
+          switch (magic.getInt()) {
+            case MAGIC -> TAIL_BYTES;
+            case LEGACY_MAGIC -> LEGACY_TAIL_BYTES;
+            default -> throw new IOException("Not an emotion archive segment: " + segment);
+          };
+      ByteBuffer tail = ByteBuffer.allocate(tailBytes);
+      readFully(channel, tail, size - tailBytes);
+      long footerOffset = tail.getLong();
+      int blockCount = tail.getInt();
+      byte version = tailBytes == TAIL_BYTES ? tail.get() : LEGACY_VERSION;
+      if (version > VERSION) {
+        throw new IOException("Unsupported archive segment version " + version + ": " + segment);
+      }
+
+      ByteBuffer footer = ByteBuffer.allocate(blockCount * BLOCK_ENTRY_BYTES);
+      readFully(channel, footer, footerOffset);
+      List<Block> blocks = new ArrayList<>(blockCount);
+      for (int i = 0; i < blockCount; i++) {
+        blocks.add(new Block(segment, version, footer.getLong(), footer.getLong(), footer.getLong(), footer.getInt()));
+      }
+      return blocks;
+    }
+  }
+
+  private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    long written = 0;
+    while (buffer.hasRemaining()) {
+      written += channel.write(buffer);
+    }
+    return written;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long current = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, current);
+      if (read < 0) {
+        throw new IOException("Unexpected end of archive segment");
+      }
+      current += read;
+    }
+    buffer.flip();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /** Sparse index entry: the record layout, id range and location of one compressed block. */
+  private record Block(Path segment, byte version, long firstId, long lastId, long offset, int length) {}
+}
@@ -0,0 +1,291 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.EmotionStatus;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Optional group-commit path for scored emotions.
+ *
+ * <p>Callers {@link #submit(PendingEmotion) submit} a scored row and receive a future. A single flusher thread drains
+ * the bounded buffer and writes up to {@code emotion.write-behind.max-batch-size} rows, or whatever arrived within
+ * {@code emotion.write-behind.max-delay} of the first row, as one multi-row {@code INSERT} in its own transaction,
+ * which also increments the {@code emotion} counter of the {@link TableVersionStore} once for the whole batch. That is
+ * one commit, and one fsync on MariaDB, per batch instead of per emotion. Futures complete with the generated id only
+ * after the batch has committed, or exceptionally if the insert failed, so a caller that waits on its future gets the
+ * same durability as a direct save. If a batch fails, its rows are retried one insert each, so a single bad row, for
+ * example one whose client was deleted meanwhile, fails only its own future.
+ *
+ * <p>Every row's future needs the id generated for it. MariaDB Connector/J returns only the first id of a multi-row
+ * {@code INSERT} unless the datasource URL sets {@code returnMultiValuesGeneratedIds=true}; if the driver returns fewer
+ * ids than rows, the batch is rolled back and its futures fail instead of completing without an id.
+ *
+ * <p>When the buffer is full, {@link #submit(PendingEmotion)} blocks until the flusher has made room, which pushes back
+ * on request threads instead of growing memory. On shutdown the flusher writes every buffered row before it exits.
+ */
+@Slf4j
+@Repository
+public class EmotionWriteBehindBuffer implements SmartLifecycle {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TableVersionStore tableVersionStore;
+  private final TransactionTemplate transactionTemplate;
+  private final boolean enabled;
+  private final int maxBatchSize;
+  private final Duration maxDelay;
+  private final boolean virtualThreads;
+  private final BlockingQueue<Entry> buffer;
+  private final AtomicLong flushedBatches = new AtomicLong();
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  /**
+   * @param jdbcTemplate the template used for the batched inserts
+   * @param tableVersionStore the store of the change counters, incremented once per batch
+   * @param transactionManager the manager of the batch transactions
+   * @param enabled whether the write-behind mode is active
+   * @param capacity maximum number of buffered rows
+   * @param maxBatchSize maximum number of rows per insert
+   * @param maxDelay maximum time the first row of a batch waits for more rows
+   * @param virtualThreads whether the flusher runs on a virtual thread
+   */
+  public EmotionWriteBehindBuffer(
+      JdbcTemplate jdbcTemplate,
+      TableVersionStore tableVersionStore,
+      PlatformTransactionManager transactionManager,
+      @Value("${emotion.write-behind.enabled:false}") boolean enabled,
+      @Value("${emotion.write-behind.capacity:10000}") int capacity,
+      @Value("${emotion.write-behind.max-batch-size:100}") int maxBatchSize,
+      @Value("${emotion.write-behind.max-delay:10ms}") Duration maxDelay,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.tableVersionStore = tableVersionStore;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.enabled = enabled;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelay = maxDelay;
+    this.virtualThreads = virtualThreads;
+    this.buffer = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * @return {@code true} if emotions should be written through this buffer
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Buffers a scored emotion for the next group commit, blocking while the buffer is full.
+   *
+   * @param emotion the row to insert
+   * @return a future completed with the generated id once the row's batch has committed
+   */
+  public CompletableFuture<Long> submit(PendingEmotion emotion) {
+    if (!running) {
+      throw new IllegalStateException("The emotion write-behind buffer is not running");
+    }
+    Entry entry = new Entry(emotion, new CompletableFuture<>());
+    try {
+      buffer.put(entry);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      entry.result().completeExceptionally(exception);
+    }
+    return entry.result();
+  }
+
+  /**
+   * @return the number of batches written since startup
+   */
+  public long getFlushedBatches() {
+    return flushedBatches.get();
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    Thread.Builder thread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+    flusher = thread.name("emotion-write-behind").start(this::flushLoop);
+    log.info("Emotion write-behind enabled: batches of up to {} rows or {} ms", maxBatchSize, maxDelay.toMillis());
+  }
+
+  @Override
+  public void stop() {
+    if (flusher == null) {
+      return;
+    }
+    running = false;
+    try {
+      flusher.join();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    flusher = null;
+    List<Entry> late = new ArrayList<>();
+    buffer.drainTo(late);
+    late.forEach(
+        entry -> entry.result().completeExceptionally(new IllegalStateException("Write-behind buffer stopped")));
+  }
+
+  /**
+   * Starts before and stops after the embedded web server, so requests still in flight during a graceful shutdown
+   * can complete their group commit.
+   */
+  @Override
+  public int getPhase() {
+    return DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void flushLoop() {
+    List<Entry> batch = new ArrayList<>(maxBatchSize);
+    while (running || !buffer.isEmpty()) {
+      try {
+        Entry first = buffer.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < maxBatchSize) {
+          Entry next = buffer.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        flush(batch);
+      } catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+        return;
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(List<Entry> batch) {
+    StringBuilder sql =
+        new StringBuilder(
+            "INSERT INTO emotion (text, type, score, model_version, status, client_id, created_at, min_hash,"
+                + " duplicate_of, language) VALUES ");
+    for (int i = 0; i < batch.size(); i++) {
+      sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+    Timestamp createdAt = Timestamp.from(Instant.now());
+    KeyHolder keyHolder = new GeneratedKeyHolder();
+
+    try {
+      transactionTemplate.executeWithoutResult(status -> insert(sql.toString(), batch, createdAt, keyHolder));
+      flushedBatches.incrementAndGet();
+    } catch (IllegalStateException exception) {
+      log.error("Write-behind batch rolled back without an id for every emotion", exception);
+      batch.forEach(entry -> entry.result().completeExceptionally(exception));
+      return;
+    } catch (RuntimeException exception) {
+      if (batch.size() > 1) {
+        log.warn("Write-behind batch of {} emotions failed, inserting them one by one", batch.size(), exception);
+        batch.forEach(entry -> flush(List.of(entry)));
+      } else {
+        log.error("Write-behind insert of an emotion failed", exception);
+        batch.getFirst().result().completeExceptionally(exception);
+      }
+      return;
+    }
+
+    List<Map<String, Object>> keys = keyHolder.getKeyList();
+    for (int i = 0; i < batch.size(); i++) {
+      batch.get(i).result().complete(((Number) keys.get(i).values().iterator().next()).longValue());
+    }
+    log.debug("Write-behind committed {} emotions in one batch", batch.size());
+  }
+
+  /**
+   * Inserts the batch and counts it in the {@link TableVersionStore}. Must run in the batch transaction, which is
+   * rolled back if the driver does not return an id for every row.
+   */
+  private void insert(String sql, List<Entry> batch, Timestamp createdAt, KeyHolder keyHolder) {
+    jdbcTemplate.update(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(sql, new String[] {"id"});
+          int index = 1;
+          for (Entry entry : batch) {
+            PendingEmotion emotion = entry.emotion();
+            statement.setString(index++, emotion.text());
+            statement.setString(index++, emotion.type());
+            statement.setDouble(index++, emotion.score());
+            statement.setString(index++, emotion.modelVersion());
+            statement.setString(index++, EmotionStatus.SCORED.name());
+            statement.setLong(index++, emotion.clientId());
+            statement.setTimestamp(index++, createdAt);
+            statement.setBytes(index++, emotion.minHash());
+            statement.setObject(index++, emotion.duplicateOf(), Types.BIGINT);
+            statement.setString(index++, emotion.language());
+          }
+          return statement;
+        },
+        keyHolder);
+    if (keyHolder.getKeyList().size() != batch.size()) {
+      throw new IllegalStateException(
+          "The driver returned "
+              + keyHolder.getKeyList().size()
+              + " generated ids for a batch of "
+              + batch.size()
+              + " emotions; set returnMultiValuesGeneratedIds=true on the MariaDB datasource URL");
+    }
+    tableVersionStore.bump(TableVersionStore.EMOTION_TABLE);
+  }
+
+  /**
+   * A scored emotion waiting in the buffer.
+   *
+   * @param text the emotion text
+   * @param type the sentiment label
+   * @param score the sentiment score
+   * @param modelVersion the model that produced the score
+   * @param clientId the id of the owning client, which must already be committed
+   * @param minHash the MinHash signature of the text, or {@code null}
+   * @param duplicateOf the id of a near-duplicate emotion, or {@code null}
+   * @param language the detected language, or {@code null}
+   */
+  public record PendingEmotion(
+      String text,
+      String type,
+      double score,
+      String modelVersion,
+      long clientId,
+      byte[] minHash,
+      Long duplicateOf,
+      String language) {}
+
+  private record Entry(PendingEmotion emotion, CompletableFuture<Long> result) {}
+}
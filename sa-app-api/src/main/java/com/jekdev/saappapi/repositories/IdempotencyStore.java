@@ -0,0 +1,118 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.IdempotencyRecord;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Store of {@link IdempotencyRecord idempotency records} in the {@code idempotency_record} table, shared by all
+ * replicas.
+ *
+ * <p>A request {@link #claim(String, String, Instant, Instant) claims} its key by inserting the record; the primary key
+ * guarantees that exactly one request of all replicas wins. The winner later {@link #complete completes} the record
+ * with its response, or {@link #release(String) releases} it if the response must not be replayed. Every statement
+ * runs in auto-commit mode, so a claim is visible to other replicas at once and no connection is held while the
+ * request is processed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+  private static final RowMapper<IdempotencyRecord> RECORD_ROW_MAPPER =
+      (rs, rowNum) ->
+          new IdempotencyRecord(
+              rs.getString("idempotency_key"),
+              rs.getString("fingerprint"),
+              rs.getTimestamp("expires_at").toInstant(),
+              rs.getObject("response_status", Integer.class),
+              rs.getString("content_type"),
+              rs.getString("response_body"));
+
+  private final JdbcClient jdbcClient;
+
+  /**
+   * Claims a key for a new request until {@code expiresAt}. An expired record of the key is replaced, also one whose
+   * request never finished because its replica died.
+   *
+   * @param key the scoped idempotency key
+   * @param fingerprint the fingerprint of the request
+   * @param now the current time
+   * @param expiresAt the end of the lease of the claim
+   * @return {@code true} if the key was claimed, {@code false} if another request holds it
+   */
+  public boolean claim(String key, String fingerprint, Instant now, Instant expiresAt) {
+    jdbcClient
+        .sql("DELETE FROM idempotency_record WHERE idempotency_key = ? AND expires_at <= ?")
+        .params(key, Timestamp.from(now))
+        .update();
+    try {
+      jdbcClient
+          .sql("INSERT INTO idempotency_record (idempotency_key, fingerprint, expires_at) VALUES (?, ?, ?)")
+          .params(key, fingerprint, Timestamp.from(expiresAt))
+          .update();
+      return true;
+    } catch (DuplicateKeyException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * @param key the scoped idempotency key
+   * @return the record of the key, if there is one
+   */
+  public Optional<IdempotencyRecord> find(String key) {
+    return jdbcClient
+        .sql("SELECT * FROM idempotency_record WHERE idempotency_key = ?")
+        .param(key)
+        .query(RECORD_ROW_MAPPER)
+        .optional();
+  }
+
+  /**
+   * Stores the response of a claimed key, which is replayed to every retry from then on, and extends the record to
+   * the ttl of stored responses. A key whose claim was taken over after its lease expired keeps the response of the
+   * request that completes first.
+   *
+   * @param key the scoped idempotency key
+   * @param status the HTTP status of the response
+   * @param contentType the content type of the response, may be {@code null}
+   * @param body the body of the response
+   * @param expiresAt the time the stored response expires
+   */
+  public void complete(String key, int status, String contentType, String body, Instant expiresAt) {
+    jdbcClient
+        .sql(
+            "UPDATE idempotency_record SET response_status = ?, content_type = ?, response_body = ?, expires_at = ?"
+                + " WHERE idempotency_key = ? AND response_status IS NULL")
+        .params(status, contentType, body, Timestamp.from(expiresAt), key)
+        .update();
+  }
+
+  /**
+   * Deletes a claimed key, so that the next retry is processed as a new request.
+   *
+   * @param key the scoped idempotency key
+   */
+  public void release(String key) {
+    jdbcClient.sql("DELETE FROM idempotency_record WHERE idempotency_key = ?").param(key).update();
+  }
+
+  /**
+   * Deletes every expired record.
+   *
+   * @param now the current time
+   * @return the number of deleted records
+   */
+  public int purgeExpired(Instant now) {
+    return jdbcClient
+        .sql("DELETE FROM idempotency_record WHERE expires_at <= ?")
+        .param(Timestamp.from(now))
+        .update();
+  }
+}
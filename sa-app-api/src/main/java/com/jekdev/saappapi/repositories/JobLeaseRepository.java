@@ -0,0 +1,36 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.JobLease;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Takes or renews the lease on a job.
+     *
+     * @return {@code 1} if {@code worker} now holds the lease, {@code 0} if another worker holds it or the job has no
+     *         lease row yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE JobLease l SET l.leasedBy = :worker, l.leaseExpiresAt = :until
+            WHERE l.name = :name AND (l.leasedBy IS NULL OR l.leasedBy = :worker OR l.leaseExpiresAt < :now)
+            """)
+    int acquire(String name, String worker, Instant now, Instant until);
+
+    /**
+     * Releases the lease so the job can run on any replica.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE JobLease l SET l.leasedBy = NULL, l.leaseExpiresAt = NULL
+            WHERE l.name = :name AND l.leasedBy = :worker
+            """)
+    int release(String name, String worker);
+}
@@ -0,0 +1,62 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.RescoringCheckpoint;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface RescoringCheckpointRepository extends JpaRepository<RescoringCheckpoint, String> {
+
+    /**
+     * Takes or renews the lease on an unfinished run.
+     *
+     * @return {@code 1} if {@code worker} now holds the lease, {@code 0} if another worker holds it or the run is
+     *         finished
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE RescoringCheckpoint c SET c.leasedBy = :worker, c.leaseExpiresAt = :until
+            WHERE c.modelVersion = :modelVersion AND c.completedAt IS NULL
+              AND (c.leasedBy IS NULL OR c.leasedBy = :worker OR c.leaseExpiresAt < :now)
+            """)
+    int acquireLease(String modelVersion, String worker, Instant now, Instant until);
+
+    /**
+     * Moves the cursor past a committed page. Call it in the transaction that writes the page's scores.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE RescoringCheckpoint c
+            SET c.lastId = :lastId, c.processed = c.processed + :processed,
+                c.activeMillis = c.activeMillis + :activeMillis, c.updatedAt = :now
+            WHERE c.modelVersion = :modelVersion AND c.leasedBy = :worker
+            """)
+    int advance(String modelVersion, String worker, long lastId, long processed, long activeMillis, Instant now);
+
+    /**
+     * Marks the run as finished and releases its lease.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE RescoringCheckpoint c
+            SET c.completedAt = :now, c.updatedAt = :now, c.leasedBy = NULL, c.leaseExpiresAt = NULL
+            WHERE c.modelVersion = :modelVersion AND c.leasedBy = :worker
+            """)
+    int complete(String modelVersion, String worker, Instant now);
+
+    /**
+     * Releases the lease so the run can be resumed by any replica.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            UPDATE RescoringCheckpoint c SET c.leasedBy = NULL, c.leaseExpiresAt = NULL
+            WHERE c.modelVersion = :modelVersion AND c.leasedBy = :worker
+            """)
+    int releaseLease(String modelVersion, String worker);
+}
@@ -0,0 +1,28 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.ScoreSketch;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface ScoreSketchRepository extends JpaRepository<ScoreSketch, String> {
+
+    /**
+     * Reads a snapshot and locks its row until the caller's transaction ends, so that replicas persisting their
+     * sketches at the same time write one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ScoreSketch s WHERE s.name = :name")
+    Optional<ScoreSketch> findByNameForUpdate(String name);
+
+    /**
+     * Deletes the snapshots taken before the given watermark. Call it in the transaction that wrote every live sketch
+     * with that watermark, so only sketches of clients without scored emotions are removed.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM ScoreSketch s WHERE s.watermark < :watermark")
+    int deleteByWatermarkBefore(long watermark);
+}
@@ -0,0 +1,182 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.ScoringJob;
+import jakarta.transaction.Transactional;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Work queue of pending scoring jobs in the {@code scoring_job} table, shared by all replicas.
+ *
+ * <p>Workers {@link #claim(String, int, Duration) claim} a batch of due jobs with {@code SELECT ... FOR UPDATE SKIP
+ * LOCKED}, so concurrent claims never wait for each other and never return the same job, and lease them by moving
+ * {@code available_at} to the end of the lease. The row locks are released when the claim commits; from then on the
+ * lease alone keeps other workers away, so no connection or lock is held while the sentiment provider is called. If a
+ * worker dies, its jobs become due again when the lease expires. Completing and rescheduling only apply while the
+ * caller still holds the lease, so a worker whose lease expired cannot finish a job another worker has taken over.
+ *
+ * <p>The claim deliberately has no {@code ORDER BY}: H2 locks every matching row before applying the limit of a sorted
+ * query. Due jobs are therefore claimed in no particular order, which is fine because every claimed job leaves the due
+ * set until its lease or backoff expires.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ScoringJobQueue {
+
+  private static final RowMapper<ScoringJob> JOB_ROW_MAPPER =
+      (rs, rowNum) ->
+          new ScoringJob(
+              rs.getLong("emotion_id"),
+              rs.getInt("attempts"),
+              rs.getTimestamp("available_at").toInstant(),
+              rs.getString("leased_by"));
+
+  private final JdbcClient jdbcClient;
+
+  /**
+   * Adds a job for a pending emotion. Runs in the caller's transaction, so the job commits together with the emotion.
+   *
+   * @param emotionId the id of the saved pending emotion
+   * @param availableAt the time of the first attempt
+   */
+  @Transactional
+  public void enqueue(long emotionId, Instant availableAt) {
+    jdbcClient
+        .sql("INSERT INTO scoring_job (emotion_id, attempts, available_at) VALUES (?, 0, ?)")
+        .params(emotionId, Timestamp.from(availableAt))
+        .update();
+  }
+
+  /**
+   * Adds a job for every pending emotion that has none, e.g. because its job insert never committed.
+   *
+   * @param availableAt the time of the first attempt
+   * @return the number of jobs added
+   */
+  @Transactional
+  public int enqueueOrphans(Instant availableAt) {
+    return jdbcClient
+        .sql(
+            """
+            INSERT INTO scoring_job (emotion_id, attempts, available_at)
+            SELECT e.id, 0, ? FROM emotion e
+            WHERE e.status = 'PENDING'
+              AND NOT EXISTS (SELECT 1 FROM scoring_job j WHERE j.emotion_id = e.id)
+            """)
+        .param(Timestamp.from(availableAt))
+        .update();
+  }
+
+  /**
+   * Claims up to {@code limit} due jobs that no other worker holds and leases them to {@code worker}.
+   *
+   * @param worker the id of the claiming worker
+   * @param limit the maximum number of jobs to claim
+   * @param lease how long the jobs stay reserved for the worker
+   * @return the claimed jobs, with their state before the claim
+   */
+  @Transactional
+  public List<ScoringJob> claim(String worker, int limit, Duration lease) {
+    Instant now = Instant.now();
+    List<ScoringJob> jobs =
+        jdbcClient
+            .sql("SELECT * FROM scoring_job WHERE available_at <= ? LIMIT ? FOR UPDATE SKIP LOCKED")
+            .params(Timestamp.from(now), limit)
+            .query(JOB_ROW_MAPPER)
+            .list();
+    if (!jobs.isEmpty()) {
+      jdbcClient
+          .sql("UPDATE scoring_job SET leased_by = :worker, available_at = :until WHERE emotion_id IN (:ids)")
+          .param("worker", worker)
+          .param("until", Timestamp.from(now.plus(lease)))
+          .param("ids", jobs.stream().map(ScoringJob::getEmotionId).toList())
+          .update();
+    }
+    return jobs;
+  }
+
+  /**
+   * Removes a job after its emotion was scored. Call it in the transaction that stores the score.
+   *
+   * @param emotionId the id of the scored emotion
+   * @param worker the id of the worker that claimed the job
+   * @return {@code true} if the worker still held the lease and the job was removed
+   */
+  @Transactional
+  public boolean complete(long emotionId, String worker) {
+    return jdbcClient
+            .sql("DELETE FROM scoring_job WHERE emotion_id = ? AND leased_by = ?")
+            .params(emotionId, worker)
+            .update()
+        == 1;
+  }
+
+  /**
+   * Records a failed attempt, releases the lease and postpones the job.
+   *
+   * @param emotionId the id of the emotion whose scoring failed
+   * @param worker the id of the worker that claimed the job
+   * @param availableAt the time of the next attempt
+   * @return {@code true} if the worker still held the lease
+   */
+  @Transactional
+  public boolean reschedule(long emotionId, String worker, Instant availableAt) {
+    return jdbcClient
+            .sql(
+                """
+                UPDATE scoring_job SET attempts = attempts + 1, available_at = ?, leased_by = NULL
+                WHERE emotion_id = ? AND leased_by = ?
+                """)
+            .params(Timestamp.from(availableAt), emotionId, worker)
+            .update()
+        == 1;
+  }
+
+  /**
+   * Hands claimed but unprocessed jobs back, so any worker can claim them right away.
+   *
+   * @param emotionIds the ids of the jobs to release
+   * @param worker the id of the worker that claimed them
+   */
+  @Transactional
+  public void release(Collection<Long> emotionIds, String worker) {
+    if (emotionIds.isEmpty()) {
+      return;
+    }
+    jdbcClient
+        .sql(
+            """
+            UPDATE scoring_job SET available_at = :now, leased_by = NULL
+            WHERE emotion_id IN (:ids) AND leased_by = :worker
+            """)
+        .param("now", Timestamp.from(Instant.now()))
+        .param("ids", emotionIds)
+        .param("worker", worker)
+        .update();
+  }
+
+  /**
+   * Removes the job of a deleted emotion, whoever holds it.
+   *
+   * @param emotionId the id of the deleted emotion
+   * @return {@code 1} if the job was removed, {@code 0} if the emotion had no job, e.g. because it was scored meanwhile
+   */
+  @Transactional
+  public int delete(long emotionId) {
+    return jdbcClient.sql("DELETE FROM scoring_job WHERE emotion_id = ?").param(emotionId).update();
+  }
+
+  /**
+   * @return the number of queued jobs, leased or not
+   */
+  public long count() {
+    return jdbcClient.sql("SELECT COUNT(*) FROM scoring_job").query(Long.class).single();
+  }
+}
@@ -0,0 +1,67 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.TableVersion;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Store of the {@link TableVersion change counters} in the {@code table_version} table, shared by all replicas.
+ *
+ * <p>A write {@link #bump(String) increments} the counter of its table in the writer's transaction, if there is one,
+ * so that readers never see the new rows under the old version. Reading the {@link #versions() versions} is a single
+ * query on a table with one row per counted table, and never touches the counted tables themselves.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TableVersionStore {
+
+  /** Name of the counter of the {@code client} table. */
+  public static final String CLIENT_TABLE = "client";
+
+  /** Name of the counter of the {@code emotion} table. */
+  public static final String EMOTION_TABLE = "emotion";
+
+  private static final RowMapper<TableVersion> VERSION_ROW_MAPPER =
+      (rs, rowNum) -> new TableVersion(rs.getString("table_name"), rs.getLong("version"));
+
+  private final JdbcClient jdbcClient;
+
+  /**
+   * Increments the counter of a table, creating it on the first write.
+   *
+   * @param table the name of the written table
+   */
+  public void bump(String table) {
+    if (increment(table) > 0) {
+      return;
+    }
+    try {
+      jdbcClient.sql("INSERT INTO table_version (table_name, version) VALUES (?, 1)").param(table).update();
+    } catch (DuplicateKeyException exception) {
+      increment(table);
+    }
+  }
+
+  /**
+   * @return the counter of every table written to so far, by table name
+   */
+  public Map<String, Long> versions() {
+    return jdbcClient
+        .sql("SELECT table_name, version FROM table_version")
+        .query(VERSION_ROW_MAPPER)
+        .stream()
+        .collect(Collectors.toMap(TableVersion::getTableName, TableVersion::getVersion));
+  }
+
+  private int increment(String table) {
+    return jdbcClient
+        .sql("UPDATE table_version SET version = version + 1 WHERE table_name = ?")
+        .param(table)
+        .update();
+  }
+}
@@ -0,0 +1,184 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.dto.LeaderboardEntry;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.LeaderboardOrder;
+import com.jekdev.saappapi.utils.SentimentPolarity;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps clients ranked by the mean of their signed sentiment scores, so the most negative or most positive clients can
+ * be read without loading and sorting every client.
+ *
+ * <p>Each client has a {@link Standing} with the running sum and count of its signed scores. Standings are indexed by
+ * client id in a map and ordered by mean in a {@link ConcurrentSkipListSet}. A creation or deletion replaces the
+ * client's entry in the set in {@code O(log n)}; the top {@code k} in either direction is read by walking {@code k}
+ * entries from one end. Writers are serialized by a lock, readers walk the set without locking and may briefly miss a
+ * client while its entry is being replaced.
+ *
+ * <p>The standings are computed from the archive segments and the {@code emotion} table once the application is ready.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClientLeaderboardService {
+
+  private static final Comparator<Standing> BY_MEAN =
+      Comparator.comparingDouble(Standing::mean).thenComparingLong(Standing::clientId);
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final EmotionSegmentRepository emotionSegmentRepository;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Map<Long, Standing> standings = new HashMap<>();
+  private final ConcurrentSkipListSet<Standing> ranking = new ConcurrentSkipListSet<>(BY_MEAN);
+
+  @Value("${emotion.leaderboard.min-emotions:1}")
+  private int minEmotions;
+
+  /** Computes the standings of all clients from the archive segments and the table. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    Map<Long, Standing> loaded = new HashMap<>();
+    emotionSegmentRepository.forEach(
+        emotion -> {
+          if (emotion.type() != null && emotion.score() != null) {
+            loaded.merge(
+                emotion.clientId(),
+                new Standing(emotion.clientId(), SentimentPolarity.signedScore(emotion.type(), emotion.score()), 1),
+                Standing::plus);
+          }
+        });
+    emotionReadRepository.forEachEmotion(
+        emotion -> {
+          if (emotion.getType() != null && emotion.getScore() != null) {
+            long clientId = emotion.getClient().getId();
+            loaded.merge(
+                clientId,
+                new Standing(clientId, SentimentPolarity.signedScore(emotion.getType(), emotion.getScore()), 1),
+                Standing::plus);
+          }
+        });
+
+    lock.lock();
+    try {
+      standings.clear();
+      ranking.clear();
+      loaded.values().forEach(this::put);
+    } finally {
+      lock.unlock();
+    }
+    log.info("Loaded leaderboard standings for {} clients", loaded.size());
+  }
+
+  /**
+   * Adds the signed score of a new emotion to its client's standing.
+   *
+   * @param event the creation event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionCreated(EmotionCreatedEvent event) {
+    update(event.clientId(), SentimentPolarity.signedScore(event.type(), event.score()), 1);
+  }
+
+  /**
+   * Removes the signed score of a deleted emotion from its client's standing.
+   *
+   * @param event the deletion event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionDeleted(EmotionDeletedEvent event) {
+    if (event.type() != null && event.score() != null) {
+      update(event.clientId(), -SentimentPolarity.signedScore(event.type(), event.score()), -1);
+    }
+  }
+
+  /**
+   * Replaces the signed score of a re-scored emotion in its client's standing.
+   *
+   * @param event the re-scoring event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionRescored(EmotionRescoredEvent event) {
+    double signedScore = SentimentPolarity.signedScore(event.type(), event.score());
+    if (event.previousType() != null && event.previousScore() != null) {
+      double previous = SentimentPolarity.signedScore(event.previousType(), event.previousScore());
+      update(event.clientId(), signedScore - previous, 0);
+    } else {
+      update(event.clientId(), signedScore, 1);
+    }
+  }
+
+  /**
+   * Returns up to {@code k} clients from the requested end of the ranking.
+   *
+   * @param order {@link LeaderboardOrder#NEGATIVE} for the lowest mean first, {@link LeaderboardOrder#POSITIVE} for
+   *     the highest mean first
+   * @param k maximum number of entries
+   * @return the leaderboard entries, best match first
+   */
+  public List<LeaderboardEntry> top(LeaderboardOrder order, int k) {
+    Iterator<Standing> iterator =
+        order == LeaderboardOrder.NEGATIVE ? ranking.iterator() : ranking.descendingIterator();
+    List<LeaderboardEntry> entries = new ArrayList<>(k);
+    while (entries.size() < k && iterator.hasNext()) {
+      Standing standing = iterator.next();
+      entries.add(new LeaderboardEntry(standing.clientId(), standing.mean(), standing.count()));
+    }
+    return entries;
+  }
+
+  private void update(long clientId, double signedScore, long count) {
+    lock.lock();
+    try {
+      Standing previous = standings.remove(clientId);
+      Standing current = new Standing(clientId, signedScore, count);
+      if (previous != null) {
+        ranking.remove(previous);
+        current = previous.plus(current);
+      }
+      if (current.count() > 0) {
+        put(current);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void put(Standing standing) {
+    standings.put(standing.clientId(), standing);
+    if (standing.count() >= minEmotions) {
+      ranking.add(standing);
+    }
+  }
+
+  /** Running sum and count of one client's signed scores. */
+  private record Standing(long clientId, double sum, long count) {
+
+    double mean() {
+      return sum / count;
+    }
+
+    Standing plus(Standing other) {
+      return new Standing(clientId, sum + other.sum, count + other.count);
+    }
+  }
+}
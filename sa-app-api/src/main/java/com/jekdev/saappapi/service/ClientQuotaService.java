@@ -0,0 +1,104 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.errorhandling.QuotaExceededException;
+import com.jekdev.saappapi.utils.TokenBuckets;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Limits how many sentiment provider calls each client may cause, so a single heavy client cannot use up the provider
+ * capacity of everyone else.
+ *
+ * <p>Every client has a token bucket keyed by its email in a bounded {@link TokenBuckets} table. The bucket size and
+ * refill rate come from the client's tier: {@code emotion.quota.clients} assigns emails to tiers, every other client is
+ * in tier {@code default}, and {@code emotion.quota.tiers} defines each tier as {@code capacity:refill-per-second}.
+ * A client whose bucket is empty gets a {@link QuotaExceededException} with the time until its next token. Refusals
+ * are counted by {@value #THROTTLED_METRIC}, tagged with the tier.
+ *
+ * <p>The buckets are kept per replica, so with {@code N} replicas a client may cause up to {@code N} times its tier's
+ * rate in provider calls.
+ */
+@Slf4j
+@Service
+public class ClientQuotaService {
+
+  /** Name of the counter of refused provider calls. */
+  public static final String THROTTLED_METRIC = "emotion.quota.throttled";
+
+  /** The tier of clients not listed in {@code emotion.quota.clients}. */
+  public static final String DEFAULT_TIER = "default";
+
+  private final boolean enabled;
+  private final Map<String, Tier> tiers = new LinkedHashMap<>();
+  private final Map<String, String> clientTiers = new LinkedHashMap<>();
+  private final TokenBuckets buckets;
+
+  /**
+   * @param enabled whether quotas are enforced
+   * @param tiers comma-separated {@code tier=capacity:refill-per-second} pairs; must define {@value #DEFAULT_TIER}
+   * @param clients comma-separated {@code email=tier} pairs
+   * @param maxClients the maximum number of client buckets kept in memory
+   * @param meterRegistry the registry of the throttling counter
+   */
+  public ClientQuotaService(
+      @Value("${emotion.quota.enabled:true}") boolean enabled,
+      @Value("${emotion.quota.tiers:default=60:1}") String tiers,
+      @Value("${emotion.quota.clients:}") String clients,
+      @Value("${emotion.quota.max-clients:100000}") int maxClients,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    for (String tier : tiers.split(",")) {
+      int separator = tier.indexOf('=');
+      if (separator > 0) {
+        String name = tier.substring(0, separator).strip();
+        String[] limits = tier.substring(separator + 1).split(":");
+        this.tiers.put(
+            name,
+            new Tier(
+                Double.parseDouble(limits[0].strip()),
+                Double.parseDouble(limits[1].strip()),
+                meterRegistry.counter(THROTTLED_METRIC, "tier", name)));
+      }
+    }
+    if (!this.tiers.containsKey(DEFAULT_TIER)) {
+      throw new IllegalArgumentException("emotion.quota.tiers must define the tier '" + DEFAULT_TIER + "'.");
+    }
+    for (String client : clients.split(",")) {
+      int separator = client.lastIndexOf('=');
+      if (separator > 0) {
+        clientTiers.put(client.substring(0, separator).strip(), client.substring(separator + 1).strip());
+      }
+    }
+    this.buckets = new TokenBuckets(maxClients);
+  }
+
+  /**
+   * Takes one provider call from the client's quota.
+   *
+   * @param client the client the call is made for
+   * @throws QuotaExceededException if the client has no call left
+   */
+  public void acquire(Client client) {
+    if (!enabled) {
+      return;
+    }
+    String tierName = clientTiers.getOrDefault(client.getEmail(), DEFAULT_TIER);
+    Tier tier = tiers.getOrDefault(tierName, tiers.get(DEFAULT_TIER));
+    long waitNanos = buckets.tryAcquire(client.getEmail(), tier.capacity(), tier.refillPerSecond());
+    if (waitNanos > 0) {
+      tier.throttled().increment();
+      log.debug("Client {} exceeded the provider quota of tier {}", client.getEmail(), tierName);
+      throw new QuotaExceededException(
+          "Too many emotions submitted. Please retry later.", Duration.ofNanos(waitNanos));
+    }
+  }
+
+  private record Tier(double capacity, double refillPerSecond, Counter throttled) {}
+}
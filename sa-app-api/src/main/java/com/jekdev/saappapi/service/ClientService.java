@@ -7,6 +7,7 @@ import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
 import com.jekdev.saappapi.errorhandling.PresentElementException;
 import com.jekdev.saappapi.mapper.AppMapper;
 import com.jekdev.saappapi.repositories.ClientRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
 import java.util.List;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
@@ -34,6 +35,10 @@ public class ClientService {
 
     private final ClientRepository clientRepository;
 
+    private final EmotionReadRepository emotionReadRepository;
+
+    private final ResourceVersionService resourceVersionService;
+
     /**
      * Creates a new client in the database based on the provided {@link ClientRequest}. If a client with the same email
      * already exists, the client will not be created, and a log entry will indicate that the client already exists.
@@ -52,33 +57,34 @@ public class ClientService {
             throw new PresentElementException("Client already exists. Please use a different email address.");
         } else {
             clientRepository.save(client);
+            resourceVersionService.clientsChanged();
             log.info("Created client with id ({})", client.getId());
         }
     }
 
     /**
-     * Retrieves a list of all clients from the database, maps the client entities to {@link ClientResponse} objects,
-     * and returns the resulting list. Each {@link ClientResponse} contains the relevant details of a client, such as
-     * the unique identifier and email address.
+     * Retrieves a list of all clients from the database through the {@link EmotionReadRepository}, which maps the rows
+     * straight into {@link ClientResponse} objects without loading entities. Each {@link ClientResponse} contains the
+     * relevant details of a client, such as the unique identifier and email address.
      *
      * @return a {@link List} of {@link ClientResponse} objects representing all clients stored in the database
      */
     public List<ClientResponse> getAllClients() {
 
         log.info("Fetching all clients");
-        List<Client> clientList = clientRepository.findAll();
+        List<ClientResponse> clientList = emotionReadRepository.findAllClients();
 
         if (clientList.isEmpty()) {
             log.info("No clients found");
             throw new ElementNotFoundException("No clients found, please create some clients first.");
         }
         log.info("Fetched all clients");
-        return clientList.stream().map(appMapper::mapClientEntityToClientResponse).toList();
+        return clientList;
     }
 
     /**
-     * Searches for a {@link Client} entity in the database based on the provided unique identifier. If the client is
-     * found, it is mapped to a {@link ClientResponse} object.
+     * Searches for a client in the database based on the provided unique identifier. If the client is found, it is
+     * read directly as a {@link ClientResponse} object.
      *
      * @param id
      *            the unique identifier of the client to search for; must not be null
@@ -92,10 +98,8 @@ public class ClientService {
 
         log.info("Searching for client with id ({})", id);
 
-        Client client = clientRepository.findById(id)
+        return emotionReadRepository.findClientById(id)
                 .orElseThrow(() -> new ElementNotFoundException("Client with id " + id + " not found."));
-
-        return appMapper.mapClientEntityToClientResponse(client);
     }
 
     /**
@@ -113,6 +117,7 @@ public class ClientService {
             return optionalClient.get();
         } else {
             clientRepository.save(clientToValidate);
+            resourceVersionService.clientsChanged();
             return clientToValidate;
         }
     }
@@ -0,0 +1,102 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.dto.LabelStatistics;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.utils.EmotionColumnStore;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Serves score aggregations from an in-process {@link EmotionColumnStore} instead of scanning the {@code emotion}
+ * table.
+ *
+ * <p>The store is filled once the application is ready, from the archive segments first and then from the hot table.
+ * Afterwards it follows {@link EmotionCreatedEvent}, {@link EmotionDeletedEvent} and {@link EmotionRescoredEvent},
+ * which are applied after the publishing transaction commits. Archiving does not remove emotions from the store,
+ * because archived emotions are still part of the data set. Each replica holds its own copy, so changes made through
+ * another replica become visible after the next restart.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmotionAnalyticsService {
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final EmotionSegmentRepository emotionSegmentRepository;
+  private final EmotionColumnStore columnStore = new EmotionColumnStore();
+
+  @Value("${emotion.analytics.histogram-buckets:10}")
+  private int histogramBuckets;
+
+  /** Loads every scored emotion, archived and hot, into the column store. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    long start = System.nanoTime();
+    emotionSegmentRepository.forEach(
+        emotion -> {
+          if (emotion.type() != null && emotion.score() != null) {
+            columnStore.append(emotion.id(), emotion.clientId(), emotion.type(), emotion.score());
+          }
+        });
+    emotionReadRepository.forEachEmotion(
+        emotion -> {
+          if (emotion.getType() != null && emotion.getScore() != null) {
+            columnStore.append(emotion.getId(), emotion.getClient().getId(), emotion.getType(), emotion.getScore());
+          }
+        });
+    log.info(
+        "Loaded {} emotions into the analytics store in {} ms",
+        columnStore.liveRows(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  /**
+   * Adds a newly stored emotion to the column store.
+   *
+   * @param event the creation event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionCreated(EmotionCreatedEvent event) {
+    columnStore.append(event.id(), event.clientId(), event.type(), event.score());
+  }
+
+  /**
+   * Tombstones a deleted emotion in the column store.
+   *
+   * @param event the deletion event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionDeleted(EmotionDeletedEvent event) {
+    columnStore.tombstone(event.id());
+  }
+
+  /**
+   * Replaces the label and score of a re-scored emotion in the column store.
+   *
+   * @param event the re-scoring event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionRescored(EmotionRescoredEvent event) {
+    columnStore.replace(event.id(), event.clientId(), event.type(), event.score());
+  }
+
+  /**
+   * Aggregates the score distribution per sentiment label.
+   *
+   * @param clientId restricts the aggregation to one client, or {@code null} for all emotions
+   * @return one {@link LabelStatistics} per label with at least one emotion
+   */
+  public List<LabelStatistics> labelStatistics(Long clientId) {
+    return columnStore.labelStatistics(clientId, histogramBuckets);
+  }
+}
@@ -0,0 +1,155 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.JobLease;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.JobLeaseRepository;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Moves cold emotions out of the {@code emotion} table into the compressed segment files of the
+ * {@link EmotionSegmentRepository}.
+ *
+ * <p>Each batch is first written and forced to disk as a segment, and only then deleted from the table. The highest id
+ * of the segments is the checkpoint of the job: a run only archives emotions above it. If the process dies between
+ * writing a segment and deleting its rows, the rows exist in both places and lookups prefer the table; the next run
+ * finds them in the range of the last segment and only deletes them, so no emotion is archived twice. An emotion that
+ * only turns cold after newer ones were archived, such as one that stayed pending for long, remains in the table.
+ *
+ * <p>The job may be scheduled on every replica: a run first takes the {@code emotion-archive} {@link JobLease} and
+ * renews it after every batch, so only one replica archives at a time and the others skip their run. The segment
+ * directory must be shared by all replicas, since the rows are deleted from the shared table. The job is disabled by
+ * default ({@code emotion.archive.cron=-}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmotionArchiveService {
+
+  private static final String ARCHIVE_LEASE = "emotion-archive";
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final EmotionRepository emotionRepository;
+  private final EmotionSegmentRepository emotionSegmentRepository;
+  private final ResourceVersionService resourceVersionService;
+  private final JobLeaseRepository jobLeaseRepository;
+  private final String workerId = System.getenv().getOrDefault("HOSTNAME", "sa-app-api") + "-" + UUID.randomUUID();
+
+  @Value("${emotion.archive.retention:90d}")
+  private Duration retention;
+
+  @Value("${emotion.archive.batch-size:5000}")
+  private int batchSize;
+
+  @Value("${emotion.archive.lease-duration:10m}")
+  private Duration leaseDuration;
+
+  /**
+   * Archives every emotion older than the configured retention, one segment per batch.
+   *
+   * @return the number of archived emotions, {@code 0} if another replica holds the lease
+   */
+  @Scheduled(cron = "${emotion.archive.cron:-}")
+  public int archiveColdEmotions() {
+    if (!acquireLease()) {
+      log.info("Skipping the archive run: another replica holds the lease");
+      return 0;
+    }
+    try {
+      return archive();
+    } finally {
+      jobLeaseRepository.release(ARCHIVE_LEASE, workerId);
+    }
+  }
+
+  private int archive() {
+    // another replica may have written segments since this one last looked
+    emotionSegmentRepository.refresh();
+    Instant cutoff = Instant.now().minus(retention);
+    long checkpoint = emotionSegmentRepository.highestId();
+    deleteArchivedLeftovers(cutoff, checkpoint);
+    int archived = 0;
+    List<ArchivedEmotion> batch;
+
+    do {
+      batch = emotionReadRepository.findArchiveCandidates(cutoff, checkpoint, Long.MAX_VALUE, batchSize);
+      if (batch.isEmpty()) {
+        break;
+      }
+      emotionSegmentRepository.append(batch);
+      delete(batch.stream().map(ArchivedEmotion::id).toList());
+      checkpoint = batch.getLast().id();
+      archived += batch.size();
+    } while (batch.size() == batchSize && renewLease(archived));
+
+    log.info("Archived {} emotions created before {}", archived, cutoff);
+    return archived;
+  }
+
+  /**
+   * Takes the lease of the job, creating its row on the first run.
+   */
+  private boolean acquireLease() {
+    if (lease()) {
+      return true;
+    }
+    if (jobLeaseRepository.existsById(ARCHIVE_LEASE)) {
+      return false;
+    }
+    try {
+      jobLeaseRepository.saveAndFlush(new JobLease(ARCHIVE_LEASE));
+    } catch (DataIntegrityViolationException exception) {
+      // another replica created the row at the same time
+    }
+    return lease();
+  }
+
+  private boolean renewLease(int archived) {
+    if (lease()) {
+      return true;
+    }
+    log.warn("Lost the archive lease after {} emotions; stopping the run", archived);
+    return false;
+  }
+
+  private boolean lease() {
+    Instant now = Instant.now();
+    return jobLeaseRepository.acquire(ARCHIVE_LEASE, workerId, now, now.plus(leaseDuration)) == 1;
+  }
+
+  /**
+   * Deletes the rows of the last segment that are still in the table because the run that wrote it was interrupted. The
+   * scan is limited to the id range of that one segment.
+   */
+  private void deleteArchivedLeftovers(Instant cutoff, long checkpoint) {
+    if (checkpoint == 0) {
+      return;
+    }
+    long afterId = emotionSegmentRepository.lastSegmentFirstId() - 1;
+    List<Long> leftovers =
+        emotionReadRepository.findArchiveCandidates(cutoff, afterId, checkpoint, Integer.MAX_VALUE).stream()
+            .map(ArchivedEmotion::id)
+            .filter(id -> emotionSegmentRepository.findById(id).isPresent())
+            .toList();
+    if (!leftovers.isEmpty()) {
+      delete(leftovers);
+      log.info("Deleted {} emotions that were already archived up to id {}", leftovers.size(), checkpoint);
+    }
+  }
+
+  private void delete(List<Long> ids) {
+    emotionRepository.deleteAllByIdInBatch(ids);
+    resourceVersionService.emotionsChanged();
+  }
+}
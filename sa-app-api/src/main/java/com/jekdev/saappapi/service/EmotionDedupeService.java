@@ -0,0 +1,327 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository.ScoredSignature;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.MinHash;
+import com.jekdev.saappapi.utils.TextPreprocessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Finds scored emotions whose text is nearly identical to a new one, so their score can be reused instead of calling
+ * the sentiment provider again.
+ *
+ * <p>Every emotion stores the {@link MinHash} signature of its canonical text. The most recent scored emotions of the
+ * table, at most {@code emotion.dedupe.max-entries}, are held in an in-memory LSH index: each of the
+ * {@value MinHash#BANDS} band keys of a signature maps to the ids of the emotions that share it. A lookup collects the
+ * emotions sharing at least one band key and keeps the most similar one whose estimated Jaccard similarity reaches
+ * {@code emotion.dedupe.threshold}. Once the index is full, the emotion with the lowest id leaves it for each new one.
+ * The index is built from the table once the application is ready and follows creations, which carry the signature,
+ * deletions and re-scorings; events that arrive while the table is read are applied again to the loaded index.
+ * Archived emotions leave it on restart.
+ *
+ * <p>With {@code emotion.dedupe.reuse-scores} the duplicate's label and score are copied, as long as they come from the
+ * current model version. Otherwise the new emotion is scored as usual and only flagged with {@code duplicate_of}.
+ * Both outcomes are counted by {@value #DUPLICATES_METRIC}, tagged {@code outcome=reused} or {@code outcome=flagged}.
+ */
+@Slf4j
+@Service
+public class EmotionDedupeService {
+
+  /** Name of the counter of new emotions found to be near-duplicates. */
+  public static final String DUPLICATES_METRIC = "emotion.dedupe.duplicates";
+
+  private static final long[] NO_IDS = new long[0];
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final SentimentAnalysisService sentimentAnalysisService;
+  private final boolean enabled;
+  private final double threshold;
+  private final boolean reuseScores;
+  private final int maxEntries;
+  private final Counter reused;
+  private final Counter flagged;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final NavigableMap<Long, Indexed> emotions = new TreeMap<>();
+  private final Map<Long, long[]> buckets = new HashMap<>();
+  private List<Runnable> eventsDuringLoad;
+
+  /**
+   * @param emotionReadRepository the repository the index is loaded from
+   * @param sentimentAnalysisService the provider client, for the current model version
+   * @param enabled whether near-duplicates are looked up at all
+   * @param threshold the minimum estimated Jaccard similarity of a near-duplicate
+   * @param reuseScores whether the score of a near-duplicate replaces the provider call
+   * @param maxEntries the maximum number of indexed emotions
+   * @param meterRegistry the registry of the duplicate counter
+   */
+  public EmotionDedupeService(
+      EmotionReadRepository emotionReadRepository,
+      SentimentAnalysisService sentimentAnalysisService,
+      @Value("${emotion.dedupe.enabled:true}") boolean enabled,
+      @Value("${emotion.dedupe.threshold:0.8}") double threshold,
+      @Value("${emotion.dedupe.reuse-scores:true}") boolean reuseScores,
+      @Value("${emotion.dedupe.max-entries:100000}") int maxEntries,
+      MeterRegistry meterRegistry) {
+    this.emotionReadRepository = emotionReadRepository;
+    this.sentimentAnalysisService = sentimentAnalysisService;
+    this.enabled = enabled;
+    this.threshold = threshold;
+    this.reuseScores = reuseScores;
+    this.maxEntries = maxEntries;
+    this.reused = meterRegistry.counter(DUPLICATES_METRIC, "outcome", "reused");
+    this.flagged = meterRegistry.counter(DUPLICATES_METRIC, "outcome", "flagged");
+  }
+
+  /**
+   * Builds the index from the most recent scored emotions of the table. Events handled while the table is read are
+   * recorded and applied again once the loaded emotions are swapped in.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      eventsDuringLoad = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    Deque<Indexed> loaded = new ArrayDeque<>();
+    try {
+      emotionReadRepository.forEachScoredSignature(
+          emotion -> {
+            loaded.addLast(indexed(emotion));
+            if (loaded.size() > maxEntries) {
+              loaded.removeFirst();
+            }
+          });
+    } catch (RuntimeException exception) {
+      stopRecording();
+      throw exception;
+    }
+
+    lock.writeLock().lock();
+    try {
+      emotions.clear();
+      buckets.clear();
+      loaded.forEach(this::put);
+      stopRecording().forEach(Runnable::run);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Loaded {} emotions into the near-duplicate index", loaded.size());
+  }
+
+  /**
+   * Stores the signature of a new emotion on the entity and looks up its most similar scored emotion. Sets {@code
+   * duplicateOf} if one is found.
+   *
+   * @param emotion the emotion about to be saved
+   * @return the near-duplicate whose score may be reused; empty if there is none, or if its score must not be reused
+   */
+  public Optional<NearDuplicate> findDuplicate(Emotion emotion) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    int[] signature = MinHash.signature(TextPreprocessor.canonicalize(emotion.getText()));
+    emotion.setMinHash(MinHash.toBytes(signature));
+
+    Indexed best = null;
+    double bestSimilarity = 0;
+    lock.readLock().lock();
+    try {
+      for (int band = 0; band < MinHash.BANDS; band++) {
+        for (long id : buckets.getOrDefault(MinHash.bandKey(signature, band), NO_IDS)) {
+          Indexed candidate = emotions.get(id);
+          double similarity = MinHash.similarity(signature, candidate.signature());
+          if (similarity >= threshold && (best == null || similarity > bestSimilarity)) {
+            best = candidate;
+            bestSimilarity = similarity;
+          }
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (best == null) {
+      return Optional.empty();
+    }
+
+    emotion.setDuplicateOf(best.id());
+    log.debug("Emotion text is a near-duplicate of emotion {} (similarity {})", best.id(), bestSimilarity);
+    if (!reuseScores || !sentimentAnalysisService.getModelVersion().equals(best.modelVersion())) {
+      flagged.increment();
+      return Optional.empty();
+    }
+    reused.increment();
+    return Optional.of(new NearDuplicate(best.id(), best.type(), best.score(), best.modelVersion(), bestSimilarity));
+  }
+
+  /**
+   * Adds a newly scored emotion to the index, using the signature carried by the event. Only an event without one
+   * reads the emotion from the table.
+   *
+   * @param event the creation event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionCreated(EmotionCreatedEvent event) {
+    if (!enabled) {
+      return;
+    }
+    Optional<Indexed> created =
+        event.minHash() != null
+            ? Optional.of(
+                new Indexed(
+                    event.id(), MinHash.fromBytes(event.minHash()), event.type(), event.score(), event.modelVersion()))
+            : emotionReadRepository.findScoredSignature(event.id()).map(this::indexed);
+    created.ifPresent(
+        emotion ->
+            update(
+                () -> {
+                  remove(emotion.id());
+                  put(emotion);
+                }));
+  }
+
+  /**
+   * Removes a deleted emotion from the index.
+   *
+   * @param event the deletion event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionDeleted(EmotionDeletedEvent event) {
+    update(() -> remove(event.id()));
+  }
+
+  /**
+   * Replaces the score of a re-scored emotion in the index.
+   *
+   * @param event the re-scoring event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionRescored(EmotionRescoredEvent event) {
+    String modelVersion = sentimentAnalysisService.getModelVersion();
+    update(
+        () -> {
+          Indexed current = emotions.get(event.id());
+          if (current != null) {
+            remove(event.id());
+            put(new Indexed(event.id(), current.signature(), event.type(), event.score(), modelVersion));
+          }
+        });
+  }
+
+  /**
+   * @return the number of indexed emotions
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return emotions.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private Indexed indexed(ScoredSignature emotion) {
+    int[] signature =
+        emotion.minHash() != null
+            ? MinHash.fromBytes(emotion.minHash())
+            : MinHash.signature(TextPreprocessor.canonicalize(emotion.text()));
+    return new Indexed(emotion.id(), signature, emotion.type(), emotion.score(), emotion.modelVersion());
+  }
+
+  /** Stops recording events for the running load and returns the recorded ones. */
+  private List<Runnable> stopRecording() {
+    lock.writeLock().lock();
+    try {
+      List<Runnable> recorded = eventsDuringLoad;
+      eventsDuringLoad = null;
+      return recorded;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Applies an event to the index, and records it to be applied again if the index is being loaded. */
+  private void update(Runnable event) {
+    lock.writeLock().lock();
+    try {
+      if (eventsDuringLoad != null) {
+        eventsDuringLoad.add(event);
+      }
+      event.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Must hold the write lock. Evicts the emotion with the lowest id if the index is full. */
+  private void put(Indexed emotion) {
+    emotions.put(emotion.id(), emotion);
+    for (int band = 0; band < MinHash.BANDS; band++) {
+      long[] bucket = buckets.getOrDefault(MinHash.bandKey(emotion.signature(), band), NO_IDS);
+      long[] added = Arrays.copyOf(bucket, bucket.length + 1);
+      added[bucket.length] = emotion.id();
+      buckets.put(MinHash.bandKey(emotion.signature(), band), added);
+    }
+    while (emotions.size() > maxEntries) {
+      remove(emotions.firstKey());
+    }
+  }
+
+  /** Must hold the write lock. */
+  private void remove(long id) {
+    Indexed emotion = emotions.remove(id);
+    if (emotion == null) {
+      return;
+    }
+    for (int band = 0; band < MinHash.BANDS; band++) {
+      long key = MinHash.bandKey(emotion.signature(), band);
+      long[] remaining = Arrays.stream(buckets.get(key)).filter(candidate -> candidate != id).toArray();
+      if (remaining.length == 0) {
+        buckets.remove(key);
+      } else {
+        buckets.put(key, remaining);
+      }
+    }
+  }
+
+  /**
+   * A scored emotion whose text is nearly identical to a new one.
+   *
+   * @param id the id of the existing emotion
+   * @param type its sentiment label
+   * @param score its sentiment score
+   * @param modelVersion the model that produced the score
+   * @param similarity the estimated Jaccard similarity of the two texts
+   */
+  public record NearDuplicate(long id, String type, double score, String modelVersion, double similarity) {}
+
+  private record Indexed(long id, int[] signature, String type, double score, String modelVersion) {}
+}
@@ -0,0 +1,276 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.dto.RescoringStatus;
+import com.jekdev.saappapi.entities.RescoringCheckpoint;
+import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
+import com.jekdev.saappapi.repositories.EmotionRescoringRepository;
+import com.jekdev.saappapi.repositories.EmotionRescoringRepository.RescoringCandidate;
+import com.jekdev.saappapi.repositories.RescoringCheckpointRepository;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.RateLimiter;
+import com.jekdev.saappapi.utils.RequestLane;
+import com.jekdev.saappapi.utils.SentimentResult;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Re-scores emotions that were scored by another model than the configured {@code sentiment.api.model-version}.
+ *
+ * <p>A run is started explicitly and then works through the {@code emotion} table on a background thread, one keyset
+ * page of {@code emotion.rescoring.page-size} emotions at a time. Each page is sent to the provider in requests of
+ * {@code emotion.rescoring.provider-batch-size} texts, throttled to {@code emotion.rescoring.requests-per-second}, and
+ * written back as one JDBC batch in a short transaction that also advances the {@link RescoringCheckpoint}. Live
+ * requests therefore only compete with one small transaction per page and a bounded share of the provider quota.
+ *
+ * <p>Only one replica runs a model version at a time: the checkpoint carries a lease that is renewed with every page.
+ * A provider failure pauses the run and releases the lease; every {@code emotion.rescoring.lease-duration} each replica
+ * tries to resume unfinished runs, which also picks up a run whose replica died. Re-scored emotions are announced with
+ * an {@link EmotionRescoredEvent}. Archived emotions keep the score they were archived with. The run is {@link
+ * RequestLane#BULK bulk} work and stays within the provider budget of that lane.
+ */
+@Slf4j
+@Service
+public class EmotionRescoringService {
+
+  private final EmotionRescoringRepository emotionRescoringRepository;
+  private final RescoringCheckpointRepository rescoringCheckpointRepository;
+  private final SentimentAnalysisService sentimentAnalysisService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final int pageSize;
+  private final int providerBatchSize;
+  private final Duration leaseDuration;
+  private final boolean virtualThreads;
+  private final RateLimiter rateLimiter;
+  private final String workerId;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private Thread runner;
+
+  /**
+   * @param pageSize emotions read and written per transaction
+   * @param providerBatchSize texts per provider request
+   * @param requestsPerSecond maximum provider requests per second
+   * @param leaseDuration how long a replica holds the run without renewing it
+   * @param virtualThreads whether runs work on a virtual thread
+   */
+  public EmotionRescoringService(
+      EmotionRescoringRepository emotionRescoringRepository,
+      RescoringCheckpointRepository rescoringCheckpointRepository,
+      SentimentAnalysisService sentimentAnalysisService,
+      ApplicationEventPublisher eventPublisher,
+      TransactionTemplate transactionTemplate,
+      @Value("${emotion.rescoring.page-size:500}") int pageSize,
+      @Value("${emotion.rescoring.provider-batch-size:16}") int providerBatchSize,
+      @Value("${emotion.rescoring.requests-per-second:2}") double requestsPerSecond,
+      @Value("${emotion.rescoring.lease-duration:2m}") Duration leaseDuration,
+      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+    this.emotionRescoringRepository = emotionRescoringRepository;
+    this.rescoringCheckpointRepository = rescoringCheckpointRepository;
+    this.sentimentAnalysisService = sentimentAnalysisService;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = transactionTemplate;
+    this.pageSize = pageSize;
+    this.providerBatchSize = providerBatchSize;
+    this.leaseDuration = leaseDuration;
+    this.virtualThreads = virtualThreads;
+    this.rateLimiter = new RateLimiter(requestsPerSecond);
+    this.workerId = System.getenv().getOrDefault("HOSTNAME", "sa-app-api") + "-" + UUID.randomUUID();
+  }
+
+  /**
+   * Starts a run for the configured model version, or resumes the unfinished one. A completed run is started over if
+   * emotions were scored by another model since, e.g. by replicas that were still running the previous version.
+   *
+   * @return the progress of the run
+   */
+  public RescoringStatus start() {
+    String modelVersion = sentimentAnalysisService.getModelVersion();
+    RescoringCheckpoint checkpoint = rescoringCheckpointRepository.findById(modelVersion).orElse(null);
+    if (checkpoint == null || checkpoint.getCompletedAt() != null) {
+      long total = emotionRescoringRepository.countStale(modelVersion);
+      if (checkpoint == null || total > 0) {
+        try {
+          rescoringCheckpointRepository.saveAndFlush(new RescoringCheckpoint(modelVersion, total, Instant.now()));
+          log.info("Started re-scoring {} emotions with model {}", total, modelVersion);
+        } catch (DataIntegrityViolationException exception) {
+          log.info("Another replica started the re-scoring run for model {}", modelVersion);
+        }
+      }
+    }
+    resume();
+    return status();
+  }
+
+  /**
+   * Returns the progress of the run for the configured model version.
+   *
+   * @return the progress, throughput and estimated time to completion
+   * @throws ElementNotFoundException if no run was started for the configured model version
+   */
+  public RescoringStatus status() {
+    String modelVersion = sentimentAnalysisService.getModelVersion();
+    RescoringCheckpoint checkpoint =
+        rescoringCheckpointRepository
+            .findById(modelVersion)
+            .orElseThrow(
+                () -> new ElementNotFoundException("No re-scoring run found for model version " + modelVersion + "."));
+
+    Instant now = Instant.now();
+    String state;
+    if (checkpoint.getCompletedAt() != null) {
+      state = "COMPLETED";
+    } else if (checkpoint.getLeasedBy() != null && checkpoint.getLeaseExpiresAt().isAfter(now)) {
+      state = "RUNNING";
+    } else {
+      state = "PAUSED";
+    }
+    double throughput =
+        checkpoint.getActiveMillis() == 0 ? 0 : checkpoint.getProcessed() * 1000.0 / checkpoint.getActiveMillis();
+    long remaining = Math.max(0, checkpoint.getTotal() - checkpoint.getProcessed());
+    Long eta = null;
+    if (checkpoint.getCompletedAt() != null) {
+      eta = 0L;
+    } else if (throughput > 0) {
+      eta = Math.round(remaining / throughput);
+    }
+    return new RescoringStatus(
+        modelVersion,
+        state,
+        checkpoint.getProcessed(),
+        checkpoint.getTotal(),
+        throughput,
+        eta,
+        checkpoint.getStartedAt(),
+        checkpoint.getUpdatedAt());
+  }
+
+  /** Continues an unfinished run on a background thread, unless another replica holds it. */
+  @Scheduled(
+      fixedDelayString = "${emotion.rescoring.lease-duration:2m}",
+      initialDelayString = "${emotion.rescoring.lease-duration:2m}")
+  public void resume() {
+    lock.lock();
+    try {
+      if (runner != null && runner.isAlive()) {
+        return;
+      }
+      String modelVersion = sentimentAnalysisService.getModelVersion();
+      Instant now = Instant.now();
+      if (rescoringCheckpointRepository.acquireLease(modelVersion, workerId, now, now.plus(leaseDuration)) == 0) {
+        return;
+      }
+      Thread.Builder thread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+      runner = thread.name("emotion-rescoring").start(this::runInBulkLane);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Re-scores the next page of the run this replica holds.
+   *
+   * @return {@code true} if more pages may follow, {@code false} if the run is finished or its lease was lost
+   * @throws InterruptedException if interrupted while waiting for the rate limiter
+   * @throws SentimentProviderException if the provider failed; the checkpoint is left at the last committed page
+   */
+  public boolean rescorePage() throws InterruptedException {
+    long start = System.nanoTime();
+    String modelVersion = sentimentAnalysisService.getModelVersion();
+    RescoringCheckpoint checkpoint = rescoringCheckpointRepository.findById(modelVersion).orElse(null);
+    if (checkpoint == null || checkpoint.getCompletedAt() != null) {
+      return false;
+    }
+    List<RescoringCandidate> page =
+        emotionRescoringRepository.findPage(checkpoint.getLastId(), modelVersion, pageSize);
+    if (page.isEmpty()) {
+      rescoringCheckpointRepository.complete(modelVersion, workerId, Instant.now());
+      log.info("Re-scoring with model {} completed after {} emotions", modelVersion, checkpoint.getProcessed());
+      return false;
+    }
+
+    List<SentimentResult> results = new ArrayList<>(page.size());
+    for (int from = 0; from < page.size(); from += providerBatchSize) {
+      List<String> texts =
+          page.subList(from, Math.min(from + providerBatchSize, page.size())).stream()
+              .map(RescoringCandidate::text)
+              .toList();
+      rateLimiter.acquire();
+      results.addAll(sentimentAnalysisService.analyzeBatch(texts));
+    }
+
+    Boolean advanced =
+        transactionTemplate.execute(
+            status -> {
+              Instant now = Instant.now();
+              if (rescoringCheckpointRepository.acquireLease(
+                      modelVersion, workerId, now, now.plus(leaseDuration))
+                  == 0) {
+                return false;
+              }
+              int[] updated = emotionRescoringRepository.updateScores(page, results, modelVersion);
+              rescoringCheckpointRepository.advance(
+                  modelVersion,
+                  workerId,
+                  page.getLast().id(),
+                  page.size(),
+                  (System.nanoTime() - start) / 1_000_000,
+                  now);
+              for (int i = 0; i < page.size(); i++) {
+                if (updated[i] != 0) {
+                  RescoringCandidate candidate = page.get(i);
+                  eventPublisher.publishEvent(
+                      new EmotionRescoredEvent(
+                          candidate.id(),
+                          candidate.clientId(),
+                          candidate.type(),
+                          candidate.score(),
+                          results.get(i).label(),
+                          results.get(i).score()));
+                }
+              }
+              return true;
+            });
+    if (!Boolean.TRUE.equals(advanced)) {
+      log.info("Lost the lease on the re-scoring run for model {}", modelVersion);
+      return false;
+    }
+    return true;
+  }
+
+  private void runInBulkLane() {
+    try (RequestLane.Scope lane = RequestLane.BULK.enter()) {
+      run();
+    }
+  }
+
+  private void run() {
+    String modelVersion = sentimentAnalysisService.getModelVersion();
+    try {
+      while (rescorePage()) {
+        log.debug("Re-scored a page with model {}", modelVersion);
+      }
+    } catch (SentimentProviderException exception) {
+      log.warn("Re-scoring with model {} paused after a provider failure: {}", modelVersion, exception.getMessage());
+      rescoringCheckpointRepository.releaseLease(modelVersion, workerId);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      rescoringCheckpointRepository.releaseLease(modelVersion, workerId);
+    } catch (RuntimeException exception) {
+      log.error("Re-scoring with model {} failed", modelVersion, exception);
+      rescoringCheckpointRepository.releaseLease(modelVersion, workerId);
+    }
+  }
+}
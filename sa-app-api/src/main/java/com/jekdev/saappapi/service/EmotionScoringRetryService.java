@@ -0,0 +1,234 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.entities.ScoringJob;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.ScoringJobQueue;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.RequestLane;
+import com.jekdev.saappapi.utils.SentimentResult;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Scores emotions that were stored as {@link EmotionStatus#PENDING} because the sentiment provider was unavailable.
+ *
+ * <p>Every pending emotion has a job in the {@link ScoringJobQueue}, which all replicas share. Every {@code
+ * emotion.scoring.retry-interval} each replica claims up to {@code emotion.scoring.batch-size} due jobs under a lease of
+ * {@code emotion.scoring.lease-duration} and scores them one after the other, so throughput grows with the number of
+ * replicas and a job held by a replica that died is picked up by another one when its lease expires. The first
+ * provider failure ends the run: that job is postponed with exponential backoff ({@code initial-backoff * 2^attempts},
+ * capped at {@code max-backoff}, plus up to 20% jitter) and the rest of the batch is released for the next claim, so an
+ * unavailable provider receives a single probe per run instead of the whole backlog. Newly scored emotions are
+ * announced with an {@link EmotionCreatedEvent}, like emotions that were scored on creation. Retries are {@link
+ * RequestLane#BULK bulk} work, so they share the smaller provider budget of that lane.
+ *
+ * <p>The number of queued jobs is exposed as the gauge {@value #BACKLOG_METRIC}.
+ */
+@Slf4j
+@Service
+public class EmotionScoringRetryService {
+
+  /** Name of the gauge reporting the number of pending emotions. */
+  public static final String BACKLOG_METRIC = "emotion.scoring.backlog";
+
+  private static final double MAX_JITTER = 0.2;
+
+  private final EmotionRepository emotionRepository;
+  private final ScoringJobQueue scoringJobQueue;
+  private final SentimentAnalysisService sentimentAnalysisService;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final String workerId;
+  private final AtomicLong backlog = new AtomicLong();
+
+  @Value("${emotion.scoring.batch-size:50}")
+  private int batchSize;
+
+  @Value("${emotion.scoring.lease-duration:5m}")
+  private Duration leaseDuration;
+
+  @Value("${emotion.scoring.initial-backoff:30s}")
+  private Duration initialBackoff;
+
+  @Value("${emotion.scoring.max-backoff:1h}")
+  private Duration maxBackoff;
+
+  public EmotionScoringRetryService(
+      EmotionRepository emotionRepository,
+      ScoringJobQueue scoringJobQueue,
+      SentimentAnalysisService sentimentAnalysisService,
+      ApplicationEventPublisher eventPublisher,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry) {
+    this.emotionRepository = emotionRepository;
+    this.scoringJobQueue = scoringJobQueue;
+    this.sentimentAnalysisService = sentimentAnalysisService;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = transactionTemplate;
+    this.workerId = System.getenv().getOrDefault("HOSTNAME", "sa-app-api") + "-" + UUID.randomUUID();
+    Gauge.builder(BACKLOG_METRIC, backlog, AtomicLong::get)
+        .description("Emotions waiting to be scored by the sentiment provider")
+        .register(meterRegistry);
+  }
+
+  /** Queues pending emotions that have no job yet and initializes the backlog gauge. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reconcile() {
+    try {
+      int queued = scoringJobQueue.enqueueOrphans(Instant.now());
+      if (queued > 0) {
+        log.info("Queued {} pending emotions without a scoring job", queued);
+      }
+    } catch (DataIntegrityViolationException exception) {
+      log.info("Another replica queued the pending emotions concurrently: {}", exception.getMessage());
+    }
+    backlog.set(scoringJobQueue.count());
+  }
+
+  /**
+   * Clears the sentiment of a not yet saved emotion and marks it as pending.
+   *
+   * @param emotion the emotion whose scoring failed
+   */
+  public void markPending(Emotion emotion) {
+    emotion.setType(null);
+    emotion.setScore(null);
+    emotion.setModelVersion(null);
+    emotion.setStatus(EmotionStatus.PENDING);
+  }
+
+  /**
+   * Queues the scoring job of a saved pending emotion in the caller's transaction.
+   *
+   * @param emotionId the id of the pending emotion
+   */
+  public void enqueue(long emotionId) {
+    scoringJobQueue.enqueue(emotionId, Instant.now().plus(backoff(0)));
+    backlog.incrementAndGet();
+  }
+
+  /**
+   * Removes the scoring job of a deleted pending emotion. The backlog only shrinks if a job was actually removed, not
+   * if the emotion was scored and its job deleted in the meantime.
+   *
+   * @param emotionId the id of the deleted emotion
+   */
+  public void cancel(long emotionId) {
+    if (scoringJobQueue.delete(emotionId) == 1) {
+      backlog.decrementAndGet();
+    }
+  }
+
+  /**
+   * Claims a batch of due scoring jobs and scores their emotions, stopping at the first provider failure.
+   *
+   * @return the number of emotions scored in this run
+   */
+  @Scheduled(
+      fixedDelayString = "${emotion.scoring.retry-interval:15s}",
+      initialDelayString = "${emotion.scoring.retry-interval:15s}")
+  public int retryPending() {
+    List<ScoringJob> jobs = scoringJobQueue.claim(workerId, batchSize, leaseDuration);
+    if (jobs.isEmpty()) {
+      backlog.set(scoringJobQueue.count());
+      return 0;
+    }
+    Map<Long, Emotion> emotions =
+        emotionRepository.findAllById(jobs.stream().map(ScoringJob::getEmotionId).toList()).stream()
+            .collect(Collectors.toMap(Emotion::getId, Function.identity()));
+
+    int scored = 0;
+    for (int i = 0; i < jobs.size(); i++) {
+      ScoringJob job = jobs.get(i);
+      Emotion emotion = emotions.get(job.getEmotionId());
+      if (emotion == null) {
+        scoringJobQueue.complete(job.getEmotionId(), workerId);
+        continue;
+      }
+      SentimentResult sentiment;
+      try (RequestLane.Scope lane = RequestLane.BULK.enter()) {
+        sentiment = sentimentAnalysisService.analyze(emotion.getText());
+      } catch (SentimentProviderException exception) {
+        int attempts = job.getAttempts() + 1;
+        Instant next = Instant.now().plus(backoff(attempts));
+        scoringJobQueue.reschedule(job.getEmotionId(), workerId, next);
+        scoringJobQueue.release(
+            jobs.subList(i + 1, jobs.size()).stream().map(ScoringJob::getEmotionId).toList(), workerId);
+        log.warn(
+            "Scoring emotion {} failed (attempt {}), next attempt at {}: {}",
+            emotion.getId(),
+            attempts,
+            next,
+            exception.getMessage());
+        break;
+      }
+      if (Boolean.TRUE.equals(transactionTemplate.execute(status -> store(emotion, sentiment)))) {
+        scored++;
+      }
+    }
+
+    backlog.set(scoringJobQueue.count());
+    log.info("Scored {} of {} claimed pending emotions, {} still pending", scored, jobs.size(), backlog.get());
+    return scored;
+  }
+
+  /**
+   * @return the number of pending emotions as of the last count
+   */
+  public long getBacklog() {
+    return backlog.get();
+  }
+
+  /**
+   * Stores the sentiment and removes the job if this worker still holds its lease. Must run in a transaction; the
+   * creation event is delivered once it commits.
+   */
+  private boolean store(Emotion emotion, SentimentResult sentiment) {
+    if (!scoringJobQueue.complete(emotion.getId(), workerId)) {
+      log.info("Lease on the scoring job of emotion {} expired, leaving it to the new holder", emotion.getId());
+      return false;
+    }
+    emotion.setType(sentiment.label());
+    emotion.setScore(sentiment.score());
+    emotion.setModelVersion(sentimentAnalysisService.getModelVersion());
+    emotion.setStatus(EmotionStatus.SCORED);
+    emotionRepository.save(emotion);
+    eventPublisher.publishEvent(
+        new EmotionCreatedEvent(
+            emotion.getId(),
+            emotion.getClient().getId(),
+            sentiment.label(),
+            sentiment.score(),
+            emotion.getModelVersion(),
+            emotion.getMinHash()));
+    return true;
+  }
+
+  private Duration backoff(int attempts) {
+    long base = initialBackoff.toMillis() << Math.min(attempts, 30);
+    long capped = Math.min(base, maxBackoff.toMillis());
+    long jitter = (long) (capped * MAX_JITTER * ThreadLocalRandom.current().nextDouble());
+    return Duration.ofMillis(capped + jitter);
+  }
+}
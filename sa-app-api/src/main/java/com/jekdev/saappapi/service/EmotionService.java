@@ -4,14 +4,38 @@ import com.jekdev.saappapi.dto.EmotionRequest;
 import com.jekdev.saappapi.dto.EmotionResponse;
 import com.jekdev.saappapi.entities.Client;
 import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.errorhandling.DeadlineExceededException;
 import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
 import com.jekdev.saappapi.errorhandling.PresentElementException;
+import com.jekdev.saappapi.errorhandling.QuotaExceededException;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
 import com.jekdev.saappapi.mapper.AppMapper;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
 import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer;
+import com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer.PendingEmotion;
+import com.jekdev.saappapi.service.EmotionDedupeService.NearDuplicate;
+import com.jekdev.saappapi.service.LocalSentimentService.LocalPrediction;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.SentimentResult;
 import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 /**
@@ -31,6 +55,9 @@ import org.springframework.stereotype.Service;
  * throwing exceptions. This improves traceability and aids in application maintenance.
  * <p>
  * Transactions are applied to ensure consistency and integrity of database operations.
+ * <p>
+ * Every stored and deleted emotion is announced as an {@link EmotionCreatedEvent} or {@link EmotionDeletedEvent}, so
+ * that in-memory views such as the analytics store stay in sync once the transaction commits.
  */
 @Service
 @Slf4j
@@ -43,17 +70,146 @@ public class EmotionService {
     private final AppMapper appMapper;
 
     private final EmotionRepository emotionRepository;
+    private final EmotionReadRepository emotionReadRepository;
+    private final EmotionSegmentRepository emotionSegmentRepository;
+    private final EmotionWriteBehindBuffer emotionWriteBehindBuffer;
     private final SentimentAnalysisService sentimentAnalysisService;
+    private final EmotionScoringRetryService emotionScoringRetryService;
+    private final EmotionDedupeService emotionDedupeService;
+    private final LocalSentimentService localSentimentService;
+    private final ClientQuotaService clientQuotaService;
+    private final ResourceVersionService resourceVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${emotion.create.async:false}")
+    private boolean asyncEnabled;
+
+    @Value("${emotion.write-behind.timeout:5s}")
+    private Duration writeBehindTimeout;
 
     /**
      * Creates a new {@link Emotion} entity or retrieves an existing one. This method processes the provided
      * {@link EmotionRequest}, mapping it to an {@link Emotion} entity, associates it with a corresponding
      * {@link Client}, and then either saves the new entity or logs a debug message if the emotion already exists.
+     * <p>
+     * If the sentiment provider is unavailable, the emotion is still saved, as {@link EmotionStatus#PENDING} without
+     * type and score, together with a scoring job that the {@link EmotionScoringRetryService} of any replica picks up
+     * once the provider recovers.
+     * <p>
+     * If the {@link EmotionDedupeService} finds a scored emotion with nearly the same text, the new emotion references
+     * it in {@code duplicateOf} and, unless disabled, takes over its score without calling the provider. Otherwise the
+     * {@link LocalSentimentService} answers texts its model is confident about, and only the others go to the
+     * provider, within the client's quota of the {@link ClientQuotaService}.
+     *
+     * @param emotionRequest
+     *            the {@link EmotionRequest} containing the details for the emotion to be created; must not be null
+     *
+     * @return {@link EmotionStatus#SCORED} if the emotion was scored right away, {@link EmotionStatus#PENDING} if
+     *         scoring was deferred
+     */
+    public EmotionStatus createEmotion(EmotionRequest emotionRequest) {
+        Emotion emotion = prepareEmotion(emotionRequest);
+        return store(emotion, analyzeOrMarkPending(emotion));
+    }
+
+    /**
+     * Indicates whether new emotions are written through the group-commit {@link EmotionWriteBehindBuffer} and should
+     * be created with {@link #createEmotionWriteBehind(EmotionRequest)}.
+     *
+     * @return {@code true} if {@code emotion.write-behind.enabled} is set
+     */
+    @Transactional(TxType.NOT_SUPPORTED)
+    public boolean isWriteBehindEnabled() {
+        return emotionWriteBehindBuffer.isEnabled();
+    }
+
+    /**
+     * Creates a new {@link Emotion} like {@link #createEmotion(EmotionRequest)}, but hands the scored row to the
+     * {@link EmotionWriteBehindBuffer} instead of saving it in its own transaction. The method returns only after the
+     * batch containing the emotion has been committed, so the caller sees the same durability as with a direct save.
+     * <p>
+     * The method runs without a surrounding transaction, so no database connection is held while the request waits for
+     * its group commit. The client is read or created in its own transaction before the emotion is buffered.
      *
      * @param emotionRequest
      *            the {@link EmotionRequest} containing the details for the emotion to be created; must not be null
+     *
+     * @return {@link EmotionStatus#SCORED} once the emotion's batch has committed, {@link EmotionStatus#PENDING} if
+     *         the provider was unavailable and the emotion was saved for a later retry
+     *
+     * @throws PresentElementException
+     *             if an emotion with the same text already exists
+     * @throws DeadlineExceededException
+     *             if the batch has not committed within {@code emotion.write-behind.timeout}; the emotion may still be
+     *             stored later
      */
-    public void createEmotion(EmotionRequest emotionRequest) {
+    @Transactional(TxType.NOT_SUPPORTED)
+    public EmotionStatus createEmotionWriteBehind(EmotionRequest emotionRequest) {
+        Emotion emotion = prepareEmotion(emotionRequest);
+        return storeWriteBehind(emotion, analyzeOrMarkPending(emotion));
+    }
+
+    /**
+     * Indicates whether new emotions are created with {@link #createEmotionAsync(EmotionRequest)}, so that requests
+     * waiting for the sentiment provider hold neither a request thread nor a database connection.
+     *
+     * @return {@code true} if {@code emotion.create.async} is set
+     */
+    @Transactional(TxType.NOT_SUPPORTED)
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    /**
+     * Creates a new {@link Emotion} like {@link #createEmotion(EmotionRequest)}, but without waiting for the sentiment
+     * provider. The client, the duplicate check, near-duplicates and the local model are handled right away; a text
+     * that needs the provider is scored by {@link SentimentAnalysisService#analyzeAsync(String)}, and the emotion is
+     * stored once the score arrives, through the {@link EmotionWriteBehindBuffer} if it is enabled.
+     * <p>
+     * The method runs without a surrounding transaction, so the request holds no database connection while the
+     * provider call is in flight. As with the write-behind mode, a pending emotion and its scoring job are saved in
+     * separate transactions.
+     *
+     * @param emotionRequest
+     *            the {@link EmotionRequest} containing the details for the emotion to be created; must not be null
+     *
+     * @return a future completed with {@link EmotionStatus#SCORED} once the emotion is stored, or with
+     *         {@link EmotionStatus#PENDING} if the provider was unavailable and the emotion was saved for a later retry
+     *
+     * @throws PresentElementException
+     *             if an emotion with the same text already exists
+     * @throws QuotaExceededException
+     *             if the provider would be called and the client has used up its quota
+     */
+    @Transactional(TxType.NOT_SUPPORTED)
+    public CompletableFuture<EmotionStatus> createEmotionAsync(EmotionRequest emotionRequest) {
+        Emotion emotion = prepareEmotion(emotionRequest);
+        Optional<SentimentResult> known = scoreWithoutProvider(emotion);
+        if (known.isPresent()) {
+            return CompletableFuture.completedFuture(storeAsync(emotion, known.get()));
+        }
+
+        clientQuotaService.acquire(emotion.getClient());
+        return sentimentAnalysisService.analyzeAsync(emotion.getText()).handle((sentiment, failure) -> {
+            if (failure == null) {
+                return storeAsync(emotion, applyProviderSentiment(emotion, sentiment));
+            }
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            if (!(cause instanceof SentimentProviderException providerFailure)) {
+                throw failure instanceof CompletionException completion ? completion : new CompletionException(cause);
+            }
+            markPending(emotion, providerFailure);
+            return storeAsync(emotion, null);
+        });
+    }
+
+    /**
+     * Maps the request to a new {@link Emotion} of an existing or new {@link Client} and detects its language.
+     *
+     * @throws PresentElementException
+     *             if an emotion with the same text already exists
+     */
+    private Emotion prepareEmotion(EmotionRequest emotionRequest) {
         Emotion emotion = appMapper.mapEmotionRequestToEntity(emotionRequest);
         Client client = clientService.readOrCreateClient(emotion.getClient());
         emotion.setClient(client);
@@ -61,32 +217,209 @@ public class EmotionService {
         if (emotionRepository.findByText(emotion.getText()).isPresent()) {
             log.debug("Emotion Already exists");
             throw new PresentElementException("Emotion already exists. Please use a different text.");
-        } else {
-            var sentiment = sentimentAnalysisService.analyze(emotion.getText());
+        }
+
+        emotion.setLanguage(sentimentAnalysisService.detectLanguage(emotion.getText()));
+        return emotion;
+    }
+
+    /**
+     * Saves a scored emotion and announces it, or saves a pending emotion together with its scoring job.
+     */
+    private EmotionStatus store(Emotion emotion, SentimentResult sentiment) {
+        emotionRepository.save(emotion);
+        resourceVersionService.emotionsChanged();
+        if (sentiment == null) {
+            emotionScoringRetryService.enqueue(emotion.getId());
+            log.info("Emotion saved as pending with id: {}", emotion.getId());
+            return EmotionStatus.PENDING;
+        }
+        eventPublisher.publishEvent(new EmotionCreatedEvent(emotion.getId(), emotion.getClient().getId(),
+                emotion.getType(), emotion.getScore(), emotion.getModelVersion(), emotion.getMinHash()));
+        log.info("Emotion saved with id: {} label: {} score: {}", emotion.getId(), emotion.getType(),
+                emotion.getScore());
+        return EmotionStatus.SCORED;
+    }
+
+    /**
+     * Hands a scored emotion to the {@link EmotionWriteBehindBuffer} and waits for its group commit, for at most
+     * {@code emotion.write-behind.timeout}; pending emotions are saved directly.
+     */
+    private EmotionStatus storeWriteBehind(Emotion emotion, SentimentResult sentiment) {
+        Client client = emotion.getClient();
+        if (sentiment == null) {
+            emotionRepository.save(emotion);
+            emotionScoringRetryService.enqueue(emotion.getId());
+            resourceVersionService.emotionsChanged();
+            log.info("Emotion saved as pending with id: {}", emotion.getId());
+            return EmotionStatus.PENDING;
+        }
+
+        CompletableFuture<Long> result = emotionWriteBehindBuffer.submit(new PendingEmotion(emotion.getText(),
+                sentiment.label(), sentiment.score(), emotion.getModelVersion(), client.getId(), emotion.getMinHash(),
+                emotion.getDuplicateOf(), emotion.getLanguage()));
+        Consumer<Long> announce = id -> eventPublisher.publishEvent(new EmotionCreatedEvent(id, client.getId(),
+                sentiment.label(), sentiment.score(), emotion.getModelVersion(), emotion.getMinHash()));
+        Long id;
+        try {
+            id = result.get(writeBehindTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException exception) {
+            // the row may still commit with a later batch; announce it then, so the in-memory views stay complete
+            result.thenAccept(announce);
+            log.warn("Write-behind batch did not commit within {} ms", writeBehindTimeout.toMillis());
+            throw new DeadlineExceededException(
+                    "The emotion could not be stored in time. It may still appear, please check before retrying.");
+        } catch (ExecutionException exception) {
+            throw exception.getCause() instanceof RuntimeException cause ? cause
+                    : new IllegalStateException("Write-behind batch failed", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind batch", exception);
+        }
+        announce.accept(id);
+        log.info("Emotion group-committed with id: {} label: {} score: {}", id, sentiment.label(), sentiment.score());
+        return EmotionStatus.SCORED;
+    }
+
+    private EmotionStatus storeAsync(Emotion emotion, SentimentResult sentiment) {
+        return emotionWriteBehindBuffer.isEnabled() ? storeWriteBehind(emotion, sentiment) : store(emotion, sentiment);
+    }
+
+    /**
+     * Scores the emotion text, or reuses the score of a near-duplicate, and stores the result on the entity. Texts the
+     * local model is confident about are scored locally. If the provider is unavailable, the emotion is marked as
+     * pending instead.
+     *
+     * @return the sentiment, or {@code null} if the emotion was marked as pending
+     *
+     * @throws QuotaExceededException
+     *             if the provider would be called and the client has used up its quota
+     */
+    private SentimentResult analyzeOrMarkPending(Emotion emotion) {
+        Optional<SentimentResult> known = scoreWithoutProvider(emotion);
+        if (known.isPresent()) {
+            return known.get();
+        }
+        clientQuotaService.acquire(emotion.getClient());
+        try {
+            return applyProviderSentiment(emotion, sentimentAnalysisService.analyze(emotion.getText()));
+        } catch (SentimentProviderException exception) {
+            markPending(emotion, exception);
+            return null;
+        }
+    }
+
+    /**
+     * Reuses the score of a near-duplicate or asks the local model, and stores the result on the entity.
+     *
+     * @return the sentiment, or empty if the text must be scored by the provider
+     */
+    private Optional<SentimentResult> scoreWithoutProvider(Emotion emotion) {
+        Optional<NearDuplicate> duplicate = emotionDedupeService.findDuplicate(emotion);
+        if (duplicate.isPresent()) {
+            NearDuplicate original = duplicate.get();
+            emotion.setType(original.type());
+            emotion.setScore(original.score());
+            emotion.setModelVersion(original.modelVersion());
+            emotion.setStatus(EmotionStatus.SCORED);
+            log.debug("Reusing the score of near-duplicate emotion {}", original.id());
+            return Optional.of(new SentimentResult(original.type(), original.score()));
+        }
+        Optional<LocalPrediction> local = localSentimentService.predict(emotion.getText());
+        if (local.isPresent()) {
+            SentimentResult sentiment = local.get().sentiment();
             emotion.setType(sentiment.label());
             emotion.setScore(sentiment.score());
-            emotionRepository.save(emotion);
-            log.info("Emotion saved with id: {} label: {} score: {}", emotion.getId(), emotion.getType(),
-                    emotion.getScore());
+            emotion.setModelVersion(local.get().modelVersion());
+            emotion.setStatus(EmotionStatus.SCORED);
+            return Optional.of(sentiment);
         }
+        return Optional.empty();
+    }
+
+    private SentimentResult applyProviderSentiment(Emotion emotion, SentimentResult sentiment) {
+        emotion.setType(sentiment.label());
+        emotion.setScore(sentiment.score());
+        emotion.setModelVersion(sentimentAnalysisService.getModelVersion());
+        emotion.setStatus(EmotionStatus.SCORED);
+        return sentiment;
+    }
+
+    private void markPending(Emotion emotion, SentimentProviderException exception) {
+        log.warn("Sentiment provider unavailable, saving emotion as pending: {}", exception.getMessage());
+        emotionScoringRetryService.markPending(emotion);
     }
 
     /**
-     * Retrieves a list of all emotion records from the database, maps each {@link Emotion} entity to a
-     * {@link EmotionResponse} object, and returns the resulting list. Each {@link EmotionResponse} object contains the
-     * relevant details about an emotion, such as its unique identifier, text, type, and associated client information.
+     * Retrieves a list of all emotion records from the database through the {@link EmotionReadRepository}, which maps
+     * each row straight into an {@link EmotionResponse} without hydrating {@link Emotion} entities. Each
+     * {@link EmotionResponse} object contains the relevant details about an emotion, such as its unique identifier,
+     * text, type, and associated client information.
      *
      * @return a {@link List} of {@link EmotionResponse} objects representing all emotion records stored in the database
      */
     public List<EmotionResponse> findAllEmotion() {
 
         log.info("Fetching all emotions");
-        List<Emotion> emotionList = emotionRepository.findAll();
+        List<EmotionResponse> emotionList = emotionReadRepository.findAllEmotions();
 
         if (emotionList.isEmpty()) {
             throw new ElementNotFoundException("No emotions found, please create some emotions first.");
         }
-        return emotionList.stream().map(appMapper::mapEmotionEntityToResponse).toList();
+        return emotionList;
+    }
+
+    /**
+     * Retrieves all emotions whose text was detected to be in the given language, like {@link #findAllEmotion()}.
+     *
+     * @param language
+     *            the ISO 639-1 language code, e.g. {@code de}
+     *
+     * @return the emotions in that language, ordered by id
+     *
+     * @throws ElementNotFoundException
+     *             if no emotion is in that language
+     */
+    public List<EmotionResponse> findAllEmotion(String language) {
+
+        log.info("Fetching all emotions in language {}", language);
+        List<EmotionResponse> emotionList = emotionReadRepository.findAllEmotions(language);
+
+        if (emotionList.isEmpty()) {
+            throw new ElementNotFoundException("No emotions found in language " + language + ".");
+        }
+        return emotionList;
+    }
+
+    /**
+     * Looks up a single emotion by its unique identifier. The hot {@code emotion} table is checked first; emotions that
+     * were moved to the archive are read from their segment file.
+     *
+     * @param id
+     *            the unique identifier of the emotion; must not be null
+     *
+     * @return the {@link EmotionResponse} of the hot or archived emotion
+     *
+     * @throws ElementNotFoundException
+     *             if the emotion exists neither in the table nor in the archive
+     */
+    public EmotionResponse findEmotion(Long id) {
+        return emotionReadRepository.findEmotionById(id)
+                .or(() -> emotionSegmentRepository.findById(id).map(appMapper::mapArchivedEmotionToResponse))
+                .orElseThrow(() -> new ElementNotFoundException("Emotion with id " + id + " not found."));
+    }
+
+    /**
+     * Streams every emotion, archived ones first and then the hot table, to the given consumer without materializing
+     * the whole data set.
+     *
+     * @param consumer
+     *            receives each {@link EmotionResponse}
+     */
+    public void exportEmotions(Consumer<EmotionResponse> consumer) {
+        log.info("Exporting all emotions");
+        emotionSegmentRepository.forEach(emotion -> consumer.accept(appMapper.mapArchivedEmotionToResponse(emotion)));
+        emotionReadRepository.forEachEmotion(consumer);
     }
 
     /**
@@ -97,8 +430,13 @@ public class EmotionService {
      *            the unique identifier of the {@link Emotion} to be deleted; must not be null
      */
     public void deleteEmotion(Long id) {
-        emotionRepository.findById(id)
+        Emotion emotion = emotionRepository.findById(id)
                 .orElseThrow(() -> new ElementNotFoundException("Emotion with id " + id + " not found."));
         emotionRepository.deleteById(id);
+        if (emotion.getStatus() == EmotionStatus.PENDING) {
+            emotionScoringRetryService.cancel(id);
+        }
+        eventPublisher.publishEvent(new EmotionDeletedEvent(id, emotion.getClient().getId(), emotion.getType(),
+                emotion.getScore()));
     }
 }
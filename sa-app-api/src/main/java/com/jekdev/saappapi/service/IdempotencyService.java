@@ -0,0 +1,216 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.IdempotencyRecord;
+import com.jekdev.saappapi.repositories.IdempotencyStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Makes create requests idempotent: a retry with the same {@code Idempotency-Key} receives the response of the first
+ * request instead of running the create again.
+ *
+ * <p>The first request with a key claims it in the {@link IdempotencyStore} together with the fingerprint of its body,
+ * and stores its response when it has finished. Retries then cost one lookup: a finished key is replayed, a key that
+ * was used with another body is a {@link Outcome#MISMATCH}, and a key whose first request is still in progress makes
+ * the retry wait for up to {@code emotion.idempotency.in-flight-wait}, on the local request if it runs on this replica
+ * or by polling the store otherwise. Server errors and throttling responses are not stored, so their retries run
+ * again. Keys are forgotten after {@code emotion.idempotency.ttl}.
+ *
+ * <p>A claim is only a lease of {@code emotion.idempotency.lease}, which must be longer than the longest request; the
+ * {@code ttl} starts when the response is stored. If the replica holding a key dies before it finishes, the next
+ * request with the key takes it over once the lease has expired, instead of getting 409 Conflict until the ttl ends.
+ *
+ * <p>Every decision is counted by {@value #REQUESTS_METRIC}, tagged with the {@code outcome}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+  /** Name of the counter of requests with an idempotency key. */
+  public static final String REQUESTS_METRIC = "emotion.idempotency.requests";
+
+  /** The longest response body that is stored for replays. */
+  public static final int MAX_BODY_LENGTH = 4000;
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+  private final IdempotencyStore idempotencyStore;
+  private final Duration ttl;
+  private final Duration lease;
+  private final Duration inFlightWait;
+  private final Map<String, CompletableFuture<Optional<IdempotencyRecord>>> inFlight = new ConcurrentHashMap<>();
+  private final Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+
+  /**
+   * @param idempotencyStore the store of keys and responses
+   * @param ttl how long a key is remembered after its response is stored
+   * @param lease how long a key is held for a request in progress
+   * @param inFlightWait how long a retry waits for the first request to finish
+   * @param meterRegistry the registry of the request counter
+   */
+  public IdempotencyService(
+      IdempotencyStore idempotencyStore,
+      @Value("${emotion.idempotency.ttl:24h}") Duration ttl,
+      @Value("${emotion.idempotency.lease:1m}") Duration lease,
+      @Value("${emotion.idempotency.in-flight-wait:10s}") Duration inFlightWait,
+      MeterRegistry meterRegistry) {
+    this.idempotencyStore = idempotencyStore;
+    this.ttl = ttl;
+    this.lease = lease;
+    this.inFlightWait = inFlightWait;
+    for (Outcome outcome : Outcome.values()) {
+      outcomes.put(
+          outcome,
+          meterRegistry.counter(REQUESTS_METRIC, "outcome", outcome.name().toLowerCase(Locale.ROOT).replace('_', '-')));
+    }
+  }
+
+  /**
+   * Decides how to handle a request with an idempotency key, waiting while another request with the same key is in
+   * progress. If the request may proceed, its caller must {@link #complete complete} or {@link #release(String)
+   * release} the key.
+   *
+   * @param key the idempotency key, scoped to the endpoint
+   * @param fingerprint the fingerprint of the request body
+   * @return the decision
+   */
+  public Decision begin(String key, String fingerprint) {
+    long deadline = System.nanoTime() + inFlightWait.toNanos();
+    while (true) {
+      Instant now = Instant.now();
+      CompletableFuture<Optional<IdempotencyRecord>> owner = new CompletableFuture<>();
+      if (idempotencyStore.claim(key, fingerprint, now, now.plus(lease))) {
+        inFlight.put(key, owner);
+        return decide(Outcome.PROCEED, null);
+      }
+
+      Optional<IdempotencyRecord> existing = idempotencyStore.find(key);
+      if (existing.isEmpty()) {
+        continue;
+      }
+      IdempotencyRecord idempotencyRecord = existing.get();
+      if (!idempotencyRecord.getFingerprint().equals(fingerprint)) {
+        return decide(Outcome.MISMATCH, idempotencyRecord);
+      }
+      if (idempotencyRecord.isCompleted()) {
+        return decide(Outcome.REPLAYED, idempotencyRecord);
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0 || !awaitFirstRequest(key, remaining)) {
+        return decide(Outcome.IN_PROGRESS, idempotencyRecord);
+      }
+    }
+  }
+
+  /**
+   * Stores the response of a request that was allowed to proceed, or releases its key if the response must not be
+   * replayed: server errors, {@code 429 Too Many Requests} and bodies longer than {@value #MAX_BODY_LENGTH}
+   * characters.
+   *
+   * @param key the idempotency key, scoped to the endpoint
+   * @param status the HTTP status of the response
+   * @param contentType the content type of the response, may be {@code null}
+   * @param body the body of the response
+   */
+  public void complete(String key, int status, String contentType, String body) {
+    if (status >= 500 || status == 429 || body.length() > MAX_BODY_LENGTH) {
+      release(key);
+      return;
+    }
+    try {
+      idempotencyStore.complete(key, status, contentType, body, Instant.now().plus(ttl));
+    } finally {
+      CompletableFuture<Optional<IdempotencyRecord>> owner = inFlight.remove(key);
+      if (owner != null) {
+        owner.complete(idempotencyStore.find(key));
+      }
+    }
+  }
+
+  /**
+   * Releases the key of a request that was allowed to proceed, so the next retry runs as a new request.
+   *
+   * @param key the idempotency key, scoped to the endpoint
+   */
+  public void release(String key) {
+    try {
+      idempotencyStore.release(key);
+    } finally {
+      CompletableFuture<Optional<IdempotencyRecord>> owner = inFlight.remove(key);
+      if (owner != null) {
+        owner.complete(Optional.empty());
+      }
+    }
+  }
+
+  /** Deletes the expired keys of all replicas. */
+  @Scheduled(fixedDelayString = "${emotion.idempotency.purge-interval:1h}")
+  public void purgeExpired() {
+    int purged = idempotencyStore.purgeExpired(Instant.now());
+    if (purged > 0) {
+      log.info("Purged {} expired idempotency keys", purged);
+    }
+  }
+
+  /**
+   * Waits until the first request with the key has finished, on the request itself if it runs on this replica.
+   *
+   * @return {@code false} if the wait was interrupted
+   */
+  private boolean awaitFirstRequest(String key, long remainingNanos) {
+    CompletableFuture<Optional<IdempotencyRecord>> owner = inFlight.get(key);
+    try {
+      if (owner != null) {
+        owner.get(remainingNanos, TimeUnit.NANOSECONDS);
+      } else {
+        Thread.sleep(Duration.ofNanos(Math.min(remainingNanos, POLL_INTERVAL.toNanos())));
+      }
+      return true;
+    } catch (TimeoutException | ExecutionException exception) {
+      return true;
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private Decision decide(Outcome outcome, IdempotencyRecord idempotencyRecord) {
+    outcomes.get(outcome).increment();
+    return new Decision(outcome, idempotencyRecord);
+  }
+
+  /** How a request with an idempotency key is handled. */
+  public enum Outcome {
+    /** The key is new; the request runs and its response is stored. */
+    PROCEED,
+    /** The key has a stored response, which is sent again. */
+    REPLAYED,
+    /** The key was used for a request with another body. */
+    MISMATCH,
+    /** The first request with the key did not finish in time. */
+    IN_PROGRESS
+  }
+
+  /**
+   * The decision for a request with an idempotency key.
+   *
+   * @param outcome how the request is handled
+   * @param idempotencyRecord the record of the earlier request, {@code null} for {@link Outcome#PROCEED}
+   */
+  public record Decision(Outcome outcome, IdempotencyRecord idempotencyRecord) {}
+}
@@ -0,0 +1,314 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.dto.LocalModelReport;
+import com.jekdev.saappapi.dto.LocalModelReport.Threshold;
+import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.utils.LocalSentimentModel;
+import com.jekdev.saappapi.utils.LocalSentimentModel.LabeledText;
+import com.jekdev.saappapi.utils.SentimentResult;
+import com.jekdev.saappapi.utils.TextPreprocessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.DoubleStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Trains a {@link LocalSentimentModel} on the labels the provider assigned to stored emotions, and answers texts the
+ * model is confident about without calling the provider.
+ *
+ * <p>Training streams the scored emotions except those scored by a local model, so the model only ever learns provider
+ * labels. A deterministic share of {@code sentiment.local.holdout} of the emotions, chosen by id, is held out and used
+ * for the {@link LocalModelReport}. Only a uniform sample of at most {@code sentiment.local.max-examples} training
+ * texts, and the same share of held-out ones, is kept in memory. The model is written to {@code
+ * sentiment.local.model-file}, loaded from there on startup and reloaded whenever the file changes, which is checked
+ * every {@code sentiment.local.reload-interval}; replicas sharing the file thus pick up a model trained by any of them
+ * within that interval. Training runs on demand or on {@code sentiment.local.training-cron}, which is disabled by
+ * default.
+ *
+ * <p>{@link #predict(String)} returns the local prediction only if its probability reaches {@code
+ * sentiment.local.min-confidence}; every other text goes to the provider. Both outcomes are counted by {@value
+ * #ROUTED_METRIC}, tagged {@code route=local} or {@code route=provider}.
+ */
+@Slf4j
+@Service
+public class LocalSentimentService {
+
+  /** Name of the counter of texts routed to the local model or the provider. */
+  public static final String ROUTED_METRIC = "sentiment.local.routed";
+
+  private static final double[] REPORT_THRESHOLDS = {0.5, 0.6, 0.7, 0.8, 0.9, 0.95, 0.99};
+  private static final long SAMPLE_SEED = 42;
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final boolean enabled;
+  private final Path modelFile;
+  private final double minConfidence;
+  private final double holdout;
+  private final int epochs;
+  private final int maxExamples;
+  private final Counter local;
+  private final Counter provider;
+
+  private final ReentrantLock trainingLock = new ReentrantLock();
+  private volatile LocalSentimentModel model;
+  private volatile LocalModelReport report;
+  private volatile FileTime loadedModifiedTime;
+
+  /**
+   * @param emotionReadRepository the repository the training data is read from
+   * @param enabled whether confident texts are answered locally
+   * @param modelFile the file the model is written to and loaded from
+   * @param minConfidence the minimum probability of a local answer
+   * @param holdout the share of emotions held out for the report
+   * @param epochs the number of training passes
+   * @param maxExamples the maximum number of training texts kept in memory
+   * @param meterRegistry the registry of the routing counter
+   */
+  public LocalSentimentService(
+      EmotionReadRepository emotionReadRepository,
+      @Value("${sentiment.local.enabled:true}") boolean enabled,
+      @Value("${sentiment.local.model-file:data/local-sentiment.model}") Path modelFile,
+      @Value("${sentiment.local.min-confidence:0.9}") double minConfidence,
+      @Value("${sentiment.local.holdout:0.1}") double holdout,
+      @Value("${sentiment.local.epochs:5}") int epochs,
+      @Value("${sentiment.local.max-examples:100000}") int maxExamples,
+      MeterRegistry meterRegistry) {
+    this.emotionReadRepository = emotionReadRepository;
+    this.enabled = enabled;
+    this.modelFile = modelFile;
+    this.minConfidence = minConfidence;
+    this.holdout = holdout;
+    this.epochs = epochs;
+    this.maxExamples = maxExamples;
+    this.local = meterRegistry.counter(ROUTED_METRIC, "route", "local");
+    this.provider = meterRegistry.counter(ROUTED_METRIC, "route", "provider");
+  }
+
+  /** Loads the model written by an earlier training run, if there is one. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!Files.isRegularFile(modelFile)) {
+      log.info("No local sentiment model at {}, all texts go to the provider", modelFile);
+      return;
+    }
+    try {
+      FileTime modifiedTime = Files.getLastModifiedTime(modelFile);
+      try (InputStream input = new BufferedInputStream(Files.newInputStream(modelFile))) {
+        model = LocalSentimentModel.read(input);
+      }
+      loadedModifiedTime = modifiedTime;
+      log.info("Loaded local sentiment model {} from {}", model.version(), modelFile);
+    } catch (IOException exception) {
+      log.warn("Could not load the local sentiment model from {}: {}", modelFile, exception.getMessage());
+    }
+  }
+
+  /** Loads the model file again if it was replaced since it was last loaded, e.g. by another replica's training. */
+  @Scheduled(
+      fixedDelayString = "${sentiment.local.reload-interval:1m}",
+      initialDelayString = "${sentiment.local.reload-interval:1m}")
+  public void reloadIfChanged() {
+    try {
+      if (Files.isRegularFile(modelFile) && !Files.getLastModifiedTime(modelFile).equals(loadedModifiedTime)) {
+        load();
+      }
+    } catch (IOException exception) {
+      log.warn("Could not check the local sentiment model at {}: {}", modelFile, exception.getMessage());
+    }
+  }
+
+  /**
+   * Predicts the sentiment of a text locally if the model is confident enough.
+   *
+   * @param text the text
+   * @return the local prediction with the version of the model that made it, or empty if the text must be scored by
+   *     the provider
+   */
+  public Optional<LocalPrediction> predict(String text) {
+    LocalSentimentModel current = model;
+    if (!enabled || current == null) {
+      return Optional.empty();
+    }
+    SentimentResult prediction = current.predict(TextPreprocessor.canonicalize(text));
+    if (prediction.score() < minConfidence) {
+      provider.increment();
+      return Optional.empty();
+    }
+    local.increment();
+    return Optional.of(new LocalPrediction(prediction, current.version()));
+  }
+
+  /**
+   * Trains a new model on the provider-scored emotions, evaluates it on the held-out ones, writes it to the model file
+   * and starts routing with it.
+   *
+   * @return the report of the new model
+   * @throws ElementNotFoundException if there are no provider-scored emotions to train on
+   */
+  @Scheduled(cron = "${sentiment.local.training-cron:-}")
+  public LocalModelReport train() {
+    trainingLock.lock();
+    try {
+      Sample training = new Sample(maxExamples);
+      Sample heldOut = new Sample((int) Math.ceil(maxExamples * holdout));
+      emotionReadRepository.forEachScoredSignature(
+          emotion -> {
+            if (emotion.modelVersion() != null
+                && emotion.modelVersion().startsWith(LocalSentimentModel.VERSION_PREFIX)) {
+              return;
+            }
+            LabeledText example = new LabeledText(TextPreprocessor.canonicalize(emotion.text()), emotion.type());
+            (isHeldOut(emotion.id()) ? heldOut : training).add(example);
+          });
+      if (training.examples.isEmpty()) {
+        throw new ElementNotFoundException("No scored emotions to train the local sentiment model on.");
+      }
+
+      LocalSentimentModel trained = LocalSentimentModel.train(training.examples, epochs);
+      LocalModelReport trainedReport = evaluate(trained, training.examples.size(), heldOut.examples);
+      save(trained);
+      model = trained;
+      report = trainedReport;
+      log.info(
+          "Trained local sentiment model {} on {} of {} emotions: accuracy {}, coverage {} at confidence {}",
+          trained.version(),
+          training.examples.size(),
+          training.seen,
+          trainedReport.getAccuracy(),
+          trainedReport.getCoverage(),
+          minConfidence);
+      return trainedReport;
+    } finally {
+      trainingLock.unlock();
+    }
+  }
+
+  /**
+   * @return the report of the last model trained by this instance
+   * @throws ElementNotFoundException if this instance has not trained a model since it started
+   */
+  public LocalModelReport report() {
+    LocalModelReport current = report;
+    if (current == null) {
+      throw new ElementNotFoundException("No local sentiment model has been trained since the application started.");
+    }
+    return current;
+  }
+
+  private boolean isHeldOut(long id) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return (hash >>> 11) * 0x1.0p-53 < holdout;
+  }
+
+  private LocalModelReport evaluate(LocalSentimentModel trained, int trainingExamples, List<LabeledText> heldOut) {
+    double[] confidences = new double[heldOut.size()];
+    boolean[] correct = new boolean[heldOut.size()];
+    int hits = 0;
+    for (int i = 0; i < heldOut.size(); i++) {
+      SentimentResult prediction = trained.predict(heldOut.get(i).text());
+      confidences[i] = prediction.score();
+      correct[i] = prediction.label().equals(heldOut.get(i).label());
+      hits += correct[i] ? 1 : 0;
+    }
+
+    List<Threshold> thresholds =
+        DoubleStream.of(REPORT_THRESHOLDS).mapToObj(threshold -> threshold(threshold, confidences, correct)).toList();
+    Threshold configured = threshold(minConfidence, confidences, correct);
+    return new LocalModelReport(
+        trained.version(),
+        Instant.now(),
+        trainingExamples,
+        heldOut.size(),
+        heldOut.isEmpty() ? 0 : (double) hits / heldOut.size(),
+        minConfidence,
+        configured.coverage(),
+        configured.accuracy(),
+        thresholds);
+  }
+
+  private static Threshold threshold(double minConfidence, double[] confidences, boolean[] correct) {
+    int covered = 0;
+    int hits = 0;
+    for (int i = 0; i < confidences.length; i++) {
+      if (confidences[i] >= minConfidence) {
+        covered++;
+        hits += correct[i] ? 1 : 0;
+      }
+    }
+    return new Threshold(
+        minConfidence,
+        confidences.length == 0 ? 0 : (double) covered / confidences.length,
+        covered == 0 ? 0 : (double) hits / covered);
+  }
+
+  /** Writes the model next to the target and moves it into place, so replicas never read a partial file. */
+  private void save(LocalSentimentModel trained) {
+    try {
+      Path directory = modelFile.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      Path temp = directory.resolve(modelFile.getFileName() + ".tmp");
+      try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        trained.write(output);
+      }
+      Files.move(temp, modelFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      loadedModifiedTime = Files.getLastModifiedTime(modelFile);
+    } catch (IOException exception) {
+      throw new UncheckedIOException("Could not write the local sentiment model to " + modelFile, exception);
+    }
+  }
+
+  /** Uniform reservoir sample of a stream of examples, reproducible for the same stream. */
+  private static final class Sample {
+
+    private final int capacity;
+    private final List<LabeledText> examples = new ArrayList<>();
+    private final SplittableRandom random = new SplittableRandom(SAMPLE_SEED);
+    private long seen;
+
+    private Sample(int capacity) {
+      this.capacity = capacity;
+    }
+
+    private void add(LabeledText example) {
+      seen++;
+      if (examples.size() < capacity) {
+        examples.add(example);
+        return;
+      }
+      long slot = random.nextLong(seen);
+      if (slot < capacity) {
+        examples.set((int) slot, example);
+      }
+    }
+  }
+
+  /**
+   * A sentiment predicted by the local model.
+   *
+   * @param sentiment the predicted label and its probability
+   * @param modelVersion the version of the model, stored on the emotion instead of the provider model version
+   */
+  public record LocalPrediction(SentimentResult sentiment, String modelVersion) {}
+}
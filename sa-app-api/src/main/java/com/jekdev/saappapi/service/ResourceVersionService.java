@@ -0,0 +1,113 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.repositories.TableVersionStore;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versions of the client and emotion data, from which the read endpoints derive their {@code ETag}.
+ *
+ * <p>Every write to the {@code client} or {@code emotion} table increments the table's counter in the
+ * {@link TableVersionStore}: writes that announce an emotion event in a transaction are counted before it commits, and
+ * the other writes mark their table as changed themselves. The counter row is shared by all replicas, so it is
+ * incremented at most once per table and transaction, however many rows the transaction writes; a rescoring page or
+ * a group commit of the {@link com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer}, which counts its batches
+ * itself, costs one update. Since a client embeds its emotions and an emotion its client, the
+ * {@link #currentETag() ETag} of every client and emotion response combines both counters. Reading it costs a single
+ * query on the small {@code table_version} table, so a request whose {@code If-None-Match} matches is answered with 304
+ * Not Modified without loading a client or emotion.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResourceVersionService {
+
+  private final TableVersionStore tableVersionStore;
+
+  /**
+   * @return the weak {@code ETag} of the current client and emotion data
+   */
+  public String currentETag() {
+    Map<String, Long> versions = tableVersionStore.versions();
+    long clients = versions.getOrDefault(TableVersionStore.CLIENT_TABLE, 0L);
+    long emotions = versions.getOrDefault(TableVersionStore.EMOTION_TABLE, 0L);
+    return "W/\"" + clients + "." + emotions + "\"";
+  }
+
+  /** Marks the {@code client} table as changed, in the caller's transaction. */
+  public void clientsChanged() {
+    changed(TableVersionStore.CLIENT_TABLE);
+  }
+
+  /** Marks the {@code emotion} table as changed, in the caller's transaction. */
+  public void emotionsChanged() {
+    changed(TableVersionStore.EMOTION_TABLE);
+  }
+
+  /**
+   * Counts a created or newly scored emotion. Emotions announced outside a transaction, after a group commit, were
+   * already counted with their batch.
+   *
+   * @param event the creation event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+  public void onEmotionCreated(EmotionCreatedEvent event) {
+    emotionsChanged();
+  }
+
+  /**
+   * Counts a deleted emotion.
+   *
+   * @param event the deletion event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onEmotionDeleted(EmotionDeletedEvent event) {
+    emotionsChanged();
+  }
+
+  /**
+   * Counts a re-scored emotion.
+   *
+   * @param event the re-scoring event
+   */
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  public void onEmotionRescored(EmotionRescoredEvent event) {
+    emotionsChanged();
+  }
+
+  /**
+   * Increments the counter of a table, once per transaction. Outside a transaction every write commits on its own and
+   * is counted on its own.
+   */
+  private void changed(String table) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      tableVersionStore.bump(table);
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Set<String> changed = (Set<String>) TransactionSynchronizationManager.getResource(this);
+    if (changed == null) {
+      changed = new HashSet<>();
+      TransactionSynchronizationManager.bindResource(this, changed);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(ResourceVersionService.this);
+            }
+          });
+    }
+    if (changed.add(table)) {
+      tableVersionStore.bump(table);
+    }
+  }
+}
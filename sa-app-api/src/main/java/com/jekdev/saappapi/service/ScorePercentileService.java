@@ -0,0 +1,363 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.entities.ScoreSketch;
+import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.ScoreSketchRepository;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.SentimentPolarity;
+import com.jekdev.saappapi.utils.TDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maintains t-digest quantile sketches of the signed sentiment score per client and over all emotions, so percentile
+ * reads never sort a client's scores.
+ *
+ * <p>Sketches are updated from {@link EmotionCreatedEvent}, which only reaches the replica that stored the emotion. The
+ * {@code watermark} is therefore only ever advanced by reading the table: every
+ * {@code emotion.percentiles.persist-interval} the sketches catch up on the emotions above it, skipping those already
+ * added from an event, so they include every emotion up to the watermark, whichever replica created it. The sketches
+ * are then snapshotted to the {@code score_sketch} table, shared by all replicas: the changed client sketches together
+ * with the global sketch, stamped with the same watermark, in one transaction that locks the global row. A replica
+ * whose watermark is below the stored one leaves the snapshots alone, since they are newer than its own sketches; a
+ * client sketch that was not rewritten has not changed since and includes every emotion up to the stored watermark as
+ * well. On startup the snapshots are restored and only emotions above the global sketch's watermark are replayed from
+ * the table, so an idle client never holds the replay back. Without snapshots the sketches are rebuilt from the archive
+ * segments and the table, and the next snapshot rewrites every sketch and deletes those of clients without scored
+ * emotions. An emotion whose creation event is still in flight while a replay reads it may be counted twice; the
+ * sketches are approximations and the next rebuild corrects it.
+ *
+ * <p>A sketch cannot forget a value, so a deletion or a re-scoring marks the sketches of the replica that handled it as
+ * stale and its next persist run rebuilds them. Until then percentiles still include the deleted emotion or the
+ * previous score.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScorePercentileService {
+
+  private static final String GLOBAL_SKETCH = "global";
+  private static final String CLIENT_SKETCH_PREFIX = "client-";
+  private static final double DEFAULT_COMPRESSION = 100;
+
+  private final EmotionReadRepository emotionReadRepository;
+  private final EmotionSegmentRepository emotionSegmentRepository;
+  private final ScoreSketchRepository scoreSketchRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Set<Long> dirtyClients = new HashSet<>();
+  private final Set<Long> countedAboveWatermark = new HashSet<>();
+  private Map<Long, TDigest> clientDigests = new HashMap<>();
+  private TDigest globalDigest = new TDigest(DEFAULT_COMPRESSION);
+  private long watermark;
+  private boolean rebuilt;
+  private volatile boolean stale;
+
+  @Value("${emotion.percentiles.compression:100}")
+  private double compression;
+
+  /**
+   * Restores the persisted sketches and replays newer emotions, or rebuilds everything if nothing was persisted. Like
+   * {@link #rebuild()}, the replay scan runs without holding the lock; emotions committed while it runs are replayed
+   * from the table after the restored sketches are swapped in.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    List<ScoreSketch> snapshots = scoreSketchRepository.findAll();
+    ScoreSketch global =
+        snapshots.stream().filter(snapshot -> GLOBAL_SKETCH.equals(snapshot.getName())).findFirst().orElse(null);
+    if (global == null) {
+      rebuild();
+      return;
+    }
+
+    Map<Long, TDigest> restoredClients = new HashMap<>();
+    TDigest restoredGlobal = TDigest.fromBytes(global.getDigest());
+    for (ScoreSketch snapshot : snapshots) {
+      if (snapshot != global) {
+        long clientId = Long.parseLong(snapshot.getName().substring(CLIENT_SKETCH_PREFIX.length()));
+        restoredClients.put(clientId, TDigest.fromBytes(snapshot.getDigest()));
+      }
+    }
+    Set<Long> replayedClients = new HashSet<>();
+    long restoredWatermark =
+        replay(global.getWatermark(), restoredClients, restoredGlobal, replayedClients, Set.of());
+
+    lock.lock();
+    try {
+      clientDigests = restoredClients;
+      globalDigest = restoredGlobal;
+      countedAboveWatermark.clear();
+      dirtyClients.addAll(replayedClients);
+      watermark = replay(restoredWatermark, clientDigests, globalDigest, dirtyClients, countedAboveWatermark);
+      log.info(
+          "Restored {} score sketches and replayed the emotions from id {} to {}",
+          snapshots.size(),
+          global.getWatermark(),
+          watermark);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds the signed score of a new emotion to its client's sketch and to the global sketch.
+   *
+   * @param event the creation event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionCreated(EmotionCreatedEvent event) {
+    lock.lock();
+    try {
+      add(event.id(), event.clientId(), SentimentPolarity.signedScore(event.type(), event.score()));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks the sketches as stale when a scored emotion is deleted.
+   *
+   * @param event the deletion event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionDeleted(EmotionDeletedEvent event) {
+    if (event.score() == null) {
+      return;
+    }
+    stale = true;
+  }
+
+  /**
+   * Marks the sketches as stale when an emotion was re-scored, since its previous score cannot be removed.
+   *
+   * @param event the re-scoring event
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEmotionRescored(EmotionRescoredEvent event) {
+    stale = true;
+  }
+
+  /**
+   * Rebuilds stale sketches, catches up on the emotions other replicas created and writes the sketches changed since
+   * the last run to the {@code score_sketch} table, unless another replica already wrote newer ones.
+   */
+  @Scheduled(
+      fixedDelayString = "${emotion.percentiles.persist-interval:5m}",
+      initialDelayString = "${emotion.percentiles.persist-interval:5m}")
+  public void persist() {
+    if (stale) {
+      rebuild();
+    }
+
+    List<ScoreSketch> snapshots = new ArrayList<>();
+    Set<Long> written;
+    boolean full;
+    long snapshotWatermark;
+    lock.lock();
+    try {
+      watermark = replay(watermark, clientDigests, globalDigest, dirtyClients, countedAboveWatermark);
+      countedAboveWatermark.removeIf(id -> id <= watermark);
+      if (dirtyClients.isEmpty() && !rebuilt) {
+        return;
+      }
+      Instant now = Instant.now();
+      for (Long clientId : dirtyClients) {
+        snapshots.add(
+            new ScoreSketch(CLIENT_SKETCH_PREFIX + clientId, clientDigests.get(clientId).toBytes(), watermark, now));
+      }
+      snapshots.add(new ScoreSketch(GLOBAL_SKETCH, globalDigest.toBytes(), watermark, now));
+      written = Set.copyOf(dirtyClients);
+      full = rebuilt;
+      snapshotWatermark = watermark;
+      dirtyClients.clear();
+      rebuilt = false;
+    } finally {
+      lock.unlock();
+    }
+
+    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> save(snapshots, snapshotWatermark, full)))) {
+      log.info("Persisted {} score sketches up to emotion id {}", snapshots.size(), snapshotWatermark);
+      return;
+    }
+    lock.lock();
+    try {
+      dirtyClients.addAll(written);
+      rebuilt |= full;
+    } finally {
+      lock.unlock();
+    }
+    log.info("Kept the persisted score sketches, another replica wrote them past emotion id {}", snapshotWatermark);
+  }
+
+  /**
+   * Rebuilds every sketch from the archive segments and the {@code emotion} table. The scan runs without holding the
+   * lock; emotions committed while it runs are replayed from the table after the new sketches are swapped in.
+   */
+  public void rebuild() {
+    long start = System.nanoTime();
+    stale = false;
+    Map<Long, TDigest> rebuiltClients = new HashMap<>();
+    TDigest rebuiltGlobal = new TDigest(compression);
+    long[] rebuiltWatermark = {0};
+
+    emotionSegmentRepository.forEach(
+        emotion -> {
+          if (emotion.type() != null && emotion.score() != null) {
+            double signed = SentimentPolarity.signedScore(emotion.type(), emotion.score());
+            rebuiltClients.computeIfAbsent(emotion.clientId(), id -> new TDigest(compression)).add(signed);
+            rebuiltGlobal.add(signed);
+          }
+        });
+    emotionReadRepository.forEachEmotion(
+        emotion -> {
+          if (emotion.getType() != null && emotion.getScore() != null) {
+            double signed = SentimentPolarity.signedScore(emotion.getType(), emotion.getScore());
+            rebuiltClients.computeIfAbsent(emotion.getClient().getId(), id -> new TDigest(compression)).add(signed);
+            rebuiltGlobal.add(signed);
+          }
+          rebuiltWatermark[0] = Math.max(rebuiltWatermark[0], emotion.getId());
+        });
+
+    lock.lock();
+    try {
+      clientDigests = rebuiltClients;
+      globalDigest = rebuiltGlobal;
+      countedAboveWatermark.clear();
+      rebuilt = true;
+      dirtyClients.addAll(rebuiltClients.keySet());
+      watermark = replay(rebuiltWatermark[0], clientDigests, globalDigest, dirtyClients, countedAboveWatermark);
+      log.info(
+          "Rebuilt score sketches for {} clients in {} ms (up to emotion id {})",
+          rebuiltClients.size(),
+          (System.nanoTime() - start) / 1_000_000,
+          watermark);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the approximate percentiles of one client's signed scores.
+   *
+   * @param clientId the client id
+   * @return the client's percentiles
+   * @throws ElementNotFoundException if the client has no scored emotions
+   */
+  public ScorePercentiles clientPercentiles(Long clientId) {
+    lock.lock();
+    try {
+      TDigest digest = clientDigests.get(clientId);
+      if (digest == null) {
+        throw new ElementNotFoundException("No scored emotions found for client with id " + clientId + ".");
+      }
+      return percentiles(clientId, digest);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the approximate percentiles of the signed scores of all emotions.
+   *
+   * @return the global percentiles
+   * @throws ElementNotFoundException if no emotion has been scored yet
+   */
+  public ScorePercentiles globalPercentiles() {
+    lock.lock();
+    try {
+      if (globalDigest.count() == 0) {
+        throw new ElementNotFoundException("No scored emotions found, please create some emotions first.");
+      }
+      return percentiles(null, globalDigest);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds the scored emotions above {@code from} to the given sketches. Must be called with the lock held when the
+   * sketches are the live ones.
+   *
+   * @param from exclusive lower bound of the emotion ids to read, the watermark of the sketches
+   * @param clients the client sketches to add to
+   * @param global the global sketch to add to
+   * @param changedClients receives the id of every client whose sketch changed
+   * @param counted the ids of emotions the sketches already include, which are skipped
+   * @return the new watermark of the sketches, the highest emotion id read or {@code from}
+   */
+  private long replay(
+      long from, Map<Long, TDigest> clients, TDigest global, Set<Long> changedClients, Set<Long> counted) {
+    long[] highest = {from};
+    emotionReadRepository.forEachEmotionAfter(
+        from,
+        emotion -> {
+          highest[0] = Math.max(highest[0], emotion.getId());
+          if (emotion.getType() == null || emotion.getScore() == null || counted.contains(emotion.getId())) {
+            return;
+          }
+          long clientId = emotion.getClient().getId();
+          double signed = SentimentPolarity.signedScore(emotion.getType(), emotion.getScore());
+          clients.computeIfAbsent(clientId, id -> new TDigest(compression)).add(signed);
+          global.add(signed);
+          changedClients.add(clientId);
+        });
+    return highest[0];
+  }
+
+  /**
+   * Writes the snapshots unless the stored global sketch has a higher watermark. Must run in a transaction; the lock
+   * on the global row serializes replicas persisting at the same time.
+   *
+   * @return {@code true} if the snapshots were written
+   */
+  private boolean save(List<ScoreSketch> snapshots, long snapshotWatermark, boolean full) {
+    Optional<ScoreSketch> stored = scoreSketchRepository.findByNameForUpdate(GLOBAL_SKETCH);
+    if (stored.isPresent() && stored.get().getWatermark() > snapshotWatermark) {
+      return false;
+    }
+    scoreSketchRepository.saveAll(snapshots);
+    if (full) {
+      int purged = scoreSketchRepository.deleteByWatermarkBefore(snapshotWatermark);
+      log.debug("Deleted {} score sketches of clients without scored emotions", purged);
+    }
+    return true;
+  }
+
+  /** Adds an emotion announced by its creation event. Must hold the lock. */
+  private void add(long emotionId, long clientId, double signedScore) {
+    clientDigests.computeIfAbsent(clientId, id -> new TDigest(compression)).add(signedScore);
+    globalDigest.add(signedScore);
+    dirtyClients.add(clientId);
+    if (emotionId > watermark) {
+      countedAboveWatermark.add(emotionId);
+    }
+  }
+
+  private static ScorePercentiles percentiles(Long clientId, TDigest digest) {
+    return new ScorePercentiles(
+        clientId, digest.count(), digest.quantile(0.5), digest.quantile(0.9), digest.quantile(0.99));
+  }
+}
@@ -1,9 +1,39 @@
 package com.jekdev.saappapi.service;
 
+import com.jekdev.saappapi.errorhandling.DeadlineExceededException;
 import com.jekdev.saappapi.errorhandling.SentimentProviderException;
+import com.jekdev.saappapi.utils.LanguageDetector;
+import com.jekdev.saappapi.utils.LruCache;
+import com.jekdev.saappapi.utils.RequestDeadline;
+import com.jekdev.saappapi.utils.RequestLane;
+import com.jekdev.saappapi.utils.SentimentBatchRequest;
 import com.jekdev.saappapi.utils.SentimentRequest;
 import com.jekdev.saappapi.utils.SentimentResult;
-import lombok.RequiredArgsConstructor;
+import com.jekdev.saappapi.utils.TextChunker;
+import com.jekdev.saappapi.utils.TextPreprocessor;
+import com.jekdev.saappapi.utils.TextPreprocessor.PreprocessedText;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -15,12 +45,55 @@ import tools.jackson.core.JacksonException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
+/**
+ * Client of the external sentiment provider.
+ *
+ * <p>Every text is first brought into canonical form by a {@link TextPreprocessor}: NFC-normalized, whitespace
+ * collapsed and truncated to {@code sentiment.preprocessing.max-tokens} estimated tokens. Only the canonical text is
+ * sent to the provider and used as cache key.
+ *
+ * <p>Texts longer than {@code sentiment.chunking.max-tokens} are split on sentence boundaries by a {@link TextChunker}.
+ * The chunks are scored in up to {@code sentiment.chunking.parallelism} concurrent provider requests and combined into
+ * one result: every label receives the sum of its chunk confidences weighted by chunk length, the label with the
+ * highest sum wins, and its score is that sum divided by the total length. Chunk results are kept in an LRU cache of
+ * {@code sentiment.chunking.cache-size} entries, so an edited text only sends the chunks that changed.
+ *
+ * <p>If {@code sentiment.ensemble.models} lists several model paths with weights, every text is scored by all of them
+ * in parallel on virtual threads, so the latency is that of the slowest model rather than the sum. Models that have
+ * not answered within {@code sentiment.ensemble.deadline}, or that failed, are dropped; the others are combined by
+ * weighted vote: every label receives the sum of its weighted confidences, the label with the highest sum wins and its
+ * score is that sum divided by the weight of the models that answered. {@code sentiment.ensemble.labels} maps the
+ * labels of models with other label sets, such as star ratings, onto common ones before the vote.
+ *
+ * <p>The language of every text is detected locally by a {@link LanguageDetector}. If {@code sentiment.language.models}
+ * maps that language to a model path, the text is scored by that model alone instead of the default model or ensemble.
+ *
+ * <p>Work of the {@link RequestLane#BULK bulk lane}, such as re-scoring and bulk imports, runs at most {@code
+ * sentiment.lanes.bulk.max-concurrency} texts or batches at a time, so it cannot take the provider capacity that
+ * interactive requests need.
+ *
+ * <p>Calls made under a {@link RequestDeadline} are cancelled when the deadline passes, and the ensemble stops waiting
+ * for its models at the deadline as well; a {@link DeadlineExceededException} then tells the caller that nobody waits
+ * for the result any more. The deadline follows the text onto the threads that score its chunks and models.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class SentimentAnalysisService {
 
-  private final @Qualifier("sentimentRestClient") RestClient sentimentRestClient;
+  private final RestClient sentimentRestClient;
   private final ObjectMapper objectMapper;
+  private final TextPreprocessor textPreprocessor;
+  private final TextChunker textChunker;
+  private final LruCache<ChunkKey, SentimentResult> chunkCache;
+  private final int parallelism;
+  private final List<EnsembleModel> ensemble;
+  private final Duration ensembleDeadline;
+  private final Map<String, String> labels;
+  private final Map<String, String> languageModels;
+  private final LanguageDetector languageDetector = LanguageDetector.fromBundledSamples();
+  private final ExecutorService ensembleExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+  private final Semaphore bulkPermits;
 
   @Value("${sentiment.api.token:}")
   private String apiToken;
@@ -28,35 +101,421 @@ public class SentimentAnalysisService {
   @Value("${sentiment.api.model-path}")
   private String modelPath;
 
+  @Value("${sentiment.api.model-version:}")
+  private String modelVersion;
+
+  /**
+   * @param sentimentRestClient the client configured with the provider base URL
+   * @param objectMapper the mapper for provider responses
+   * @param maxTextTokens the token budget of a whole text; longer texts are truncated
+   * @param maxTokens the maximum estimated tokens per provider input
+   * @param parallelism the maximum concurrent provider requests for the chunks of one text
+   * @param cacheSize the maximum number of cached chunk results
+   * @param ensembleModels comma-separated {@code path=weight} pairs; empty to use {@code sentiment.api.model-path} only
+   * @param ensembleDeadline how long the ensemble waits for its models
+   * @param labels comma-separated {@code providerLabel=label} pairs applied to every prediction
+   * @param languageModels comma-separated {@code language=path} pairs routing texts of a language to their own model
+   * @param bulkConcurrency the maximum concurrent calls of the {@link RequestLane#BULK bulk lane}
+   */
+  public SentimentAnalysisService(
+      @Qualifier("sentimentRestClient") RestClient sentimentRestClient,
+      ObjectMapper objectMapper,
+      @Value("${sentiment.preprocessing.max-tokens:4096}") int maxTextTokens,
+      @Value("${sentiment.chunking.max-tokens:400}") int maxTokens,
+      @Value("${sentiment.chunking.parallelism:4}") int parallelism,
+      @Value("${sentiment.chunking.cache-size:10000}") int cacheSize,
+      @Value("${sentiment.ensemble.models:}") String ensembleModels,
+      @Value("${sentiment.ensemble.deadline:3s}") Duration ensembleDeadline,
+      @Value("${sentiment.ensemble.labels:}") String labels,
+      @Value("${sentiment.language.models:}") String languageModels,
+      @Value("${sentiment.lanes.bulk.max-concurrency:2}") int bulkConcurrency) {
+    this.sentimentRestClient = sentimentRestClient;
+    this.objectMapper = objectMapper;
+    this.textPreprocessor = new TextPreprocessor(maxTextTokens);
+    this.textChunker = new TextChunker(maxTokens);
+    this.chunkCache = new LruCache<>(cacheSize);
+    this.parallelism = parallelism;
+    this.ensemble =
+        pairs(ensembleModels).entrySet().stream()
+            .map(model -> new EnsembleModel(model.getKey(), Double.parseDouble(model.getValue())))
+            .toList();
+    this.ensembleDeadline = ensembleDeadline;
+    this.labels = pairs(labels);
+    this.languageModels = pairs(languageModels);
+    this.bulkPermits = new Semaphore(bulkConcurrency, true);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    ensembleExecutor.shutdownNow();
+    asyncExecutor.shutdownNow();
+  }
+
   public SentimentResult analyze(String text) {
+    return inLane(() -> analyzeCanonical(preprocess(text)));
+  }
+
+  /**
+   * Scores a text like {@link #analyze(String)} without blocking the caller. The provider call waits on its own
+   * virtual thread, which costs a few KiB of heap instead of a request thread, so a small fixed set of carrier threads
+   * holds any number of slow calls. The call runs in the {@link RequestLane} and under the {@link RequestDeadline} of
+   * the caller.
+   *
+   * @param text the text to score
+   * @return a future completed with the result, or exceptionally with a {@link SentimentProviderException}
+   */
+  public CompletableFuture<SentimentResult> analyzeAsync(String text) {
+    RequestLane lane = RequestLane.current();
+    Supplier<SentimentResult> analysis = RequestDeadline.propagate(() -> analyze(text));
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try (RequestLane.Scope scope = lane.enter()) {
+            return analysis.get();
+          }
+        },
+        asyncExecutor);
+  }
+
+  private SentimentResult analyzeCanonical(String canonical) {
+    List<String> chunks = textChunker.split(canonical);
+    String languageModel = languageModels.get(languageDetector.detect(canonical));
+    if (languageModel != null) {
+      return score(languageModel, chunks);
+    }
+    if (ensemble.size() <= 1) {
+      return score(modelPath(), chunks);
+    }
+    return vote(invokeEnsemble(model -> score(model.path(), chunks)));
+  }
+
+  /**
+   * Scores several texts with a single provider request per model. Long texts are chunked and routed by language like
+   * in {@link #analyze(String)}; the chunks of all texts for the same model share one request.
+   *
+   * @param texts the texts to score
+   * @return one result per text, in the order of {@code texts}
+   */
+  public List<SentimentResult> analyzeBatch(List<String> texts) {
+    return inLane(() -> analyzeBatchInLane(texts));
+  }
+
+  private List<SentimentResult> analyzeBatchInLane(List<String> texts) {
+    Map<String, List<Integer>> routes = new LinkedHashMap<>();
+    List<List<String>> chunked = new ArrayList<>(texts.size());
+    for (int i = 0; i < texts.size(); i++) {
+      String canonical = preprocess(texts.get(i));
+      chunked.add(textChunker.split(canonical));
+      String languageModel = languageModels.getOrDefault(languageDetector.detect(canonical), "");
+      routes.computeIfAbsent(languageModel, model -> new ArrayList<>()).add(i);
+    }
+    if (routes.size() == 1 && routes.containsKey("")) {
+      return scoreDefaultBatch(chunked);
+    }
+
+    SentimentResult[] results = new SentimentResult[texts.size()];
+    routes.forEach(
+        (languageModel, indexes) -> {
+          List<List<String>> group = indexes.stream().map(chunked::get).toList();
+          List<SentimentResult> groupResults =
+              languageModel.isEmpty() ? scoreDefaultBatch(group) : scoreBatch(languageModel, group);
+          for (int i = 0; i < indexes.size(); i++) {
+            results[indexes.get(i)] = groupResults.get(i);
+          }
+        });
+    return List.of(results);
+  }
+
+  /**
+   * Detects the language of a text.
+   *
+   * @param text the text
+   * @return the ISO 639-1 code of the detected language, or {@code null} if it cannot be determined
+   */
+  public String detectLanguage(String text) {
+    return languageDetector.detect(TextPreprocessor.canonicalize(text));
+  }
+
+  /**
+   * Runs provider work of the bulk lane within its concurrency budget. Interactive work never waits for bulk work.
+   */
+  private <T> T inLane(Supplier<T> work) {
+    if (RequestLane.current() != RequestLane.BULK) {
+      return work.get();
+    }
+    try {
+      bulkPermits.acquire();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SentimentProviderException("Interrupted while waiting for the bulk lane.", exception);
+    }
+    try {
+      return work.get();
+    } finally {
+      bulkPermits.release();
+    }
+  }
+
+  private List<SentimentResult> scoreDefaultBatch(List<List<String>> chunked) {
+    if (ensemble.size() <= 1) {
+      return scoreBatch(modelPath(), chunked);
+    }
+    Map<EnsembleModel, List<SentimentResult>> results = invokeEnsemble(model -> scoreBatch(model.path(), chunked));
+    List<SentimentResult> voted = new ArrayList<>(chunked.size());
+    for (int i = 0; i < chunked.size(); i++) {
+      Map<EnsembleModel, SentimentResult> votes = new LinkedHashMap<>();
+      for (Map.Entry<EnsembleModel, List<SentimentResult>> result : results.entrySet()) {
+        votes.put(result.getKey(), result.getValue().get(i));
+      }
+      voted.add(vote(votes));
+    }
+    return voted;
+  }
+
+  /**
+   * Identifies the model that produced the scores, so emotions scored by an earlier model can be re-scored. Defaults
+   * to {@code sentiment.api.model-path}, or to {@code sentiment.ensemble.models} if an ensemble is configured,
+   * followed by {@code sentiment.language.models} if languages are routed to their own models.
+   *
+   * @return the configured model version
+   */
+  public String getModelVersion() {
+    if (modelVersion != null && !modelVersion.isBlank()) {
+      return modelVersion;
+    }
+    String version =
+        ensemble.size() <= 1
+            ? modelPath()
+            : String.join(",", ensemble.stream().map(model -> model.path() + "=" + model.weight()).toList());
+    if (languageModels.isEmpty()) {
+      return version;
+    }
+    return version + ";" + String.join(",", languageModels.entrySet().stream().map(Object::toString).toList());
+  }
+
+  private String modelPath() {
+    return ensemble.size() == 1 ? ensemble.getFirst().path() : modelPath;
+  }
+
+  private SentimentResult score(String model, List<String> chunks) {
+    if (chunks.size() == 1) {
+      JsonNode body = post(model, new SentimentRequest(chunks.getFirst()));
+      return parseBestPrediction(body.get(0).isArray() ? body.get(0) : body);
+    }
+    return aggregate(chunks, scoreChunks(model, chunks, parallelism));
+  }
+
+  private List<SentimentResult> scoreBatch(String model, List<List<String>> chunked) {
+    Map<String, SentimentResult> scores = scoreChunks(model, chunked.stream().flatMap(List::stream).toList(), 1);
+    return chunked.stream().map(chunks -> aggregate(chunks, scores)).toList();
+  }
+
+  /**
+   * Runs the task for every ensemble model on its own virtual thread and collects the results of the models that
+   * answered within the deadline, or within the {@link RequestDeadline} of the request if that is earlier. Models
+   * still running at the deadline are interrupted.
+   */
+  private <T> Map<EnsembleModel, T> invokeEnsemble(Function<EnsembleModel, T> task) {
+    List<Future<T>> futures;
+    try {
+      futures =
+          ensembleExecutor.invokeAll(
+              ensemble.stream()
+                  .<Callable<T>>map(model -> RequestDeadline.propagate(() -> task.apply(model))::get)
+                  .toList(),
+              RequestDeadline.cap(ensembleDeadline).toNanos(),
+              TimeUnit.NANOSECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SentimentProviderException("Interrupted while waiting for the sentiment ensemble.", exception);
+    }
+
+    Map<EnsembleModel, T> results = new LinkedHashMap<>();
+    for (int i = 0; i < ensemble.size(); i++) {
+      EnsembleModel model = ensemble.get(i);
+      Future<T> future = futures.get(i);
+      if (future.isCancelled()) {
+        log.warn("Ensemble model {} missed the deadline of {} ms", model.path(), ensembleDeadline.toMillis());
+        continue;
+      }
+      try {
+        results.put(model, await(future));
+      } catch (SentimentProviderException exception) {
+        log.warn("Ensemble model {} failed: {}", model.path(), exception.getMessage());
+      }
+    }
+    if (results.isEmpty() && RequestDeadline.current().filter(RequestDeadline::isExpired).isPresent()) {
+      throw new DeadlineExceededException("No ensemble model answered before the request deadline.");
+    }
+    if (results.isEmpty()) {
+      throw new SentimentProviderException("No ensemble model answered within " + ensembleDeadline.toMillis() + " ms.");
+    }
+    return results;
+  }
+
+  /** Combines the results of the ensemble models by the weighted confidence per label. */
+  private static SentimentResult vote(Map<EnsembleModel, SentimentResult> results) {
+    Map<String, Double> weightedScores = new LinkedHashMap<>();
+    double totalWeight = 0;
+    for (Map.Entry<EnsembleModel, SentimentResult> result : results.entrySet()) {
+      double weight = result.getKey().weight();
+      weightedScores.merge(result.getValue().label(), weight * result.getValue().score(), Double::sum);
+      totalWeight += weight;
+    }
+    Map.Entry<String, Double> best =
+        weightedScores.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow();
+    return new SentimentResult(best.getKey(), best.getValue() / totalWeight);
+  }
+
+  /** Parses comma-separated {@code key=value} pairs, keeping their order. */
+  private static Map<String, String> pairs(String value) {
+    Map<String, String> pairs = new LinkedHashMap<>();
+    for (String pair : value.split(",")) {
+      int separator = pair.lastIndexOf('=');
+      if (separator > 0) {
+        pairs.put(pair.substring(0, separator).strip(), pair.substring(separator + 1).strip());
+      }
+    }
+    return pairs;
+  }
+
+  private String preprocess(String text) {
+    PreprocessedText preprocessed = textPreprocessor.preprocess(text);
+    if (preprocessed.truncated()) {
+      log.debug("Truncated a text of {} characters to {} tokens", text.length(), preprocessed.tokens());
+    }
+    return preprocessed.text();
+  }
+
+  /**
+   * Looks the chunks up in the cache and scores the missing ones in up to {@code requests} concurrent provider
+   * requests.
+   */
+  private Map<String, SentimentResult> scoreChunks(String model, List<String> chunks, int requests) {
+    Map<String, SentimentResult> scores = new HashMap<>();
+    Set<String> missing = new LinkedHashSet<>();
+    for (String chunk : chunks) {
+      SentimentResult cached = chunkCache.get(new ChunkKey(model, chunk));
+      if (cached != null) {
+        scores.put(chunk, cached);
+      } else {
+        missing.add(chunk);
+      }
+    }
+    if (missing.isEmpty()) {
+      return scores;
+    }
+
+    List<String> pending = new ArrayList<>(missing);
+    int groups = Math.min(requests, pending.size());
+    int groupSize = (pending.size() + groups - 1) / groups;
+    List<List<String>> batches = new ArrayList<>();
+    for (int from = 0; from < pending.size(); from += groupSize) {
+      batches.add(pending.subList(from, Math.min(from + groupSize, pending.size())));
+    }
+    Map<List<String>, List<SentimentResult>> results = new LinkedHashMap<>();
+    if (batches.size() == 1) {
+      results.put(batches.getFirst(), postBatch(model, batches.getFirst()));
+    } else {
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        Map<List<String>, Future<List<SentimentResult>>> futures = new LinkedHashMap<>();
+        for (List<String> batch : batches) {
+          Supplier<List<SentimentResult>> call = RequestDeadline.propagate(() -> postBatch(model, batch));
+          futures.put(batch, executor.submit(call::get));
+        }
+        for (Map.Entry<List<String>, Future<List<SentimentResult>>> future : futures.entrySet()) {
+          results.put(future.getKey(), await(future.getValue()));
+        }
+      }
+    }
+
+    results.forEach(
+        (batch, batchResults) -> {
+          for (int i = 0; i < batch.size(); i++) {
+            scores.put(batch.get(i), batchResults.get(i));
+            chunkCache.put(new ChunkKey(model, batch.get(i)), batchResults.get(i));
+          }
+        });
+    return scores;
+  }
+
+  private List<SentimentResult> postBatch(String model, List<String> texts) {
+    JsonNode body = post(model, new SentimentBatchRequest(texts));
+    if (body.size() != texts.size()) {
+      throw new SentimentProviderException(
+          "Sentiment provider returned " + body.size() + " results for " + texts.size() + " inputs.");
+    }
+    List<SentimentResult> results = new ArrayList<>(texts.size());
+    for (JsonNode predictions : body) {
+      results.add(parseBestPrediction(predictions));
+    }
+    return results;
+  }
+
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new SentimentProviderException("Interrupted while waiting for the sentiment provider.", exception);
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof SentimentProviderException cause) {
+        throw cause;
+      }
+      if (exception.getCause() instanceof DeadlineExceededException cause) {
+        throw cause;
+      }
+      throw new SentimentProviderException(
+          "Sentiment provider request failed: " + exception.getCause().getMessage(), exception.getCause());
+    }
+  }
+
+  /** Combines chunk results by the length-weighted confidence per label. */
+  private static SentimentResult aggregate(List<String> chunks, Map<String, SentimentResult> scores) {
+    if (chunks.size() == 1) {
+      return scores.get(chunks.getFirst());
+    }
+    Map<String, Double> weightedScores = new LinkedHashMap<>();
+    double totalWeight = 0;
+    for (String chunk : chunks) {
+      SentimentResult result = scores.get(chunk);
+      int weight = TextPreprocessor.estimateTokens(chunk);
+      weightedScores.merge(result.label(), weight * result.score(), Double::sum);
+      totalWeight += weight;
+    }
+    Map.Entry<String, Double> best =
+        weightedScores.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow();
+    return new SentimentResult(best.getKey(), best.getValue() / totalWeight);
+  }
+
+  private JsonNode post(String model, Object request) {
     if (apiToken == null || apiToken.isBlank()) {
       throw new SentimentProviderException(
           "Sentiment API token is missing. Configure 'sentiment.api.token' or environment variable"
               + " SENTIMENT_API_TOKEN.");
     }
 
+    JsonNode body;
     try {
       String responseBody =
-          sentimentRestClient
-              .post()
-              .uri(modelPath)
-              .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
-              .contentType(MediaType.APPLICATION_JSON)
-              .body(new SentimentRequest(text))
-              .retrieve()
-              .body(String.class);
-
-      JsonNode response = objectMapper.readTree(responseBody);
-      return parseBestPrediction(response);
+          withinDeadline(
+              () ->
+                  sentimentRestClient
+                      .post()
+                      .uri(model)
+                      .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken)
+                      .contentType(MediaType.APPLICATION_JSON)
+                      .body(request)
+                      .retrieve()
+                      .body(String.class));
+
+      body = objectMapper.readTree(responseBody);
     } catch (JacksonException exception) {
       throw new SentimentProviderException(
           "Failed to parse sentiment provider response: " + exception.getMessage(), exception);
     } catch (RestClientException exception) {
       throw new SentimentProviderException("Sentiment provider request failed: " + exception.getMessage(), exception);
     }
-  }
 
-  private SentimentResult parseBestPrediction(JsonNode body) {
     if (body == null || body.isNull()) {
       throw new SentimentProviderException("Sentiment provider returned an empty response.");
     }
@@ -68,14 +527,47 @@ public class SentimentAnalysisService {
     if (!body.isArray() || body.isEmpty()) {
       throw new SentimentProviderException("Sentiment provider response format is not supported.");
     }
+    return body;
+  }
 
-    JsonNode predictions = body.get(0).isArray() ? body.get(0) : body;
+  /**
+   * Runs a provider call under the {@link RequestDeadline} of the current thread: the call waits on its own virtual
+   * thread, which is interrupted at the deadline, and the JDK HTTP client then cancels the exchange. Calls without a
+   * deadline run directly, bounded only by {@code sentiment.api.read-timeout}.
+   */
+  private <T> T withinDeadline(Supplier<T> call) {
+    Optional<RequestDeadline> deadline = RequestDeadline.current();
+    if (deadline.isEmpty()) {
+      return call.get();
+    }
+    if (deadline.get().isExpired()) {
+      throw new DeadlineExceededException("The request deadline passed before the sentiment provider was called.");
+    }
+    Future<T> future = asyncExecutor.submit(call::get);
+    try {
+      return future.get(deadline.get().remaining().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException exception) {
+      future.cancel(true);
+      throw new DeadlineExceededException("The sentiment provider did not answer before the request deadline.");
+    } catch (InterruptedException exception) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new SentimentProviderException("Interrupted while waiting for the sentiment provider.", exception);
+    } catch (ExecutionException exception) {
+      if (exception.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new SentimentProviderException(
+          "Sentiment provider request failed: " + exception.getCause().getMessage(), exception.getCause());
+    }
+  }
 
+  private SentimentResult parseBestPrediction(JsonNode predictions) {
     if (!predictions.isArray() || predictions.isEmpty()) {
       throw new SentimentProviderException("Sentiment provider returned no predictions.");
     }
 
-    SentimentResult best = null;
+    Map<String, Double> scores = new LinkedHashMap<>();
 
     for (JsonNode prediction : predictions) {
       if (!prediction.isObject()) {
@@ -89,15 +581,24 @@ public class SentimentAnalysisService {
         continue;
       }
 
-      if (best == null || score > best.score()) {
-        best = new SentimentResult(label, score);
-      }
+      scores.merge(labels.getOrDefault(label, label), score, Double::sum);
     }
 
-    if (best == null) {
+    if (scores.isEmpty()) {
       throw new SentimentProviderException("Sentiment provider returned no usable prediction values.");
     }
 
-    return best;
+    Map.Entry<String, Double> best = scores.entrySet().stream().max(Map.Entry.comparingByValue()).orElseThrow();
+    return new SentimentResult(best.getKey(), best.getValue());
   }
+
+  /**
+   * A model of the ensemble.
+   *
+   * @param path the provider model path
+   * @param weight the weight of its vote
+   */
+  private record EnsembleModel(String path, double weight) {}
+
+  private record ChunkKey(String model, String chunk) {}
 }
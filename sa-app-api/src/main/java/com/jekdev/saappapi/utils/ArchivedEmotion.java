@@ -0,0 +1,20 @@
+package com.jekdev.saappapi.utils;
+
+import java.time.Instant;
+
+/**
+ * Flat, self-contained copy of an emotion row as it is stored in an archive segment. The client email is denormalized
+ * so archived rows can be served without joining the client table. The model version, duplicate and language are
+ * {@code null} for emotions archived before segments stored them.
+ */
+public record ArchivedEmotion(
+    long id,
+    long clientId,
+    String clientEmail,
+    String text,
+    String type,
+    Double score,
+    Instant createdAt,
+    String modelVersion,
+    Long duplicateOf,
+    String language) {}
@@ -0,0 +1,236 @@
+package com.jekdev.saappapi.utils;
+
+import com.jekdev.saappapi.dto.LabelStatistics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented, in-memory copy of the emotion scores used for aggregations.
+ *
+ * <p>Every emotion occupies one row spread over parallel primitive arrays: {@code id}, {@code clientId}, {@code
+ * score} and a dictionary-encoded {@code label} ordinal. A row costs 21 bytes, so millions of emotions fit in a few
+ * dozen megabytes and a group-by is a single sequential pass over the arrays without object dereferences.
+ *
+ * <p>Rows are kept in ascending id order, so ids are looked up by binary search. New emotions normally arrive in id
+ * order and are appended; an emotion that arrives late, e.g. from a concurrent transaction that committed after a
+ * later one, is inserted at its place, which only shifts the few rows behind it. A deleted emotion is tombstoned by
+ * overwriting its label ordinal with {@link #TOMBSTONE}; aggregations skip those rows. A re-scored emotion is replaced
+ * in place.
+ *
+ * <p>Access is guarded by a read-write lock: aggregations share the read lock, appends and tombstones take the write
+ * lock.
+ */
+public class EmotionColumnStore {
+
+  /** Label ordinal marking a deleted row. */
+  public static final byte TOMBSTONE = -1;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final List<String> labels = new ArrayList<>();
+
+  private long[] ids = new long[INITIAL_CAPACITY];
+  private long[] clientIds = new long[INITIAL_CAPACITY];
+  private float[] scores = new float[INITIAL_CAPACITY];
+  private byte[] labelOrdinals = new byte[INITIAL_CAPACITY];
+  private int size;
+  private int tombstones;
+
+  /**
+   * Appends a scored emotion. Appending an id that is already present is a no-op, so replaying the same emotion from
+   * the table and from a creation event does not count it twice.
+   *
+   * @param id the emotion id
+   * @param clientId the id of the owning client
+   * @param label the sentiment label
+   * @param score the sentiment score
+   * @return {@code true} if the row was added
+   */
+  public boolean append(long id, long clientId, String label, double score) {
+    lock.writeLock().lock();
+    try {
+      int row = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+      if (row < 0) {
+        row = -row - 1;
+      } else if (row < size) {
+        return false;
+      }
+      if (size == ids.length) {
+        grow();
+      }
+      if (row < size) {
+        int moved = size - row;
+        System.arraycopy(ids, row, ids, row + 1, moved);
+        System.arraycopy(clientIds, row, clientIds, row + 1, moved);
+        System.arraycopy(scores, row, scores, row + 1, moved);
+        System.arraycopy(labelOrdinals, row, labelOrdinals, row + 1, moved);
+      }
+      ids[row] = id;
+      clientIds[row] = clientId;
+      scores[row] = (float) score;
+      labelOrdinals[row] = ordinalOf(label);
+      size++;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Marks the row of the given emotion as deleted.
+   *
+   * @param id the emotion id
+   * @return {@code true} if a live row was tombstoned
+   */
+  public boolean tombstone(long id) {
+    lock.writeLock().lock();
+    try {
+      int row = indexOf(id);
+      if (row < 0 || labelOrdinals[row] == TOMBSTONE) {
+        return false;
+      }
+      labelOrdinals[row] = TOMBSTONE;
+      tombstones++;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces the label and score of a live row, or appends the emotion if it has no row yet.
+   *
+   * @param id the emotion id
+   * @param clientId the id of the owning client
+   * @param label the new sentiment label
+   * @param score the new sentiment score
+   * @return {@code false} if the emotion's row is tombstoned, {@code true} otherwise
+   */
+  public boolean replace(long id, long clientId, String label, double score) {
+    lock.writeLock().lock();
+    try {
+      int row = indexOf(id);
+      if (row < 0) {
+        return append(id, clientId, label, score);
+      }
+      if (labelOrdinals[row] == TOMBSTONE) {
+        return false;
+      }
+      scores[row] = (float) score;
+      labelOrdinals[row] = ordinalOf(label);
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Aggregates the score distribution per label over all live rows, or over the rows of one client.
+   *
+   * @param clientId restricts the aggregation to this client, or {@code null} for all clients
+   * @param buckets number of histogram buckets over the score range {@code [0, 1]}
+   * @return one entry per label that has at least one matching row, in label dictionary order
+   */
+  public List<LabelStatistics> labelStatistics(Long clientId, int buckets) {
+    lock.readLock().lock();
+    try {
+      int labelCount = labels.size();
+      long[] counts = new long[labelCount];
+      double[] sums = new double[labelCount];
+      float[] mins = new float[labelCount];
+      float[] maxs = new float[labelCount];
+      long[] histograms = new long[labelCount * buckets];
+      Arrays.fill(mins, Float.MAX_VALUE);
+      Arrays.fill(maxs, -Float.MAX_VALUE);
+
+      boolean filter = clientId != null;
+      long client = filter ? clientId : 0;
+      for (int row = 0; row < size; row++) {
+        int ordinal = labelOrdinals[row];
+        if (ordinal < 0 || (filter && clientIds[row] != client)) {
+          continue;
+        }
+        float score = scores[row];
+        counts[ordinal]++;
+        sums[ordinal] += score;
+        mins[ordinal] = Math.min(mins[ordinal], score);
+        maxs[ordinal] = Math.max(maxs[ordinal], score);
+        histograms[ordinal * buckets + Math.min((int) (score * buckets), buckets - 1)]++;
+      }
+
+      List<LabelStatistics> statistics = new ArrayList<>(labelCount);
+      for (int ordinal = 0; ordinal < labelCount; ordinal++) {
+        if (counts[ordinal] > 0) {
+          statistics.add(
+              new LabelStatistics(
+                  labels.get(ordinal),
+                  counts[ordinal],
+                  sums[ordinal] / counts[ordinal],
+                  mins[ordinal],
+                  maxs[ordinal],
+                  Arrays.copyOfRange(histograms, ordinal * buckets, (ordinal + 1) * buckets)));
+        }
+      }
+      return statistics;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of live (not tombstoned) rows
+   */
+  public int liveRows() {
+    lock.readLock().lock();
+    try {
+      return size - tombstones;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return {@code true} if the rows are in strictly ascending id order, which the binary search relies on
+   */
+  boolean isOrdered() {
+    lock.readLock().lock();
+    try {
+      for (int row = 1; row < size; row++) {
+        if (ids[row - 1] >= ids[row]) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private int indexOf(long id) {
+    int row = Arrays.binarySearch(ids, 0, size, id);
+    return row >= 0 ? row : -1;
+  }
+
+  private byte ordinalOf(String label) {
+    int ordinal = labels.indexOf(label);
+    if (ordinal < 0) {
+      if (labels.size() == Byte.MAX_VALUE) {
+        throw new IllegalStateException("Too many distinct sentiment labels for the analytics store");
+      }
+      labels.add(label);
+      ordinal = labels.size() - 1;
+    }
+    return (byte) ordinal;
+  }
+
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    clientIds = Arrays.copyOf(clientIds, capacity);
+    scores = Arrays.copyOf(scores, capacity);
+    labelOrdinals = Arrays.copyOf(labelOrdinals, capacity);
+  }
+}
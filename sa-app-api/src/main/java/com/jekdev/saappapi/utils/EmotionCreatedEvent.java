@@ -0,0 +1,15 @@
+package com.jekdev.saappapi.utils;
+
+/**
+ * Published by {@code EmotionService} when a scored emotion has been stored. Listeners that keep derived in-memory
+ * state (analytics, sketches, rankings, the near-duplicate index) consume it after the surrounding transaction commits.
+ *
+ * @param id the emotion id
+ * @param clientId the id of the owning client
+ * @param type the sentiment label
+ * @param score the sentiment score
+ * @param modelVersion the model that produced the score
+ * @param minHash the serialized MinHash signature of the text, or {@code null} if it was not computed
+ */
+public record EmotionCreatedEvent(
+    long id, long clientId, String type, double score, String modelVersion, byte[] minHash) {}
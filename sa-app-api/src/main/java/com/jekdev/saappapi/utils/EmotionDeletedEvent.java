@@ -0,0 +1,12 @@
+package com.jekdev.saappapi.utils;
+
+/**
+ * Published by {@code EmotionService} when an emotion has been deleted. It carries the deleted values so listeners can
+ * reverse their contribution without reading the row again.
+ *
+ * @param id the emotion id
+ * @param clientId the id of the owning client
+ * @param type the sentiment label, or {@code null} if the emotion was never scored
+ * @param score the sentiment score, or {@code null} if the emotion was never scored
+ */
+public record EmotionDeletedEvent(long id, long clientId, String type, Double score) {}
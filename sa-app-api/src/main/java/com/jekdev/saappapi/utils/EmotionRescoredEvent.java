@@ -0,0 +1,15 @@
+package com.jekdev.saappapi.utils;
+
+/**
+ * Published by {@code EmotionRescoringService} when an emotion has been scored again by a newer model. It carries the
+ * previous values so listeners can replace the emotion's contribution without reading the row again.
+ *
+ * @param id the emotion id
+ * @param clientId the id of the owning client
+ * @param previousType the label before re-scoring, {@code null} if the emotion had none
+ * @param previousScore the score before re-scoring, {@code null} if the emotion had none
+ * @param type the new label
+ * @param score the new score
+ */
+public record EmotionRescoredEvent(
+    long id, long clientId, String previousType, Double previousScore, String type, double score) {}
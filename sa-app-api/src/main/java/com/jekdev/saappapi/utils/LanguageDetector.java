@@ -0,0 +1,174 @@
+package com.jekdev.saappapi.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Detects the language of a text from its character trigrams.
+ *
+ * <p>Texts written mostly in a non-Latin script are assigned the main language of that script, e.g. {@code ja} for
+ * kana, {@code ko} for Hangul, {@code zh} for Han ideographs and {@code ru} for Cyrillic. Latin texts are scored by a
+ * naive Bayes model over character trigrams: letters are lower-cased, everything else is a word boundary, and every
+ * trigram is hashed into one of {@value #BUCKETS} buckets holding its smoothed log-probability per language. The
+ * profiles are trained once from the sample texts under {@code language/} on the classpath.
+ *
+ * <p>A Latin text is only assigned a language if it has at least {@value #MIN_SCORED_LETTERS} letters and the best
+ * language beats the runner-up by {@value #MIN_MARGIN_PER_LETTER} nats per letter; short phrases such as "Great
+ * product" share too many trigrams between languages, and texts mixing languages have no clear winner. Those are
+ * undetermined, so they take the default route instead of the model of a wrong language.
+ *
+ * <p>{@link #detect(CharSequence)} walks the text once per language with a rolling trigram hash and allocates nothing.
+ */
+public final class LanguageDetector {
+
+  /** Languages with a trigram profile. */
+  public static final List<String> LATIN_LANGUAGES = List.of("en", "de", "fr", "es", "it", "pt", "nl");
+
+  private static final int BUCKETS = 1 << 12;
+  private static final int MIN_LETTERS = 3;
+  private static final int MIN_SCORED_LETTERS = 12;
+  private static final double MIN_MARGIN_PER_LETTER = 0.25;
+  private static final double SMOOTHING = 0.5;
+
+  private final String[] languages;
+  private final float[][] profiles;
+
+  private LanguageDetector(List<String> languages, List<String> samples) {
+    this.languages = languages.toArray(String[]::new);
+    this.profiles = new float[languages.size()][];
+    for (int i = 0; i < languages.size(); i++) {
+      int[] counts = new int[BUCKETS];
+      walk(samples.get(i), null, counts);
+      profiles[i] = profile(counts);
+    }
+  }
+
+  /**
+   * @return a detector for {@link #LATIN_LANGUAGES} trained from the bundled samples
+   */
+  public static LanguageDetector fromBundledSamples() {
+    return new LanguageDetector(
+        LATIN_LANGUAGES, LATIN_LANGUAGES.stream().map(language -> sample("language/" + language + ".txt")).toList());
+  }
+
+  /**
+   * Detects the language of a text.
+   *
+   * @param text the text, ideally in canonical form
+   * @return the ISO 639-1 code of the most likely language, or {@code null} if the text has too few letters or no
+   *     language is clearly more likely than the others
+   */
+  public String detect(CharSequence text) {
+    int latin = 0;
+    int other = 0;
+    String scriptLanguage = null;
+    for (int i = 0; i < text.length(); ) {
+      int codePoint = Character.codePointAt(text, i);
+      i += Character.charCount(codePoint);
+      if (!Character.isLetter(codePoint)) {
+        continue;
+      }
+      Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+      if (script == Character.UnicodeScript.LATIN) {
+        latin++;
+        continue;
+      }
+      other++;
+      String language = scriptLanguage(script);
+      if (language != null && (scriptLanguage == null || "zh".equals(scriptLanguage))) {
+        // kana decides between Japanese and Chinese, so it overrides Han
+        scriptLanguage = language;
+      }
+    }
+    if (latin + other < MIN_LETTERS) {
+      return null;
+    }
+    if (other > latin) {
+      return scriptLanguage;
+    }
+
+    if (latin < MIN_SCORED_LETTERS) {
+      return null;
+    }
+    int best = -1;
+    double bestScore = Double.NEGATIVE_INFINITY;
+    double runnerUpScore = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < languages.length; i++) {
+      double score = walk(text, profiles[i], null);
+      if (score > bestScore) {
+        runnerUpScore = bestScore;
+        best = i;
+        bestScore = score;
+      } else if (score > runnerUpScore) {
+        runnerUpScore = score;
+      }
+    }
+    return (bestScore - runnerUpScore) / latin >= MIN_MARGIN_PER_LETTER ? languages[best] : null;
+  }
+
+  private static String scriptLanguage(Character.UnicodeScript script) {
+    return switch (script) {
+      case HIRAGANA, KATAKANA -> "ja";
+      case HANGUL -> "ko";
+      case HAN -> "zh";
+      case CYRILLIC -> "ru";
+      case ARABIC -> "ar";
+      case GREEK -> "el";
+      case HEBREW -> "he";
+      case THAI -> "th";
+      case DEVANAGARI -> "hi";
+      default -> null;
+    };
+  }
+
+  /**
+   * Walks the trigrams of a text. With a profile, returns the sum of their log-probabilities; otherwise counts them
+   * into {@code counts}.
+   */
+  private static double walk(CharSequence text, float[] profile, int[] counts) {
+    double score = 0;
+    char first = ' ';
+    char second = ' ';
+    for (int i = 0; i <= text.length(); i++) {
+      char c = i < text.length() && Character.isLetter(text.charAt(i)) ? Character.toLowerCase(text.charAt(i)) : ' ';
+      if (c == ' ' && second == ' ') {
+        continue;
+      }
+      int bucket = ((first * 31 + second) * 31 + c) & (BUCKETS - 1);
+      if (profile != null) {
+        score += profile[bucket];
+      } else {
+        counts[bucket]++;
+      }
+      first = second;
+      second = c;
+    }
+    return score;
+  }
+
+  private static float[] profile(int[] counts) {
+    long total = 0;
+    for (int count : counts) {
+      total += count;
+    }
+    float[] profile = new float[BUCKETS];
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      profile[bucket] = (float) Math.log((counts[bucket] + SMOOTHING) / (total + SMOOTHING * BUCKETS));
+    }
+    return profile;
+  }
+
+  private static String sample(String resource) {
+    try (InputStream input = LanguageDetector.class.getClassLoader().getResourceAsStream(resource)) {
+      if (input == null) {
+        throw new IllegalStateException("Missing language sample " + resource);
+      }
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException exception) {
+      throw new UncheckedIOException(exception);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.jekdev.saappapi.utils;
+
+/** Direction of the client leaderboard. */
+public enum LeaderboardOrder {
+  /** Lowest mean signed score first. */
+  NEGATIVE,
+  /** Highest mean signed score first. */
+  POSITIVE
+}
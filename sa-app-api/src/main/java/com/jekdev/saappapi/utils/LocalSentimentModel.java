@@ -0,0 +1,265 @@
+package com.jekdev.saappapi.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * A compact sentiment classifier that runs in-process: multinomial logistic regression over hashed word n-grams.
+ *
+ * <p>A text is lower-cased and split into words of letters, digits and apostrophes. Every word and every pair of
+ * adjacent words is hashed into one of {@value #FEATURES} buckets, each with one weight per label; a text activates its
+ * buckets with value {@code 1 / sqrt(n)} for {@code n} n-grams, so long and short texts produce logits of the same
+ * magnitude. The softmax over the logits gives the probability of each label, and the most likely label is returned
+ * with its probability as score, in the same shape as a provider prediction.
+ *
+ * <p>The model is trained by stochastic gradient descent on texts labeled by the provider and written as a small
+ * binary file: a header, the labels, and one bias and {@value #FEATURES} weights per label.
+ */
+public final class LocalSentimentModel {
+
+  /** Prefix of the version of every local model, distinguishing locally scored emotions from provider scores. */
+  public static final String VERSION_PREFIX = "local:";
+
+  private static final int FEATURES = 1 << 16;
+  private static final int MAGIC = 0x53414C4D;
+  private static final int FORMAT = 1;
+  private static final double LEARNING_RATE = 0.5;
+  private static final long SEED = 0x5A_10CA_15L;
+
+  private final String[] labels;
+  private final float[] bias;
+  private final float[][] weights;
+  private final String version;
+
+  private LocalSentimentModel(String[] labels, float[] bias, float[][] weights) {
+    this.labels = labels;
+    this.bias = bias;
+    this.weights = weights;
+    this.version = VERSION_PREFIX + Long.toHexString(checksum(labels, bias, weights));
+  }
+
+  /**
+   * Trains a model on labeled texts.
+   *
+   * @param examples the training texts with their labels, ideally in canonical form
+   * @param epochs the number of passes over the examples
+   * @return the trained model
+   * @throws IllegalArgumentException if there are no examples
+   */
+  public static LocalSentimentModel train(List<LabeledText> examples, int epochs) {
+    if (examples.isEmpty()) {
+      throw new IllegalArgumentException("Cannot train a local model without examples.");
+    }
+    TreeSet<String> labelSet = new TreeSet<>();
+    examples.forEach(example -> labelSet.add(example.label()));
+    String[] labels = labelSet.toArray(String[]::new);
+    float[] bias = new float[labels.length];
+    float[][] weights = new float[labels.length][FEATURES];
+
+    int[][] features = new int[examples.size()][];
+    int[] targets = new int[examples.size()];
+    for (int i = 0; i < examples.size(); i++) {
+      features[i] = features(examples.get(i).text());
+      targets[i] = Arrays.binarySearch(labels, examples.get(i).label());
+    }
+
+    int[] order = new int[examples.size()];
+    Arrays.setAll(order, i -> i);
+    SplittableRandom random = new SplittableRandom(SEED);
+    double[] probabilities = new double[labels.length];
+    for (int epoch = 0; epoch < epochs; epoch++) {
+      shuffle(order, random);
+      double rate = LEARNING_RATE / (1 + epoch);
+      for (int example : order) {
+        int[] active = features[example];
+        float value = value(active);
+        probabilities(bias, weights, active, value, probabilities);
+        for (int label = 0; label < labels.length; label++) {
+          float step = (float) (rate * ((label == targets[example] ? 1 : 0) - probabilities[label]));
+          bias[label] += step;
+          for (int feature : active) {
+            weights[label][feature] += step * value;
+          }
+        }
+      }
+    }
+    return new LocalSentimentModel(labels, bias, weights);
+  }
+
+  /**
+   * Reads a model written by {@link #write(OutputStream)}.
+   *
+   * @param input the stream, positioned at the start of the model
+   * @return the model
+   * @throws IOException if the stream cannot be read or does not hold a model
+   */
+  public static LocalSentimentModel read(InputStream input) throws IOException {
+    DataInputStream in = new DataInputStream(input);
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT || in.readInt() != FEATURES) {
+      throw new IOException("Not a local sentiment model of format " + FORMAT + ".");
+    }
+    String[] labels = new String[in.readInt()];
+    float[] bias = new float[labels.length];
+    float[][] weights = new float[labels.length][FEATURES];
+    for (int label = 0; label < labels.length; label++) {
+      labels[label] = in.readUTF();
+      bias[label] = in.readFloat();
+      for (int feature = 0; feature < FEATURES; feature++) {
+        weights[label][feature] = in.readFloat();
+      }
+    }
+    return new LocalSentimentModel(labels, bias, weights);
+  }
+
+  /**
+   * Writes the model in its binary format.
+   *
+   * @param output the stream; it is flushed but not closed
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(OutputStream output) throws IOException {
+    DataOutputStream out = new DataOutputStream(output);
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT);
+    out.writeInt(FEATURES);
+    out.writeInt(labels.length);
+    for (int label = 0; label < labels.length; label++) {
+      out.writeUTF(labels[label]);
+      out.writeFloat(bias[label]);
+      for (int feature = 0; feature < FEATURES; feature++) {
+        out.writeFloat(weights[label][feature]);
+      }
+    }
+    out.flush();
+  }
+
+  /**
+   * Predicts the label of a text.
+   *
+   * @param text the text, ideally in canonical form
+   * @return the most likely label with its probability as score
+   */
+  public SentimentResult predict(String text) {
+    int[] active = features(text);
+    double[] probabilities = new double[labels.length];
+    probabilities(bias, weights, active, value(active), probabilities);
+    int best = 0;
+    for (int label = 1; label < labels.length; label++) {
+      if (probabilities[label] > probabilities[best]) {
+        best = label;
+      }
+    }
+    return new SentimentResult(labels[best], probabilities[best]);
+  }
+
+  /**
+   * @return the labels the model predicts, in alphabetical order
+   */
+  public List<String> labels() {
+    return List.of(labels);
+  }
+
+  /**
+   * @return {@value #VERSION_PREFIX} followed by a checksum of the weights, identifying the scores of this model
+   */
+  public String version() {
+    return version;
+  }
+
+  private static void probabilities(
+      float[] bias, float[][] weights, int[] active, float value, double[] probabilities) {
+    double max = Double.NEGATIVE_INFINITY;
+    for (int label = 0; label < bias.length; label++) {
+      double logit = bias[label];
+      for (int feature : active) {
+        logit += weights[label][feature] * value;
+      }
+      probabilities[label] = logit;
+      max = Math.max(max, logit);
+    }
+    double sum = 0;
+    for (int label = 0; label < bias.length; label++) {
+      probabilities[label] = Math.exp(probabilities[label] - max);
+      sum += probabilities[label];
+    }
+    for (int label = 0; label < bias.length; label++) {
+      probabilities[label] /= sum;
+    }
+  }
+
+  /** Hashes the words and word pairs of a text into feature buckets. */
+  private static int[] features(String text) {
+    long[] words = new long[text.length() / 2 + 1];
+    int count = 0;
+    long hash = 0;
+    boolean inWord = false;
+    for (int i = 0; i <= text.length(); i++) {
+      char c = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(c) || (c == '\'' && inWord)) {
+        hash = ((inWord ? hash : 0xcbf29ce484222325L) ^ Character.toLowerCase(c)) * 0x100000001b3L;
+        inWord = true;
+      } else if (inWord) {
+        words[count++] = hash;
+        inWord = false;
+      }
+    }
+    int[] features = new int[Math.max(0, count * 2 - 1)];
+    for (int i = 0; i < count; i++) {
+      features[i] = bucket(words[i]);
+      if (i > 0) {
+        features[count + i - 1] = bucket(words[i - 1] * 31 + words[i]);
+      }
+    }
+    return features;
+  }
+
+  private static float value(int[] features) {
+    return features.length == 0 ? 0 : (float) (1 / Math.sqrt(features.length));
+  }
+
+  /** The finalizer of MurmurHash3, reduced to a bucket. */
+  private static int bucket(long value) {
+    value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+    value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return (int) ((value ^ (value >>> 33)) & (FEATURES - 1));
+  }
+
+  private static void shuffle(int[] order, SplittableRandom random) {
+    for (int i = order.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = order[i];
+      order[i] = order[j];
+      order[j] = swap;
+    }
+  }
+
+  private static long checksum(String[] labels, float[] bias, float[][] weights) {
+    CRC32 crc = new CRC32();
+    ByteBuffer buffer = ByteBuffer.allocate((FEATURES + 1) * Float.BYTES);
+    for (int label = 0; label < labels.length; label++) {
+      crc.update(labels[label].getBytes(StandardCharsets.UTF_8));
+      buffer.clear();
+      buffer.asFloatBuffer().put(bias[label]).put(weights[label]);
+      crc.update(buffer);
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * A training example.
+   *
+   * @param text the text
+   * @param label the label assigned by the provider
+   */
+  public record LabeledText(String text, String label) {}
+}
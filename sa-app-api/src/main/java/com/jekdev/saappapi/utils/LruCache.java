@@ -0,0 +1,69 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded map that evicts the least recently used entry once {@code capacity} is exceeded. Access is serialized by a
+ * lock; reads update the recency order and therefore take it as well.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final LinkedHashMap<K, V> entries;
+
+  /**
+   * @param capacity the maximum number of entries
+   */
+  public LruCache(int capacity) {
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+          }
+        };
+  }
+
+  /**
+   * @param key the key
+   * @return the cached value, or {@code null} if absent
+   */
+  public V get(K key) {
+    lock.lock();
+    try {
+      return entries.get(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @param key the key
+   * @param value the value to cache
+   */
+  public void put(K key, V value) {
+    lock.lock();
+    try {
+      entries.put(key, value);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of cached entries
+   */
+  public int size() {
+    lock.lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.jekdev.saappapi.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures for near-duplicate detection.
+ *
+ * <p>A text is reduced to lower-case letters, digits and single spaces, so punctuation and casing do not matter, and
+ * split into overlapping shingles of {@value #SHINGLE_LENGTH} characters. The signature keeps, for each of {@value
+ * #HASHES} seeded hash functions, the smallest hash over all shingles. The share of equal positions in two signatures
+ * estimates the Jaccard similarity of their shingle sets.
+ *
+ * <p>For locality-sensitive hashing the signature is cut into {@value #BANDS} bands of {@value #ROWS} rows. Two texts
+ * share at least one band key with probability {@code 1 - (1 - s^ROWS)^BANDS} for similarity {@code s}: about 99% for
+ * {@code s = 0.7} and 12% for {@code s = 0.3}.
+ */
+public final class MinHash {
+
+  /** Number of hash functions, i.e. the length of a signature. */
+  public static final int HASHES = 64;
+
+  /** Size of a serialized signature in bytes. */
+  public static final int BYTES = HASHES * Integer.BYTES;
+
+  /** Number of LSH bands. */
+  public static final int BANDS = 16;
+
+  private static final int ROWS = HASHES / BANDS;
+  private static final int SHINGLE_LENGTH = 5;
+  private static final long[] SEEDS = new SplittableRandom(0x5A_A9_9A_5AL).longs(HASHES).toArray();
+
+  private MinHash() {}
+
+  /**
+   * Computes the signature of a text.
+   *
+   * @param text the text, ideally in canonical form
+   * @return the {@value #HASHES} minimum hashes
+   */
+  public static int[] signature(String text) {
+    char[] chars = reduce(text);
+    int[] signature = new int[HASHES];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+    int shingles = Math.max(1, chars.length - SHINGLE_LENGTH + 1);
+    for (int start = 0; start < shingles; start++) {
+      long shingle = fnv(chars, start, Math.min(chars.length, start + SHINGLE_LENGTH));
+      for (int i = 0; i < HASHES; i++) {
+        signature[i] = Math.min(signature[i], (int) (mix(shingle ^ SEEDS[i]) >>> 33));
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Estimates the Jaccard similarity of the texts behind two signatures.
+   *
+   * @return the share of equal positions, between 0 and 1
+   */
+  public static double similarity(int[] first, int[] second) {
+    int equal = 0;
+    for (int i = 0; i < HASHES; i++) {
+      if (first[i] == second[i]) {
+        equal++;
+      }
+    }
+    return (double) equal / HASHES;
+  }
+
+  /**
+   * Hashes one band of a signature, including the band index so equal rows in different bands do not collide.
+   *
+   * @param signature the signature
+   * @param band the band index, from 0 to {@value #BANDS} - 1
+   * @return the band key
+   */
+  public static long bandKey(int[] signature, int band) {
+    long key = band;
+    for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+      key = mix(key * 31 + signature[i]);
+    }
+    return key;
+  }
+
+  /**
+   * @return the signature as {@value #BYTES} big-endian bytes
+   */
+  public static byte[] toBytes(int[] signature) {
+    ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+    buffer.asIntBuffer().put(signature);
+    return buffer.array();
+  }
+
+  /**
+   * @return the signature read from {@link #toBytes(int[])}
+   */
+  public static int[] fromBytes(byte[] bytes) {
+    int[] signature = new int[HASHES];
+    ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+    return signature;
+  }
+
+  private static char[] reduce(String text) {
+    char[] chars = new char[text.length()];
+    int length = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        chars[length++] = Character.toLowerCase(c);
+      } else if (Character.isWhitespace(c) && length > 0 && chars[length - 1] != ' ') {
+        chars[length++] = ' ';
+      }
+    }
+    return Arrays.copyOf(chars, length > 0 && chars[length - 1] == ' ' ? length - 1 : length);
+  }
+
+  private static long fnv(char[] chars, int from, int to) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = from; i < to; i++) {
+      hash = (hash ^ chars[i]) * 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  /** The finalizer of MurmurHash3, spreading every input bit over the whole result. */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+    value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return value ^ (value >>> 33);
+  }
+}
@@ -0,0 +1,44 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Spaces permits evenly at a fixed rate. {@link #acquire()} reserves the next free slot and sleeps until it starts, so
+ * callers never exceed the rate, even in short bursts.
+ */
+public class RateLimiter {
+
+  private final long intervalNanos;
+  private final ReentrantLock lock = new ReentrantLock();
+  private long nextSlot = System.nanoTime();
+
+  /**
+   * @param permitsPerSecond the maximum rate; must be positive
+   */
+  public RateLimiter(double permitsPerSecond) {
+    if (permitsPerSecond <= 0) {
+      throw new IllegalArgumentException("permitsPerSecond must be positive");
+    }
+    this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+  }
+
+  /**
+   * Blocks until the caller may proceed.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    long wait;
+    lock.lock();
+    try {
+      long now = System.nanoTime();
+      long slot = Math.max(now, nextSlot);
+      nextSlot = slot + intervalNanos;
+      wait = slot - now;
+    } finally {
+      lock.unlock();
+    }
+    TimeUnit.NANOSECONDS.sleep(wait);
+  }
+}
@@ -0,0 +1,129 @@
+package com.jekdev.saappapi.utils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The point in time after which nobody waits for the result of a request any more. Work done after it is wasted, so
+ * database queries and provider calls of the request are bounded by the time that remains.
+ *
+ * <p>Clients send their timeout in the {@value #HEADER} header, in milliseconds; it is measured from the moment the
+ * request arrives, so the clocks of client and server need not agree. The deadline of the current thread is set by
+ * {@link #enter()} until the returned scope is closed; code that runs outside of any deadline, such as scheduled jobs,
+ * has none.
+ */
+public final class RequestDeadline {
+
+  /** Request header with the timeout of the client in milliseconds. */
+  public static final String HEADER = "X-Request-Timeout";
+
+  private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+  private final long deadlineNanos;
+
+  private RequestDeadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * @param timeout the time from now until the deadline
+   * @return the deadline
+   */
+  public static RequestDeadline after(Duration timeout) {
+    return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+  }
+
+  /**
+   * @param header the value of the {@value #HEADER} header, may be {@code null}
+   * @return the timeout sent in the header, or empty if it is missing or not a number of milliseconds
+   */
+  public static Optional<Duration> parseHeader(String header) {
+    if (header == null || header.isBlank()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Duration.ofMillis(Math.max(0, Long.parseLong(header.strip()))));
+    } catch (NumberFormatException exception) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * @return the deadline of the current thread, if it has one
+   */
+  public static Optional<RequestDeadline> current() {
+    return Optional.ofNullable(CURRENT.get());
+  }
+
+  /**
+   * @param timeout a timeout of the current thread's work
+   * @return the timeout, shortened to the time left until the deadline of the current thread
+   */
+  public static Duration cap(Duration timeout) {
+    RequestDeadline deadline = CURRENT.get();
+    if (deadline == null) {
+      return timeout;
+    }
+    Duration remaining = deadline.remaining();
+    return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+  }
+
+  /**
+   * Wraps a task so that it runs under the deadline of the current thread, for work handed to another thread.
+   *
+   * @param task the task
+   * @return the task, running under the deadline of the calling thread
+   */
+  public static <T> Supplier<T> propagate(Supplier<T> task) {
+    RequestDeadline deadline = CURRENT.get();
+    if (deadline == null) {
+      return task;
+    }
+    return () -> {
+      try (Scope scope = deadline.enter()) {
+        return task.get();
+      }
+    };
+  }
+
+  /**
+   * @return the time left until the deadline, never negative
+   */
+  public Duration remaining() {
+    return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+  }
+
+  /**
+   * @return {@code true} once the deadline has passed
+   */
+  public boolean isExpired() {
+    return deadlineNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Puts the current thread under this deadline until the returned scope is closed.
+   *
+   * @return the scope, restoring the previous deadline on {@link Scope#close()}
+   */
+  public Scope enter() {
+    RequestDeadline previous = CURRENT.get();
+    CURRENT.set(this);
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  /** The time a thread spends under a deadline. */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    /** Restores the deadline the thread had before. */
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,65 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.Locale;
+
+/**
+ * The priority lane of a unit of work. Interactive work, such as a single create from the UI, must keep its latency;
+ * bulk work, such as exports, re-scoring and batch imports, gets its own smaller concurrency budgets so it can never
+ * crowd out interactive work.
+ *
+ * <p>The lane of the current thread is set by {@link #enter()} until the returned scope is closed; code that runs
+ * outside of any lane is interactive. HTTP requests choose their lane with the {@value #HEADER} header.
+ */
+public enum RequestLane {
+  /** Latency-sensitive work, the default. */
+  INTERACTIVE,
+  /** Throughput work that yields to interactive work. */
+  BULK;
+
+  /** Request header selecting the lane, {@code interactive} or {@code bulk}. */
+  public static final String HEADER = "X-Request-Lane";
+
+  private static final ThreadLocal<RequestLane> CURRENT = new ThreadLocal<>();
+
+  /**
+   * @return the lane of the current thread; {@link #INTERACTIVE} outside of {@link #enter()}
+   */
+  public static RequestLane current() {
+    RequestLane lane = CURRENT.get();
+    return lane == null ? INTERACTIVE : lane;
+  }
+
+  /**
+   * @param header the value of the {@value #HEADER} header, may be {@code null}
+   * @return the lane named by the header, or {@link #INTERACTIVE} if it names none
+   */
+  public static RequestLane fromHeader(String header) {
+    return header != null && header.strip().toUpperCase(Locale.ROOT).equals(BULK.name()) ? BULK : INTERACTIVE;
+  }
+
+  /**
+   * Puts the current thread into this lane until the returned scope is closed.
+   *
+   * @return the scope, restoring the previous lane on {@link Scope#close()}
+   */
+  public Scope enter() {
+    RequestLane previous = CURRENT.get();
+    CURRENT.set(this);
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  /** The time a thread spends in a lane. */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    /** Restores the lane the thread was in before. */
+    @Override
+    void close();
+  }
+}
@@ -0,0 +1,5 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.List;
+
+public record SentimentBatchRequest(List<String> inputs) {}
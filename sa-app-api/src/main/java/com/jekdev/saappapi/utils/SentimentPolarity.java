@@ -0,0 +1,29 @@
+package com.jekdev.saappapi.utils;
+
+/**
+ * Maps a provider label and its confidence score onto one signed sentiment axis.
+ *
+ * <p>The provider reports the winning label together with its confidence, so a raw score of {@code 0.9} means "very
+ * positive" or "very negative" depending on the label. Aggregations that compare emotions across labels use the signed
+ * score instead: {@code +score} for {@code POSITIVE}, {@code -score} for {@code NEGATIVE} and {@code 0} for any other
+ * label.
+ */
+public final class SentimentPolarity {
+
+  private SentimentPolarity() {}
+
+  /**
+   * @param label the sentiment label
+   * @param score the provider confidence for that label
+   * @return the signed score in {@code [-1, 1]}
+   */
+  public static double signedScore(String label, double score) {
+    if ("POSITIVE".equals(label)) {
+      return score;
+    }
+    if ("NEGATIVE".equals(label)) {
+      return -score;
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,236 @@
+package com.jekdev.saappapi.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Merging t-digest (Dunning and Ertl) for approximate quantiles over a stream of values.
+ *
+ * <p>Values are collected in a small buffer and periodically merged into a sorted list of weighted centroids. The
+ * {@code k1} scale function keeps centroids near the tails small, so extreme quantiles stay accurate while memory is
+ * bounded by roughly {@code compression} centroids regardless of how many values were added. Two digests can be merged
+ * by adding the centroids of one into the other, which makes per-client digests combinable. The buffer starts empty and
+ * grows with the values added up to {@code compression * 5} entries, so the many per-client digests that only ever
+ * see a handful of values stay small.
+ *
+ * <p>Instances are not thread-safe; callers guard concurrent access.
+ */
+public class TDigest {
+
+  private static final int BUFFER_FACTOR = 5;
+  private static final int MIN_BUFFER_SIZE = 8;
+
+  private final double compression;
+  private final int maxBufferSize;
+  private double[] bufferMeans = new double[0];
+  private double[] bufferWeights = new double[0];
+  private int buffered;
+
+  private double[] means = new double[0];
+  private double[] weights = new double[0];
+  private int centroids;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  /**
+   * @param compression accuracy parameter; higher values keep more centroids and give more accurate quantiles
+   */
+  public TDigest(double compression) {
+    this.compression = compression;
+    this.maxBufferSize = Math.max(MIN_BUFFER_SIZE, (int) Math.ceil(compression) * BUFFER_FACTOR);
+  }
+
+  /**
+   * Adds a single value.
+   *
+   * @param value the value
+   */
+  public void add(double value) {
+    add(value, 1);
+  }
+
+  /**
+   * Adds all centroids of another digest to this one.
+   *
+   * @param other the digest to merge; it is left unchanged apart from flushing its own buffer
+   */
+  public void merge(TDigest other) {
+    other.compress();
+    for (int i = 0; i < other.centroids; i++) {
+      add(other.means[i], other.weights[i]);
+    }
+    min = Math.min(min, other.min);
+    max = Math.max(max, other.max);
+  }
+
+  /**
+   * Estimates the value at the given quantile.
+   *
+   * @param q the quantile in {@code [0, 1]}
+   * @return the estimated value, or {@link Double#NaN} if the digest is empty
+   */
+  public double quantile(double q) {
+    compress();
+    if (centroids == 0) {
+      return Double.NaN;
+    }
+    if (centroids == 1) {
+      return means[0];
+    }
+
+    double index = q * totalWeight;
+    if (index <= weights[0] / 2) {
+      return interpolate(min, 0, means[0], weights[0] / 2, index);
+    }
+    double cumulative = 0;
+    double previousCenter = 0;
+    for (int i = 0; i < centroids; i++) {
+      double center = cumulative + weights[i] / 2;
+      if (index < center) {
+        return interpolate(means[i - 1], previousCenter, means[i], center, index);
+      }
+      previousCenter = center;
+      cumulative += weights[i];
+    }
+    return interpolate(means[centroids - 1], previousCenter, max, totalWeight, index);
+  }
+
+  /**
+   * @return the total weight, i.e. the number of added values
+   */
+  public long count() {
+    return Math.round(totalWeight + Arrays.stream(bufferWeights, 0, buffered).sum());
+  }
+
+  /**
+   * Serializes the digest into a compact byte array.
+   *
+   * @return the serialized digest
+   */
+  public byte[] toBytes() {
+    compress();
+    ByteBuffer buffer = ByteBuffer.allocate(Double.BYTES * 3 + Integer.BYTES + centroids * Double.BYTES * 2);
+    buffer.putDouble(compression).putDouble(min).putDouble(max).putInt(centroids);
+    for (int i = 0; i < centroids; i++) {
+      buffer.putDouble(means[i]).putDouble(weights[i]);
+    }
+    return buffer.array();
+  }
+
+  /**
+   * Restores a digest from the output of {@link #toBytes()}.
+   *
+   * @param bytes the serialized digest
+   * @return the restored digest
+   */
+  public static TDigest fromBytes(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    TDigest digest = new TDigest(buffer.getDouble());
+    digest.min = buffer.getDouble();
+    digest.max = buffer.getDouble();
+    digest.centroids = buffer.getInt();
+    digest.means = new double[digest.centroids];
+    digest.weights = new double[digest.centroids];
+    for (int i = 0; i < digest.centroids; i++) {
+      digest.means[i] = buffer.getDouble();
+      digest.weights[i] = buffer.getDouble();
+      digest.totalWeight += digest.weights[i];
+    }
+    return digest;
+  }
+
+  private void add(double mean, double weight) {
+    if (buffered == bufferMeans.length) {
+      if (bufferMeans.length < maxBufferSize) {
+        int size = Math.min(maxBufferSize, Math.max(MIN_BUFFER_SIZE, bufferMeans.length * 2));
+        bufferMeans = Arrays.copyOf(bufferMeans, size);
+        bufferWeights = Arrays.copyOf(bufferWeights, size);
+      } else {
+        compress();
+      }
+    }
+    bufferMeans[buffered] = mean;
+    bufferWeights[buffered] = weight;
+    buffered++;
+    min = Math.min(min, mean);
+    max = Math.max(max, mean);
+  }
+
+  /**
+   * @return the number of values the buffer can hold before it grows or is merged
+   */
+  int bufferCapacity() {
+    return bufferMeans.length;
+  }
+
+  private void compress() {
+    if (buffered == 0) {
+      return;
+    }
+    int size = centroids + buffered;
+    double[] allMeans = Arrays.copyOf(means, size);
+    double[] allWeights = Arrays.copyOf(weights, size);
+    System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+    System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+    int[] order =
+        IntStream.range(0, size)
+            .boxed()
+            .sorted(Comparator.comparingDouble(i -> allMeans[i]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+    double total = totalWeight + Arrays.stream(bufferWeights, 0, buffered).sum();
+    double[] newMeans = new double[size];
+    double[] newWeights = new double[size];
+    int count = 0;
+    double weightSoFar = 0;
+    double weightLimit = total * quantileOfScale(scaleOfQuantile(0) + 1);
+    double currentMean = allMeans[order[0]];
+    double currentWeight = allWeights[order[0]];
+
+    for (int i = 1; i < size; i++) {
+      double mean = allMeans[order[i]];
+      double weight = allWeights[order[i]];
+      if (weightSoFar + currentWeight + weight <= weightLimit) {
+        currentWeight += weight;
+        currentMean += (mean - currentMean) * weight / currentWeight;
+      } else {
+        newMeans[count] = currentMean;
+        newWeights[count] = currentWeight;
+        count++;
+        weightSoFar += currentWeight;
+        weightLimit = total * quantileOfScale(scaleOfQuantile(weightSoFar / total) + 1);
+        currentMean = mean;
+        currentWeight = weight;
+      }
+    }
+    newMeans[count] = currentMean;
+    newWeights[count] = currentWeight;
+    count++;
+
+    means = Arrays.copyOf(newMeans, count);
+    weights = Arrays.copyOf(newWeights, count);
+    centroids = count;
+    totalWeight = total;
+    buffered = 0;
+  }
+
+  private double scaleOfQuantile(double q) {
+    return compression / (2 * Math.PI) * Math.asin(2 * Math.min(q, 1) - 1);
+  }
+
+  private double quantileOfScale(double k) {
+    double angle = k * 2 * Math.PI / compression;
+    return angle >= Math.PI / 2 ? 1 : (Math.sin(angle) + 1) / 2;
+  }
+
+  private static double interpolate(double left, double leftPosition, double right, double rightPosition, double at) {
+    if (rightPosition <= leftPosition) {
+      return right;
+    }
+    return left + (right - left) * (at - leftPosition) / (rightPosition - leftPosition);
+  }
+}
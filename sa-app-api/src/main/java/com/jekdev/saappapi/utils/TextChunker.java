@@ -0,0 +1,94 @@
+package com.jekdev.saappapi.utils;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits long texts on sentence boundaries into chunks that fit the model's input limit.
+ *
+ * <p>Token counts are estimated by {@link TextPreprocessor#estimateTokens(CharSequence)}. Sentences are packed into a
+ * chunk until the next one would exceed {@code maxTokens}; a single sentence that is longer than the limit is cut at
+ * word boundaries. Once a chunk holds half the limit, it also ends after any sentence whose hash is divisible by
+ * {@value #BOUNDARY_MODULUS}. These content-defined boundaries keep the chunks after an edited sentence identical to
+ * the chunks of the previous version, so their cached scores can be reused.
+ */
+public class TextChunker {
+
+  private static final int BOUNDARY_MODULUS = 4;
+
+  private final int maxTokens;
+
+  /**
+   * @param maxTokens the maximum estimated tokens per chunk
+   */
+  public TextChunker(int maxTokens) {
+    this.maxTokens = maxTokens;
+  }
+
+  /**
+   * Splits a text into chunks of at most {@code maxTokens} estimated tokens.
+   *
+   * @param text the text to split
+   * @return the trimmed chunks in text order; a single chunk if the text fits
+   */
+  public List<String> split(String text) {
+    if (TextPreprocessor.estimateTokens(text) <= maxTokens) {
+      return List.of(text);
+    }
+    List<String> chunks = new ArrayList<>();
+    StringBuilder chunk = new StringBuilder();
+    for (String sentence : sentences(text)) {
+      if (TextPreprocessor.estimateTokens(sentence) > maxTokens) {
+        flush(chunk, chunks);
+        splitWords(sentence, chunks);
+        continue;
+      }
+      if (TextPreprocessor.estimateTokens(chunk + sentence) > maxTokens) {
+        flush(chunk, chunks);
+      }
+      chunk.append(sentence);
+      if (TextPreprocessor.estimateTokens(chunk) * 2 >= maxTokens
+          && Math.floorMod(sentence.strip().hashCode(), BOUNDARY_MODULUS) == 0) {
+        flush(chunk, chunks);
+      }
+    }
+    flush(chunk, chunks);
+    return chunks;
+  }
+
+  private static List<String> sentences(String text) {
+    BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+    iterator.setText(text);
+    List<String> sentences = new ArrayList<>();
+    for (int start = iterator.first(), end = iterator.next();
+        end != BreakIterator.DONE;
+        start = end, end = iterator.next()) {
+      sentences.add(text.substring(start, end));
+    }
+    return sentences;
+  }
+
+  private void splitWords(String sentence, List<String> chunks) {
+    StringBuilder chunk = new StringBuilder();
+    for (String word : sentence.strip().split("\\s+")) {
+      if (!chunk.isEmpty() && TextPreprocessor.estimateTokens(chunk + " " + word) > maxTokens) {
+        flush(chunk, chunks);
+      }
+      if (!chunk.isEmpty()) {
+        chunk.append(' ');
+      }
+      chunk.append(word);
+    }
+    flush(chunk, chunks);
+  }
+
+  private static void flush(StringBuilder chunk, List<String> chunks) {
+    String stripped = chunk.toString().strip();
+    if (!stripped.isEmpty()) {
+      chunks.add(stripped);
+    }
+    chunk.setLength(0);
+  }
+}
@@ -0,0 +1,170 @@
+package com.jekdev.saappapi.utils;
+
+import java.text.Normalizer;
+
+/**
+ * Brings texts into the canonical form that is sent to the sentiment provider and used as cache key.
+ *
+ * <p>The canonical form is NFC-normalized, has invisible format and control characters removed, every run of
+ * whitespace replaced by a single space and no leading or trailing whitespace. Texts that are already canonical are
+ * returned as the same instance, so the common case allocates nothing.
+ *
+ * <p>Token counts approximate a WordPiece tokenizer without a vocabulary: every punctuation mark, symbol and CJK
+ * ideograph is one token, a word of up to {@value #WHOLE_WORD_CHARS} letters or digits is one token, and every further
+ * {@value #WORD_PIECE_CHARS} characters of a longer word add a sub-word token. The estimate errs on the high side for
+ * English, so a text within the budget also fits the model.
+ */
+public class TextPreprocessor {
+
+  private static final int WHOLE_WORD_CHARS = 8;
+  private static final int WORD_PIECE_CHARS = 4;
+
+  private final int maxTokens;
+
+  /**
+   * @param maxTokens the token budget; longer texts are truncated at the last word that fits
+   */
+  public TextPreprocessor(int maxTokens) {
+    this.maxTokens = maxTokens;
+  }
+
+  /**
+   * Canonicalizes a text and truncates it to the token budget.
+   *
+   * @param text the raw text
+   * @return the canonical, possibly truncated text with its estimated token count
+   */
+  public PreprocessedText preprocess(String text) {
+    String canonical = canonicalize(text);
+    int tokens = estimateTokens(canonical);
+    if (tokens <= maxTokens) {
+      return new PreprocessedText(canonical, tokens, false);
+    }
+    String truncated = canonical.substring(0, prefixEnd(canonical, maxTokens)).stripTrailing();
+    return new PreprocessedText(truncated, estimateTokens(truncated), true);
+  }
+
+  /**
+   * Returns the canonical form of a text.
+   *
+   * @param text the raw text
+   * @return the canonical text; {@code text} itself if it is already canonical
+   */
+  public static String canonicalize(String text) {
+    String normalized =
+        Normalizer.isNormalized(text, Normalizer.Form.NFC) ? text : Normalizer.normalize(text, Normalizer.Form.NFC);
+    if (isCollapsed(normalized)) {
+      return normalized;
+    }
+    StringBuilder builder = new StringBuilder(normalized.length());
+    boolean pendingSpace = false;
+    for (int i = 0; i < normalized.length(); i++) {
+      char c = normalized.charAt(i);
+      if (isSpace(c)) {
+        pendingSpace = !builder.isEmpty();
+      } else if (!isInvisible(c)) {
+        if (pendingSpace) {
+          builder.append(' ');
+          pendingSpace = false;
+        }
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Estimates the number of WordPiece tokens of a text, without special tokens.
+   *
+   * @param text the text, ideally canonical
+   * @return the estimated token count
+   */
+  public static int estimateTokens(CharSequence text) {
+    int tokens = 0;
+    int word = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (isWordChar(c)) {
+        word++;
+        continue;
+      }
+      tokens += wordTokens(word);
+      word = 0;
+      if (countsAsToken(c)) {
+        tokens++;
+      }
+    }
+    return tokens + wordTokens(word);
+  }
+
+  /** Returns the end of the longest prefix that holds at most {@code budget} tokens and ends between tokens. */
+  private static int prefixEnd(String text, int budget) {
+    int tokens = 0;
+    int word = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (isWordChar(c)) {
+        word++;
+        continue;
+      }
+      if (tokens + wordTokens(word) > budget) {
+        return i - word;
+      }
+      tokens += wordTokens(word);
+      word = 0;
+      if (countsAsToken(c) && ++tokens > budget) {
+        return i;
+      }
+    }
+    return tokens + wordTokens(word) > budget ? text.length() - word : text.length();
+  }
+
+  private static boolean isCollapsed(String text) {
+    if (text.isEmpty()) {
+      return true;
+    }
+    if (isSpace(text.charAt(0)) || isSpace(text.charAt(text.length() - 1))) {
+      return false;
+    }
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (isSpace(c) && (c != ' ' || isSpace(text.charAt(i + 1))) || isInvisible(c)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int wordTokens(int length) {
+    if (length == 0) {
+      return 0;
+    }
+    return length <= WHOLE_WORD_CHARS ? 1 : 1 + (length - WHOLE_WORD_CHARS + WORD_PIECE_CHARS - 1) / WORD_PIECE_CHARS;
+  }
+
+  private static boolean isWordChar(char c) {
+    return Character.isLetterOrDigit(c) && !Character.isIdeographic(c);
+  }
+
+  private static boolean countsAsToken(char c) {
+    return !isSpace(c) && !Character.isLowSurrogate(c) && !isInvisible(c);
+  }
+
+  private static boolean isSpace(char c) {
+    return Character.isWhitespace(c) || Character.isSpaceChar(c);
+  }
+
+  private static boolean isInvisible(char c) {
+    int type = Character.getType(c);
+    return type == Character.FORMAT || type == Character.CONTROL && !isSpace(c);
+  }
+
+  /**
+   * A text in canonical form.
+   *
+   * @param text the canonical text
+   * @param tokens the estimated token count of {@code text}
+   * @param truncated whether the original text exceeded the token budget
+   */
+  public record PreprocessedText(String text, int tokens, boolean truncated) {}
+}
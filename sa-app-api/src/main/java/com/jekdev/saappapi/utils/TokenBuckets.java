@@ -0,0 +1,155 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per key, for example one per client, in a bounded table.
+ *
+ * <p>A bucket holds up to {@code capacity} tokens and regains {@code refillPerSecond} tokens per second; a request
+ * takes one token or is refused with the time until the next token. Keys are spread by hash over {@value #STRIPES}
+ * stripes, each guarded by its own lock, so requests of different clients rarely contend. Each stripe keeps its buckets
+ * in access order and holds at most {@code maxKeys / STRIPES} of them. Only a bucket that has been idle long enough to
+ * refill completely is ever evicted, since it is indistinguishable from a new one: forgetting a drained bucket would
+ * hand its key a fresh burst. Such buckets are dropped from the old end of the stripe whenever a new key is added, and
+ * when a stripe is full of buckets still refilling, a new key is refused until the first of them is full again.
+ *
+ * <p>The buckets live in the memory of one process. With {@code N} replicas behind a load balancer every replica keeps
+ * its own buckets, so a key may use up to {@code N} times the configured rate in total.
+ */
+public class TokenBuckets {
+
+  private static final int STRIPES = 64;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final LongSupplier nanoClock;
+
+  /**
+   * @param maxKeys the maximum number of buckets kept in memory
+   */
+  public TokenBuckets(int maxKeys) {
+    this(maxKeys, System::nanoTime);
+  }
+
+  /**
+   * @param maxKeys the maximum number of buckets kept in memory
+   * @param nanoClock the time source, in nanoseconds
+   */
+  public TokenBuckets(int maxKeys, LongSupplier nanoClock) {
+    int perStripe = Math.max(1, maxKeys / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(perStripe);
+    }
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Takes one token from the bucket of a key.
+   *
+   * @param key the key, e.g. a client email
+   * @param capacity the maximum tokens of the bucket, i.e. the allowed burst
+   * @param refillPerSecond the tokens regained per second
+   * @return {@code 0} if a token was taken, otherwise the nanoseconds until the next token is available
+   */
+  public long tryAcquire(String key, double capacity, double refillPerSecond) {
+    Stripe stripe = stripes[Math.floorMod(key.hashCode() * 0x9E3779B9, STRIPES)];
+    long now = nanoClock.getAsLong();
+    double nanosPerToken = TimeUnit.SECONDS.toNanos(1) / refillPerSecond;
+    stripe.lock.lock();
+    try {
+      Bucket bucket = stripe.buckets.get(key);
+      if (bucket == null) {
+        long waitForSlot = stripe.evictIdle(now);
+        if (waitForSlot > 0) {
+          return waitForSlot;
+        }
+        bucket = new Bucket(capacity, now, (long) (capacity * nanosPerToken));
+        stripe.buckets.put(key, bucket);
+      } else {
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) / nanosPerToken);
+        bucket.updatedAt = now;
+        bucket.nanosToFull = (long) (capacity * nanosPerToken);
+      }
+      if (bucket.tokens >= 1) {
+        bucket.tokens--;
+        return 0;
+      }
+      return Math.max(1, (long) Math.ceil((1 - bucket.tokens) * nanosPerToken));
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * @return the number of buckets in memory
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        size += stripe.buckets.size();
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return size;
+  }
+
+  private static final class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final int capacity;
+
+    private Stripe(int capacity) {
+      this.capacity = capacity;
+    }
+
+    /**
+     * Drops the least recently used buckets as long as they have refilled completely and, if the stripe is still full,
+     * any other bucket that has. Must hold the lock.
+     *
+     * @return {@code 0} if there is room for a new bucket, otherwise the nanoseconds until a bucket is full again
+     */
+    private long evictIdle(long now) {
+      Iterator<Bucket> iterator = buckets.values().iterator();
+      while (iterator.hasNext() && isFull(iterator.next(), now)) {
+        iterator.remove();
+      }
+      if (buckets.size() < capacity) {
+        return 0;
+      }
+      long wait = Long.MAX_VALUE;
+      for (iterator = buckets.values().iterator(); iterator.hasNext(); ) {
+        Bucket bucket = iterator.next();
+        if (isFull(bucket, now)) {
+          iterator.remove();
+          return 0;
+        }
+        wait = Math.min(wait, bucket.nanosToFull - (now - bucket.updatedAt));
+      }
+      return wait;
+    }
+
+    private static boolean isFull(Bucket bucket, long now) {
+      return now - bucket.updatedAt >= bucket.nanosToFull;
+    }
+  }
+
+  private static final class Bucket {
+
+    private double tokens;
+    private long updatedAt;
+    private long nanosToFull;
+
+    private Bucket(double tokens, long updatedAt, long nanosToFull) {
+      this.tokens = tokens;
+      this.updatedAt = updatedAt;
+      this.nanosToFull = nanosToFull;
+    }
+  }
+}
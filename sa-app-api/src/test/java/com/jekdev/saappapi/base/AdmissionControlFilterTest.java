@@ -0,0 +1,184 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.base.AdmissionControlFilter.Budget;
+import com.jekdev.saappapi.utils.RequestLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class AdmissionControlFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void requestsBeyondInFlightAndQueueAreShed() throws Exception {
+    // Prepare a filter with one slot, no queue and a chain that blocks until released
+    AdmissionControlFilter filter = filter(new Budget(1, 0, Duration.ofMillis(50)));
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    FilterChain blocking =
+        (request, response) -> {
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+        };
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      MockHttpServletResponse admittedResponse = new MockHttpServletResponse();
+      Future<?> admitted =
+          executor.submit(
+              () -> {
+                filter.doFilter(new MockHttpServletRequest("POST", "/emotions/create"), admittedResponse, blocking);
+                return null;
+              });
+      Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      // Execute test
+      MockHttpServletResponse shedResponse = new MockHttpServletResponse();
+      filter.doFilter(new MockHttpServletRequest("POST", "/emotions/create"), shedResponse, (request, response) -> {});
+      release.countDown();
+      admitted.get(5, TimeUnit.SECONDS);
+
+      // Verify the results
+      Assertions.assertEquals(200, admittedResponse.getStatus());
+      Assertions.assertEquals(503, shedResponse.getStatus());
+      Assertions.assertEquals("1", shedResponse.getHeader(HttpHeaders.RETRY_AFTER));
+      Assertions.assertEquals(
+          1, meterRegistry
+              .counter(AdmissionControlFilter.SHED_METRIC, "lane", "interactive", "reason", "queue-full")
+              .count());
+    }
+  }
+
+  @Test
+  void queuedRequestsAreShedAfterTheQueueTimeout() throws Exception {
+    // Prepare a filter with one slot that is taken and room for one waiting request
+    AdmissionControlFilter filter = filter(new Budget(1, 1, Duration.ofMillis(50)));
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> admitted =
+          executor.submit(
+              () -> {
+                filter.doFilter(
+                    new MockHttpServletRequest("POST", "/emotions/create"),
+                    new MockHttpServletResponse(),
+                    (request, response) -> {
+                      entered.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                      }
+                    });
+                return null;
+              });
+      Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      // Execute test
+      MockHttpServletResponse queuedResponse = new MockHttpServletResponse();
+      filter.doFilter(
+          new MockHttpServletRequest("POST", "/emotions/create"), queuedResponse, (request, response) -> {});
+      release.countDown();
+      admitted.get(5, TimeUnit.SECONDS);
+
+      // Verify the results
+      Assertions.assertEquals(503, queuedResponse.getStatus());
+      Assertions.assertEquals(
+          1, meterRegistry
+              .counter(AdmissionControlFilter.SHED_METRIC, "lane", "interactive", "reason", "timeout")
+              .count());
+      Assertions.assertEquals(
+          2, meterRegistry.timer(AdmissionControlFilter.WAIT_METRIC, "lane", "interactive").count());
+    }
+
+    // A released slot admits the next request
+    MockHttpServletResponse nextResponse = new MockHttpServletResponse();
+    filter.doFilter(new MockHttpServletRequest("POST", "/emotions/create"), nextResponse, (request, response) -> {});
+    Assertions.assertEquals(200, nextResponse.getStatus());
+  }
+
+  @Test
+  void bulkRequestsAreShedWithoutTakingInteractiveSlots() throws Exception {
+    // Prepare a filter whose bulk lane is taken by a blocked export
+    AdmissionControlFilter filter =
+        new AdmissionControlFilter(
+            Map.of(
+                RequestLane.INTERACTIVE,
+                new Budget(1, 0, Duration.ofMillis(50)),
+                RequestLane.BULK,
+                new Budget(1, 0, Duration.ofMillis(50))),
+            Set.of("/emotions/export"),
+            meterRegistry);
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RequestLane[] exportLane = new RequestLane[1];
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<?> export =
+          executor.submit(
+              () -> {
+                filter.doFilter(
+                    new MockHttpServletRequest("GET", "/emotions/export"),
+                    new MockHttpServletResponse(),
+                    (request, response) -> {
+                      exportLane[0] = RequestLane.current();
+                      entered.countDown();
+                      try {
+                        release.await();
+                      } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                      }
+                    });
+                return null;
+              });
+      Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      // Execute test
+      MockHttpServletRequest bulkRequest = new MockHttpServletRequest("POST", "/emotions/create");
+      bulkRequest.addHeader(RequestLane.HEADER, "bulk");
+      MockHttpServletResponse bulkResponse = new MockHttpServletResponse();
+      filter.doFilter(bulkRequest, bulkResponse, (request, response) -> {});
+      RequestLane[] interactiveLane = new RequestLane[1];
+      MockHttpServletResponse interactiveResponse = new MockHttpServletResponse();
+      filter.doFilter(
+          new MockHttpServletRequest("POST", "/emotions/create"),
+          interactiveResponse,
+          (request, response) -> interactiveLane[0] = RequestLane.current());
+      release.countDown();
+      export.get(5, TimeUnit.SECONDS);
+
+      // Verify the results
+      Assertions.assertEquals(RequestLane.BULK, exportLane[0]);
+      Assertions.assertEquals(503, bulkResponse.getStatus());
+      Assertions.assertEquals(200, interactiveResponse.getStatus());
+      Assertions.assertEquals(RequestLane.INTERACTIVE, interactiveLane[0]);
+      Assertions.assertEquals(
+          1,
+          meterRegistry.counter(AdmissionControlFilter.SHED_METRIC, "lane", "bulk", "reason", "queue-full").count());
+    }
+  }
+
+  private AdmissionControlFilter filter(Budget interactive) {
+    return new AdmissionControlFilter(
+        Map.of(RequestLane.INTERACTIVE, interactive, RequestLane.BULK, new Budget(1, 0, Duration.ofMillis(50))),
+        Set.of(),
+        meterRegistry);
+  }
+}
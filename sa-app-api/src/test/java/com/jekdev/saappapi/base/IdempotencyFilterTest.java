@@ -0,0 +1,251 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.repositories.IdempotencyStore;
+import com.jekdev.saappapi.service.IdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(IdempotencyStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTest {
+
+  private static final String CREATED = "Emotion created: POSITIVE";
+
+  @Autowired private IdempotencyStore idempotencyStore;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicInteger created = new AtomicInteger();
+
+  private IdempotencyFilter filter;
+
+  @BeforeEach
+  void setUp() {
+    idempotencyStore.purgeExpired(Instant.now().plus(Duration.ofDays(365)));
+    filter =
+        new IdempotencyFilter(
+            new IdempotencyService(
+                idempotencyStore, Duration.ofHours(1), Duration.ofMinutes(1), Duration.ofSeconds(5), meterRegistry));
+  }
+
+  @Test
+  void retryReplaysTheStoredResponseWithoutCreatingAgain() throws Exception {
+    // Execute test
+    MockHttpServletResponse first = post("key-1", "{\"text\":\"nice\"}", creating());
+    MockHttpServletResponse retry = post("key-1", "{\"text\":\"nice\"}", creating());
+
+    // Verify the results
+    Assertions.assertEquals(1, created.get());
+    Assertions.assertEquals(201, first.getStatus());
+    Assertions.assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    Assertions.assertEquals(201, retry.getStatus());
+    Assertions.assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    Assertions.assertEquals(CREATED, retry.getContentAsString());
+    Assertions.assertEquals(1, outcome("replayed"));
+  }
+
+  @Test
+  void keyReusedWithAnotherBodyIsRejected() throws Exception {
+    // Execute test
+    post("key-2", "{\"text\":\"nice\"}", creating());
+    MockHttpServletResponse reused = post("key-2", "{\"text\":\"awful\"}", creating());
+
+    // Verify the results
+    Assertions.assertEquals(1, created.get());
+    Assertions.assertEquals(422, reused.getStatus());
+    Assertions.assertEquals(1, outcome("mismatch"));
+  }
+
+  @Test
+  void serverErrorsAreNotStored() throws Exception {
+    // Prepare stubbing for a provider outage on the first attempt
+    FilterChain failing = (request, response) -> ((HttpServletResponse) response).setStatus(503);
+
+    // Execute test
+    MockHttpServletResponse first = post("key-3", "{\"text\":\"nice\"}", failing);
+    MockHttpServletResponse retry = post("key-3", "{\"text\":\"nice\"}", creating());
+
+    // Verify the results
+    Assertions.assertEquals(503, first.getStatus());
+    Assertions.assertEquals(201, retry.getStatus());
+    Assertions.assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    Assertions.assertEquals(1, created.get());
+  }
+
+  @Test
+  void retryWhileTheFirstRequestIsInFlightWaitsForItsResponse() throws Exception {
+    // Prepare a chain that blocks the first request until released
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    FilterChain blocking =
+        (request, response) -> {
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+          creating().doFilter(request, response);
+        };
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<MockHttpServletResponse> first = executor.submit(() -> post("key-4", "{\"text\":\"nice\"}", blocking));
+      Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      // Execute test
+      Future<MockHttpServletResponse> retry = executor.submit(() -> post("key-4", "{\"text\":\"nice\"}", creating()));
+      Thread.sleep(100);
+      release.countDown();
+
+      // Verify the results
+      Assertions.assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatus());
+      Assertions.assertEquals(201, retry.get(5, TimeUnit.SECONDS).getStatus());
+      Assertions.assertEquals("true", retry.get().getHeader(IdempotencyFilter.REPLAYED_HEADER));
+      Assertions.assertEquals(1, created.get());
+    }
+  }
+
+  @Test
+  void asyncResponseIsStoredAfterTheAsyncDispatch() throws Exception {
+    // Prepare a request whose controller starts async processing
+    MockHttpServletRequest request = request("key-5", "{\"text\":\"nice\"}");
+    request.setAsyncSupported(true);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+    AsyncContext asyncContext = request.getAsyncContext();
+
+    // Execute test
+    request.setAsyncStarted(false);
+    request.setDispatcherType(DispatcherType.ASYNC);
+    filter.doFilter(request, asyncContext.getResponse(), creating());
+    asyncContext.complete();
+    MockHttpServletResponse retry = post("key-5", "{\"text\":\"nice\"}", creating());
+
+    // Verify the results
+    Assertions.assertEquals(201, response.getStatus());
+    Assertions.assertEquals(CREATED, response.getContentAsString());
+    Assertions.assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    Assertions.assertEquals(CREATED, retry.getContentAsString());
+    Assertions.assertEquals(1, created.get());
+  }
+
+  @Test
+  void keyOfARequestThatNeverFinishedIsTakenOverAfterItsLease() throws Exception {
+    // Prepare two replicas, the first of which claims the key and dies before completing it
+    IdempotencyService crashed =
+        new IdempotencyService(
+            idempotencyStore, Duration.ofHours(1), Duration.ofMillis(200), Duration.ofMillis(50), meterRegistry);
+    IdempotencyService survivor =
+        new IdempotencyService(
+            idempotencyStore, Duration.ofHours(1), Duration.ofMillis(200), Duration.ofMillis(50), meterRegistry);
+    Assertions.assertEquals(IdempotencyService.Outcome.PROCEED, crashed.begin("key-6", "fingerprint").outcome());
+
+    // Execute test
+    IdempotencyService.Outcome duringLease = survivor.begin("key-6", "fingerprint").outcome();
+    Thread.sleep(250);
+    IdempotencyService.Outcome afterLease = survivor.begin("key-6", "fingerprint").outcome();
+
+    // Verify the results
+    Assertions.assertEquals(IdempotencyService.Outcome.IN_PROGRESS, duringLease);
+    Assertions.assertEquals(IdempotencyService.Outcome.PROCEED, afterLease);
+  }
+
+  @Test
+  void bodyCanBeReadWithAReadListener() throws Exception {
+    // Prepare a chain that reads the replayed body without blocking
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+    AtomicBoolean allDataRead = new AtomicBoolean();
+    FilterChain nonBlocking =
+        (request, response) -> {
+          ServletInputStream input = request.getInputStream();
+          input.setReadListener(
+              new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                  byte[] buffer = new byte[4];
+                  int length;
+                  while (input.isReady() && (length = input.read(buffer)) != -1) {
+                    read.write(buffer, 0, length);
+                  }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                  allDataRead.set(true);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                  Assertions.fail(throwable);
+                }
+              });
+          ((HttpServletResponse) response).setStatus(201);
+        };
+
+    // Execute test
+    MockHttpServletResponse response = post("key-7", "{\"text\":\"nice\"}", nonBlocking);
+
+    // Verify the results
+    Assertions.assertEquals(201, response.getStatus());
+    Assertions.assertTrue(allDataRead.get());
+    Assertions.assertEquals("{\"text\":\"nice\"}", read.toString(StandardCharsets.UTF_8));
+  }
+
+  private FilterChain creating() {
+    return (request, response) -> {
+      request.getInputStream().readAllBytes();
+      created.incrementAndGet();
+      ((HttpServletResponse) response).setStatus(201);
+      response.setContentType("text/plain;charset=UTF-8");
+      response.getWriter().write(CREATED);
+    };
+  }
+
+  private MockHttpServletResponse post(String key, String body, FilterChain chain) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request(key, body), response, chain);
+    return response;
+  }
+
+  private static MockHttpServletRequest request(String key, String body) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/emotions/create");
+    request.addHeader(IdempotencyFilter.HEADER, key);
+    request.setContentType("application/json");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+
+  private double outcome(String outcome) {
+    return meterRegistry.counter(IdempotencyService.REQUESTS_METRIC, "outcome", outcome).count();
+  }
+}
@@ -0,0 +1,69 @@
+package com.jekdev.saappapi.base;
+
+import com.jekdev.saappapi.utils.RequestDeadline;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestDeadlineFilterTest {
+
+  private final RequestDeadlineFilter filter = new RequestDeadlineFilter(Duration.ofSeconds(5));
+
+  private final List<Optional<RequestDeadline>> deadlines = new ArrayList<>();
+
+  @Test
+  void requestRunsUnderTheDeadlineOfItsHeader() throws Exception {
+    // Execute test
+    MockHttpServletResponse response = get("800");
+
+    // Verify the results
+    Assertions.assertEquals(200, response.getStatus());
+    Duration remaining = deadlines.getFirst().orElseThrow().remaining();
+    Assertions.assertTrue(remaining.compareTo(Duration.ofMillis(800)) <= 0, "remaining " + remaining);
+    Assertions.assertTrue(remaining.compareTo(Duration.ofMillis(500)) > 0, "remaining " + remaining);
+    Assertions.assertTrue(RequestDeadline.current().isEmpty());
+  }
+
+  @Test
+  void timeoutIsCappedAtTheMaximum() throws Exception {
+    // Execute test
+    get("600000");
+
+    // Verify the results
+    Assertions.assertTrue(deadlines.getFirst().orElseThrow().remaining().compareTo(Duration.ofSeconds(5)) <= 0);
+  }
+
+  @Test
+  void requestWithoutTimeLeftIsRejected() throws Exception {
+    // Execute test
+    MockHttpServletResponse response = get("0");
+
+    // Verify the results
+    Assertions.assertEquals(504, response.getStatus());
+    Assertions.assertTrue(deadlines.isEmpty());
+  }
+
+  @Test
+  void requestWithoutHeaderHasNoDeadline() throws Exception {
+    // Execute test
+    get(null);
+
+    // Verify the results
+    Assertions.assertEquals(List.of(Optional.empty()), deadlines);
+  }
+
+  private MockHttpServletResponse get(String timeout) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/emotions/all");
+    if (timeout != null) {
+      request.addHeader(RequestDeadline.HEADER, timeout);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, (req, res) -> deadlines.add(RequestDeadline.current()));
+    return response;
+  }
+}
@@ -0,0 +1,49 @@
+package com.jekdev.saappapi.benchmark;
+
+import com.jekdev.saappapi.utils.EmotionColumnStore;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures the per-label group-by of the {@link EmotionColumnStore} over two million rows, overall and filtered to a
+ * single client.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark -pl sa-app-api}.
+ */
+@Slf4j
+@Tag("benchmark")
+class ColumnStoreBenchmarkTest {
+
+  private static final int ROWS = 2_000_000;
+  private static final int CLIENTS = 10_000;
+  private static final int WARMUP_ITERATIONS = 20;
+  private static final int MEASURED_ITERATIONS = 50;
+
+  @Test
+  void labelStatistics() {
+    EmotionColumnStore store = new EmotionColumnStore();
+    for (int id = 1; id <= ROWS; id++) {
+      store.append(id, id % CLIENTS, id % 3 == 0 ? "NEGATIVE" : "POSITIVE", (id % 1000) / 1000.0);
+    }
+
+    double overall = measure(store, null);
+    double oneClient = measure(store, 42L);
+
+    log.info("Column store group-by over {} rows: overall {} ms, one client {} ms", ROWS,
+        String.format("%.3f", overall), String.format("%.3f", oneClient));
+    Assertions.assertEquals(ROWS, store.liveRows());
+  }
+
+  private double measure(EmotionColumnStore store, Long clientId) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      store.labelStatistics(clientId, 10);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      store.labelStatistics(clientId, 10);
+    }
+    return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ITERATIONS;
+  }
+}
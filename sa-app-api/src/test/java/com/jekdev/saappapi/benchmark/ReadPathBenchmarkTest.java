@@ -0,0 +1,119 @@
+package com.jekdev.saappapi.benchmark;
+
+import com.jekdev.saappapi.mapper.AppMapper;
+import com.jekdev.saappapi.repositories.ClientRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Compares the JPA list path (entity hydration + {@link AppMapper}) with the {@link EmotionReadRepository} projection
+ * path on the same seeded H2 data set. Reports mean latency and bytes allocated by the calling thread per call.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark -pl sa-app-api}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadPathBenchmarkTest {
+
+  private static final int CLIENTS = 500;
+  private static final int EMOTIONS_PER_CLIENT = 20;
+  private static final int WARMUP_ITERATIONS = 20;
+  private static final int MEASURED_ITERATIONS = 50;
+
+  @Autowired private JdbcClient jdbcClient;
+  @Autowired private TransactionTemplate transactionTemplate;
+  @Autowired private ClientRepository clientRepository;
+  @Autowired private EmotionRepository emotionRepository;
+  @Autowired private EmotionReadRepository emotionReadRepository;
+  @Autowired private AppMapper appMapper;
+
+  @BeforeAll
+  void seed() {
+    for (int c = 1; c <= CLIENTS; c++) {
+      jdbcClient.sql("INSERT INTO client (id, email) VALUES (?, ?)").params(c, "client" + c + "@bench.local").update();
+    }
+    List<Object[]> rows = new ArrayList<>();
+    for (int c = 1; c <= CLIENTS; c++) {
+      for (int e = 0; e < EMOTIONS_PER_CLIENT; e++) {
+        rows.add(new Object[] {"benchmark text " + c + "-" + e, e % 2 == 0 ? "POSITIVE" : "NEGATIVE", 0.5 + e / 100.0, c});
+      }
+    }
+    for (Object[] row : rows) {
+      jdbcClient.sql("INSERT INTO emotion (text, type, score, client_id) VALUES (?, ?, ?, ?)").params(row).update();
+    }
+  }
+
+  @Test
+  void emotionList() {
+    Result jpa =
+        measure(
+            () ->
+                transactionTemplate.execute(
+                    status -> emotionRepository.findAll().stream().map(appMapper::mapEmotionEntityToResponse).toList()));
+    Result jdbc = measure(emotionReadRepository::findAllEmotions);
+
+    report("GET /emotions/all", jpa, jdbc);
+    Assertions.assertEquals(jpa.size(), jdbc.size());
+  }
+
+  @Test
+  void clientList() {
+    Result jpa =
+        measure(
+            () ->
+                transactionTemplate.execute(
+                    status ->
+                        clientRepository.findAll().stream().map(appMapper::mapClientEntityToClientResponse).toList()));
+    Result jdbc = measure(emotionReadRepository::findAllClients);
+
+    report("GET /client/find_all", jpa, jdbc);
+    Assertions.assertEquals(jpa.size(), jdbc.size());
+  }
+
+  private Result measure(Supplier<? extends List<?>> call) {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    int size = 0;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      size = call.get().size();
+    }
+
+    long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      size = call.get().size();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+    return new Result(elapsed / 1_000_000.0 / MEASURED_ITERATIONS, allocated / MEASURED_ITERATIONS, size);
+  }
+
+  private void report(String endpoint, Result jpa, Result jdbc) {
+    log.info(
+        "{} ({} rows): JPA {} ms, {} KiB/call | JDBC projection {} ms, {} KiB/call",
+        endpoint,
+        jdbc.size(),
+        String.format("%.2f", jpa.meanMillis()),
+        jpa.bytesPerCall() / 1024,
+        String.format("%.2f", jdbc.meanMillis()),
+        jdbc.bytesPerCall() / 1024);
+  }
+
+  private record Result(double meanMillis, long bytesPerCall, int size) {}
+}
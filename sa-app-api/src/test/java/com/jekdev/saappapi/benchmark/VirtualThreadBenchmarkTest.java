@@ -0,0 +1,235 @@
+package com.jekdev.saappapi.benchmark;
+
+import com.jekdev.saappapi.service.SentimentAnalysisService;
+import com.sun.management.HotSpotDiagnosticMXBean;
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Compares the platform-thread and the virtual-thread mode ({@code spring.threads.virtual.enabled}) on the provider
+ * call path of {@link SentimentAnalysisService} against a local stub provider with a fixed latency.
+ *
+ * <p>Throughput: {@value #CONCURRENT_CLIENTS} concurrent clients send a burst of requests, which is handled by a pool
+ * of Tomcat's default 200 platform threads, or by one virtual thread per request. Memory: a fixed number of requests
+ * is held open inside the provider call, and the heap retained per request after a GC is reported together with the
+ * platform threads the mode needed; a platform thread additionally reserves its native stack ({@code -Xss}) outside
+ * the heap. Virtual threads that pin their carrier inside application code are recorded with JFR; there must be none.
+ *
+ * <p>Run with {@code mvn test -Pbenchmark -pl sa-app-api}.
+ */
+@Slf4j
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class VirtualThreadBenchmarkTest {
+
+  private static final int TOMCAT_MAX_THREADS = 200;
+  private static final int CONCURRENT_CLIENTS = 500;
+  private static final int BURST_REQUESTS = 2_000;
+  private static final int HELD_REQUESTS = 500;
+  private static final Duration PROVIDER_LATENCY = Duration.ofMillis(20);
+  private static final String RESPONSE =
+      "[[{\"label\":\"POSITIVE\",\"score\":0.9},{\"label\":\"NEGATIVE\",\"score\":0.1}]]";
+
+  private final AtomicInteger providerInFlight = new AtomicInteger();
+  private volatile CountDownLatch providerGate = new CountDownLatch(0);
+  private HttpServer provider;
+
+  @BeforeAll
+  void startProvider() throws Exception {
+    provider = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+    provider.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    provider.createContext(
+        "/model",
+        exchange -> {
+          exchange.getRequestBody().readAllBytes();
+          providerInFlight.incrementAndGet();
+          try {
+            Thread.sleep(PROVIDER_LATENCY);
+            providerGate.await();
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          } finally {
+            providerInFlight.decrementAndGet();
+          }
+          byte[] body = RESPONSE.getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+          }
+        });
+    provider.start();
+  }
+
+  @AfterAll
+  void stopProvider() {
+    provider.stop(0);
+  }
+
+  @Test
+  void platformVersusVirtualThreads() throws Exception {
+    Result platform = measure(false);
+    Result virtual = measure(true);
+
+    report("platform", platform);
+    report("virtual", virtual);
+    Assertions.assertEquals(0, virtual.pinnedThreads());
+  }
+
+  private Result measure(boolean virtualThreads) throws Exception {
+    HttpClient.Builder httpClientBuilder = HttpClient.newBuilder();
+    if (virtualThreads) {
+      httpClientBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    try (HttpClient httpClient = httpClientBuilder.build();
+        ExecutorService requests = executor(virtualThreads, TOMCAT_MAX_THREADS);
+        RecordingStream pinning = new RecordingStream()) {
+      SentimentAnalysisService service = service(httpClient);
+      AtomicLong pinned = new AtomicLong();
+      pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+      pinning.onEvent(
+          "jdk.VirtualThreadPinned",
+          event -> {
+            if (event.getStackTrace().getFrames().stream()
+                .anyMatch(frame -> isApplicationCode(frame.getMethod().getType().getName()))) {
+              pinned.incrementAndGet();
+            }
+          });
+      pinning.startAsync();
+
+      burst(requests, service, TOMCAT_MAX_THREADS);
+      long start = System.nanoTime();
+      burst(requests, service, BURST_REQUESTS);
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      pinning.stop();
+      return new Result(BURST_REQUESTS / seconds, retainedPerRequest(virtualThreads, service), pinned.get());
+    }
+  }
+
+  private void burst(ExecutorService requests, SentimentAnalysisService service, int count) throws Exception {
+    Semaphore clients = new Semaphore(CONCURRENT_CLIENTS);
+    List<Future<?>> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String text = "benchmark text " + i;
+      clients.acquire();
+      futures.add(
+          requests.submit(
+              () -> {
+                try {
+                  return service.analyze(text);
+                } finally {
+                  clients.release();
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get(1, TimeUnit.MINUTES);
+    }
+  }
+
+  /** Holds {@value #HELD_REQUESTS} requests inside the provider call and measures what they retain. */
+  private Retained retainedPerRequest(boolean virtualThreads, SentimentAnalysisService service) throws Exception {
+    int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+    long heapBefore = heapAfterGc();
+    providerGate = new CountDownLatch(1);
+    try (ExecutorService requests = executor(virtualThreads, HELD_REQUESTS)) {
+      List<Future<?>> futures = new ArrayList<>(HELD_REQUESTS);
+      for (int i = 0; i < HELD_REQUESTS; i++) {
+        String text = "held text " + i;
+        futures.add(requests.submit(() -> service.analyze(text)));
+      }
+      long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+      while (providerInFlight.get() < HELD_REQUESTS && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      int held = providerInFlight.get();
+      long heap = heapAfterGc() - heapBefore;
+      int threads = Math.max(0, ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore);
+      providerGate.countDown();
+      for (Future<?> future : futures) {
+        future.get(1, TimeUnit.MINUTES);
+      }
+      return new Retained(held, heap / Math.max(1, held), threads, threads * stackKiB() / Math.max(1, held));
+    }
+  }
+
+  private SentimentAnalysisService service(HttpClient httpClient) {
+    RestClient restClient =
+        RestClient.builder()
+            .baseUrl("http://localhost:" + provider.getAddress().getPort())
+            .requestFactory(new JdkClientHttpRequestFactory(httpClient))
+            .build();
+    SentimentAnalysisService service =
+        new SentimentAnalysisService(
+            restClient, JsonMapper.builder().build(), 4096, 400, 4, 100, "", Duration.ofSeconds(3), "", "", 2);
+    ReflectionTestUtils.setField(service, "apiToken", "benchmark");
+    ReflectionTestUtils.setField(service, "modelPath", "/model");
+    return service;
+  }
+
+  private static ExecutorService executor(boolean virtualThreads, int platformThreads) {
+    return virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(platformThreads);
+  }
+
+  /** The request path of the API, excluding the stub provider of this benchmark. */
+  private static boolean isApplicationCode(String type) {
+    return type.startsWith("com.jekdev.saappapi.") && !type.startsWith(VirtualThreadBenchmarkTest.class.getName());
+  }
+
+  private static long stackKiB() {
+    return Long.parseLong(
+        ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption("ThreadStackSize").getValue());
+  }
+
+  private static long heapAfterGc() throws InterruptedException {
+    System.gc();
+    Thread.sleep(100);
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private void report(String mode, Result result) {
+    log.info(
+        "{} threads: {} requests/s | {} held: {} KiB heap + {} KiB stack/request, {} platform threads | {} pinned",
+        mode,
+        String.format("%.0f", result.requestsPerSecond()),
+        result.retained().requests(),
+        String.format("%.1f", result.retained().heapBytesPerRequest() / 1024.0),
+        result.retained().stackKiBPerRequest(),
+        result.retained().platformThreads(),
+        result.pinnedThreads());
+  }
+
+  private record Retained(int requests, long heapBytesPerRequest, int platformThreads, long stackKiBPerRequest) {}
+
+  private record Result(double requestsPerSecond, Retained retained, long pinnedThreads) {}
+}
@@ -0,0 +1,68 @@
+package com.jekdev.saappapi.controller;
+
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.dto.LabelStatistics;
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.service.EmotionAnalyticsService;
+import com.jekdev.saappapi.service.ScorePercentileService;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@WebMvcTest(AnalyticsController.class)
+class AnalyticsControllerTest {
+
+  @MockitoBean private EmotionAnalyticsService emotionAnalyticsService;
+
+  @MockitoBean private ScorePercentileService scorePercentileService;
+
+  @Autowired private MockMvc mockMvc;
+
+  private static final String LABELS_PATH = AnalyticsController.BASE_PATH + AnalyticsController.LABEL_STATISTICS_PATH;
+
+  @Test
+  void getLabelStatisticsForClient() throws Exception {
+    // Prepare stubbing for analytics service
+    when(emotionAnalyticsService.labelStatistics(7L))
+        .thenReturn(List.of(new LabelStatistics("NEGATIVE", 2, 0.75, 0.6, 0.9, new long[] {0, 0, 0, 0, 0, 0, 1, 0, 0, 1})));
+
+    // Execute test
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(LABELS_PATH).param("clientId", "7"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].label").value("NEGATIVE"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].count").value(2))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].histogram[9]").value(1));
+  }
+
+  @Test
+  void getLabelStatisticsOverall() throws Exception {
+    // Prepare stubbing for analytics service
+    when(emotionAnalyticsService.labelStatistics(null)).thenReturn(List.of());
+
+    // Execute test
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(LABELS_PATH))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.content().json("[]"));
+  }
+
+  @Test
+  void getGlobalPercentiles() throws Exception {
+    // Prepare stubbing for percentile service
+    when(scorePercentileService.globalPercentiles()).thenReturn(new ScorePercentiles(null, 40, 0.2, 0.85, 0.99));
+
+    // Execute test
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(AnalyticsController.BASE_PATH + AnalyticsController.PERCENTILES_PATH))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.count").value(40))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.p90").value(0.85));
+  }
+}
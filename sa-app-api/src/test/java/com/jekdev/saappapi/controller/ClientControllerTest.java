@@ -5,7 +5,14 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 
 import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.LeaderboardEntry;
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.service.ClientLeaderboardService;
 import com.jekdev.saappapi.service.ClientService;
+import com.jekdev.saappapi.service.ResourceVersionService;
+import com.jekdev.saappapi.service.ScorePercentileService;
+import com.jekdev.saappapi.utils.LeaderboardOrder;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +27,12 @@ class ClientControllerTest {
 
   @MockitoBean private ClientService clientService;
 
+  @MockitoBean private ScorePercentileService scorePercentileService;
+
+  @MockitoBean private ClientLeaderboardService clientLeaderboardService;
+
+  @MockitoBean private ResourceVersionService resourceVersionService;
+
   @Autowired private MockMvc mockMvc;
 
   private static final String EMAIL = "test@mail.local";
@@ -56,4 +69,51 @@ class ClientControllerTest {
         .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(CLIENT_ID))
         .andExpect(MockMvcResultMatchers.jsonPath("$.email").value(EMAIL));
   }
+
+  @Test
+  void getPercentiles() throws Exception {
+    // Prepare stubbing for percentile service
+    when(scorePercentileService.clientPercentiles(3L)).thenReturn(new ScorePercentiles(3L, 12, -0.4, 0.6, 0.95));
+
+    String PERCENTILES_PATH = ClientController.BASE_PATH + ClientController.PERCENTILES_PATH;
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(PERCENTILES_PATH, 3L))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.clientId").value(3))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.p50").value(-0.4));
+  }
+
+  @Test
+  void getLeaderboard() throws Exception {
+    // Prepare stubbing for leaderboard service
+    when(clientLeaderboardService.top(LeaderboardOrder.POSITIVE, 2))
+        .thenReturn(List.of(new LeaderboardEntry(5L, 0.93, 4), new LeaderboardEntry(8L, 0.71, 2)));
+
+    String LEADERBOARD_PATH = ClientController.BASE_PATH + ClientController.LEADERBOARD_PATH;
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(LEADERBOARD_PATH).param("order", "positive").param("k", "2"))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.jsonPath("$[0].clientId").value(5))
+        .andExpect(MockMvcResultMatchers.jsonPath("$[1].meanScore").value(0.71));
+  }
+
+  @Test
+  void searchClientWithMatchingETagIsNotModified() throws Exception {
+    // Prepare stubbing for an unchanged data version
+    when(resourceVersionService.currentETag()).thenReturn("W/\"4.7\"");
+    when(clientService.searchClient(1L)).thenReturn(new ClientResponse(1L, EMAIL));
+
+    String SEARCH_PATH = ClientController.BASE_PATH + ClientController.SINGLE_ID_CLIENT_PATH;
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(SEARCH_PATH, 1L))
+        .andExpect(MockMvcResultMatchers.status().isOk())
+        .andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"4.7\""));
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(SEARCH_PATH, 1L).header("If-None-Match", "W/\"4.7\""))
+        .andExpect(MockMvcResultMatchers.status().isNotModified())
+        .andExpect(content().string(""));
+
+    // Verify the client was read for the first request only
+    Mockito.verify(clientService, Mockito.times(1)).searchClient(1L);
+  }
 }
@@ -1,18 +1,34 @@
 package com.jekdev.saappapi.controller;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import com.jekdev.saappapi.dto.ClientResponse;
 import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.dto.LocalModelReport;
+import com.jekdev.saappapi.dto.LocalModelReport.Threshold;
+import com.jekdev.saappapi.dto.RescoringStatus;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.service.EmotionRescoringService;
 import com.jekdev.saappapi.service.EmotionService;
+import com.jekdev.saappapi.service.LocalSentimentService;
+import com.jekdev.saappapi.service.ResourceVersionService;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
@@ -22,6 +38,15 @@ class EmotionControllerTest {
     @MockitoBean
     private EmotionService emotionService;
 
+    @MockitoBean
+    private EmotionRescoringService emotionRescoringService;
+
+    @MockitoBean
+    private LocalSentimentService localSentimentService;
+
+    @MockitoBean
+    private ResourceVersionService resourceVersionService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -45,7 +70,48 @@ class EmotionControllerTest {
 
         String CREATE_PATH = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
         mockMvc.perform(MockMvcRequestBuilders.post(CREATE_PATH).content(emotionRequest).contentType(APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                .andExpect(MockMvcResultMatchers.status().isCreated());
+    }
+
+    @Test
+    void createEmotionPending() throws Exception {
+        when(emotionService.createEmotion(any())).thenReturn(EmotionStatus.PENDING);
+
+        String CREATE_PATH = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.post(CREATE_PATH).content(emotionRequest).contentType(APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
+                .andExpect(MockMvcResultMatchers.status().isAccepted());
+    }
+
+    @Test
+    void createEmotionWriteBehind() throws Exception {
+        when(emotionService.isWriteBehindEnabled()).thenReturn(true);
+        when(emotionService.createEmotionWriteBehind(any())).thenReturn(EmotionStatus.SCORED);
+
+        String CREATE_PATH = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.post(CREATE_PATH).content(emotionRequest).contentType(APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncNotStarted())
                 .andExpect(MockMvcResultMatchers.status().isCreated());
+        verify(emotionService).createEmotionWriteBehind(any());
+        verify(emotionService, never()).createEmotion(any());
+    }
+
+    @Test
+    void createEmotionAsync() throws Exception {
+        CompletableFuture<EmotionStatus> scored = new CompletableFuture<>();
+        when(emotionService.isAsyncEnabled()).thenReturn(true);
+        when(emotionService.createEmotionAsync(any())).thenReturn(scored);
+
+        String CREATE_PATH = EmotionController.BASE_PATH + EmotionController.CREATE_PATH;
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.post(CREATE_PATH).content(emotionRequest).contentType(APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        scored.complete(EmotionStatus.PENDING);
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isAccepted());
+        verify(emotionService, never()).createEmotion(any());
     }
 
     @Test
@@ -66,6 +132,20 @@ class EmotionControllerTest {
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
 
+    @Test
+    void getAllEmotionsInLanguage() throws Exception {
+        ClientResponse clientResponse = new ClientResponse(EMOTION_ID, EMAIL);
+        EmotionResponse emotionResponse = new EmotionResponse(EMOTION_ID, TEXT, TYPE, 0.91, clientResponse);
+        emotionResponse.setLanguage("de");
+        when(emotionService.findAllEmotion("de")).thenReturn(List.of(emotionResponse));
+
+        String ALL_EMOTION_PATH = EmotionController.BASE_PATH + EmotionController.ALL_EMOTION_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.get(ALL_EMOTION_PATH).param("language", "de"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].language").value("de"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        verify(emotionService, never()).findAllEmotion();
+    }
+
     @Test
     void deleteEmotion() throws Exception {
 
@@ -73,4 +153,79 @@ class EmotionControllerTest {
         mockMvc.perform(MockMvcRequestBuilders.delete(DELETE_PATH, EMOTION_ID).contentType(APPLICATION_JSON_VALUE))
                 .andExpect(MockMvcResultMatchers.status().isNoContent());
     }
+
+    @Test
+    void getEmotion() throws Exception {
+        ClientResponse clientResponse = new ClientResponse(EMOTION_ID, EMAIL);
+        when(emotionService.findEmotion(EMOTION_ID))
+                .thenReturn(new EmotionResponse(EMOTION_ID, TEXT, TYPE, 0.91, clientResponse));
+
+        String SEARCH_PATH = EmotionController.BASE_PATH + EmotionController.SINGLE_ID_EMOTION_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.get(SEARCH_PATH, EMOTION_ID))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.id").value(EMOTION_ID))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.text").value(TEXT))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.client.email").value(EMAIL));
+    }
+
+    @Test
+    void exportEmotions() throws Exception {
+        ClientResponse clientResponse = new ClientResponse(EMOTION_ID, EMAIL);
+        doAnswer(invocation -> {
+            Consumer<EmotionResponse> consumer = invocation.getArgument(0);
+            consumer.accept(new EmotionResponse(1L, "first", TYPE, 0.91, clientResponse));
+            consumer.accept(new EmotionResponse(2L, "second", TYPE, 0.92, clientResponse));
+            return null;
+        }).when(emotionService).exportEmotions(any());
+
+        String EXPORT_PATH = EmotionController.BASE_PATH + EmotionController.EXPORT_PATH;
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(EXPORT_PATH))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+        String[] lines = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsString()
+                .split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(lines[1].contains("\"text\":\"second\""));
+    }
+
+    @Test
+    void startRescoring() throws Exception {
+        Instant startedAt = Instant.parse("2026-01-01T00:00:00Z");
+        when(emotionRescoringService.start())
+                .thenReturn(new RescoringStatus("model-b", "RUNNING", 0, 1000, 0, null, startedAt, startedAt));
+
+        String RESCORING_PATH = EmotionController.BASE_PATH + EmotionController.RESCORING_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.post(RESCORING_PATH))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.modelVersion").value("model-b"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total").value(1000));
+    }
+
+    @Test
+    void getRescoringStatus() throws Exception {
+        Instant startedAt = Instant.parse("2026-01-01T00:00:00Z");
+        when(emotionRescoringService.status()).thenReturn(
+                new RescoringStatus("model-b", "RUNNING", 400, 1000, 50.0, 12L, startedAt, startedAt.plusSeconds(8)));
+
+        String RESCORING_PATH = EmotionController.BASE_PATH + EmotionController.RESCORING_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.get(RESCORING_PATH))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.processed").value(400))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.throughputPerSecond").value(50.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.etaSeconds").value(12));
+    }
+
+    @Test
+    void trainLocalModel() throws Exception {
+        when(localSentimentService.train()).thenReturn(new LocalModelReport("local:1a2b", Instant.parse(
+                "2026-01-01T00:00:00Z"), 900, 100, 0.92, 0.9, 0.7, 0.98, List.of(new Threshold(0.9, 0.7, 0.98))));
+
+        String LOCAL_MODEL_PATH = EmotionController.BASE_PATH + EmotionController.LOCAL_MODEL_PATH;
+        mockMvc.perform(MockMvcRequestBuilders.post(LOCAL_MODEL_PATH))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.modelVersion").value("local:1a2b"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.coverage").value(0.7))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.thresholds[0].accuracy").value(0.98));
+    }
 }
@@ -6,14 +6,23 @@ import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import com.jekdev.saappapi.controller.ClientController;
+import com.jekdev.saappapi.controller.EmotionController;
 import com.jekdev.saappapi.dto.ClientRequest;
+import com.jekdev.saappapi.service.ClientLeaderboardService;
 import com.jekdev.saappapi.service.ClientService;
+import com.jekdev.saappapi.service.EmotionAnalyticsService;
+import com.jekdev.saappapi.service.EmotionRescoringService;
 import com.jekdev.saappapi.service.EmotionService;
+import com.jekdev.saappapi.service.LocalSentimentService;
+import com.jekdev.saappapi.service.ResourceVersionService;
+import com.jekdev.saappapi.service.ScorePercentileService;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -29,6 +38,18 @@ class GlobalExceptionHandlerTest {
 
   @MockitoBean private EmotionService emotionService;
 
+  @MockitoBean private EmotionAnalyticsService emotionAnalyticsService;
+
+  @MockitoBean private ScorePercentileService scorePercentileService;
+
+  @MockitoBean private ClientLeaderboardService clientLeaderboardService;
+
+  @MockitoBean private EmotionRescoringService emotionRescoringService;
+
+  @MockitoBean private LocalSentimentService localSentimentService;
+
+  @MockitoBean private ResourceVersionService resourceVersionService;
+
   private final Long CLIENT_ID = 999L;
 
   private final String SEARCH_PATH = ClientController.BASE_PATH + ClientController.SINGLE_ID_CLIENT_PATH;
@@ -82,6 +103,21 @@ class GlobalExceptionHandlerTest {
         .andExpect(MockMvcResultMatchers.status().isConflict());
   }
 
+  @Test
+  @DisplayName("Test exception handling for QuotaExceededException")
+  void handleQuotaExceededException() throws Exception {
+    // Stubbing for emotion service
+    when(emotionService.findAllEmotion())
+        .thenThrow(new QuotaExceededException("Too many emotions submitted.", Duration.ofMillis(1500)));
+
+    // Execute test
+    mockMvc
+        .perform(MockMvcRequestBuilders.get(EmotionController.BASE_PATH + EmotionController.ALL_EMOTION_PATH))
+        .andExpect(MockMvcResultMatchers.status().isTooManyRequests())
+        .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.RETRY_AFTER, "2"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.error").value("Too many emotions submitted."));
+  }
+
   @Test
   @DisplayName("Test exception handling for common validation errors")
   void handleCommonValidationErrors() throws Exception {
@@ -104,4 +140,16 @@ class GlobalExceptionHandlerTest {
         .andExpect(MockMvcResultMatchers.jsonPath("$.error").value("MethodArgumentNotValidException"))
         .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("email: Invalid email address format"));
   }
+
+  @Test
+  @DisplayName("Test exception handling for HandlerMethodValidationException")
+  void handleParameterValidationErrors() throws Exception {
+    // Execute test
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.get(ClientController.BASE_PATH + ClientController.LEADERBOARD_PATH).param("k", "0"))
+        .andExpect(MockMvcResultMatchers.status().isBadRequest())
+        .andExpect(MockMvcResultMatchers.jsonPath("$.error").value("HandlerMethodValidationException"))
+        .andExpect(MockMvcResultMatchers.jsonPath("$.message").value("k: must be greater than or equal to 1"));
+  }
 }
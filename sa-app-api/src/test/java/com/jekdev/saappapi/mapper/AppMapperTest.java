@@ -6,6 +6,7 @@ import com.jekdev.saappapi.dto.EmotionRequest;
 import com.jekdev.saappapi.dto.EmotionResponse;
 import com.jekdev.saappapi.entities.Client;
 import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
 import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -145,4 +146,20 @@ class AppMapperTest {
     Assertions.assertEquals(mockEmotion.getId(), emotionResponse.getId());
     Assertions.assertEquals(mockEmotion.getClient().getEmail(), emotionResponse.getClient().getEmail());
   }
+
+  @Test
+  void mapArchivedEmotionToResponseKeepsDuplicateAndLanguage() {
+    // Prepare test data
+    ArchivedEmotion archived =
+        new ArchivedEmotion(9L, 1L, "test@local.mail", "cold", "NEGATIVE", 0.7, null, "v3", 4L, "de");
+
+    // Execute test
+    EmotionResponse emotionResponse = mapper.mapArchivedEmotionToResponse(archived);
+
+    // Verify the results
+    Assertions.assertEquals(9L, emotionResponse.getId());
+    Assertions.assertEquals("test@local.mail", emotionResponse.getClient().getEmail());
+    Assertions.assertEquals(4L, emotionResponse.getDuplicateOf());
+    Assertions.assertEquals("de", emotionResponse.getLanguage());
+  }
 }
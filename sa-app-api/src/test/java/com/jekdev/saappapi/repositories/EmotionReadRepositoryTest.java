@@ -0,0 +1,101 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(EmotionReadRepository.class)
+class EmotionReadRepositoryTest {
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  @Autowired private EmotionReadRepository emotionReadRepository;
+
+  private Client clientWithEmotions;
+
+  private Client clientWithoutEmotions;
+
+  @BeforeEach
+  void setUp() {
+    clientWithEmotions = clientRepository.save(new Client("first@local.mail"));
+    clientWithoutEmotions = clientRepository.save(new Client("second@local.mail"));
+
+    Emotion positive = new Emotion("I like it", clientWithEmotions);
+    positive.setType("POSITIVE");
+    positive.setScore(0.97);
+    Emotion negative = new Emotion("I hate it", clientWithEmotions);
+    negative.setType("NEGATIVE");
+    negative.setScore(0.88);
+    negative.setLanguage("en");
+    emotionRepository.saveAllAndFlush(List.of(positive, negative));
+  }
+
+  @Test
+  void findAllEmotions() {
+    // Execute test
+    List<EmotionResponse> emotions = emotionReadRepository.findAllEmotions();
+
+    // Verify the results
+    Assertions.assertEquals(2, emotions.size());
+    Assertions.assertEquals("I like it", emotions.getFirst().getText());
+    Assertions.assertEquals("POSITIVE", emotions.getFirst().getType());
+    Assertions.assertEquals(0.97, emotions.getFirst().getScore());
+    Assertions.assertEquals(clientWithEmotions.getId(), emotions.getFirst().getClient().getId());
+    Assertions.assertEquals("first@local.mail", emotions.getFirst().getClient().getEmail());
+  }
+
+  @Test
+  void findAllEmotionsInLanguage() {
+    // Execute test
+    List<EmotionResponse> english = emotionReadRepository.findAllEmotions("en");
+    List<EmotionResponse> german = emotionReadRepository.findAllEmotions("de");
+
+    // Verify the results
+    Assertions.assertEquals(List.of("I hate it"), english.stream().map(EmotionResponse::getText).toList());
+    Assertions.assertEquals("en", english.getFirst().getLanguage());
+    Assertions.assertTrue(german.isEmpty());
+  }
+
+  @Test
+  void findAllClients() {
+    // Execute test
+    List<ClientResponse> clients = emotionReadRepository.findAllClients();
+
+    // Verify the results
+    Assertions.assertEquals(2, clients.size());
+    Assertions.assertEquals(clientWithEmotions.getId(), clients.getFirst().getId());
+    Assertions.assertNotNull(clients.getFirst().getEmotions());
+    Assertions.assertEquals(2, clients.getFirst().getEmotions().size());
+    Assertions.assertEquals("I hate it", clients.getFirst().getEmotions().get(1).getText());
+    Assertions.assertEquals(clientWithoutEmotions.getId(), clients.get(1).getId());
+    Assertions.assertNull(clients.get(1).getEmotions());
+  }
+
+  @Test
+  void findClientById() {
+    // Execute test
+    Optional<ClientResponse> found = emotionReadRepository.findClientById(clientWithEmotions.getId());
+    Optional<ClientResponse> missing = emotionReadRepository.findClientById(-1L);
+
+    // Verify the results
+    Assertions.assertTrue(found.isPresent());
+    Assertions.assertEquals("first@local.mail", found.get().getEmail());
+    Assertions.assertNotNull(found.get().getEmotions());
+    Assertions.assertEquals(0.88, found.get().getEmotions().get(1).getScore());
+    Assertions.assertTrue(missing.isEmpty());
+  }
+}
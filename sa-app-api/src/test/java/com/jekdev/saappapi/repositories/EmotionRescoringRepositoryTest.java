@@ -0,0 +1,86 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(EmotionRescoringRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmotionRescoringRepositoryTest {
+
+  private static final String MODEL = "model-b";
+
+  @Autowired private EmotionRescoringRepository emotionRescoringRepository;
+
+  @Autowired private RescoringCheckpointRepository rescoringCheckpointRepository;
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              Client client = clientRepository.save(new Client("rescoring@local.mail"));
+              for (int i = 0; i < 5; i++) {
+                emotionRepository.save(emotion("stale " + i, client, "POSITIVE", 0.6, i == 0 ? null : "model-a"));
+              }
+              emotionRepository.save(emotion("current", client, "NEGATIVE", 0.7, MODEL));
+              Emotion pending = emotion("pending", client, null, null, null);
+              pending.setStatus(EmotionStatus.PENDING);
+              emotionRepository.save(pending);
+            });
+  }
+
+  @AfterEach
+  void tearDown() {
+    rescoringCheckpointRepository.deleteAll();
+    emotionRepository.deleteAll();
+    clientRepository.deleteAll();
+  }
+
+  @Test
+  void findPageSkipsCurrentAndPendingEmotions() {
+    // Execute test
+    List<String> texts = new ArrayList<>();
+    long cursor = 0;
+    List<EmotionRescoringRepository.RescoringCandidate> page;
+    while (!(page = emotionRescoringRepository.findPage(cursor, MODEL, 2)).isEmpty()) {
+      page.forEach(candidate -> texts.add(candidate.text()));
+      cursor = page.getLast().id();
+    }
+
+    // Verify the results
+    Assertions.assertEquals(List.of("stale 0", "stale 1", "stale 2", "stale 3", "stale 4"), texts);
+    Assertions.assertEquals(5, emotionRescoringRepository.countStale(MODEL));
+  }
+
+  private static Emotion emotion(String text, Client client, String type, Double score, String modelVersion) {
+    Emotion emotion = new Emotion(text, client);
+    emotion.setType(type);
+    emotion.setScore(score);
+    emotion.setModelVersion(modelVersion);
+    emotion.setStatus(EmotionStatus.SCORED);
+    return emotion;
+  }
+}
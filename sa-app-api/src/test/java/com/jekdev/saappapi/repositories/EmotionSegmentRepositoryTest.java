@@ -0,0 +1,213 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EmotionSegmentRepositoryTest {
+
+  private static final int BLOCK_SIZE = 4;
+
+  @TempDir private Path directory;
+
+  @Test
+  void appendAndFindById() {
+    // Prepare test data
+    EmotionSegmentRepository repository = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    repository.append(emotions(1, 10));
+
+    // Execute test
+    Optional<ArchivedEmotion> found = repository.findById(7);
+    Optional<ArchivedEmotion> missing = repository.findById(42);
+
+    // Verify the results
+    Assertions.assertTrue(found.isPresent());
+    Assertions.assertEquals("text 7", found.get().text());
+    Assertions.assertEquals("client7@local.mail", found.get().clientEmail());
+    Assertions.assertEquals(Instant.ofEpochMilli(7_000), found.get().createdAt());
+    Assertions.assertTrue(missing.isEmpty());
+  }
+
+  @Test
+  void keepsNullableFields() {
+    // Prepare test data
+    EmotionSegmentRepository repository = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    repository.append(List.of(new ArchivedEmotion(3, 1, "a@local.mail", "legacy", null, null, null, null, null, null)));
+
+    // Execute test
+    ArchivedEmotion emotion = repository.findById(3).orElseThrow();
+
+    // Verify the results
+    Assertions.assertNull(emotion.type());
+    Assertions.assertNull(emotion.score());
+    Assertions.assertNull(emotion.createdAt());
+    Assertions.assertNull(emotion.modelVersion());
+    Assertions.assertNull(emotion.duplicateOf());
+    Assertions.assertNull(emotion.language());
+  }
+
+  @Test
+  void keepsModelVersionDuplicateAndLanguage() {
+    // Prepare test data
+    new EmotionSegmentRepository(directory, BLOCK_SIZE).append(emotions(1, 6));
+
+    // Execute test
+    ArchivedEmotion emotion = new EmotionSegmentRepository(directory, BLOCK_SIZE).findById(5).orElseThrow();
+
+    // Verify the results
+    Assertions.assertEquals("v1", emotion.modelVersion());
+    Assertions.assertEquals(4L, emotion.duplicateOf());
+    Assertions.assertEquals("en", emotion.language());
+  }
+
+  @Test
+  void readsSegmentsOfTheFirstLayout() throws IOException {
+    // Prepare a segment as written before the version byte existed
+    Files.write(directory.resolve("emotions-legacy.seg"), legacySegment(7, "old text"));
+
+    // Execute test
+    EmotionSegmentRepository repository = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    repository.append(emotions(8, 9));
+    ArchivedEmotion legacy = repository.findById(7).orElseThrow();
+
+    // Verify the results
+    Assertions.assertEquals("old text", legacy.text());
+    Assertions.assertEquals(0.25, legacy.score());
+    Assertions.assertNull(legacy.language());
+    Assertions.assertNull(legacy.duplicateOf());
+    Assertions.assertEquals("en", repository.findById(9).orElseThrow().language());
+  }
+
+  @Test
+  void reopenLoadsIndexFromSegmentFooters() {
+    // Prepare test data
+    new EmotionSegmentRepository(directory, BLOCK_SIZE).append(emotions(1, 9));
+    new EmotionSegmentRepository(directory, BLOCK_SIZE).append(emotions(20, 25));
+
+    // Execute test
+    EmotionSegmentRepository reopened = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    List<Long> ids = new ArrayList<>();
+    reopened.forEach(emotion -> ids.add(emotion.id()));
+
+    // Verify the results
+    Assertions.assertEquals(15, ids.size());
+    Assertions.assertEquals(1L, ids.getFirst());
+    Assertions.assertEquals(25L, ids.getLast());
+    Assertions.assertEquals("text 22", reopened.findById(22).orElseThrow().text());
+  }
+
+  @Test
+  void appendRejectsIdsAtOrBelowTheHighestArchivedId() {
+    // Prepare test data
+    EmotionSegmentRepository repository = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    repository.append(emotions(1, 10));
+    repository.append(emotions(11, 14));
+
+    // Execute test
+    List<ArchivedEmotion> again = emotions(10, 12);
+
+    // Verify the results
+    Assertions.assertThrows(IllegalArgumentException.class, () -> repository.append(again));
+    Assertions.assertEquals(14, repository.highestId());
+    Assertions.assertEquals(11, repository.lastSegmentFirstId());
+    Assertions.assertEquals("text 12", repository.findById(12).orElseThrow().text());
+    Assertions.assertTrue(repository.findById(15).isEmpty());
+  }
+
+  @Test
+  void segmentsOfAnotherReplicaAreSeenOnLookupAndAppend() {
+    // Prepare two replicas sharing one directory
+    EmotionSegmentRepository writer = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    EmotionSegmentRepository reader = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+    writer.append(emotions(1, 10));
+
+    // Execute test
+    Optional<ArchivedEmotion> found = reader.findById(7);
+    List<ArchivedEmotion> overlapping = emotions(5, 12);
+    writer.append(emotions(11, 14));
+    List<Long> ids = new ArrayList<>();
+    reader.forEach(emotion -> ids.add(emotion.id()));
+
+    // Verify the results
+    Assertions.assertEquals("text 7", found.orElseThrow().text());
+    Assertions.assertEquals(14, ids.size());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> reader.append(overlapping));
+    Assertions.assertEquals(14, reader.highestId());
+  }
+
+  @Test
+  void overlappingSegmentIsNotIndexedOverAnEarlierOne() throws IOException {
+    // Prepare a segment covering the ids of an earlier one, as an interrupted run used to write
+    new EmotionSegmentRepository(directory, BLOCK_SIZE).append(emotions(1, 4));
+    Files.write(directory.resolve("emotions-zz-legacy.seg"), legacySegment(3, "archived twice"));
+
+    // Execute test
+    EmotionSegmentRepository reopened = new EmotionSegmentRepository(directory, BLOCK_SIZE);
+
+    // Verify the results
+    Assertions.assertEquals("text 3", reopened.findById(3).orElseThrow().text());
+    Assertions.assertEquals(4, reopened.highestId());
+  }
+
+  private static byte[] legacySegment(long id, String text) throws IOException {
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(block))) {
+      out.writeInt(1);
+      out.writeLong(id);
+      out.writeLong(1);
+      byte[] email = "a@local.mail".getBytes(StandardCharsets.UTF_8);
+      out.writeInt(email.length);
+      out.write(email);
+      byte[] body = text.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(body.length);
+      out.write(body);
+      out.writeInt(-1);
+      out.writeBoolean(true);
+      out.writeDouble(0.25);
+      out.writeLong(Long.MIN_VALUE);
+    }
+    byte[] compressed = block.toByteArray();
+    return ByteBuffer.allocate(compressed.length + Long.BYTES * 3 + Integer.BYTES + Long.BYTES + Integer.BYTES * 2)
+        .put(compressed)
+        .putLong(id)
+        .putLong(id)
+        .putLong(0)
+        .putInt(compressed.length)
+        .putLong(compressed.length)
+        .putInt(1)
+        .putInt(0x454d5331)
+        .array();
+  }
+
+  private static List<ArchivedEmotion> emotions(long fromId, long toId) {
+    List<ArchivedEmotion> emotions = new ArrayList<>();
+    for (long id = toId; id >= fromId; id--) {
+      emotions.add(
+          new ArchivedEmotion(
+              id,
+              id,
+              "client" + id + "@local.mail",
+              "text " + id,
+              "POSITIVE",
+              0.5,
+              Instant.ofEpochMilli(id * 1_000),
+              "v1",
+              id > 1 ? id - 1 : null,
+              "en"));
+    }
+    return emotions;
+  }
+}
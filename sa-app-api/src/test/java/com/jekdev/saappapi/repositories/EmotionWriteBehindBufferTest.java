@@ -0,0 +1,155 @@
+package com.jekdev.saappapi.repositories;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer.PendingEmotion;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(TableVersionStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmotionWriteBehindBufferTest {
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TableVersionStore tableVersionStore;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  private EmotionWriteBehindBuffer buffer;
+
+  private Client client;
+
+  @BeforeEach
+  void setUp() {
+    client = clientRepository.save(new Client("batch@local.mail"));
+    buffer = new EmotionWriteBehindBuffer(
+            jdbcTemplate, tableVersionStore, transactionManager, true, 100, 10, Duration.ofMillis(50), true);
+    buffer.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    buffer.stop();
+    emotionRepository.deleteAll();
+    clientRepository.deleteAll();
+  }
+
+  @Test
+  void concurrentSubmissionsShareGroupCommits() {
+    // Prepare the emotion counter before the batches
+    long version = tableVersionStore.versions().getOrDefault(TableVersionStore.EMOTION_TABLE, 0L);
+
+    // Execute test
+    List<CompletableFuture<Long>> results =
+        IntStream.range(0, 25)
+            .mapToObj(
+                i ->
+                    new PendingEmotion(
+                        "text " + i, "POSITIVE", 0.5 + i / 100.0, "model-a", client.getId(), null, null, "en"))
+            .map(emotion -> CompletableFuture.supplyAsync(() -> buffer.submit(emotion).join()))
+            .toList();
+    List<Long> ids = results.stream().map(CompletableFuture::join).toList();
+
+    // Verify the results
+    Assertions.assertEquals(25, ids.stream().distinct().count());
+    Assertions.assertEquals(25, emotionRepository.count());
+    Assertions.assertTrue(buffer.getFlushedBatches() < 25);
+    Assertions.assertEquals(
+        version + buffer.getFlushedBatches(),
+        tableVersionStore.versions().get(TableVersionStore.EMOTION_TABLE));
+    Assertions.assertEquals("text 3", emotionRepository.findById(ids.get(3)).orElseThrow().getText());
+  }
+
+  @Test
+  void failedBatchCompletesFuturesExceptionally() {
+    // Execute test
+    CompletableFuture<Long> result =
+        buffer.submit(new PendingEmotion("orphan", "NEGATIVE", 0.9, "model-a", -1, null, null, null));
+
+    // Verify the results
+    Assertions.assertThrows(Exception.class, result::join);
+    Assertions.assertEquals(0, emotionRepository.count());
+  }
+
+  @Test
+  void failedBatchIsRetriedRowByRow() {
+    // Prepare a batch with one row of an unknown client
+    List<PendingEmotion> emotions =
+        List.of(
+            new PendingEmotion("first", "POSITIVE", 0.6, "model-a", client.getId(), null, null, null),
+            new PendingEmotion("orphan", "NEGATIVE", 0.9, "model-a", -1, null, null, null),
+            new PendingEmotion("last", "POSITIVE", 0.7, "model-a", client.getId(), null, null, null));
+
+    // Execute test
+    List<CompletableFuture<Long>> results = emotions.stream().map(buffer::submit).toList();
+
+    // Verify the results
+    Assertions.assertNotNull(results.get(0).join());
+    Assertions.assertThrows(Exception.class, results.get(1)::join);
+    Assertions.assertNotNull(results.get(2).join());
+    Assertions.assertEquals(2, emotionRepository.count());
+  }
+
+  @Test
+  void batchWithoutAnIdForEveryRowFailsItsFutures() {
+    // Prepare a driver that returns only the first generated id of a multi-row insert, like MariaDB Connector/J
+    JdbcTemplate firstIdOnly = mock(JdbcTemplate.class);
+    TableVersionStore counters = mock(TableVersionStore.class);
+    when(firstIdOnly.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<KeyHolder>getArgument(1).getKeyList().add(Map.of("id", 1L));
+              return 2;
+            });
+    EmotionWriteBehindBuffer mariaDbBuffer =
+        new EmotionWriteBehindBuffer(
+            firstIdOnly, counters, mock(PlatformTransactionManager.class), true, 100, 10, Duration.ofMillis(200), true);
+    mariaDbBuffer.start();
+
+    try {
+      // Execute test
+      CompletableFuture<Long> first =
+          mariaDbBuffer.submit(new PendingEmotion("first", "POSITIVE", 0.6, "model-a", 1, null, null, null));
+      CompletableFuture<Long> second =
+          mariaDbBuffer.submit(new PendingEmotion("second", "POSITIVE", 0.7, "model-a", 1, null, null, null));
+
+      // Verify the results
+      CompletionException failure = Assertions.assertThrows(CompletionException.class, second::join);
+      Assertions.assertInstanceOf(IllegalStateException.class, failure.getCause());
+      Assertions.assertThrows(CompletionException.class, first::join);
+      verify(counters, never()).bump(any());
+    } finally {
+      mariaDbBuffer.stop();
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package com.jekdev.saappapi.repositories;
+
+import com.jekdev.saappapi.entities.JobLease;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JobLeaseRepositoryTest {
+
+  @Autowired private JobLeaseRepository jobLeaseRepository;
+
+  @Test
+  void onlyOneWorkerHoldsTheLeaseUntilItIsReleasedOrExpired() {
+    // Prepare the lease row of a job
+    jobLeaseRepository.saveAndFlush(new JobLease("lease-test"));
+    Instant now = Instant.now();
+    Instant until = now.plus(Duration.ofMinutes(10));
+
+    // Execute test
+    int first = jobLeaseRepository.acquire("lease-test", "replica-a", now, until);
+    int second = jobLeaseRepository.acquire("lease-test", "replica-b", now, until);
+    int renewed = jobLeaseRepository.acquire("lease-test", "replica-a", now, until);
+    int afterExpiry =
+        jobLeaseRepository.acquire("lease-test", "replica-b", until.plusSeconds(1), until.plusSeconds(60));
+    int releasedByLoser = jobLeaseRepository.release("lease-test", "replica-a");
+    int released = jobLeaseRepository.release("lease-test", "replica-b");
+    int afterRelease = jobLeaseRepository.acquire("lease-test", "replica-a", now, until);
+
+    // Verify the results
+    Assertions.assertEquals(1, first);
+    Assertions.assertEquals(0, second);
+    Assertions.assertEquals(1, renewed);
+    Assertions.assertEquals(1, afterExpiry);
+    Assertions.assertEquals(0, releasedByLoser);
+    Assertions.assertEquals(1, released);
+    Assertions.assertEquals(1, afterRelease);
+    Assertions.assertEquals(0, jobLeaseRepository.acquire("missing-job", "replica-a", now, until));
+  }
+}
@@ -0,0 +1,204 @@
+package com.jekdev.saappapi.repositories;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.entities.ScoringJob;
+import com.jekdev.saappapi.service.EmotionScoringRetryService;
+import com.jekdev.saappapi.service.SentimentAnalysisService;
+import com.jekdev.saappapi.utils.SentimentResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(ScoringJobQueue.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScoringJobQueueTest {
+
+  private static final int EMOTIONS = 40;
+
+  @Autowired private ScoringJobQueue scoringJobQueue;
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  private List<Long> emotionIds;
+
+  @BeforeEach
+  void setUp() {
+    transactionTemplate = new TransactionTemplate(transactionManager);
+    emotionIds =
+        transactionTemplate.execute(
+            status -> {
+              Client client = clientRepository.save(new Client("queue@local.mail"));
+              return IntStream.range(0, EMOTIONS)
+                  .mapToObj(
+                      i -> {
+                        Emotion emotion = new Emotion("pending " + i, client);
+                        emotion.setStatus(EmotionStatus.PENDING);
+                        return emotionRepository.save(emotion).getId();
+                      })
+                  .toList();
+            });
+    Instant due = Instant.now().minusSeconds(1);
+    emotionIds.forEach(id -> scoringJobQueue.enqueue(id, due));
+  }
+
+  @AfterEach
+  void tearDown() {
+    emotionIds.forEach(scoringJobQueue::delete);
+    emotionRepository.deleteAll();
+    clientRepository.deleteAll();
+  }
+
+  @Test
+  void concurrentClaimsSkipLockedJobs() throws Exception {
+    // Prepare a claim whose transaction stays open
+    CountDownLatch claimed = new CountDownLatch(1);
+    CountDownLatch commit = new CountDownLatch(1);
+    CompletableFuture<List<ScoringJob>> first =
+        CompletableFuture.supplyAsync(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                      List<ScoringJob> jobs = scoringJobQueue.claim("worker-a", 10, Duration.ofMinutes(5));
+                      claimed.countDown();
+                      await(commit);
+                      return jobs;
+                    }));
+    Assertions.assertTrue(claimed.await(5, TimeUnit.SECONDS));
+
+    // Execute test
+    List<ScoringJob> second = scoringJobQueue.claim("worker-b", 10, Duration.ofMinutes(5));
+    commit.countDown();
+
+    // Verify the results
+    Set<Long> firstIds = ids(first.get(5, TimeUnit.SECONDS));
+    Set<Long> secondIds = ids(second);
+    Assertions.assertEquals(10, firstIds.size());
+    Assertions.assertEquals(10, secondIds.size());
+    Assertions.assertTrue(firstIds.stream().noneMatch(secondIds::contains));
+  }
+
+  @Test
+  void expiredLeaseIsClaimedByAnotherWorker() throws Exception {
+    // Prepare a lease that expires right away
+    List<ScoringJob> abandoned = scoringJobQueue.claim("worker-a", EMOTIONS, Duration.ofMillis(1));
+    Thread.sleep(10);
+
+    // Execute test
+    List<ScoringJob> taken = scoringJobQueue.claim("worker-b", EMOTIONS, Duration.ofMinutes(5));
+
+    // Verify the results
+    Assertions.assertEquals(ids(abandoned), ids(taken));
+    long emotionId = taken.getFirst().getEmotionId();
+    Assertions.assertFalse(scoringJobQueue.complete(emotionId, "worker-a"));
+    Assertions.assertTrue(scoringJobQueue.complete(emotionId, "worker-b"));
+    Assertions.assertEquals(EMOTIONS - 1, scoringJobQueue.count());
+  }
+
+  @Test
+  void multipleWorkersScoreEveryEmotionExactlyOnce() {
+    // Prepare stubbing for a slow provider shared by four workers
+    Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    SentimentAnalysisService provider = mock(SentimentAnalysisService.class);
+    when(provider.analyze(anyString()))
+        .thenAnswer(
+            invocation -> {
+              calls.computeIfAbsent(invocation.getArgument(0), text -> new AtomicInteger()).incrementAndGet();
+              Thread.sleep(5);
+              return new SentimentResult("POSITIVE", 0.9);
+            });
+    List<EmotionScoringRetryService> workers =
+        IntStream.range(0, 4).mapToObj(i -> worker(provider)).toList();
+
+    // Execute test
+    List<CompletableFuture<Integer>> runs =
+        workers.stream()
+            .map(
+                worker ->
+                    CompletableFuture.supplyAsync(
+                        () -> {
+                          int scored = 0;
+                          while (scoringJobQueue.count() > 0) {
+                            scored += worker.retryPending();
+                          }
+                          return scored;
+                        }))
+            .toList();
+    List<Integer> scoredPerWorker = runs.stream().map(CompletableFuture::join).toList();
+
+    // Verify the results
+    Assertions.assertEquals(EMOTIONS, scoredPerWorker.stream().mapToInt(Integer::intValue).sum());
+    Assertions.assertEquals(EMOTIONS, calls.size());
+    Assertions.assertTrue(calls.values().stream().allMatch(count -> count.get() == 1));
+    Assertions.assertTrue(
+        emotionRepository.findAllById(emotionIds).stream()
+            .allMatch(emotion -> emotion.getStatus() == EmotionStatus.SCORED));
+  }
+
+  private EmotionScoringRetryService worker(SentimentAnalysisService provider) {
+    EmotionScoringRetryService worker =
+        new EmotionScoringRetryService(
+            emotionRepository,
+            scoringJobQueue,
+            provider,
+            mock(ApplicationEventPublisher.class),
+            transactionTemplate,
+            new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(worker, "batchSize", 5);
+    ReflectionTestUtils.setField(worker, "leaseDuration", Duration.ofMinutes(5));
+    ReflectionTestUtils.setField(worker, "initialBackoff", Duration.ofSeconds(30));
+    ReflectionTestUtils.setField(worker, "maxBackoff", Duration.ofMinutes(10));
+    return worker;
+  }
+
+  private static Set<Long> ids(List<ScoringJob> jobs) {
+    Set<Long> ids = new HashSet<>();
+    jobs.forEach(job -> ids.add(job.getEmotionId()));
+    return ids;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.dto.LeaderboardEntry;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.LeaderboardOrder;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ClientLeaderboardServiceTest {
+
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private EmotionSegmentRepository mockEmotionSegmentRepository;
+
+  @InjectMocks private ClientLeaderboardService clientLeaderboardService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(clientLeaderboardService, "minEmotions", 1);
+  }
+
+  @Test
+  void loadFromArchiveAndTable() {
+    // Prepare stubbing for repositories
+    doAnswer(
+            invocation -> {
+              invocation
+                  .<Consumer<ArchivedEmotion>>getArgument(0)
+                  .accept(new ArchivedEmotion(1, 1, "a@b.c", "old", "NEGATIVE", 0.8, null, null, null, null));
+              return null;
+            })
+        .when(mockEmotionSegmentRepository)
+        .forEach(any());
+    doAnswer(
+            invocation -> {
+              Consumer<EmotionResponse> consumer = invocation.getArgument(0);
+              consumer.accept(new EmotionResponse(2L, "new", "POSITIVE", 0.4, new ClientResponse(1L, "a@b.c")));
+              consumer.accept(new EmotionResponse(3L, "other", "POSITIVE", 0.9, new ClientResponse(2L, "d@e.f")));
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachEmotion(any());
+
+    // Execute test
+    clientLeaderboardService.load();
+    List<LeaderboardEntry> negative = clientLeaderboardService.top(LeaderboardOrder.NEGATIVE, 10);
+
+    // Verify the results
+    Assertions.assertEquals(List.of(1L, 2L), negative.stream().map(LeaderboardEntry::getClientId).toList());
+    Assertions.assertEquals(-0.2, negative.getFirst().getMeanScore(), 1e-9);
+    Assertions.assertEquals(2, negative.getFirst().getEmotionCount());
+  }
+
+  @Test
+  void followsCreatedAndDeletedEmotions() {
+    // Execute test
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(1, 1L, "NEGATIVE", 0.9, null, null));
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(2, 2L, "NEGATIVE", 0.5, null, null));
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(3, 3L, "POSITIVE", 0.7, null, null));
+    clientLeaderboardService.onEmotionDeleted(new EmotionDeletedEvent(1, 1L, "NEGATIVE", 0.9));
+
+    // Verify the results
+    Assertions.assertEquals(
+        List.of(2L, 3L),
+        clientLeaderboardService.top(LeaderboardOrder.NEGATIVE, 10).stream().map(LeaderboardEntry::getClientId).toList());
+    Assertions.assertEquals(
+        List.of(3L),
+        clientLeaderboardService.top(LeaderboardOrder.POSITIVE, 1).stream().map(LeaderboardEntry::getClientId).toList());
+  }
+
+  @Test
+  void rescoredEmotionReplacesItsScore() {
+    // Execute test
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(1, 1L, "NEGATIVE", 0.9, null, null));
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(2, 1L, "POSITIVE", 0.5, null, null));
+    clientLeaderboardService.onEmotionRescored(new EmotionRescoredEvent(1, 1L, "NEGATIVE", 0.9, "POSITIVE", 0.7));
+
+    // Verify the results
+    LeaderboardEntry entry = clientLeaderboardService.top(LeaderboardOrder.POSITIVE, 1).getFirst();
+    Assertions.assertEquals(0.6, entry.getMeanScore(), 1e-9);
+    Assertions.assertEquals(2, entry.getEmotionCount());
+  }
+
+  @Test
+  void clientsBelowMinimumAreNotRanked() {
+    // Prepare test data
+    ReflectionTestUtils.setField(clientLeaderboardService, "minEmotions", 2);
+
+    // Execute test
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(1, 1L, "NEGATIVE", 0.9, null, null));
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(2, 2L, "NEGATIVE", 0.5, null, null));
+    clientLeaderboardService.onEmotionCreated(new EmotionCreatedEvent(3, 2L, "NEGATIVE", 0.7, null, null));
+
+    // Verify the results
+    List<LeaderboardEntry> entries = clientLeaderboardService.top(LeaderboardOrder.NEGATIVE, 10);
+    Assertions.assertEquals(1, entries.size());
+    Assertions.assertEquals(2L, entries.getFirst().getClientId());
+    Assertions.assertEquals(-0.6, entries.getFirst().getMeanScore(), 1e-9);
+  }
+}
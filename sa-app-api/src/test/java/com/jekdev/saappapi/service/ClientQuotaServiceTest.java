@@ -0,0 +1,61 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.errorhandling.QuotaExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ClientQuotaServiceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ClientQuotaService clientQuotaService =
+      new ClientQuotaService(
+          true, "default=2:0.001,premium=5:0.001", "vip@local.mail=premium", 1000, meterRegistry);
+
+  @Test
+  void clientsAreThrottledPerTier() {
+    // Prepare test data
+    Client client = new Client("test@local.mail");
+    Client vip = new Client("vip@local.mail");
+
+    // Execute test
+    clientQuotaService.acquire(client);
+    clientQuotaService.acquire(client);
+    QuotaExceededException exception =
+        Assertions.assertThrows(QuotaExceededException.class, () -> clientQuotaService.acquire(client));
+    for (int i = 0; i < 5; i++) {
+      clientQuotaService.acquire(vip);
+    }
+
+    // Verify the results
+    Assertions.assertTrue(exception.getRetryAfter().toSeconds() > 0);
+    Assertions.assertThrows(QuotaExceededException.class, () -> clientQuotaService.acquire(vip));
+    Assertions.assertEquals(1, meterRegistry.counter(ClientQuotaService.THROTTLED_METRIC, "tier", "default").count());
+    Assertions.assertEquals(1, meterRegistry.counter(ClientQuotaService.THROTTLED_METRIC, "tier", "premium").count());
+  }
+
+  @Test
+  void disabledQuotasNeverThrottle() {
+    // Prepare the service
+    ClientQuotaService disabled = new ClientQuotaService(false, "default=1:0.001", "", 1000, meterRegistry);
+    Client client = new Client("test@local.mail");
+
+    // Execute test and verify the results
+    Assertions.assertDoesNotThrow(
+        () -> {
+          for (int i = 0; i < 10; i++) {
+            disabled.acquire(client);
+          }
+        });
+  }
+
+  @Test
+  void tiersMustDefineTheDefault() {
+    // Execute test and verify the results
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> new ClientQuotaService(true, "premium=5:1", "", 1000, meterRegistry));
+  }
+}
@@ -1,6 +1,7 @@
 package com.jekdev.saappapi.service;
 
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
@@ -11,6 +12,7 @@ import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
 import com.jekdev.saappapi.errorhandling.PresentElementException;
 import com.jekdev.saappapi.mapper.AppMapper;
 import com.jekdev.saappapi.repositories.ClientRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
 import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Assertions;
@@ -29,6 +31,10 @@ class ClientServiceTest {
 
   @Mock private ClientRepository mockClientRepository;
 
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private ResourceVersionService mockResourceVersionService;
+
   @InjectMocks private ClientService clientService;
 
   private Client mockClient;
@@ -87,8 +93,7 @@ class ClientServiceTest {
     ClientResponse expectedClientResponse = new ClientResponse(mockClient.getId(), mockClient.getEmail());
 
     // Prepare stubbing for repository
-    when(mockClientRepository.findAll()).thenReturn(List.of(mockClient));
-    when(mockClientMapper.mapClientEntityToClientResponse(mockClient)).thenReturn(expectedClientResponse);
+    when(mockEmotionReadRepository.findAllClients()).thenReturn(List.of(expectedClientResponse));
 
     // Execute test
     List<ClientResponse> clientResponses = clientService.getAllClients();
@@ -97,8 +102,8 @@ class ClientServiceTest {
     Assertions.assertEquals(1, clientResponses.size());
     Assertions.assertEquals(expectedClientResponse.getEmail(), clientResponses.getFirst().getEmail());
     Assertions.assertEquals(expectedClientResponse.getId(), clientResponses.getFirst().getId());
-    verify(mockClientRepository).findAll();
-    verify(mockClientMapper).mapClientEntityToClientResponse(mockClient);
+    verify(mockEmotionReadRepository).findAllClients();
+    verifyNoInteractions(mockClientRepository, mockClientMapper);
   }
 
   @Test
@@ -106,7 +111,7 @@ class ClientServiceTest {
   void getAllClientsFailureWithNoClients() {
 
     // Prepare stubbing for repository
-    when(mockClientRepository.findAll()).thenReturn(List.of());
+    when(mockEmotionReadRepository.findAllClients()).thenReturn(List.of());
 
     // Execute test
     ElementNotFoundException exception =
@@ -114,7 +119,7 @@ class ClientServiceTest {
 
     // Verify the results
     Assertions.assertEquals("No clients found, please create some clients first.", exception.getMessage());
-    verify(mockClientRepository).findAll();
+    verify(mockEmotionReadRepository).findAllClients();
   }
 
   @Test
@@ -122,9 +127,8 @@ class ClientServiceTest {
   void searchClientSuccess() {
 
     // Prepare stubbing for repository
-    when(mockClientRepository.findById(mockClient.getId())).thenReturn(Optional.of(mockClient));
-    when(mockClientMapper.mapClientEntityToClientResponse(mockClient))
-        .thenReturn(new ClientResponse(mockClient.getId(), mockClient.getEmail()));
+    when(mockEmotionReadRepository.findClientById(mockClient.getId()))
+        .thenReturn(Optional.of(new ClientResponse(mockClient.getId(), mockClient.getEmail())));
 
     // Execute test
     ClientResponse clientResponse = clientService.searchClient(mockClient.getId());
@@ -132,8 +136,8 @@ class ClientServiceTest {
     // Verify the results
     Assertions.assertEquals(mockClient.getEmail(), clientResponse.getEmail());
     Assertions.assertEquals(mockClient.getId(), clientResponse.getId());
-    verify(mockClientRepository).findById(mockClient.getId());
-    verify(mockClientMapper).mapClientEntityToClientResponse(mockClient);
+    verify(mockEmotionReadRepository).findClientById(mockClient.getId());
+    verifyNoInteractions(mockClientRepository, mockClientMapper);
   }
 
   @Test
@@ -141,7 +145,7 @@ class ClientServiceTest {
   void searchClientFailureNoClientFound() {
 
     // Prepare stubbing for repository
-    when(mockClientRepository.findById(mockClient.getId())).thenReturn(Optional.empty());
+    when(mockEmotionReadRepository.findClientById(mockClient.getId())).thenReturn(Optional.empty());
 
     // Execute test
     ElementNotFoundException exception =
@@ -149,7 +153,7 @@ class ClientServiceTest {
 
     // Verify the results
     Assertions.assertEquals("Client with id " + mockClient.getId() + " not found.", exception.getMessage());
-    verify(mockClientRepository).findById(mockClient.getId());
+    verify(mockEmotionReadRepository).findClientById(mockClient.getId());
   }
 
   @Test
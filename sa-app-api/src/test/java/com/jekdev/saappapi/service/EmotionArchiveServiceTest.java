@@ -0,0 +1,130 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.JobLeaseRepository;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class EmotionArchiveServiceTest {
+
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private EmotionRepository mockEmotionRepository;
+
+  @Mock private EmotionSegmentRepository mockEmotionSegmentRepository;
+
+  @Mock private ResourceVersionService mockResourceVersionService;
+
+  @Mock private JobLeaseRepository mockJobLeaseRepository;
+
+  @InjectMocks private EmotionArchiveService emotionArchiveService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(emotionArchiveService, "retention", Duration.ofDays(90));
+    ReflectionTestUtils.setField(emotionArchiveService, "batchSize", 10);
+    ReflectionTestUtils.setField(emotionArchiveService, "leaseDuration", Duration.ofMinutes(10));
+  }
+
+  @Test
+  void archivesOnlyEmotionsAboveTheHighestArchivedId() {
+    // Prepare stubbing for repositories
+    when(mockJobLeaseRepository.acquire(eq("emotion-archive"), any(), any(), any())).thenReturn(1);
+    when(mockEmotionSegmentRepository.highestId()).thenReturn(0L);
+    List<ArchivedEmotion> batch = List.of(emotion(1), emotion(2));
+    when(mockEmotionReadRepository.findArchiveCandidates(any(), eq(0L), eq(Long.MAX_VALUE), eq(10))).thenReturn(batch);
+
+    // Execute test
+    int archived = emotionArchiveService.archiveColdEmotions();
+
+    // Verify the results
+    Assertions.assertEquals(2, archived);
+    verify(mockEmotionSegmentRepository).refresh();
+    verify(mockEmotionSegmentRepository).append(batch);
+    verify(mockEmotionRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+    verify(mockJobLeaseRepository).release(eq("emotion-archive"), any());
+  }
+
+  @Test
+  void runIsSkippedWhileAnotherReplicaHoldsTheLease() {
+    // Prepare stubbing for a lease row held by another replica
+    when(mockJobLeaseRepository.acquire(eq("emotion-archive"), any(), any(), any())).thenReturn(0);
+    when(mockJobLeaseRepository.existsById("emotion-archive")).thenReturn(true);
+
+    // Execute test
+    int archived = emotionArchiveService.archiveColdEmotions();
+
+    // Verify the results
+    Assertions.assertEquals(0, archived);
+    verifyNoInteractions(mockEmotionSegmentRepository, mockEmotionReadRepository, mockEmotionRepository);
+    verify(mockJobLeaseRepository, never()).release(any(), any());
+  }
+
+  @Test
+  void runStopsAfterTheBatchInWhichTheLeaseWasLost() {
+    // Prepare stubbing for a full first batch, after which another replica has taken over the lease
+    when(mockJobLeaseRepository.acquire(eq("emotion-archive"), any(), any(), any())).thenReturn(1, 0);
+    when(mockEmotionSegmentRepository.highestId()).thenReturn(0L);
+    List<ArchivedEmotion> batch = LongStream.rangeClosed(1, 10).mapToObj(EmotionArchiveServiceTest::emotion).toList();
+    when(mockEmotionReadRepository.findArchiveCandidates(any(), eq(0L), eq(Long.MAX_VALUE), eq(10))).thenReturn(batch);
+
+    // Execute test
+    int archived = emotionArchiveService.archiveColdEmotions();
+
+    // Verify the results
+    Assertions.assertEquals(10, archived);
+    verify(mockEmotionSegmentRepository).append(batch);
+    verify(mockEmotionReadRepository, never()).findArchiveCandidates(any(), eq(10L), anyLong(), anyInt());
+  }
+
+  @Test
+  void rowsOfAnInterruptedRunAreDeletedWithoutArchivingThemAgain() {
+    // Prepare stubbing for a last segment 11..20 whose rows 19 and 20 were never deleted, and a late row 15
+    when(mockJobLeaseRepository.acquire(eq("emotion-archive"), any(), any(), any())).thenReturn(1);
+    when(mockEmotionSegmentRepository.highestId()).thenReturn(20L);
+    when(mockEmotionSegmentRepository.lastSegmentFirstId()).thenReturn(11L);
+    when(mockEmotionReadRepository.findArchiveCandidates(any(), eq(10L), eq(20L), anyInt()))
+        .thenReturn(List.of(emotion(15), emotion(19), emotion(20)));
+    when(mockEmotionSegmentRepository.findById(anyLong())).thenReturn(Optional.empty());
+    when(mockEmotionSegmentRepository.findById(19L)).thenReturn(Optional.of(emotion(19)));
+    when(mockEmotionSegmentRepository.findById(20L)).thenReturn(Optional.of(emotion(20)));
+    when(mockEmotionReadRepository.findArchiveCandidates(any(), eq(20L), eq(Long.MAX_VALUE), eq(10)))
+        .thenReturn(List.of());
+
+    // Execute test
+    int archived = emotionArchiveService.archiveColdEmotions();
+
+    // Verify the results
+    Assertions.assertEquals(0, archived);
+    verify(mockEmotionRepository).deleteAllByIdInBatch(List.of(19L, 20L));
+    verify(mockEmotionSegmentRepository, never()).append(anyList());
+  }
+
+  private static ArchivedEmotion emotion(long id) {
+    return new ArchivedEmotion(id, 1L, "a@b.c", "text " + id, "POSITIVE", 0.5, null, null, null, null);
+  }
+}
@@ -0,0 +1,208 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository.ScoredSignature;
+import com.jekdev.saappapi.service.EmotionDedupeService.NearDuplicate;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.MinHash;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class EmotionDedupeServiceTest {
+
+  private static final String TEXT =
+      "The delivery was late and the box was damaged, very disappointing experience overall.";
+
+  private static final int MAX_ENTRIES = 3;
+
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private SentimentAnalysisService mockSentimentAnalysisService;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private EmotionDedupeService emotionDedupeService;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(mockSentimentAnalysisService.getModelVersion()).thenReturn("model-a");
+    emotionDedupeService =
+        new EmotionDedupeService(
+            mockEmotionReadRepository, mockSentimentAnalysisService, true, 0.8, true, MAX_ENTRIES, meterRegistry);
+  }
+
+  @Test
+  void loadIndexesStoredAndMissingSignatures() {
+    // Prepare stubbing for repository
+    doAnswer(
+            invocation -> {
+              Consumer<ScoredSignature> consumer = invocation.getArgument(0);
+              consumer.accept(
+                  new ScoredSignature(1, TEXT, "NEGATIVE", 0.9, "model-a", MinHash.toBytes(MinHash.signature(TEXT))));
+              consumer.accept(new ScoredSignature(2, "Fast and friendly support.", "POSITIVE", 0.8, "model-a", null));
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachScoredSignature(any());
+
+    // Execute test
+    emotionDedupeService.load();
+    Optional<NearDuplicate> duplicate = emotionDedupeService.findDuplicate(emotion("fast AND friendly support!"));
+
+    // Verify the results
+    Assertions.assertEquals(2, emotionDedupeService.size());
+    Assertions.assertEquals(2L, duplicate.orElseThrow().id());
+  }
+
+  @Test
+  void nearDuplicateScoreIsReused() {
+    // Prepare stubbing for repository
+    index(1, TEXT, "model-a");
+    Emotion emotion =
+        emotion("The delivery was late and the box was damaged, really disappointing experience overall.");
+
+    // Execute test
+    Optional<NearDuplicate> duplicate = emotionDedupeService.findDuplicate(emotion);
+
+    // Verify the results
+    Assertions.assertEquals("NEGATIVE", duplicate.orElseThrow().type());
+    Assertions.assertEquals(0.9, duplicate.orElseThrow().score());
+    Assertions.assertEquals(1L, emotion.getDuplicateOf());
+    Assertions.assertEquals(MinHash.BYTES, emotion.getMinHash().length);
+    Assertions.assertEquals(
+        1.0, meterRegistry.counter(EmotionDedupeService.DUPLICATES_METRIC, "outcome", "reused").count());
+  }
+
+  @Test
+  void scoreOfOlderModelIsOnlyFlagged() {
+    // Prepare stubbing for repository
+    index(1, TEXT, "model-old");
+    Emotion emotion = emotion(TEXT.toUpperCase());
+
+    // Execute test
+    Optional<NearDuplicate> duplicate = emotionDedupeService.findDuplicate(emotion);
+
+    // Verify the results
+    Assertions.assertTrue(duplicate.isEmpty());
+    Assertions.assertEquals(1L, emotion.getDuplicateOf());
+
+    // Execute test
+    emotionDedupeService.onEmotionRescored(new EmotionRescoredEvent(1, 1L, "NEGATIVE", 0.9, "NEGATIVE", 0.95));
+
+    // Verify the results
+    Assertions.assertEquals(0.95, emotionDedupeService.findDuplicate(emotion(TEXT)).orElseThrow().score());
+  }
+
+  @Test
+  void unrelatedAndDeletedEmotionsAreNotDuplicates() {
+    // Prepare stubbing for repository
+    index(1, TEXT, "model-a");
+    Emotion unrelated = emotion("Support answered within minutes and solved my problem.");
+
+    // Execute test
+    Optional<NearDuplicate> none = emotionDedupeService.findDuplicate(unrelated);
+    emotionDedupeService.onEmotionDeleted(new EmotionDeletedEvent(1, 1L, "NEGATIVE", 0.9));
+    Optional<NearDuplicate> deleted = emotionDedupeService.findDuplicate(emotion(TEXT));
+
+    // Verify the results
+    Assertions.assertTrue(none.isEmpty());
+    Assertions.assertNull(unrelated.getDuplicateOf());
+    Assertions.assertTrue(deleted.isEmpty());
+    Assertions.assertEquals(0, emotionDedupeService.size());
+  }
+
+  @Test
+  void createdEmotionIsIndexedFromTheSignatureOfItsEvent() {
+    // Execute test
+    emotionDedupeService.onEmotionCreated(
+        new EmotionCreatedEvent(1, 1L, "NEGATIVE", 0.9, "model-a", MinHash.toBytes(MinHash.signature(TEXT))));
+
+    // Verify the results
+    Assertions.assertEquals(1L, emotionDedupeService.findDuplicate(emotion(TEXT)).orElseThrow().id());
+    verify(mockEmotionReadRepository, never()).findScoredSignature(anyLong());
+  }
+
+  @Test
+  void fullIndexEvictsTheOldestEmotion() {
+    // Prepare test data
+    String[] texts = {
+      TEXT,
+      "Fast and friendly support, they solved everything.",
+      "The app keeps crashing whenever I open the settings page.",
+      "Great value for the price, would definitely buy again."
+    };
+
+    // Execute test
+    for (int i = 0; i < texts.length; i++) {
+      emotionDedupeService.onEmotionCreated(
+          new EmotionCreatedEvent(
+              i + 1, 1L, "NEGATIVE", 0.9, "model-a", MinHash.toBytes(MinHash.signature(texts[i]))));
+    }
+
+    // Verify the results
+    Assertions.assertEquals(MAX_ENTRIES, emotionDedupeService.size());
+    Assertions.assertTrue(emotionDedupeService.findDuplicate(emotion(texts[0])).isEmpty());
+    Assertions.assertEquals(4L, emotionDedupeService.findDuplicate(emotion(texts[3])).orElseThrow().id());
+  }
+
+  @Test
+  void eventsDuringLoadAreAppliedToTheLoadedIndex() {
+    // Prepare stubbing for a scan during which emotion 1 is deleted and emotion 2 is created
+    doAnswer(
+            invocation -> {
+              Consumer<ScoredSignature> consumer = invocation.getArgument(0);
+              consumer.accept(
+                  new ScoredSignature(1, TEXT, "NEGATIVE", 0.9, "model-a", MinHash.toBytes(MinHash.signature(TEXT))));
+              emotionDedupeService.onEmotionDeleted(new EmotionDeletedEvent(1, 1L, "NEGATIVE", 0.9));
+              String text = "Fast and friendly support.";
+              emotionDedupeService.onEmotionCreated(
+                  new EmotionCreatedEvent(2, 1L, "POSITIVE", 0.8, "model-a", MinHash.toBytes(MinHash.signature(text))));
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachScoredSignature(any());
+
+    // Execute test
+    emotionDedupeService.load();
+
+    // Verify the results
+    Assertions.assertEquals(1, emotionDedupeService.size());
+    Assertions.assertTrue(emotionDedupeService.findDuplicate(emotion(TEXT)).isEmpty());
+    Assertions.assertEquals(
+        2L, emotionDedupeService.findDuplicate(emotion("fast and friendly support")).orElseThrow().id());
+  }
+
+  private void index(long id, String text, String modelVersion) {
+    when(mockEmotionReadRepository.findScoredSignature(id))
+        .thenReturn(
+            Optional.of(
+                new ScoredSignature(
+                    id, text, "NEGATIVE", 0.9, modelVersion, MinHash.toBytes(MinHash.signature(text)))));
+    emotionDedupeService.onEmotionCreated(new EmotionCreatedEvent(id, 1L, "NEGATIVE", 0.9, null, null));
+  }
+
+  private static Emotion emotion(String text) {
+    Emotion emotion = new Emotion();
+    emotion.setText(text);
+    return emotion;
+  }
+}
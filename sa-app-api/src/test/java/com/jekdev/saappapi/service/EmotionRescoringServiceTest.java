@@ -0,0 +1,170 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.dto.RescoringStatus;
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
+import com.jekdev.saappapi.repositories.ClientRepository;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionRescoringRepository;
+import com.jekdev.saappapi.repositories.RescoringCheckpointRepository;
+import com.jekdev.saappapi.utils.EmotionRescoredEvent;
+import com.jekdev.saappapi.utils.SentimentResult;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(EmotionRescoringRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmotionRescoringServiceTest {
+
+  private static final String MODEL = "model-b";
+
+  @Autowired private EmotionRescoringRepository emotionRescoringRepository;
+
+  @Autowired private RescoringCheckpointRepository rescoringCheckpointRepository;
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private final List<Object> events = new CopyOnWriteArrayList<>();
+
+  private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+  private final AtomicBoolean providerDown = new AtomicBoolean();
+
+  private SentimentAnalysisService provider;
+
+  private EmotionRescoringService rescoringService;
+
+  @BeforeEach
+  void setUp() {
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              Client client = clientRepository.save(new Client("rescoring@local.mail"));
+              for (int i = 0; i < 5; i++) {
+                emotionRepository.save(emotion("stale " + i, client, "POSITIVE", 0.6, i == 0 ? null : "model-a"));
+              }
+              emotionRepository.save(emotion("current", client, "NEGATIVE", 0.7, MODEL));
+              Emotion pending = emotion("pending", client, null, null, null);
+              pending.setStatus(EmotionStatus.PENDING);
+              emotionRepository.save(pending);
+            });
+
+    provider = mock(SentimentAnalysisService.class);
+    when(provider.getModelVersion()).thenReturn(MODEL);
+    when(provider.analyzeBatch(anyList()))
+        .thenAnswer(
+            invocation -> {
+              List<String> texts = invocation.getArgument(0);
+              if (providerDown.get()) {
+                throw new SentimentProviderException("provider down");
+              }
+              requests.add(texts);
+              if (requests.size() == 2) {
+                providerDown.set(true);
+              }
+              return texts.stream().map(text -> new SentimentResult("NEGATIVE", 0.9)).toList();
+            });
+    ApplicationEventPublisher eventPublisher = events::add;
+    rescoringService =
+        new EmotionRescoringService(
+            emotionRescoringRepository,
+            rescoringCheckpointRepository,
+            provider,
+            eventPublisher,
+            new TransactionTemplate(transactionManager),
+            2,
+            2,
+            1000,
+            Duration.ofMinutes(1),
+            false);
+  }
+
+  @AfterEach
+  void tearDown() {
+    rescoringCheckpointRepository.deleteAll();
+    emotionRepository.deleteAll();
+    clientRepository.deleteAll();
+  }
+
+  @Test
+  void runPausesOnProviderFailureAndResumesFromCheckpoint() throws Exception {
+    // Execute test: the provider fails after two pages
+    rescoringService.start();
+    RescoringStatus paused = awaitState("PAUSED");
+
+    // Verify the results
+    Assertions.assertEquals(4, paused.getProcessed());
+    Assertions.assertEquals(5, paused.getTotal());
+    Assertions.assertEquals(1, emotionRescoringRepository.countStale(MODEL));
+
+    // Execute test: the provider recovers and the run is resumed
+    providerDown.set(false);
+    rescoringService.start();
+    RescoringStatus completed = awaitState("COMPLETED");
+
+    // Verify the results
+    Assertions.assertEquals(5, completed.getProcessed());
+    Assertions.assertEquals(0L, completed.getEtaSeconds());
+    Assertions.assertEquals(
+        List.of(List.of("stale 0", "stale 1"), List.of("stale 2", "stale 3"), List.of("stale 4")), requests);
+    Map<String, Emotion> emotions =
+        emotionRepository.findAll().stream().collect(Collectors.toMap(Emotion::getText, Function.identity()));
+    Assertions.assertEquals(MODEL, emotions.get("stale 4").getModelVersion());
+    Assertions.assertEquals("NEGATIVE", emotions.get("stale 4").getType());
+    Assertions.assertNull(emotions.get("pending").getModelVersion());
+    Assertions.assertEquals(5, events.size());
+    EmotionRescoredEvent first = (EmotionRescoredEvent) events.getFirst();
+    Assertions.assertEquals("POSITIVE", first.previousType());
+    Assertions.assertEquals(0.9, first.score());
+  }
+
+  private RescoringStatus awaitState(String state) throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    RescoringStatus status = rescoringService.status();
+    while (!state.equals(status.getState()) && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+      status = rescoringService.status();
+    }
+    Assertions.assertEquals(state, status.getState());
+    return status;
+  }
+
+  private static Emotion emotion(String text, Client client, String type, Double score, String modelVersion) {
+    Emotion emotion = new Emotion(text, client);
+    emotion.setType(type);
+    emotion.setScore(score);
+    emotion.setModelVersion(modelVersion);
+    emotion.setStatus(EmotionStatus.SCORED);
+    return emotion;
+  }
+}
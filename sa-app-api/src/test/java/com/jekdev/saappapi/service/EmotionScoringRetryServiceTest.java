@@ -0,0 +1,173 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.entities.ScoringJob;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.ScoringJobQueue;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.SentimentResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class EmotionScoringRetryServiceTest {
+
+  @Mock private EmotionRepository mockEmotionRepository;
+
+  @Mock private ScoringJobQueue mockScoringJobQueue;
+
+  @Mock private SentimentAnalysisService sentimentAnalysisService;
+
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private EmotionScoringRetryService retryService;
+
+  private Client client;
+
+  @BeforeEach
+  void setUp() {
+    retryService =
+        new EmotionScoringRetryService(
+            mockEmotionRepository,
+            mockScoringJobQueue,
+            sentimentAnalysisService,
+            eventPublisher,
+            transactionTemplate,
+            meterRegistry);
+    ReflectionTestUtils.setField(retryService, "batchSize", 10);
+    ReflectionTestUtils.setField(retryService, "leaseDuration", Duration.ofMinutes(5));
+    ReflectionTestUtils.setField(retryService, "initialBackoff", Duration.ofSeconds(30));
+    ReflectionTestUtils.setField(retryService, "maxBackoff", Duration.ofMinutes(10));
+    client = new Client("retry@local.mail");
+    client.setId(3L);
+  }
+
+  @Test
+  void enqueueSchedulesFirstRetry() {
+    // Prepare test data
+    Emotion emotion = new Emotion("later", client);
+    emotion.setType("POSITIVE");
+
+    // Execute test
+    retryService.markPending(emotion);
+    retryService.enqueue(7L);
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.PENDING, emotion.getStatus());
+    Assertions.assertNull(emotion.getType());
+    ArgumentCaptor<Instant> availableAt = ArgumentCaptor.forClass(Instant.class);
+    verify(mockScoringJobQueue).enqueue(eq(7L), availableAt.capture());
+    Assertions.assertTrue(availableAt.getValue().isAfter(Instant.now().plusSeconds(29)));
+    Assertions.assertEquals(1.0, meterRegistry.get(EmotionScoringRetryService.BACKLOG_METRIC).gauge().value());
+  }
+
+  @Test
+  void cancelShrinksTheBacklogOnlyWhenAJobWasDeleted() {
+    // Prepare stubbing for one queued job and one emotion that was scored in the meantime
+    retryService.enqueue(7L);
+    retryService.enqueue(8L);
+    when(mockScoringJobQueue.delete(7L)).thenReturn(1);
+    when(mockScoringJobQueue.delete(8L)).thenReturn(0);
+
+    // Execute test
+    retryService.cancel(7L);
+    retryService.cancel(8L);
+
+    // Verify the results
+    Assertions.assertEquals(1.0, meterRegistry.get(EmotionScoringRetryService.BACKLOG_METRIC).gauge().value());
+  }
+
+  @Test
+  void retryPendingScoresUntilFirstFailure() {
+    // Prepare stubbing for queue, repository and provider
+    Emotion first = pending(1L, "first");
+    Emotion second = pending(2L, "second");
+    Emotion third = pending(3L, "third");
+    when(mockScoringJobQueue.claim(any(), anyInt(), any()))
+        .thenReturn(List.of(job(1L, 0), job(2L, 2), job(3L, 0)));
+    when(mockEmotionRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(first, second, third));
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(mockScoringJobQueue.complete(eq(1L), any())).thenReturn(true);
+    when(sentimentAnalysisService.analyze("first")).thenReturn(new SentimentResult("NEGATIVE", 0.8));
+    when(sentimentAnalysisService.analyze("second")).thenThrow(new SentimentProviderException("provider down"));
+    when(mockScoringJobQueue.count()).thenReturn(2L);
+
+    // Execute test
+    int scored = retryService.retryPending();
+
+    // Verify the results
+    Assertions.assertEquals(1, scored);
+    Assertions.assertEquals(EmotionStatus.SCORED, first.getStatus());
+    Assertions.assertEquals("NEGATIVE", first.getType());
+    verify(mockEmotionRepository).save(first);
+    verify(eventPublisher).publishEvent(new EmotionCreatedEvent(1L, 3L, "NEGATIVE", 0.8, null, null));
+
+    ArgumentCaptor<Instant> nextAttempt = ArgumentCaptor.forClass(Instant.class);
+    verify(mockScoringJobQueue).reschedule(eq(2L), any(), nextAttempt.capture());
+    Assertions.assertTrue(nextAttempt.getValue().isAfter(Instant.now().plus(Duration.ofMinutes(3))));
+    verify(mockScoringJobQueue).release(eq(List.of(3L)), any());
+    verify(sentimentAnalysisService, never()).analyze("third");
+    Assertions.assertEquals(2, retryService.getBacklog());
+  }
+
+  @Test
+  void retryPendingSkipsEmotionWhenLeaseWasLost() {
+    // Prepare stubbing for queue, repository and provider
+    Emotion emotion = pending(1L, "slow");
+    when(mockScoringJobQueue.claim(any(), anyInt(), any())).thenReturn(List.of(job(1L, 0)));
+    when(mockEmotionRepository.findAllById(List.of(1L))).thenReturn(List.of(emotion));
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(sentimentAnalysisService.analyze("slow")).thenReturn(new SentimentResult("POSITIVE", 0.9));
+    when(mockScoringJobQueue.complete(eq(1L), any())).thenReturn(false);
+
+    // Execute test
+    int scored = retryService.retryPending();
+
+    // Verify the results
+    Assertions.assertEquals(0, scored);
+    Assertions.assertEquals(EmotionStatus.PENDING, emotion.getStatus());
+    verify(mockEmotionRepository, never()).save(emotion);
+    verify(eventPublisher, never()).publishEvent(any());
+  }
+
+  private Emotion pending(Long id, String text) {
+    Emotion emotion = new Emotion(text, client);
+    emotion.setId(id);
+    emotion.setStatus(EmotionStatus.PENDING);
+    return emotion;
+  }
+
+  private static ScoringJob job(Long emotionId, int attempts) {
+    return new ScoringJob(emotionId, attempts, Instant.now(), null);
+  }
+}
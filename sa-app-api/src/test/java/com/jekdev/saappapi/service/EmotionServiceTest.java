@@ -1,5 +1,9 @@
 package com.jekdev.saappapi.service;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -11,13 +15,30 @@ import com.jekdev.saappapi.dto.EmotionRequest;
 import com.jekdev.saappapi.dto.EmotionResponse;
 import com.jekdev.saappapi.entities.Client;
 import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.errorhandling.DeadlineExceededException;
 import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
 import com.jekdev.saappapi.errorhandling.PresentElementException;
+import com.jekdev.saappapi.errorhandling.QuotaExceededException;
+import com.jekdev.saappapi.errorhandling.SentimentProviderException;
 import com.jekdev.saappapi.mapper.AppMapper;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
 import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer;
+import com.jekdev.saappapi.repositories.EmotionWriteBehindBuffer.PendingEmotion;
+import com.jekdev.saappapi.service.EmotionDedupeService.NearDuplicate;
+import com.jekdev.saappapi.service.LocalSentimentService.LocalPrediction;
+import com.jekdev.saappapi.utils.ArchivedEmotion;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
 import com.jekdev.saappapi.utils.SentimentResult;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -26,6 +47,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class EmotionServiceTest {
@@ -36,8 +59,26 @@ class EmotionServiceTest {
 
   @Mock private EmotionRepository mockEmotionRepository;
 
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private EmotionSegmentRepository mockEmotionSegmentRepository;
+
+  @Mock private EmotionWriteBehindBuffer mockEmotionWriteBehindBuffer;
+
   @Mock private SentimentAnalysisService sentimentAnalysisService;
 
+  @Mock private ApplicationEventPublisher eventPublisher;
+
+  @Mock private EmotionScoringRetryService mockEmotionScoringRetryService;
+
+  @Mock private EmotionDedupeService mockEmotionDedupeService;
+
+  @Mock private LocalSentimentService mockLocalSentimentService;
+
+  @Mock private ClientQuotaService mockClientQuotaService;
+
+  @Mock private ResourceVersionService mockResourceVersionService;
+
   @InjectMocks private EmotionService emotionService;
 
   private EmotionRequest mockEmotionRequest;
@@ -50,6 +91,7 @@ class EmotionServiceTest {
 
   @BeforeEach
   void setUp() {
+    ReflectionTestUtils.setField(emotionService, "writeBehindTimeout", Duration.ofSeconds(5));
 
     ClientRequest mockClientRequest = new ClientRequest();
     mockClientRequest.setEmail("test@local.mail");
@@ -73,11 +115,19 @@ class EmotionServiceTest {
     when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
     when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
     when(sentimentAnalysisService.analyze(mockEmotion.getText())).thenReturn(new SentimentResult("POSITIVE", 0.98));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
 
     // Execute test
-    emotionService.createEmotion(mockEmotionRequest);
+    EmotionStatus status = emotionService.createEmotion(mockEmotionRequest);
 
     // Verify the results
+    Assertions.assertEquals(EmotionStatus.SCORED, status);
+    Assertions.assertEquals(EmotionStatus.SCORED, mockEmotion.getStatus());
     verify(appMapper).mapEmotionRequestToEntity(mockEmotionRequest);
     verify(mockClientService).readOrCreateClient(mockClient);
     verify(mockEmotionRepository).findByText(mockEmotion.getText());
@@ -85,9 +135,109 @@ class EmotionServiceTest {
     verify(mockEmotionRepository).save(mockEmotion);
     Assertions.assertEquals("POSITIVE", mockEmotion.getType());
     Assertions.assertEquals(0.98, mockEmotion.getScore());
+    verify(eventPublisher)
+        .publishEvent(new EmotionCreatedEvent(mockEmotionId, mockClient.getId(), "POSITIVE", 0.98, null, null));
     verifyNoMoreInteractions(mockEmotionRepository);
   }
 
+  @Test
+  void createEmotionSavesPendingWhenProviderFails() {
+    // Prepare stubbing for mapper, repository and provider
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyze(mockEmotion.getText()))
+        .thenThrow(new SentimentProviderException("Sentiment provider request failed: 503"));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    EmotionStatus status = emotionService.createEmotion(mockEmotionRequest);
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.PENDING, status);
+    verify(mockEmotionScoringRetryService).markPending(mockEmotion);
+    verify(mockEmotionRepository).save(mockEmotion);
+    verify(mockEmotionScoringRetryService).enqueue(mockEmotion.getId());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void createEmotionReusesScoreOfNearDuplicate() {
+    // Prepare stubbing for mapper, repository and dedupe index
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(mockEmotionDedupeService.findDuplicate(mockEmotion))
+        .thenReturn(Optional.of(new NearDuplicate(7L, "NEGATIVE", 0.9, "model-a", 0.95)));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    EmotionStatus status = emotionService.createEmotion(mockEmotionRequest);
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.SCORED, status);
+    Assertions.assertEquals("NEGATIVE", mockEmotion.getType());
+    Assertions.assertEquals(0.9, mockEmotion.getScore());
+    Assertions.assertEquals("model-a", mockEmotion.getModelVersion());
+    verify(sentimentAnalysisService, never()).analyze(any());
+    verify(eventPublisher)
+        .publishEvent(new EmotionCreatedEvent(mockEmotionId, mockClient.getId(), "NEGATIVE", 0.9, "model-a", null));
+  }
+
+  @Test
+  void createEmotionAnswersConfidentTextsLocally() {
+    // Prepare stubbing for mapper, repository and local model
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(mockEmotionDedupeService.findDuplicate(mockEmotion)).thenReturn(Optional.empty());
+    when(mockLocalSentimentService.predict(mockEmotion.getText()))
+        .thenReturn(Optional.of(new LocalPrediction(new SentimentResult("POSITIVE", 0.97), "local:1a2b")));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    EmotionStatus status = emotionService.createEmotion(mockEmotionRequest);
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.SCORED, status);
+    Assertions.assertEquals("POSITIVE", mockEmotion.getType());
+    Assertions.assertEquals(0.97, mockEmotion.getScore());
+    Assertions.assertEquals("local:1a2b", mockEmotion.getModelVersion());
+    verify(sentimentAnalysisService, never()).analyze(any());
+  }
+
+  @Test
+  void createEmotionFailsWhenTheClientQuotaIsUsedUp() {
+    // Prepare stubbing for mapper, repository and quota
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(mockEmotionDedupeService.findDuplicate(mockEmotion)).thenReturn(Optional.empty());
+    doThrow(new QuotaExceededException("Too many emotions submitted. Please retry later.", Duration.ofSeconds(2)))
+        .when(mockClientQuotaService)
+        .acquire(mockClient);
+
+    // Execute test and verify the results
+    Assertions.assertThrows(QuotaExceededException.class, () -> emotionService.createEmotion(mockEmotionRequest));
+    verify(sentimentAnalysisService, never()).analyze(any());
+    verify(mockEmotionRepository, never()).save(any());
+  }
+
   @Test
   void createEmotionFailedDueToPresentElementException() {
     // Prepare stubbing for mapper and repository
@@ -108,6 +258,151 @@ class EmotionServiceTest {
     verifyNoMoreInteractions(mockEmotionRepository);
   }
 
+  @Test
+  void createEmotionWriteBehindSuccess() {
+    // Prepare stubbing for mapper, repository and buffer
+    PendingEmotion pending =
+        new PendingEmotion(mockEmotion.getText(), "NEGATIVE", 0.75, "model-a", mockClient.getId(), null, null, null);
+    when(sentimentAnalysisService.getModelVersion()).thenReturn("model-a");
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyze(mockEmotion.getText())).thenReturn(new SentimentResult("NEGATIVE", 0.75));
+    when(mockEmotionWriteBehindBuffer.submit(pending)).thenReturn(CompletableFuture.completedFuture(42L));
+
+    // Execute test
+    emotionService.createEmotionWriteBehind(mockEmotionRequest);
+
+    // Verify the results
+    verify(mockEmotionWriteBehindBuffer).submit(pending);
+    verify(eventPublisher)
+        .publishEvent(new EmotionCreatedEvent(42L, mockClient.getId(), "NEGATIVE", 0.75, "model-a", null));
+    verifyNoMoreInteractions(mockEmotionRepository);
+  }
+
+  @Test
+  void createEmotionWriteBehindTimeoutIsReportedAndAnnouncedOnCommit() {
+    // Prepare stubbing for a batch that commits only after the timeout
+    ReflectionTestUtils.setField(emotionService, "writeBehindTimeout", Duration.ofMillis(10));
+    CompletableFuture<Long> result = new CompletableFuture<>();
+    when(sentimentAnalysisService.getModelVersion()).thenReturn("model-a");
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyze(mockEmotion.getText())).thenReturn(new SentimentResult("NEGATIVE", 0.75));
+    when(mockEmotionWriteBehindBuffer.submit(any())).thenReturn(result);
+
+    // Execute test
+    Assertions.assertThrows(
+        DeadlineExceededException.class, () -> emotionService.createEmotionWriteBehind(mockEmotionRequest));
+    verifyNoInteractions(eventPublisher);
+    result.complete(42L);
+
+    // Verify the results
+    verify(eventPublisher)
+        .publishEvent(new EmotionCreatedEvent(42L, mockClient.getId(), "NEGATIVE", 0.75, "model-a", null));
+  }
+
+  @Test
+  void createEmotionWriteBehindFailedBatchIsRethrown() {
+    // Prepare stubbing for mapper, repository and buffer
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyze(mockEmotion.getText())).thenReturn(new SentimentResult("NEGATIVE", 0.75));
+    when(mockEmotionWriteBehindBuffer.submit(any()))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("batch failed")));
+
+    // Execute test
+    IllegalStateException ex =
+        Assertions.assertThrows(
+            IllegalStateException.class, () -> emotionService.createEmotionWriteBehind(mockEmotionRequest));
+
+    // Verify the results
+    Assertions.assertEquals("batch failed", ex.getMessage());
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void createEmotionAsyncStoresTheEmotionWhenTheScoreArrives() {
+    // Prepare stubbing for mapper, repository and a provider call that is still in flight
+    CompletableFuture<SentimentResult> providerCall = new CompletableFuture<>();
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyzeAsync(mockEmotion.getText())).thenReturn(providerCall);
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    CompletableFuture<EmotionStatus> status = emotionService.createEmotionAsync(mockEmotionRequest);
+    Assertions.assertFalse(status.isDone());
+    verify(mockEmotionRepository, never()).save(any());
+    providerCall.complete(new SentimentResult("POSITIVE", 0.98));
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.SCORED, status.join());
+    verify(mockClientQuotaService).acquire(mockClient);
+    verify(mockEmotionRepository).save(mockEmotion);
+    verify(eventPublisher)
+        .publishEvent(new EmotionCreatedEvent(mockEmotionId, mockClient.getId(), "POSITIVE", 0.98, null, null));
+  }
+
+  @Test
+  void createEmotionAsyncSavesPendingWhenProviderFails() {
+    // Prepare stubbing for mapper, repository and a failing provider call
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(sentimentAnalysisService.analyzeAsync(mockEmotion.getText()))
+        .thenReturn(
+            CompletableFuture.failedFuture(new SentimentProviderException("Sentiment provider request failed: 503")));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    EmotionStatus status = emotionService.createEmotionAsync(mockEmotionRequest).join();
+
+    // Verify the results
+    Assertions.assertEquals(EmotionStatus.PENDING, status);
+    verify(mockEmotionScoringRetryService).markPending(mockEmotion);
+    verify(mockEmotionScoringRetryService).enqueue(mockEmotionId);
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void createEmotionAsyncAnswersNearDuplicatesWithoutTheProvider() {
+    // Prepare stubbing for mapper, repository and dedupe index
+    when(appMapper.mapEmotionRequestToEntity(mockEmotionRequest)).thenReturn(mockEmotion);
+    when(mockClientService.readOrCreateClient(mockClient)).thenReturn(mockClient);
+    when(mockEmotionRepository.findByText(mockEmotion.getText())).thenReturn(Optional.empty());
+    when(mockEmotionDedupeService.findDuplicate(mockEmotion))
+        .thenReturn(Optional.of(new NearDuplicate(7L, "NEGATIVE", 0.8, "model-a", 0.95)));
+    when(mockEmotionRepository.save(mockEmotion))
+        .thenAnswer(
+            invocation -> {
+              mockEmotion.setId(mockEmotionId);
+              return mockEmotion;
+            });
+
+    // Execute test
+    CompletableFuture<EmotionStatus> status = emotionService.createEmotionAsync(mockEmotionRequest);
+
+    // Verify the results
+    Assertions.assertTrue(status.isDone());
+    Assertions.assertEquals(EmotionStatus.SCORED, status.join());
+    verify(sentimentAnalysisService, never()).analyzeAsync(any());
+    verifyNoInteractions(mockClientQuotaService);
+  }
+
   @Test
   void findAllEmotionSuccess() {
 
@@ -121,8 +416,7 @@ class EmotionServiceTest {
             new ClientResponse(mockEmotion.getClient().getId(), mockEmotion.getClient().getEmail()));
 
     // Prepare stubbing for repository
-    when(mockEmotionRepository.findAll()).thenReturn(List.of(mockEmotion));
-    when(appMapper.mapEmotionEntityToResponse(mockEmotion)).thenReturn(mockEmotionResponse);
+    when(mockEmotionReadRepository.findAllEmotions()).thenReturn(List.of(mockEmotionResponse));
 
     // Execute test
     List<EmotionResponse> emotionResponses = emotionService.findAllEmotion();
@@ -133,15 +427,14 @@ class EmotionServiceTest {
     Assertions.assertEquals(mockEmotion.getText(), emotionResponses.getFirst().getText());
     Assertions.assertEquals(mockEmotion.getType(), emotionResponses.getFirst().getType());
     Assertions.assertEquals(mockEmotion.getClient().getEmail(), emotionResponses.getFirst().getClient().getEmail());
-    verify(mockEmotionRepository).findAll();
-    verify(appMapper).mapEmotionEntityToResponse(mockEmotion);
-    verifyNoMoreInteractions(mockEmotionRepository);
+    verify(mockEmotionReadRepository).findAllEmotions();
+    verifyNoInteractions(mockEmotionRepository, appMapper);
   }
 
   @Test
   void findAllEmotionFailedDueToEmptyListException() {
     // Prepare stubbing for repository
-    when(mockEmotionRepository.findAll()).thenReturn(List.of());
+    when(mockEmotionReadRepository.findAllEmotions()).thenReturn(List.of());
 
     // Execute test
     ElementNotFoundException ex =
@@ -149,9 +442,8 @@ class EmotionServiceTest {
 
     // Verify the results
     Assertions.assertEquals("No emotions found, please create some emotions first.", ex.getMessage());
-    verify(mockEmotionRepository).findAll();
-    verifyNoMoreInteractions(mockEmotionRepository);
-    verifyNoInteractions(appMapper);
+    verify(mockEmotionReadRepository).findAllEmotions();
+    verifyNoInteractions(mockEmotionRepository, appMapper);
   }
 
   @Test
@@ -166,6 +458,8 @@ class EmotionServiceTest {
     // Verify the results
     verify(mockEmotionRepository).findById(mockEmotionId);
     verify(mockEmotionRepository).deleteById(mockEmotionId);
+    verify(eventPublisher)
+        .publishEvent(new EmotionDeletedEvent(mockEmotionId, mockClient.getId(), mockEmotion.getType(), null));
     verifyNoMoreInteractions(mockEmotionRepository);
   }
 
@@ -183,5 +477,79 @@ class EmotionServiceTest {
     Assertions.assertEquals("Emotion with id " + mockEmotionId + " not found.", ex.getMessage());
     verify(mockEmotionRepository).findById(mockEmotionId);
     verifyNoMoreInteractions(mockEmotionRepository);
+    verifyNoInteractions(eventPublisher);
+  }
+
+  @Test
+  void findEmotionFromHotTable() {
+    // Prepare stubbing for repository
+    EmotionResponse hot = new EmotionResponse(mockEmotionId, "hot", "POSITIVE", 0.9, new ClientResponse(1L, "a@b.c"));
+    when(mockEmotionReadRepository.findEmotionById(mockEmotionId)).thenReturn(Optional.of(hot));
+
+    // Execute test
+    EmotionResponse emotion = emotionService.findEmotion(mockEmotionId);
+
+    // Verify the results
+    Assertions.assertSame(hot, emotion);
+    verifyNoInteractions(mockEmotionSegmentRepository);
+  }
+
+  @Test
+  void findEmotionFromArchive() {
+    // Prepare stubbing for repositories and mapper
+    ArchivedEmotion archived =
+        new ArchivedEmotion(mockEmotionId, 1L, "a@b.c", "cold", "NEGATIVE", 0.7, null, null, null, null);
+    EmotionResponse mapped = new EmotionResponse(mockEmotionId, "cold", "NEGATIVE", 0.7, new ClientResponse(1L, "a@b.c"));
+    when(mockEmotionReadRepository.findEmotionById(mockEmotionId)).thenReturn(Optional.empty());
+    when(mockEmotionSegmentRepository.findById(mockEmotionId)).thenReturn(Optional.of(archived));
+    when(appMapper.mapArchivedEmotionToResponse(archived)).thenReturn(mapped);
+
+    // Execute test
+    EmotionResponse emotion = emotionService.findEmotion(mockEmotionId);
+
+    // Verify the results
+    Assertions.assertSame(mapped, emotion);
+  }
+
+  @Test
+  void findEmotionFailedDueToElementNotFoundException() {
+    // Prepare stubbing for repositories
+    when(mockEmotionReadRepository.findEmotionById(mockEmotionId)).thenReturn(Optional.empty());
+    when(mockEmotionSegmentRepository.findById(mockEmotionId)).thenReturn(Optional.empty());
+
+    // Execute test
+    ElementNotFoundException ex =
+        Assertions.assertThrows(ElementNotFoundException.class, () -> emotionService.findEmotion(mockEmotionId));
+
+    // Verify the results
+    Assertions.assertEquals("Emotion with id " + mockEmotionId + " not found.", ex.getMessage());
+  }
+
+  @Test
+  void exportEmotionsArchivedFirst() {
+    // Prepare stubbing for repositories and mapper
+    ArchivedEmotion archived = new ArchivedEmotion(1L, 1L, "a@b.c", "cold", "NEGATIVE", 0.7, null, null, null, null);
+    EmotionResponse cold = new EmotionResponse(1L, "cold", "NEGATIVE", 0.7, new ClientResponse(1L, "a@b.c"));
+    EmotionResponse hot = new EmotionResponse(2L, "hot", "POSITIVE", 0.9, new ClientResponse(1L, "a@b.c"));
+    doAnswer(invocation -> {
+          invocation.<Consumer<ArchivedEmotion>>getArgument(0).accept(archived);
+          return null;
+        })
+        .when(mockEmotionSegmentRepository)
+        .forEach(any());
+    doAnswer(invocation -> {
+          invocation.<Consumer<EmotionResponse>>getArgument(0).accept(hot);
+          return null;
+        })
+        .when(mockEmotionReadRepository)
+        .forEachEmotion(any());
+    when(appMapper.mapArchivedEmotionToResponse(archived)).thenReturn(cold);
+
+    // Execute test
+    List<EmotionResponse> exported = new ArrayList<>();
+    emotionService.exportEmotions(exported::add);
+
+    // Verify the results
+    Assertions.assertEquals(List.of(cold, hot), exported);
   }
 }
@@ -0,0 +1,172 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.jekdev.saappapi.dto.LocalModelReport;
+import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository.ScoredSignature;
+import com.jekdev.saappapi.service.LocalSentimentService.LocalPrediction;
+import com.jekdev.saappapi.utils.LocalSentimentModel.LabeledText;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LocalSentimentServiceTest {
+
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @TempDir private Path directory;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private LocalSentimentService service(double minConfidence) {
+    return service(minConfidence, 100_000);
+  }
+
+  private LocalSentimentService service(double minConfidence, int maxExamples) {
+    return new LocalSentimentService(
+        mockEmotionReadRepository,
+        true,
+        directory.resolve("local.model"),
+        minConfidence,
+        0.2,
+        10,
+        maxExamples,
+        meterRegistry);
+  }
+
+  private static List<LabeledText> reviews() {
+    List<LabeledText> reviews = new ArrayList<>();
+    for (String item : List.of("delivery", "support", "product", "app", "service", "update", "price", "store")) {
+      reviews.add(new LabeledText("I love the " + item + ", it is great", "POSITIVE"));
+      reviews.add(new LabeledText("The " + item + " was excellent and fast", "POSITIVE"));
+      reviews.add(new LabeledText("Really happy with the " + item, "POSITIVE"));
+      reviews.add(new LabeledText("I hate the " + item + ", it is terrible", "NEGATIVE"));
+      reviews.add(new LabeledText("The " + item + " was awful and slow", "NEGATIVE"));
+      reviews.add(new LabeledText("Really disappointed with the " + item, "NEGATIVE"));
+    }
+    return reviews;
+  }
+
+  private void stubScoredEmotions(String modelVersion) {
+    List<LabeledText> reviews = reviews();
+    doAnswer(
+            invocation -> {
+              Consumer<ScoredSignature> consumer = invocation.getArgument(0);
+              for (int i = 0; i < reviews.size(); i++) {
+                LabeledText review = reviews.get(i);
+                consumer.accept(new ScoredSignature(i + 1, review.text(), review.label(), 0.9, modelVersion, null));
+              }
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachScoredSignature(any());
+  }
+
+  @Test
+  void trainReportsHeldOutQualityAndWritesTheModel() {
+    // Prepare stubbing for repository
+    stubScoredEmotions("model-a");
+    LocalSentimentService localSentimentService = service(0.6);
+
+    // Execute test
+    LocalModelReport report = localSentimentService.train();
+
+    // Verify the results
+    Assertions.assertEquals(48, report.getTrainingExamples() + report.getHeldOutExamples());
+    Assertions.assertTrue(report.getHeldOutExamples() > 0);
+    Assertions.assertTrue(report.getAccuracy() >= 0.75, "accuracy " + report.getAccuracy());
+    Assertions.assertEquals(7, report.getThresholds().size());
+    Assertions.assertSame(report, localSentimentService.report());
+    Assertions.assertTrue(Files.isRegularFile(directory.resolve("local.model")));
+
+    LocalSentimentService restarted = service(0.6);
+    restarted.load();
+    Optional<LocalPrediction> prediction = restarted.predict("I love the checkout, it is excellent");
+    Assertions.assertTrue(prediction.isPresent());
+    Assertions.assertEquals("POSITIVE", prediction.get().sentiment().label());
+    Assertions.assertEquals(report.getModelVersion(), prediction.get().modelVersion());
+  }
+
+  @Test
+  void uncertainTextsGoToTheProvider() {
+    // Prepare stubbing for repository
+    stubScoredEmotions("model-a");
+    LocalSentimentService localSentimentService = service(0.99);
+    localSentimentService.train();
+
+    // Execute test
+    Optional<LocalPrediction> prediction = localSentimentService.predict("the weather on tuesday");
+
+    // Verify the results
+    Assertions.assertTrue(prediction.isEmpty());
+    Assertions.assertEquals(
+        1, meterRegistry.counter(LocalSentimentService.ROUTED_METRIC, "route", "provider").count());
+  }
+
+  @Test
+  void trainIgnoresLocallyScoredEmotions() {
+    // Prepare stubbing for repository
+    stubScoredEmotions("local:1a2b");
+    LocalSentimentService localSentimentService = service(0.9);
+
+    // Execute test and verify the results
+    Assertions.assertThrows(ElementNotFoundException.class, localSentimentService::train);
+    Assertions.assertThrows(ElementNotFoundException.class, localSentimentService::report);
+  }
+
+  @Test
+  void trainKeepsASampleOfAtMostMaxExamples() {
+    // Prepare stubbing for repository
+    stubScoredEmotions("model-a");
+    LocalSentimentService localSentimentService = service(0.6, 20);
+
+    // Execute test
+    LocalModelReport report = localSentimentService.train();
+
+    // Verify the results
+    Assertions.assertEquals(20, report.getTrainingExamples());
+    Assertions.assertEquals(4, report.getHeldOutExamples());
+  }
+
+  @Test
+  void modelTrainedByAnotherReplicaIsReloaded() {
+    // Prepare a replica that started without a model
+    stubScoredEmotions("model-a");
+    LocalSentimentService replica = service(0.6);
+    replica.load();
+    replica.reloadIfChanged();
+    Assertions.assertTrue(replica.predict("I love the checkout, it is excellent").isEmpty());
+
+    // Execute test
+    LocalModelReport report = service(0.6).train();
+    replica.reloadIfChanged();
+
+    // Verify the results
+    Optional<LocalPrediction> prediction = replica.predict("I love the checkout, it is excellent");
+    Assertions.assertEquals(report.getModelVersion(), prediction.orElseThrow().modelVersion());
+  }
+
+  @Test
+  void predictWithoutModelGoesToTheProvider() {
+    // Execute test
+    LocalSentimentService localSentimentService = service(0.9);
+    localSentimentService.load();
+
+    // Verify the results
+    Assertions.assertTrue(localSentimentService.predict("I love it").isEmpty());
+  }
+}
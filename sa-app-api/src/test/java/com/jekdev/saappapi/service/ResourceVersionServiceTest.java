@@ -0,0 +1,53 @@
+package com.jekdev.saappapi.service;
+
+import com.jekdev.saappapi.repositories.TableVersionStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import({TableVersionStore.class, ResourceVersionService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ResourceVersionServiceTest {
+
+  @Autowired private ResourceVersionService resourceVersionService;
+
+  @Autowired private TableVersionStore tableVersionStore;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void tableIsCountedOncePerTransaction() {
+    // Prepare the counters before the writes
+    long emotions = version(TableVersionStore.EMOTION_TABLE);
+    long clients = version(TableVersionStore.CLIENT_TABLE);
+
+    // Execute test
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              resourceVersionService.emotionsChanged();
+              resourceVersionService.emotionsChanged();
+              resourceVersionService.clientsChanged();
+              resourceVersionService.emotionsChanged();
+            });
+    resourceVersionService.emotionsChanged();
+    resourceVersionService.emotionsChanged();
+
+    // Verify the results
+    Assertions.assertEquals(emotions + 3, version(TableVersionStore.EMOTION_TABLE));
+    Assertions.assertEquals(clients + 1, version(TableVersionStore.CLIENT_TABLE));
+  }
+
+  private long version(String table) {
+    return tableVersionStore.versions().getOrDefault(table, 0L);
+  }
+}
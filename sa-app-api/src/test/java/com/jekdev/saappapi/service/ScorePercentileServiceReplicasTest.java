@@ -0,0 +1,123 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.Mockito.mock;
+
+import com.jekdev.saappapi.entities.Client;
+import com.jekdev.saappapi.entities.Emotion;
+import com.jekdev.saappapi.entities.EmotionStatus;
+import com.jekdev.saappapi.entities.ScoreSketch;
+import com.jekdev.saappapi.repositories.ClientRepository;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.ScoreSketchRepository;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.TDigest;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureJdbc;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@AutoConfigureJdbc
+@Import(EmotionReadRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScorePercentileServiceReplicasTest {
+
+  @Autowired private EmotionReadRepository emotionReadRepository;
+
+  @Autowired private ScoreSketchRepository scoreSketchRepository;
+
+  @Autowired private ClientRepository clientRepository;
+
+  @Autowired private EmotionRepository emotionRepository;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  private Client client;
+
+  @BeforeEach
+  void setUp() {
+    client = clientRepository.save(new Client("replicas@local.mail"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    scoreSketchRepository.deleteAll();
+    emotionRepository.deleteAll();
+    clientRepository.deleteAll();
+  }
+
+  @Test
+  void replicasPersistSketchesThatIncludeEachOthersEmotions() {
+    // Prepare two replicas on one database and a sketch left behind by a deleted client
+    scoreSketchRepository.save(new ScoreSketch("client-999", new TDigest(100).toBytes(), 0, Instant.now()));
+    ScorePercentileService first = replica();
+    ScorePercentileService second = replica();
+    first.load();
+    second.load();
+
+    // Execute test: each replica only sees the creation events of its own emotions
+    created(first, "first a", 0.9);
+    created(second, "second a", 0.8);
+    created(first, "first b", 0.7);
+    long last = created(second, "second b", 0.6);
+    first.persist();
+    second.persist();
+
+    // Verify the results
+    Assertions.assertEquals(4, first.globalPercentiles().getCount());
+    Assertions.assertEquals(4, second.globalPercentiles().getCount());
+    Assertions.assertEquals(last, scoreSketchRepository.findById("global").orElseThrow().getWatermark());
+    Assertions.assertFalse(scoreSketchRepository.existsById("client-999"));
+
+    // Execute test: a restarted replica restores the shared sketches and replays only newer emotions
+    emotion("while restarting", 0.5);
+    ScorePercentileService restarted = replica();
+    restarted.load();
+
+    // Verify the results
+    Assertions.assertEquals(5, restarted.globalPercentiles().getCount());
+    Assertions.assertEquals(5, restarted.clientPercentiles(client.getId()).getCount());
+  }
+
+  private ScorePercentileService replica() {
+    ScorePercentileService service =
+        new ScorePercentileService(
+            emotionReadRepository,
+            mock(EmotionSegmentRepository.class),
+            scoreSketchRepository,
+            new TransactionTemplate(transactionManager));
+    ReflectionTestUtils.setField(service, "compression", 100.0);
+    return service;
+  }
+
+  private long created(ScorePercentileService replica, String text, double score) {
+    Emotion emotion = emotion(text, score);
+    replica.onEmotionCreated(
+        new EmotionCreatedEvent(emotion.getId(), client.getId(), "POSITIVE", score, null, null));
+    return emotion.getId();
+  }
+
+  private Emotion emotion(String text, double score) {
+    return new TransactionTemplate(transactionManager)
+        .execute(
+            status -> {
+              Emotion emotion = new Emotion(text, clientRepository.getReferenceById(client.getId()));
+              emotion.setType("POSITIVE");
+              emotion.setScore(score);
+              emotion.setStatus(EmotionStatus.SCORED);
+              return emotionRepository.save(emotion);
+            });
+  }
+}
@@ -0,0 +1,178 @@
+package com.jekdev.saappapi.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.jekdev.saappapi.dto.ClientResponse;
+import com.jekdev.saappapi.dto.EmotionResponse;
+import com.jekdev.saappapi.dto.ScorePercentiles;
+import com.jekdev.saappapi.entities.ScoreSketch;
+import com.jekdev.saappapi.errorhandling.ElementNotFoundException;
+import com.jekdev.saappapi.repositories.EmotionReadRepository;
+import com.jekdev.saappapi.repositories.EmotionSegmentRepository;
+import com.jekdev.saappapi.repositories.ScoreSketchRepository;
+import com.jekdev.saappapi.utils.EmotionCreatedEvent;
+import com.jekdev.saappapi.utils.EmotionDeletedEvent;
+import com.jekdev.saappapi.utils.TDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class ScorePercentileServiceTest {
+
+  @Mock private EmotionReadRepository mockEmotionReadRepository;
+
+  @Mock private EmotionSegmentRepository mockEmotionSegmentRepository;
+
+  @Mock private ScoreSketchRepository mockScoreSketchRepository;
+
+  @Mock private TransactionTemplate mockTransactionTemplate;
+
+  @InjectMocks private ScorePercentileService scorePercentileService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(scorePercentileService, "compression", 100.0);
+  }
+
+  @Test
+  void percentilesFollowCreatedEmotions() {
+    // Execute test
+    for (int i = 1; i <= 100; i++) {
+      scorePercentileService.onEmotionCreated(
+          new EmotionCreatedEvent(i, 1L, i % 2 == 0 ? "POSITIVE" : "NEGATIVE", 0.9, null, null));
+    }
+    scorePercentileService.onEmotionCreated(new EmotionCreatedEvent(101, 2L, "POSITIVE", 0.8, null, null));
+
+    // Verify the results
+    ScorePercentiles client = scorePercentileService.clientPercentiles(2L);
+    ScorePercentiles global = scorePercentileService.globalPercentiles();
+    Assertions.assertEquals(1, client.getCount());
+    Assertions.assertEquals(0.8, client.getP50(), 1e-9);
+    Assertions.assertNull(global.getClientId());
+    Assertions.assertEquals(101, global.getCount());
+    Assertions.assertEquals(0.9, global.getP99(), 1e-9);
+  }
+
+  @Test
+  void clientPercentilesFailedDueToElementNotFoundException() {
+    // Execute test
+    ElementNotFoundException ex =
+        Assertions.assertThrows(ElementNotFoundException.class, () -> scorePercentileService.clientPercentiles(9L));
+
+    // Verify the results
+    Assertions.assertEquals("No scored emotions found for client with id 9.", ex.getMessage());
+  }
+
+  @Test
+  void loadRestoresSnapshotsAndReplaysNewerEmotions() {
+    // Prepare stubbing for repositories
+    TDigest persisted = new TDigest(100);
+    persisted.add(-0.5);
+    Instant now = Instant.now();
+    when(mockScoreSketchRepository.findAll())
+        .thenReturn(
+            List.of(
+                new ScoreSketch("client-1", persisted.toBytes(), 10, now),
+                new ScoreSketch("global", persisted.toBytes(), 10, now)));
+    stubHotEmotions(new EmotionResponse(11L, "newer", "POSITIVE", 0.7, new ClientResponse(1L, "a@b.c")));
+
+    // Execute test
+    scorePercentileService.load();
+
+    // Verify the results
+    verify(mockEmotionReadRepository).forEachEmotionAfter(eq(10L), any());
+    Assertions.assertEquals(2, scorePercentileService.clientPercentiles(1L).getCount());
+    Assertions.assertEquals(2, scorePercentileService.globalPercentiles().getCount());
+  }
+
+  @Test
+  void loadReplaysFromTheGlobalWatermarkWhenAClientWasIdle() {
+    // Prepare stubbing for an idle client whose sketch was last written long before the global one
+    TDigest idle = new TDigest(100);
+    idle.add(0.4);
+    TDigest global = new TDigest(100);
+    global.add(0.4);
+    global.add(-0.5);
+    Instant now = Instant.now();
+    when(mockScoreSketchRepository.findAll())
+        .thenReturn(
+            List.of(
+                new ScoreSketch("client-2", idle.toBytes(), 3, now),
+                new ScoreSketch("global", global.toBytes(), 10, now)));
+    stubHotEmotions(new EmotionResponse(12L, "newer", "NEGATIVE", 0.9, new ClientResponse(2L, "a@b.c")));
+
+    // Execute test
+    scorePercentileService.load();
+
+    // Verify the results
+    verify(mockEmotionReadRepository).forEachEmotionAfter(eq(10L), any());
+    verify(mockEmotionReadRepository).forEachEmotionAfter(eq(12L), any());
+    Assertions.assertEquals(2, scorePercentileService.clientPercentiles(2L).getCount());
+    Assertions.assertEquals(3, scorePercentileService.globalPercentiles().getCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void persistRebuildsAfterDeleteAndSavesSketches() {
+    // Prepare stubbing for repositories
+    scorePercentileService.onEmotionCreated(new EmotionCreatedEvent(1, 1L, "NEGATIVE", 0.9, null, null));
+    scorePercentileService.onEmotionCreated(new EmotionCreatedEvent(2, 1L, "POSITIVE", 0.6, null, null));
+    scorePercentileService.onEmotionDeleted(new EmotionDeletedEvent(1, 1L, "NEGATIVE", 0.9));
+    doAnswer(
+            invocation -> {
+              invocation
+                  .<Consumer<EmotionResponse>>getArgument(0)
+                  .accept(new EmotionResponse(2L, "kept", "POSITIVE", 0.6, new ClientResponse(1L, "a@b.c")));
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachEmotion(any());
+    when(mockTransactionTemplate.execute(any()))
+        .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+    // Execute test
+    scorePercentileService.persist();
+
+    // Verify the results
+    ArgumentCaptor<List<ScoreSketch>> saved = ArgumentCaptor.forClass(List.class);
+    verify(mockScoreSketchRepository).saveAll(saved.capture());
+    Assertions.assertEquals(
+        List.of("client-1", "global"), saved.getValue().stream().map(ScoreSketch::getName).toList());
+    Assertions.assertEquals(2, saved.getValue().getFirst().getWatermark());
+    Assertions.assertEquals(1, scorePercentileService.clientPercentiles(1L).getCount());
+    verify(mockScoreSketchRepository).deleteByWatermarkBefore(2);
+  }
+
+  private void stubHotEmotions(EmotionResponse... emotions) {
+    doAnswer(
+            invocation -> {
+              long from = invocation.getArgument(0);
+              Consumer<EmotionResponse> consumer = invocation.getArgument(1);
+              for (EmotionResponse emotion : emotions) {
+                if (emotion.getId() > from) {
+                  consumer.accept(emotion);
+                }
+              }
+              return null;
+            })
+        .when(mockEmotionReadRepository)
+        .forEachEmotionAfter(anyLong(), any());
+  }
+}
@@ -0,0 +1,257 @@
+package com.jekdev.saappapi.service;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import com.jekdev.saappapi.errorhandling.DeadlineExceededException;
+import com.jekdev.saappapi.utils.RequestDeadline;
+import com.jekdev.saappapi.utils.RequestLane;
+import com.jekdev.saappapi.utils.SentimentResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+class SentimentAnalysisServiceTest {
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+  private final List<List<String>> requests = new ArrayList<>();
+
+  private final List<RequestLane> lanes = new ArrayList<>();
+
+  private SentimentAnalysisService sentimentAnalysisService;
+
+  @BeforeEach
+  void setUp() {
+    RestClient.Builder builder = RestClient.builder().baseUrl("http://provider");
+    MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    server
+        .expect(ExpectedCount.manyTimes(), requestTo("http://provider/model"))
+        .andExpect(method(HttpMethod.POST))
+        .andRespond(
+            request -> {
+              JsonNode inputs =
+                  objectMapper.readTree(((MockClientHttpRequest) request).getBodyAsString()).get("inputs");
+              List<String> texts = new ArrayList<>();
+              inputs.forEach(input -> texts.add(input.asString()));
+              requests.add(texts);
+              lanes.add(RequestLane.current());
+              StringBuilder body = new StringBuilder("[");
+              for (String text : texts) {
+                String label = text.contains("bad") ? "NEGATIVE" : "POSITIVE";
+                body.append(body.length() > 1 ? "," : "")
+                    .append("[{\"label\":\"%s\",\"score\":0.9},{\"label\":\"OTHER\",\"score\":0.1}]".formatted(label));
+              }
+              return withSuccess(body.append("]").toString(), MediaType.APPLICATION_JSON).createResponse(request);
+            });
+    sentimentAnalysisService =
+        new SentimentAnalysisService(
+            builder.build(), objectMapper, 100, 10, 1, 100, "", Duration.ofSeconds(3), "", "", 2);
+    ReflectionTestUtils.setField(sentimentAnalysisService, "apiToken", "test-token");
+    ReflectionTestUtils.setField(sentimentAnalysisService, "modelPath", "/model");
+  }
+
+  @Test
+  void longTextIsScoredByLengthWeightedChunks() {
+    // Prepare test data
+    String text = "So bad. The rest of the product works really well. The support team was friendly.";
+
+    // Execute test
+    SentimentResult result = sentimentAnalysisService.analyze(text);
+
+    // Verify the results
+    Assertions.assertEquals(1, requests.size());
+    Assertions.assertTrue(requests.getFirst().size() > 1);
+    Assertions.assertEquals("POSITIVE", result.label());
+    Assertions.assertTrue(result.score() < 0.9);
+  }
+
+  @Test
+  void analyzeAsyncScoresInTheLaneOfTheCaller() {
+    // Prepare test data
+    String text = "So bad. The packaging was bad as well. Support was bad and slow to answer any of my questions.";
+
+    // Execute test
+    SentimentResult result;
+    try (RequestLane.Scope scope = RequestLane.BULK.enter()) {
+      result = sentimentAnalysisService.analyzeAsync(text).join();
+    }
+
+    // Verify the results
+    Assertions.assertEquals("NEGATIVE", result.label());
+    Assertions.assertEquals(List.of(RequestLane.BULK), lanes);
+  }
+
+  @Test
+  void editedTextOnlyScoresChangedChunks() {
+    // Prepare test data
+    String original = "Great start. The middle part dragged on a lot. Then the ending was superb. Would buy again.";
+    String edited = "Bad start. The middle part dragged on a lot. Then the ending was superb. Would buy again.";
+
+    // Execute test
+    sentimentAnalysisService.analyze(original);
+    sentimentAnalysisService.analyze(edited);
+
+    // Verify the results
+    Assertions.assertEquals(2, requests.size());
+    Assertions.assertTrue(requests.get(1).size() < requests.getFirst().size());
+  }
+
+  @Test
+  void ensembleVotesWithoutModelsPastTheDeadline() {
+    // Prepare stubbing for three models, one of them too slow
+    RestClient.Builder builder = RestClient.builder().baseUrl("http://provider");
+    MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+    server
+        .expect(requestTo("http://provider/sst"))
+        .andRespond(
+            withSuccess(
+                "[[{\"label\":\"NEGATIVE\",\"score\":0.6},{\"label\":\"POSITIVE\",\"score\":0.4}]]",
+                MediaType.APPLICATION_JSON));
+    server
+        .expect(requestTo("http://provider/stars"))
+        .andRespond(
+            withSuccess(
+                "[[{\"label\":\"5 stars\",\"score\":0.5},{\"label\":\"4 stars\",\"score\":0.4},"
+                    + "{\"label\":\"1 star\",\"score\":0.1}]]",
+                MediaType.APPLICATION_JSON));
+    server
+        .expect(requestTo("http://provider/slow"))
+        .andRespond(
+            request -> {
+              try {
+                Thread.sleep(5_000);
+              } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+              }
+              return withSuccess("[[{\"label\":\"NEGATIVE\",\"score\":1.0}]]", MediaType.APPLICATION_JSON)
+                  .createResponse(request);
+            });
+    SentimentAnalysisService ensemble =
+        new SentimentAnalysisService(
+            builder.build(),
+            objectMapper,
+            100,
+            10,
+            1,
+            100,
+            "/sst=1, /stars=1, /slow=2",
+            Duration.ofMillis(500),
+            "5 stars=POSITIVE,4 stars=POSITIVE,1 star=NEGATIVE",
+            "",
+            2);
+    ReflectionTestUtils.setField(ensemble, "apiToken", "test-token");
+
+    // Execute test
+    long start = System.nanoTime();
+    SentimentResult result = ensemble.analyze("Nice.");
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    // Verify the results
+    Assertions.assertEquals("POSITIVE", result.label());
+    Assertions.assertEquals(0.45, result.score(), 1e-9);
+    Assertions.assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "elapsed " + elapsed);
+    Assertions.assertEquals("/sst=1.0,/stars=1.0,/slow=2.0", ensemble.getModelVersion());
+  }
+
+  @Test
+  void providerCallIsCancelledAtTheRequestDeadline() throws Exception {
+    // Prepare stubbing for a provider that does not answer in time
+    RestClient.Builder builder = RestClient.builder().baseUrl("http://provider");
+    MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+    CountDownLatch interrupted = new CountDownLatch(1);
+    server
+        .expect(requestTo("http://provider/model"))
+        .andRespond(
+            request -> {
+              try {
+                Thread.sleep(5_000);
+              } catch (InterruptedException exception) {
+                interrupted.countDown();
+                Thread.currentThread().interrupt();
+              }
+              return withSuccess("[[{\"label\":\"POSITIVE\",\"score\":1.0}]]", MediaType.APPLICATION_JSON)
+                  .createResponse(request);
+            });
+    SentimentAnalysisService slow =
+        new SentimentAnalysisService(
+            builder.build(), objectMapper, 100, 100, 1, 100, "", Duration.ofSeconds(3), "", "", 2);
+    ReflectionTestUtils.setField(slow, "apiToken", "test-token");
+    ReflectionTestUtils.setField(slow, "modelPath", "/model");
+
+    // Execute test
+    long start = System.nanoTime();
+    try (RequestDeadline.Scope scope = RequestDeadline.after(Duration.ofMillis(300)).enter()) {
+      Assertions.assertThrows(DeadlineExceededException.class, () -> slow.analyze("Nice."));
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    // Verify the results
+    Assertions.assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "elapsed " + elapsed);
+    Assertions.assertTrue(interrupted.await(2, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void languageWithOwnModelIsRoutedToIt() {
+    // Prepare stubbing for the default and the German model
+    RestClient.Builder builder = RestClient.builder().baseUrl("http://provider");
+    MockRestServiceServer server = MockRestServiceServer.bindTo(builder).ignoreExpectOrder(true).build();
+    server
+        .expect(requestTo("http://provider/german"))
+        .andRespond(withSuccess("[[{\"label\":\"negative\",\"score\":0.8}]]", MediaType.APPLICATION_JSON));
+    server
+        .expect(requestTo("http://provider/model"))
+        .andRespond(withSuccess("[[{\"label\":\"POSITIVE\",\"score\":0.7}]]", MediaType.APPLICATION_JSON));
+    SentimentAnalysisService routed =
+        new SentimentAnalysisService(
+            builder.build(),
+            objectMapper,
+            100,
+            100,
+            1,
+            100,
+            "",
+            Duration.ofSeconds(3),
+            "negative=NEGATIVE",
+            "de=/german",
+            2);
+    ReflectionTestUtils.setField(routed, "apiToken", "test-token");
+    ReflectionTestUtils.setField(routed, "modelPath", "/model");
+
+    // Execute test
+    SentimentResult german = routed.analyze("Die Lieferung war leider viel zu spät und der Karton kaputt.");
+    SentimentResult english = routed.analyze("The delivery was fine and the product works.");
+
+    // Verify the results
+    server.verify();
+    Assertions.assertEquals(new SentimentResult("NEGATIVE", 0.8), german);
+    Assertions.assertEquals(new SentimentResult("POSITIVE", 0.7), english);
+    Assertions.assertEquals("/model;de=/german", routed.getModelVersion());
+  }
+
+  @Test
+  void batchKeepsInputOrder() {
+    // Execute test
+    List<SentimentResult> results = sentimentAnalysisService.analyzeBatch(List.of("so bad", "nice"));
+
+    // Verify the results
+    Assertions.assertEquals(List.of("NEGATIVE", "POSITIVE"), results.stream().map(SentimentResult::label).toList());
+    Assertions.assertEquals(List.of(List.of("so bad", "nice")), requests);
+  }
+}
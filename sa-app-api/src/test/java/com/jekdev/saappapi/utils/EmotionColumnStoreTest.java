@@ -0,0 +1,112 @@
+package com.jekdev.saappapi.utils;
+
+import com.jekdev.saappapi.dto.LabelStatistics;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class EmotionColumnStoreTest {
+
+  private EmotionColumnStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = new EmotionColumnStore();
+    store.append(1, 10, "POSITIVE", 0.9);
+    store.append(2, 10, "NEGATIVE", 0.6);
+    store.append(3, 20, "POSITIVE", 0.5);
+    store.append(4, 20, "POSITIVE", 1.0);
+  }
+
+  @Test
+  void labelStatisticsOverAllClients() {
+    // Execute test
+    List<LabelStatistics> statistics = store.labelStatistics(null, 10);
+
+    // Verify the results
+    Assertions.assertEquals(2, statistics.size());
+    LabelStatistics positive = statistics.getFirst();
+    Assertions.assertEquals("POSITIVE", positive.getLabel());
+    Assertions.assertEquals(3, positive.getCount());
+    Assertions.assertEquals(0.8, positive.getMeanScore(), 1e-6);
+    Assertions.assertEquals(0.5, positive.getMinScore(), 1e-6);
+    Assertions.assertEquals(1.0, positive.getMaxScore(), 1e-6);
+    Assertions.assertEquals(1, positive.getHistogram()[5]);
+    Assertions.assertEquals(2, positive.getHistogram()[9]);
+  }
+
+  @Test
+  void labelStatisticsForOneClient() {
+    // Execute test
+    List<LabelStatistics> statistics = store.labelStatistics(20L, 10);
+
+    // Verify the results
+    Assertions.assertEquals(1, statistics.size());
+    Assertions.assertEquals(2, statistics.getFirst().getCount());
+  }
+
+  @Test
+  void tombstonedRowsAreSkipped() {
+    // Execute test
+    boolean removed = store.tombstone(2);
+    boolean removedAgain = store.tombstone(2);
+
+    // Verify the results
+    Assertions.assertTrue(removed);
+    Assertions.assertFalse(removedAgain);
+    Assertions.assertEquals(3, store.liveRows());
+    Assertions.assertEquals(1, store.labelStatistics(null, 10).size());
+  }
+
+  @Test
+  void duplicateAndOutOfOrderAppends() {
+    // Execute test
+    boolean duplicate = store.append(3, 20, "POSITIVE", 0.5);
+    store.append(5000, 30, "NEGATIVE", 0.7);
+    store.append(4000, 30, "NEGATIVE", 0.8);
+    for (int id = 5; id < 3000; id++) {
+      store.append(id, 40, "NEUTRAL", 0.5);
+    }
+
+    // Verify the results
+    Assertions.assertFalse(duplicate);
+    Assertions.assertTrue(store.tombstone(4000));
+    Assertions.assertEquals(1, store.labelStatistics(30L, 10).getFirst().getCount());
+    Assertions.assertEquals(3000, store.liveRows());
+  }
+
+  @Test
+  void lateAppendsAreInsertedInIdOrder() {
+    // Execute test
+    store.append(10, 30, "NEGATIVE", 0.7);
+    store.append(8, 30, "NEGATIVE", 0.8);
+    store.append(7, 40, "NEUTRAL", 0.5);
+    store.append(9, 40, "NEUTRAL", 0.5);
+    boolean duplicate = store.append(8, 30, "NEGATIVE", 0.8);
+
+    // Verify the results
+    Assertions.assertTrue(store.isOrdered());
+    Assertions.assertFalse(duplicate);
+    Assertions.assertTrue(store.tombstone(8));
+    Assertions.assertTrue(store.tombstone(7));
+    Assertions.assertTrue(store.replace(9, 40, "POSITIVE", 0.9));
+    Assertions.assertEquals(1, store.labelStatistics(30L, 10).getFirst().getCount());
+    Assertions.assertEquals(6, store.liveRows());
+  }
+
+  @Test
+  void replacedRowsAreAggregatedWithTheirNewLabel() {
+    // Execute test
+    boolean replaced = store.replace(2, 10, "POSITIVE", 0.7);
+    boolean replacedTombstone = store.tombstone(3) && store.replace(3, 20, "NEGATIVE", 0.8);
+
+    // Verify the results
+    Assertions.assertTrue(replaced);
+    Assertions.assertFalse(replacedTombstone);
+    List<LabelStatistics> statistics = store.labelStatistics(null, 10);
+    Assertions.assertEquals(1, statistics.size());
+    Assertions.assertEquals(3, statistics.getFirst().getCount());
+    Assertions.assertEquals(0.7, statistics.getFirst().getMinScore(), 1e-6);
+  }
+}
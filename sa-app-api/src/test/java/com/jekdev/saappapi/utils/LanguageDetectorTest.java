@@ -0,0 +1,63 @@
+package com.jekdev.saappapi.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class LanguageDetectorTest {
+
+  private static final LanguageDetector DETECTOR = LanguageDetector.fromBundledSamples();
+
+  @ParameterizedTest
+  @CsvSource(
+      delimiter = '|',
+      value = {
+        "en | I really like this phone, the screen is bright and the camera takes great pictures.",
+        "de | Ich bin sehr enttäuscht, das Gerät ist nach einer Woche kaputt gegangen.",
+        "fr | Je suis très déçu, l'appareil est tombé en panne après une semaine.",
+        "es | Estoy muy decepcionado, el aparato se rompió después de una semana.",
+        "it | Sono molto deluso, il dispositivo si è rotto dopo una settimana.",
+        "pt | Estou muito decepcionado, o aparelho quebrou depois de uma semana.",
+        "nl | Ik ben erg teleurgesteld, het apparaat ging na een week kapot."
+      })
+  void detectsLatinLanguages(String language, String text) {
+    // Execute test
+    String detected = DETECTOR.detect(text);
+
+    // Verify the results
+    Assertions.assertEquals(language, detected);
+  }
+
+  @Test
+  void detectsLanguageFromScript() {
+    // Verify the results
+    Assertions.assertEquals("ja", DETECTOR.detect("この商品は素晴らしい"));
+    Assertions.assertEquals("zh", DETECTOR.detect("这个产品很好"));
+    Assertions.assertEquals("ru", DETECTOR.detect("Отличный товар"));
+  }
+
+  @Test
+  void tooShortTextIsUndetermined() {
+    // Verify the results
+    Assertions.assertNull(DETECTOR.detect("ok"));
+    Assertions.assertNull(DETECTOR.detect("!!! 123"));
+  }
+
+  @ParameterizedTest
+  @CsvSource({"Great product", "Terrible service", "Excellent customer service", "Not bad at all"})
+  void shortEnglishIsNeverRoutedToAnotherLanguage(String text) {
+    // Execute test
+    String detected = DETECTOR.detect(text);
+
+    // Verify the results
+    Assertions.assertTrue(detected == null || "en".equals(detected), text + " detected as " + detected);
+  }
+
+  @Test
+  void mixedLanguageTextIsUndetermined() {
+    // Verify the results
+    Assertions.assertNull(DETECTOR.detect("Das Produkt ist really great, merci beaucoup"));
+    Assertions.assertNull(DETECTOR.detect("Great product, sehr gut, très bien, muy bueno"));
+  }
+}
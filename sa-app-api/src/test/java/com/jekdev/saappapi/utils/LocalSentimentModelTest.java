@@ -0,0 +1,69 @@
+package com.jekdev.saappapi.utils;
+
+import com.jekdev.saappapi.utils.LocalSentimentModel.LabeledText;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LocalSentimentModelTest {
+
+  private static List<LabeledText> reviews() {
+    List<LabeledText> reviews = new ArrayList<>();
+    for (String item : List.of("delivery", "support", "product", "app", "service", "update", "price", "store")) {
+      reviews.add(new LabeledText("I love the " + item + ", it is great", "POSITIVE"));
+      reviews.add(new LabeledText("The " + item + " was excellent and fast", "POSITIVE"));
+      reviews.add(new LabeledText("Really happy with the " + item, "POSITIVE"));
+      reviews.add(new LabeledText("I hate the " + item + ", it is terrible", "NEGATIVE"));
+      reviews.add(new LabeledText("The " + item + " was awful and slow", "NEGATIVE"));
+      reviews.add(new LabeledText("Really disappointed with the " + item, "NEGATIVE"));
+    }
+    return reviews;
+  }
+
+  @Test
+  void trainedModelSeparatesTheLabels() {
+    // Execute test
+    LocalSentimentModel model = LocalSentimentModel.train(reviews(), 10);
+
+    // Verify the results
+    Assertions.assertEquals(List.of("NEGATIVE", "POSITIVE"), model.labels());
+    SentimentResult positive = model.predict("I love the checkout, it is excellent");
+    SentimentResult negative = model.predict("Terrible checkout, really disappointed");
+    Assertions.assertEquals("POSITIVE", positive.label());
+    Assertions.assertEquals("NEGATIVE", negative.label());
+    Assertions.assertTrue(positive.score() > 0.5 && positive.score() <= 1);
+    Assertions.assertTrue(model.version().startsWith(LocalSentimentModel.VERSION_PREFIX));
+  }
+
+  @Test
+  void writtenModelReadsBackUnchanged() throws IOException {
+    // Prepare the model
+    LocalSentimentModel model = LocalSentimentModel.train(reviews(), 3);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    // Execute test
+    model.write(output);
+    LocalSentimentModel read = LocalSentimentModel.read(new ByteArrayInputStream(output.toByteArray()));
+
+    // Verify the results
+    Assertions.assertEquals(model.version(), read.version());
+    Assertions.assertEquals(model.predict("great store"), read.predict("great store"));
+  }
+
+  @Test
+  void readRejectsOtherFiles() {
+    // Execute test and verify the results
+    Assertions.assertThrows(
+        IOException.class, () -> LocalSentimentModel.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6})));
+  }
+
+  @Test
+  void trainRejectsAnEmptyCorpus() {
+    // Execute test and verify the results
+    Assertions.assertThrows(IllegalArgumentException.class, () -> LocalSentimentModel.train(List.of(), 1));
+  }
+}
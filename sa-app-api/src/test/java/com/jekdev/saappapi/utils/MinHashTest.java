@@ -0,0 +1,76 @@
+package com.jekdev.saappapi.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MinHashTest {
+
+  private static final String TEXT =
+      "The delivery was late and the box was damaged, very disappointing experience overall.";
+
+  @Test
+  void punctuationAndCasingAreIgnored() {
+    // Execute test
+    double similarity =
+        MinHash.similarity(
+            MinHash.signature(TEXT),
+            MinHash.signature(
+                "the delivery was LATE and the box was damaged - very disappointing experience overall!"));
+
+    // Verify the results
+    Assertions.assertEquals(1.0, similarity);
+  }
+
+  @Test
+  void oneChangedWordIsSimilar() {
+    // Execute test
+    double similarity =
+        MinHash.similarity(
+            MinHash.signature(TEXT),
+            MinHash.signature(
+                "The delivery was late and the box was damaged, really disappointing experience overall."));
+
+    // Verify the results
+    Assertions.assertTrue(similarity >= 0.7, "similarity " + similarity);
+  }
+
+  @Test
+  void unrelatedTextsAreDissimilar() {
+    // Execute test
+    double similarity =
+        MinHash.similarity(
+            MinHash.signature(TEXT), MinHash.signature("Support answered within minutes and solved my problem."));
+
+    // Verify the results
+    Assertions.assertTrue(similarity < 0.2, "similarity " + similarity);
+  }
+
+  @Test
+  void nearDuplicatesShareABand() {
+    // Prepare test data
+    int[] first = MinHash.signature(TEXT);
+    int[] second = MinHash.signature("The delivery was late and the box was damaged, very disappointing experience.");
+
+    // Execute test
+    boolean shared = false;
+    for (int band = 0; band < MinHash.BANDS; band++) {
+      shared |= MinHash.bandKey(first, band) == MinHash.bandKey(second, band);
+    }
+
+    // Verify the results
+    Assertions.assertTrue(shared);
+  }
+
+  @Test
+  void signatureSurvivesSerialization() {
+    // Prepare test data
+    int[] signature = MinHash.signature(TEXT);
+
+    // Execute test
+    byte[] bytes = MinHash.toBytes(signature);
+
+    // Verify the results
+    Assertions.assertEquals(MinHash.BYTES, bytes.length);
+    Assertions.assertArrayEquals(signature, MinHash.fromBytes(bytes));
+  }
+}
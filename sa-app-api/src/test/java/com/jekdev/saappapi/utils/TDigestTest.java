@@ -0,0 +1,77 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TDigestTest {
+
+  @Test
+  void quantilesOfUniformValues() {
+    // Prepare test data
+    TDigest digest = new TDigest(100);
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      digest.add(random.nextDouble() * 2 - 1);
+    }
+
+    // Verify the results
+    Assertions.assertEquals(100_000, digest.count());
+    Assertions.assertEquals(0.0, digest.quantile(0.5), 0.02);
+    Assertions.assertEquals(0.8, digest.quantile(0.9), 0.02);
+    Assertions.assertEquals(0.98, digest.quantile(0.99), 0.005);
+  }
+
+  @Test
+  void mergeAndSerialize() {
+    // Prepare test data
+    TDigest lower = new TDigest(100);
+    TDigest upper = new TDigest(100);
+    for (int i = 0; i < 1000; i++) {
+      lower.add(i / 1000.0);
+      upper.add(1 + i / 1000.0);
+    }
+
+    // Execute test
+    lower.merge(upper);
+    TDigest restored = TDigest.fromBytes(lower.toBytes());
+
+    // Verify the results
+    Assertions.assertEquals(2000, restored.count());
+    Assertions.assertEquals(1.0, restored.quantile(0.5), 0.02);
+    Assertions.assertEquals(lower.quantile(0.9), restored.quantile(0.9), 1e-9);
+  }
+
+  @Test
+  void emptyAndSingleValue() {
+    // Prepare test data
+    TDigest digest = new TDigest(100);
+
+    // Verify the results
+    Assertions.assertTrue(Double.isNaN(digest.quantile(0.5)));
+    digest.add(-0.7);
+    Assertions.assertEquals(-0.7, digest.quantile(0.99));
+  }
+
+  @Test
+  void bufferGrowsWithTheAddedValues() {
+    // Prepare test data
+    TDigest digest = new TDigest(100);
+
+    // Execute test
+    int empty = digest.bufferCapacity();
+    for (int i = 0; i < 3; i++) {
+      digest.add(i);
+    }
+    int few = digest.bufferCapacity();
+    for (int i = 0; i < 10_000; i++) {
+      digest.add(i);
+    }
+
+    // Verify the results
+    Assertions.assertEquals(0, empty);
+    Assertions.assertEquals(8, few);
+    Assertions.assertEquals(500, digest.bufferCapacity());
+    Assertions.assertEquals(10_003, digest.count());
+  }
+}
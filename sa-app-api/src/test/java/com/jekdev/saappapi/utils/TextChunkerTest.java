@@ -0,0 +1,63 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TextChunkerTest {
+
+  private final TextChunker chunker = new TextChunker(10);
+
+  @Test
+  void shortTextIsOneChunk() {
+    // Execute test
+    List<String> chunks = chunker.split("I like it.");
+
+    // Verify the results
+    Assertions.assertEquals(List.of("I like it."), chunks);
+  }
+
+  @Test
+  void longTextIsSplitOnSentenceBoundaries() {
+    // Prepare test data
+    String text = "The delivery was late. The box was damaged. Support answered quickly. The refund arrived today.";
+
+    // Execute test
+    List<String> chunks = chunker.split(text);
+
+    // Verify the results
+    Assertions.assertTrue(chunks.size() > 1);
+    Assertions.assertTrue(chunks.stream().allMatch(chunk -> TextPreprocessor.estimateTokens(chunk) <= 10));
+    Assertions.assertTrue(chunks.stream().allMatch(chunk -> chunk.endsWith(".")));
+    Assertions.assertEquals(text, String.join(" ", chunks));
+  }
+
+  @Test
+  void overlongSentenceIsSplitOnWords() {
+    // Prepare test data
+    String text = "This single sentence is far too long to fit into one chunk of the tiny model limit";
+
+    // Execute test
+    List<String> chunks = chunker.split(text);
+
+    // Verify the results
+    Assertions.assertTrue(chunks.size() > 1);
+    Assertions.assertTrue(chunks.stream().allMatch(chunk -> TextPreprocessor.estimateTokens(chunk) <= 10));
+    Assertions.assertEquals(text, String.join(" ", chunks));
+  }
+
+  @Test
+  void editKeepsLaterChunks() {
+    // Prepare test data
+    String original = "Great start. The middle part dragged on a lot. Then the ending was superb. Would buy again.";
+    String edited = "Bad start. The middle part dragged on a lot. Then the ending was superb. Would buy again.";
+
+    // Execute test
+    List<String> before = chunker.split(original);
+    List<String> after = chunker.split(edited);
+
+    // Verify the results
+    Assertions.assertEquals(before.getLast(), after.getLast());
+    Assertions.assertNotEquals(before.getFirst(), after.getFirst());
+  }
+}
@@ -0,0 +1,61 @@
+package com.jekdev.saappapi.utils;
+
+import com.jekdev.saappapi.utils.TextPreprocessor.PreprocessedText;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TextPreprocessorTest {
+
+  @Test
+  void canonicalTextIsReturnedAsIs() {
+    // Prepare test data
+    String text = "I really like this product.";
+
+    // Execute test
+    String canonical = TextPreprocessor.canonicalize(text);
+
+    // Verify the results
+    Assertions.assertSame(text, canonical);
+  }
+
+  @Test
+  void whitespaceAndInvisibleCharactersAreCollapsed() {
+    // Execute test
+    String canonical = TextPreprocessor.canonicalize("\uFEFF  I really \t\n like\u200B it.\u00A0 ");
+
+    // Verify the results
+    Assertions.assertEquals("I really like it.", canonical);
+  }
+
+  @Test
+  void textIsNfcNormalized() {
+    // Execute test
+    String canonical = TextPreprocessor.canonicalize("Cafe\u0301 au lait");
+
+    // Verify the results
+    Assertions.assertEquals("Caf\u00E9 au lait", canonical);
+  }
+
+  @Test
+  void tokensApproximateWordPiece() {
+    // Verify the results
+    Assertions.assertEquals(0, TextPreprocessor.estimateTokens(""));
+    Assertions.assertEquals(6, TextPreprocessor.estimateTokens("I like it, really!"));
+    Assertions.assertEquals(4, TextPreprocessor.estimateTokens("internationalization"));
+    Assertions.assertEquals(3, TextPreprocessor.estimateTokens("\u611B\u60C5\u5FC3"));
+  }
+
+  @Test
+  void longTextIsTruncatedAtWordBoundary() {
+    // Prepare test data
+    TextPreprocessor textPreprocessor = new TextPreprocessor(4);
+
+    // Execute test
+    PreprocessedText shortText = textPreprocessor.preprocess(" Great  product. ");
+    PreprocessedText longText = textPreprocessor.preprocess("Great product, would buy again.");
+
+    // Verify the results
+    Assertions.assertEquals(new PreprocessedText("Great product.", 3, false), shortText);
+    Assertions.assertEquals(new PreprocessedText("Great product, would", 4, true), longText);
+  }
+}
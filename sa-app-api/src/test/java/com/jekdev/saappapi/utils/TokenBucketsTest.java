@@ -0,0 +1,70 @@
+package com.jekdev.saappapi.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TokenBucketsTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  void bucketAllowsBurstThenRefills() {
+    // Prepare the buckets
+    TokenBuckets buckets = new TokenBuckets(1000, now::get);
+
+    // Execute test and verify the results
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertEquals(0, buckets.tryAcquire("a@local.mail", 3, 2));
+    }
+    Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), buckets.tryAcquire("a@local.mail", 3, 2));
+    Assertions.assertEquals(0, buckets.tryAcquire("b@local.mail", 3, 2));
+
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+    Assertions.assertEquals(0, buckets.tryAcquire("a@local.mail", 3, 2));
+    Assertions.assertTrue(buckets.tryAcquire("a@local.mail", 3, 2) > 0);
+  }
+
+  @Test
+  void tableStaysBoundedAndDropsIdleBuckets() {
+    // Prepare the buckets
+    TokenBuckets buckets = new TokenBuckets(128, now::get);
+
+    // Execute test
+    for (int i = 0; i < 10_000; i++) {
+      buckets.tryAcquire("client-" + i, 5, 1);
+    }
+
+    // Verify the results
+    Assertions.assertTrue(buckets.size() <= 128, "size " + buckets.size());
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    for (int i = 0; i < 64; i++) {
+      buckets.tryAcquire("fresh-" + i, 5, 1);
+    }
+    Assertions.assertTrue(buckets.size() < 128, "size " + buckets.size());
+  }
+
+  @Test
+  void drainedBucketIsNotEvictedForANewKey() {
+    // Prepare buckets with one bucket per stripe and a drained bucket
+    TokenBuckets buckets = new TokenBuckets(1, now::get);
+    Assertions.assertEquals(0, buckets.tryAcquire("a@local.mail", 1, 1));
+
+    // Execute test
+    long wait = 0;
+    int key = 0;
+    while (wait == 0) {
+      key++;
+      wait = buckets.tryAcquire("client-" + key, 1, 1);
+    }
+
+    // Verify the results
+    Assertions.assertTrue(wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+    Assertions.assertTrue(buckets.tryAcquire("a@local.mail", 1, 1) > 0);
+
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    Assertions.assertEquals(0, buckets.tryAcquire("client-" + key, 1, 1));
+  }
+}
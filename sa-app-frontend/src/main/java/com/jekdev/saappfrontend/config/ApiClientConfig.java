@@ -1,7 +1,12 @@
 package com.jekdev.saappfrontend.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
 /**
@@ -12,8 +17,32 @@ import org.springframework.web.client.RestClient;
 @Configuration
 public class ApiClientConfig {
 
+  /** Request header with the timeout of the call in milliseconds, honoured by the backend API. */
+  static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout";
+
+  /**
+   * The client of the backend API at {@code api.base-url}. It sends through one shared JDK {@link HttpClient} over
+   * HTTP/1.1, which keeps its connections alive and reuses them for later calls instead of opening a connection per
+   * call. Every call gives up after {@code api.request-timeout} and tells the API so in the {@value
+   * #REQUEST_TIMEOUT_HEADER} header, so the API stops working on a request once the UI no longer waits for it.
+   *
+   * <p>Calls are observed as {@code http.client.requests}, tagged with the URI template of the endpoint.
+   */
   @Bean
-  RestClient saApiClient() {
-    return RestClient.builder().baseUrl("http://localhost:8080").build();
+  RestClient saApiClient(
+      @Value("${api.base-url:http://localhost:8080}") String baseUrl,
+      @Value("${api.connect-timeout:2s}") Duration connectTimeout,
+      @Value("${api.request-timeout:10s}") Duration requestTimeout,
+      ObservationRegistry observationRegistry) {
+    HttpClient httpClient =
+        HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(connectTimeout).build();
+    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+    requestFactory.setReadTimeout(requestTimeout);
+    return RestClient.builder()
+        .baseUrl(baseUrl)
+        .requestFactory(requestFactory)
+        .defaultHeader(REQUEST_TIMEOUT_HEADER, Long.toString(requestTimeout.toMillis()))
+        .observationRegistry(observationRegistry)
+        .build();
   }
 }
@@ -0,0 +1,27 @@
+package com.jekdev.saappfrontend.errorhandling;
+
+import java.time.Duration;
+import lombok.Getter;
+
+/**
+ * Exception thrown when the backend API is considered unhealthy and is not called, or could not be reached.
+ *
+ * <p>The {@link GlobalExceptionHandler} answers it with the degraded {@code unavailable} page instead of the error
+ * page.
+ */
+@Getter
+public class ApiUnavailableException extends RuntimeException {
+  private final Duration retryAfter;
+
+  /**
+   * Creates a new exception instance.
+   *
+   * @param message reason the API is unavailable
+   * @param retryAfter time after which the API is called again
+   * @param cause the failure that made the API unavailable, may be {@code null}
+   */
+  public ApiUnavailableException(String message, Duration retryAfter, Throwable cause) {
+    super(message, cause);
+    this.retryAfter = retryAfter;
+  }
+}
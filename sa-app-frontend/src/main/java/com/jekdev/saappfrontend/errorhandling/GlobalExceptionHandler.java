@@ -1,8 +1,10 @@
 package com.jekdev.saappfrontend.errorhandling;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.client.HttpServerErrorException;
 
 /**
@@ -43,6 +45,20 @@ public class GlobalExceptionHandler {
     return "error";
   }
 
+  /**
+   * Handles an unhealthy or unreachable backend API with a degraded page instead of the error page.
+   *
+   * @param exception thrown exception
+   * @param model Spring MVC model
+   * @return unavailable template name
+   */
+  @ExceptionHandler(ApiUnavailableException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public String handleApiUnavailableException(ApiUnavailableException exception, Model model) {
+    model.addAttribute("retryAfterSeconds", (exception.getRetryAfter().toMillis() + 999) / 1000);
+    return "unavailable";
+  }
+
   /**
    * Handles backend 5xx server errors.
    *
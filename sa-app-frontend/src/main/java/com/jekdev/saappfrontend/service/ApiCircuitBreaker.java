@@ -0,0 +1,192 @@
+package com.jekdev.saappfrontend.service;
+
+import com.jekdev.saappfrontend.errorhandling.ApiUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Circuit breakers in front of the backend API, one per endpoint.
+ *
+ * <p>After {@code api.circuit-breaker.failure-threshold} consecutive failed calls to an endpoint, its circuit opens and
+ * calls to it fail right away with an {@link ApiUnavailableException} for {@code api.circuit-breaker.open-duration},
+ * so pages answer with a degraded page instead of waiting on an API that is down. Afterwards a single probe call is let
+ * through: if it succeeds the circuit closes, otherwise it opens again. A call fails if the API cannot be reached or
+ * answers with a server error; client errors such as 404 show that the API is healthy. Since every endpoint has its
+ * own circuit, a failing endpoint does not take the healthy ones down with it.
+ *
+ * <p>The gauge {@value #STATE_METRIC} shows the state of each circuit, {@code 0} closed, {@code 1} open and {@code 2}
+ * half-open, and the counter {@value #REJECTED_METRIC} counts the calls failed without calling the API; both are tagged
+ * with the {@code endpoint}.
+ */
+@Slf4j
+@Component
+public class ApiCircuitBreaker {
+
+  /** Name of the gauge of the circuit state. */
+  public static final String STATE_METRIC = "api.circuit-breaker.state";
+
+  /** Name of the counter of calls rejected while the circuit is open. */
+  public static final String REJECTED_METRIC = "api.circuit-breaker.rejected";
+
+  private final int failureThreshold;
+  private final Duration openDuration;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, AtomicReference<Circuit>> circuits = new ConcurrentHashMap<>();
+
+  /**
+   * @param failureThreshold the consecutive failures that open the circuit
+   * @param openDuration how long the circuit stays open before a probe call
+   * @param meterRegistry the registry of the circuit metrics
+   */
+  public ApiCircuitBreaker(
+      @Value("${api.circuit-breaker.failure-threshold:5}") int failureThreshold,
+      @Value("${api.circuit-breaker.open-duration:30s}") Duration openDuration,
+      MeterRegistry meterRegistry) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Makes a call to the API unless the circuit of the endpoint is open.
+   *
+   * @param endpoint the URI template of the called endpoint, which selects the circuit and is used as metric tag
+   * @param call the call
+   * @return the result of the call
+   * @throws ApiUnavailableException if the circuit is open, or the API could not be reached
+   */
+  public <T> T call(String endpoint, Supplier<T> call) {
+    AtomicReference<Circuit> circuit = circuit(endpoint);
+    Circuit admitted = admit(circuit, endpoint);
+    if (admitted == null) {
+      meterRegistry.counter(REJECTED_METRIC, "endpoint", endpoint).increment();
+      throw new ApiUnavailableException("The API is unavailable.", retryAfter(circuit), null);
+    }
+    try {
+      T result = call.get();
+      onSuccess(circuit, endpoint);
+      return result;
+    } catch (ResourceAccessException exception) {
+      onFailure(circuit, endpoint, admitted);
+      throw new ApiUnavailableException("The API could not be reached.", retryAfter(circuit), exception);
+    } catch (HttpServerErrorException exception) {
+      onFailure(circuit, endpoint, admitted);
+      throw exception;
+    } catch (RuntimeException exception) {
+      onSuccess(circuit, endpoint);
+      throw exception;
+    }
+  }
+
+  /**
+   * @param endpoint the URI template of the endpoint
+   * @return the state of the endpoint's circuit
+   */
+  public State getState(String endpoint) {
+    AtomicReference<Circuit> circuit = circuits.get(endpoint);
+    return circuit == null ? State.CLOSED : circuit.get().state();
+  }
+
+  /** Returns the circuit of an endpoint, creating it and its gauge on the first call. */
+  private AtomicReference<Circuit> circuit(String endpoint) {
+    return circuits.computeIfAbsent(
+        endpoint,
+        key -> {
+          AtomicReference<Circuit> circuit = new AtomicReference<>(Circuit.CLOSED);
+          Gauge.builder(STATE_METRIC, circuit, current -> current.get().state().ordinal())
+              .tag("endpoint", key)
+              .register(meterRegistry);
+          return circuit;
+        });
+  }
+
+  /** Returns the circuit the call was admitted in, or {@code null} if it is rejected. */
+  private Circuit admit(AtomicReference<Circuit> circuit, String endpoint) {
+    while (true) {
+      Circuit current = circuit.get();
+      if (current.state() == State.CLOSED) {
+        return current;
+      }
+      if (current.state() == State.HALF_OPEN || System.nanoTime() - current.openedAt() < openDuration.toNanos()) {
+        return null;
+      }
+      Circuit probe = new Circuit(State.HALF_OPEN, 0, current.openedAt());
+      if (circuit.compareAndSet(current, probe)) {
+        log.info("Probing {} after {} s", endpoint, openDuration.toSeconds());
+        return probe;
+      }
+    }
+  }
+
+  private static void onSuccess(AtomicReference<Circuit> circuit, String endpoint) {
+    Circuit previous = circuit.get();
+    if (previous != Circuit.CLOSED
+        && circuit.compareAndSet(previous, Circuit.CLOSED)
+        && previous.state() != State.CLOSED) {
+      log.info("{} is healthy again, closing its circuit", endpoint);
+    }
+  }
+
+  private void onFailure(AtomicReference<Circuit> circuit, String endpoint, Circuit admitted) {
+    while (true) {
+      Circuit current = circuit.get();
+      Circuit next;
+      if (admitted.state() == State.HALF_OPEN || current.failures() + 1 >= failureThreshold) {
+        if (current.state() == State.OPEN) {
+          return;
+        }
+        next = new Circuit(State.OPEN, 0, System.nanoTime());
+      } else {
+        next = new Circuit(current.state(), current.failures() + 1, current.openedAt());
+      }
+      if (circuit.compareAndSet(current, next)) {
+        if (next.state() == State.OPEN) {
+          log.warn("Calls to {} are failing, opening its circuit for {} s", endpoint, openDuration.toSeconds());
+        }
+        return;
+      }
+    }
+  }
+
+  /** The time until the next probe call, or zero if the circuit is not open. */
+  private Duration retryAfter(AtomicReference<Circuit> circuit) {
+    Circuit current = circuit.get();
+    if (current.state() != State.OPEN) {
+      return Duration.ZERO;
+    }
+    Duration remaining = openDuration.minusNanos(System.nanoTime() - current.openedAt());
+    return remaining.isNegative() ? Duration.ZERO : remaining;
+  }
+
+  /** The state of the circuit. */
+  public enum State {
+    /** Calls go through. */
+    CLOSED,
+    /** Calls fail right away. */
+    OPEN,
+    /** A single probe call decides whether the circuit closes. */
+    HALF_OPEN
+  }
+
+  /**
+   * An immutable snapshot of the circuit, replaced as a whole.
+   *
+   * @param state the state
+   * @param failures the consecutive failures while closed
+   * @param openedAt the {@link System#nanoTime()} the circuit opened at
+   */
+  private record Circuit(State state, int failures, long openedAt) {
+
+    private static final Circuit CLOSED = new Circuit(State.CLOSED, 0, 0);
+  }
+}
@@ -0,0 +1,156 @@
+package com.jekdev.saappfrontend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived cache of API responses that every viewer of a page would otherwise fetch again.
+ *
+ * <p>A response is served from the cache for {@code api.cache.ttl}. For a further {@code
+ * api.cache.stale-while-revalidate} the stale response is still served, while a single background call fetches a fresh
+ * one; a failed refresh keeps the stale response. Concurrent misses of the same key share one call to the API instead
+ * of calling it once each. Writes {@link #invalidateAll() invalidate} the cache, so that the next page shows them; a
+ * call that was under way when the cache was invalidated does not store its result.
+ *
+ * <p>The counter {@value #REQUESTS_METRIC} counts the lookups per {@code cache} key and {@code outcome}: {@code hit},
+ * {@code stale}, {@code miss} or {@code collapsed} for a miss that joined the call of another one.
+ */
+@Slf4j
+@Component
+public class ApiResponseCache {
+
+  /** Name of the counter of cache lookups. */
+  public static final String REQUESTS_METRIC = "api.cache.requests";
+
+  private final Duration ttl;
+  private final Duration staleWhileRevalidate;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final ExecutorService refresher = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * @param ttl how long a response is served without calling the API
+   * @param staleWhileRevalidate how long after the ttl a stale response is served while it is refreshed
+   * @param meterRegistry the registry of the cache metrics
+   */
+  public ApiResponseCache(
+      @Value("${api.cache.ttl:2s}") Duration ttl,
+      @Value("${api.cache.stale-while-revalidate:30s}") Duration staleWhileRevalidate,
+      MeterRegistry meterRegistry) {
+    this.ttl = ttl;
+    this.staleWhileRevalidate = staleWhileRevalidate;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Returns the cached response of a key, calling the API only if there is none that may still be served.
+   *
+   * @param key the key of the response
+   * @param loader the call to the API
+   * @return the response
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String key, Supplier<T> loader) {
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      long age = System.nanoTime() - entry.loadedAt();
+      if (age < ttl.toNanos()) {
+        count(key, "hit");
+        return (T) entry.value();
+      }
+      if (age < ttl.plus(staleWhileRevalidate).toNanos()) {
+        count(key, "stale");
+        refresh(key, loader);
+        return (T) entry.value();
+      }
+    }
+    return (T) load(key, loader, false);
+  }
+
+  /** Drops all cached responses, and keeps the calls under way from storing theirs. */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    entries.clear();
+    inFlight.clear();
+  }
+
+  @PreDestroy
+  void shutdown() {
+    refresher.shutdownNow();
+  }
+
+  /** Refreshes a stale response in the background, unless a call for the key is already under way. */
+  private void refresh(String key, Supplier<?> loader) {
+    if (inFlight.containsKey(key)) {
+      return;
+    }
+    refresher.execute(
+        () -> {
+          try {
+            load(key, loader, true);
+          } catch (RuntimeException exception) {
+            log.warn("Refreshing the cached {} failed, serving the stale response: {}", key, exception.getMessage());
+          }
+        });
+  }
+
+  /** Calls the API for a key, or joins the call under way for it. */
+  private Object load(String key, Supplier<?> loader, boolean background) {
+    CompletableFuture<Object> call = new CompletableFuture<>();
+    CompletableFuture<Object> running = inFlight.putIfAbsent(key, call);
+    if (running != null) {
+      if (background) {
+        return null;
+      }
+      count(key, "collapsed");
+      try {
+        return running.join();
+      } catch (CompletionException exception) {
+        throw exception.getCause() instanceof RuntimeException cause ? cause : exception;
+      }
+    }
+    if (!background) {
+      count(key, "miss");
+    }
+    long startedIn = generation.get();
+    try {
+      Object value = loader.get();
+      if (value != null && generation.get() == startedIn) {
+        entries.put(key, new Entry(value, System.nanoTime()));
+      }
+      call.complete(value);
+      return value;
+    } catch (RuntimeException exception) {
+      call.completeExceptionally(exception);
+      throw exception;
+    } finally {
+      inFlight.remove(key, call);
+    }
+  }
+
+  private void count(String key, String outcome) {
+    meterRegistry.counter(REQUESTS_METRIC, "cache", key, "outcome", outcome).increment();
+  }
+
+  /**
+   * A cached response.
+   *
+   * @param value the response
+   * @param loadedAt the {@link System#nanoTime()} the response was received at
+   */
+  private record Entry(Object value, long loadedAt) {}
+}
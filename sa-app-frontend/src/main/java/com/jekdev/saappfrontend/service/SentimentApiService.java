@@ -4,31 +4,105 @@ import com.jekdev.saappfrontend.dto.ClientRequest;
 import com.jekdev.saappfrontend.dto.ClientResponse;
 import com.jekdev.saappfrontend.dto.EmotionRequest;
 import com.jekdev.saappfrontend.dto.EmotionResponse;
+import com.jekdev.saappfrontend.errorhandling.ApiUnavailableException;
 import com.jekdev.saappfrontend.errorhandling.ElementNotFoundException;
 import com.jekdev.saappfrontend.errorhandling.PresentElementException;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriTemplate;
 
 /**
  * Client-facing service for calling backend API endpoints from the frontend module.
  *
  * <p>This service encapsulates all HTTP communication from the UI layer to the API module and translates backend
- * errors into frontend-specific exceptions used by the global error handler.
+ * errors into frontend-specific exceptions used by the global error handler. Every create is sent with a new
+ * {@code Idempotency-Key}, so that retries of the same call are replayed by the backend instead of processed twice.
+ *
+ * <p>All calls go through the {@link ApiCircuitBreaker}. Reads and creates, which the idempotency key makes safe to
+ * repeat, are retried up to {@code api.retry.max-attempts} times with exponential backoff from {@code
+ * api.retry.backoff} and jitter if the API could not be reached or answered 502 Bad Gateway or 503 Service
+ * Unavailable. Timeouts are not retried: the API has already given up on the request at its deadline, and a retry
+ * would double the wait of the user. The counter {@value #RETRIES_METRIC} counts the retries per {@code endpoint}.
+ *
+ * <p>The lists of clients and emotions are served from the {@link ApiResponseCache}. Every write invalidates it, also
+ * when it failed, since the API may have applied it anyway; the client list embeds the emotions of each client, so a
+ * write to either list invalidates both.
+ *
+ * <p>Reads are conditional: the {@code ETag} of the last response of each URI is kept, and sent as {@code
+ * If-None-Match} with the next read of it. While the data is unchanged the API answers 304 Not Modified without a
+ * body and the kept response is reused; the counter {@value #NOT_MODIFIED_METRIC} counts these per {@code endpoint}.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SentimentApiService {
 
+  /**
+   * Header that makes a create idempotent: the backend replays the stored response to a retry with the same key
+   * instead of creating the record twice.
+   */
+  private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  /** Name of the counter of retried calls. */
+  public static final String RETRIES_METRIC = "api.client.retries";
+
+  /** Name of the counter of reads answered with 304 Not Modified. */
+  public static final String NOT_MODIFIED_METRIC = "api.client.not-modified";
+
+  /** Number of URIs whose last response is kept for conditional reads. */
+  private static final int MAX_VALIDATED_RESPONSES = 256;
+
+  private static final String CLIENT_CREATE = "/api/client/create";
+  private static final String CLIENT_ALL = "/api/client/find_all";
+  private static final String CLIENT_BY_ID = "/api/client/search/{id}";
+  private static final String EMOTION_CREATE = "/api/emotions/create";
+  private static final String EMOTION_ALL = "/api/emotions/all";
+  private static final String EMOTION_DELETE = "/api/emotions/delete/{id}";
+
+  private static final String CLIENTS_CACHE = "clients";
+  private static final String EMOTIONS_CACHE = "emotions";
+
   private final RestClient client;
+  private final ApiCircuitBreaker circuitBreaker;
+  private final ApiResponseCache cache;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${api.retry.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${api.retry.backoff:100ms}")
+  private Duration backoff;
+
+  private final Map<String, Validated<?>> validated =
+      Collections.synchronizedMap(
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Validated<?>> eldest) {
+              return size() > MAX_VALIDATED_RESPONSES;
+            }
+          });
 
   /**
    * Creates a new client in the backend API.
@@ -39,7 +113,18 @@ public class SentimentApiService {
   public HttpStatusCode createUser(ClientRequest request) {
     try {
 
-      return client.post().uri("/api/client/create").body(request).retrieve().toBodilessEntity().getStatusCode();
+      String idempotencyKey = UUID.randomUUID().toString();
+      return retrying(
+          CLIENT_CREATE,
+          () ->
+              client
+                  .post()
+                  .uri(CLIENT_CREATE)
+                  .header(IDEMPOTENCY_KEY, idempotencyKey)
+                  .body(request)
+                  .retrieve()
+                  .toBodilessEntity()
+                  .getStatusCode());
 
     } catch (HttpClientErrorException exception) {
 
@@ -50,6 +135,8 @@ public class SentimentApiService {
       }
 
       throw new PresentElementException(msg, exception.getStatusText(), exception.getStatusCode());
+    } finally {
+      cache.invalidateAll();
     }
   }
 
@@ -61,11 +148,12 @@ public class SentimentApiService {
   public List<ClientResponse> getAllClient() {
     try {
 
-      return client
-          .get()
-          .uri("/api/client/find_all")
-          .retrieve()
-          .body(new ParameterizedTypeReference<List<ClientResponse>>() {});
+      return cache.get(
+          CLIENTS_CACHE,
+          () ->
+              retrying(
+                  CLIENT_ALL,
+                  () -> conditionalGet(CLIENT_ALL, new ParameterizedTypeReference<List<ClientResponse>>() {})));
 
     } catch (HttpClientErrorException e) {
 
@@ -89,11 +177,8 @@ public class SentimentApiService {
 
     try {
 
-      return client
-          .get()
-          .uri("/api/client/search/" + id)
-          .retrieve()
-          .body(new ParameterizedTypeReference<ClientResponse>() {});
+      return retrying(
+          CLIENT_BY_ID, () -> conditionalGet(CLIENT_BY_ID, new ParameterizedTypeReference<ClientResponse>() {}, id));
 
     } catch (HttpClientErrorException e) {
 
@@ -116,7 +201,18 @@ public class SentimentApiService {
   public HttpStatusCode createEmotion(EmotionRequest request) {
     try {
 
-      return client.post().uri("/api/emotions/create").body(request).retrieve().toBodilessEntity().getStatusCode();
+      String idempotencyKey = UUID.randomUUID().toString();
+      return retrying(
+          EMOTION_CREATE,
+          () ->
+              client
+                  .post()
+                  .uri(EMOTION_CREATE)
+                  .header(IDEMPOTENCY_KEY, idempotencyKey)
+                  .body(request)
+                  .retrieve()
+                  .toBodilessEntity()
+                  .getStatusCode());
 
     } catch (HttpClientErrorException exception) {
 
@@ -127,6 +223,8 @@ public class SentimentApiService {
       }
 
       throw new PresentElementException(message, exception.getStatusText(), exception.getStatusCode());
+    } finally {
+      cache.invalidateAll();
     }
   }
 
@@ -138,11 +236,12 @@ public class SentimentApiService {
   public List<EmotionResponse> getAllEmotions() {
     try {
 
-      return client
-          .get()
-          .uri("/api/emotions/all")
-          .retrieve()
-          .body(new ParameterizedTypeReference<List<EmotionResponse>>() {});
+      return cache.get(
+          EMOTIONS_CACHE,
+          () ->
+              retrying(
+                  EMOTION_ALL,
+                  () -> conditionalGet(EMOTION_ALL, new ParameterizedTypeReference<List<EmotionResponse>>() {})));
 
     } catch (HttpClientErrorException exception) {
 
@@ -165,13 +264,16 @@ public class SentimentApiService {
   public HttpStatusCode deleteEmotion(Long id) {
     try {
 
-      return client
-          .delete()
-          .uri("/api/emotions/delete/" + id)
-          .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-          .retrieve()
-          .toBodilessEntity()
-          .getStatusCode();
+      return circuitBreaker.call(
+          EMOTION_DELETE,
+          () ->
+              client
+                  .delete()
+                  .uri(EMOTION_DELETE, id)
+                  .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                  .retrieve()
+                  .toBodilessEntity()
+                  .getStatusCode());
 
     } catch (HttpClientErrorException exception) {
 
@@ -182,6 +284,91 @@ public class SentimentApiService {
       }
 
       throw new ElementNotFoundException(message, exception.getStatusText(), exception.getStatusCode());
+    } finally {
+      cache.invalidateAll();
     }
   }
+
+  /**
+   * Reads a resource, reusing the kept response of its URI if the API answers that it has not been modified.
+   *
+   * @param endpoint the URI template of the resource
+   * @param type the type of the response body
+   * @param uriVariables the values of the URI template variables
+   * @return the response body
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T conditionalGet(String endpoint, ParameterizedTypeReference<T> type, Object... uriVariables) {
+    String uri = new UriTemplate(endpoint).expand(uriVariables).toString();
+    Validated<T> previous = (Validated<T>) validated.get(uri);
+    ResponseEntity<T> response =
+        client
+            .get()
+            .uri(endpoint, uriVariables)
+            .headers(
+                headers -> {
+                  if (previous != null) {
+                    headers.setIfNoneMatch(previous.eTag());
+                  }
+                })
+            .retrieve()
+            .toEntity(type);
+
+    if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+      meterRegistry.counter(NOT_MODIFIED_METRIC, "endpoint", endpoint).increment();
+      return previous.body();
+    }
+    String eTag = response.getHeaders().getETag();
+    if (eTag != null && response.getBody() != null) {
+      validated.put(uri, new Validated<>(eTag, response.getBody()));
+    } else {
+      validated.remove(uri);
+    }
+    return response.getBody();
+  }
+
+  /**
+   * Makes a call that is safe to repeat through the circuit breaker, retrying it while the failure is transient.
+   *
+   * @param endpoint the URI template of the called endpoint, used as metric tag
+   * @param call the call
+   * @return the result of the call
+   */
+  private <T> T retrying(String endpoint, Supplier<T> call) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return circuitBreaker.call(endpoint, call);
+      } catch (ApiUnavailableException | HttpServerErrorException exception) {
+        if (attempt >= maxAttempts || !isRetryable(exception)) {
+          throw exception;
+        }
+        meterRegistry.counter(RETRIES_METRIC, "endpoint", endpoint).increment();
+        long delay = backoff.toMillis() << (attempt - 1);
+        try {
+          Thread.sleep(delay / 2 + ThreadLocalRandom.current().nextLong(delay + 1));
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw exception;
+        }
+      }
+    }
+  }
+
+  /** Server errors of a proxy or an overloaded API, and connection failures other than timeouts, are transient. */
+  private static boolean isRetryable(RuntimeException exception) {
+    if (exception instanceof HttpServerErrorException serverError) {
+      int status = serverError.getStatusCode().value();
+      return status == 502 || status == 503;
+    }
+    return exception.getCause() instanceof ResourceAccessException unreachable
+        && !(unreachable.getCause() instanceof HttpTimeoutException);
+  }
+
+  /**
+   * The last response of a URI, kept for conditional reads.
+   *
+   * @param eTag the entity tag of the response
+   * @param body the response body
+   */
+  private record Validated<T>(String eTag, T body) {}
 }
@@ -0,0 +1,97 @@
+package com.jekdev.saappfrontend.service;
+
+import com.jekdev.saappfrontend.errorhandling.ApiUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+class ApiCircuitBreakerTest {
+
+  private static final String ENDPOINT = "/api/emotions/all";
+
+  private static final String SEARCH = "/api/client/search/{id}";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ApiCircuitBreaker circuitBreaker = new ApiCircuitBreaker(3, Duration.ofMillis(200), meterRegistry);
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  @Test
+  void circuitOpensAfterConsecutiveFailuresAndClosesAfterASuccessfulProbe() throws Exception {
+    // Prepare stubbing for an unreachable API
+    Supplier<String> unreachable =
+        () -> {
+          calls.incrementAndGet();
+          throw new ResourceAccessException("I/O error", new IOException("Connection refused"));
+        };
+
+    // Execute test
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertThrows(ApiUnavailableException.class, () -> circuitBreaker.call(ENDPOINT, unreachable));
+    }
+    ApiUnavailableException rejected =
+        Assertions.assertThrows(ApiUnavailableException.class, () -> circuitBreaker.call(ENDPOINT, unreachable));
+    Thread.sleep(250);
+    String probe = circuitBreaker.call(ENDPOINT, () -> "ok");
+
+    // Verify the results
+    Assertions.assertEquals(3, calls.get());
+    Assertions.assertTrue(rejected.getRetryAfter().compareTo(Duration.ZERO) > 0);
+    Assertions.assertEquals("ok", probe);
+    Assertions.assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState(ENDPOINT));
+    Assertions.assertEquals(
+        1, meterRegistry.counter(ApiCircuitBreaker.REJECTED_METRIC, "endpoint", ENDPOINT).count());
+  }
+
+  @Test
+  void clientErrorsDoNotOpenTheCircuit() {
+    // Execute test
+    for (int i = 0; i < 5; i++) {
+      Assertions.assertThrows(
+          HttpClientErrorException.class,
+          () ->
+              circuitBreaker.call(
+                  SEARCH,
+                  () -> {
+                    throw new HttpClientErrorException(HttpStatus.CONFLICT);
+                  }));
+    }
+
+    // Verify the results
+    Assertions.assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState(SEARCH));
+  }
+
+  @Test
+  void failingEndpointDoesNotOpenTheCircuitOfAnother() {
+    // Prepare stubbing for an endpoint that answers with server errors
+    for (int i = 0; i < 3; i++) {
+      Assertions.assertThrows(
+          HttpServerErrorException.class,
+          () ->
+              circuitBreaker.call(
+                  ENDPOINT,
+                  () -> {
+                    throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+                  }));
+    }
+
+    // Execute test
+    String other = circuitBreaker.call(SEARCH, () -> "ok");
+
+    // Verify the results
+    Assertions.assertEquals("ok", other);
+    Assertions.assertEquals(ApiCircuitBreaker.State.OPEN, circuitBreaker.getState(ENDPOINT));
+    Assertions.assertEquals(ApiCircuitBreaker.State.CLOSED, circuitBreaker.getState(SEARCH));
+    Assertions.assertEquals(
+        1, meterRegistry.get(ApiCircuitBreaker.STATE_METRIC).tag("endpoint", ENDPOINT).gauge().value());
+  }
+}
@@ -0,0 +1,102 @@
+package com.jekdev.saappfrontend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ApiResponseCacheTest {
+
+  private static final String KEY = "emotions";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicInteger calls = new AtomicInteger();
+
+  private final Supplier<String> loader = () -> "response-" + calls.incrementAndGet();
+
+  @Test
+  void staleResponseIsServedWhileASingleCallRefreshesIt() throws Exception {
+    // Prepare a cache whose entries turn stale right away
+    ApiResponseCache cache = new ApiResponseCache(Duration.ofMillis(50), Duration.ofMinutes(1), meterRegistry);
+    cache.get(KEY, loader);
+    Thread.sleep(100);
+
+    // Execute test
+    String stale = cache.get(KEY, loader);
+    for (int i = 0; i < 50 && calls.get() < 2; i++) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(10);
+    String fresh = cache.get(KEY, loader);
+
+    // Verify the results
+    Assertions.assertEquals("response-1", stale);
+    Assertions.assertEquals("response-2", fresh);
+    Assertions.assertEquals(2, calls.get());
+    Assertions.assertEquals(1, outcome("stale"));
+    Assertions.assertEquals(1, outcome("hit"));
+  }
+
+  @Test
+  void concurrentMissesShareOneCall() throws Exception {
+    // Prepare a loader that blocks until released
+    ApiResponseCache cache = new ApiResponseCache(Duration.ofMinutes(1), Duration.ZERO, meterRegistry);
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Supplier<String> blocking =
+        () -> {
+          entered.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+          return loader.get();
+        };
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Future<String> first = executor.submit(() -> cache.get(KEY, blocking));
+      Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+      // Execute test
+      Future<String> second = executor.submit(() -> cache.get(KEY, blocking));
+      for (int i = 0; i < 50 && outcome("collapsed") == 0; i++) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+
+      // Verify the results
+      Assertions.assertEquals("response-1", first.get(5, TimeUnit.SECONDS));
+      Assertions.assertEquals("response-1", second.get(5, TimeUnit.SECONDS));
+      Assertions.assertEquals(1, calls.get());
+      Assertions.assertEquals(1, outcome("collapsed"));
+    }
+  }
+
+  @Test
+  void invalidationMakesTheNextLookupCallTheApi() {
+    // Prepare a cached response
+    ApiResponseCache cache = new ApiResponseCache(Duration.ofMinutes(1), Duration.ZERO, meterRegistry);
+    cache.get(KEY, loader);
+
+    // Execute test
+    cache.invalidateAll();
+    String afterWrite = cache.get(KEY, loader);
+
+    // Verify the results
+    Assertions.assertEquals("response-2", afterWrite);
+    Assertions.assertEquals(2, outcome("miss"));
+  }
+
+  private double outcome(String outcome) {
+    return meterRegistry.counter(ApiResponseCache.REQUESTS_METRIC, "cache", KEY, "outcome", outcome).count();
+  }
+}
@@ -0,0 +1,159 @@
+package com.jekdev.saappfrontend.service;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import com.jekdev.saappfrontend.dto.ClientRequest;
+import com.jekdev.saappfrontend.dto.EmotionRequest;
+import com.jekdev.saappfrontend.dto.EmotionResponse;
+import com.jekdev.saappfrontend.errorhandling.ApiUnavailableException;
+import com.jekdev.saappfrontend.errorhandling.PresentElementException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+class SentimentApiServiceTest {
+
+  private static final String EMOTIONS = "http://api/api/emotions/all";
+
+  private static final String CREATE = "http://api/api/emotions/create";
+
+  private static final String ETAG = "W/\"4.7\"";
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final ApiResponseCache cache = new ApiResponseCache(Duration.ofMinutes(1), Duration.ZERO, meterRegistry);
+
+  private MockRestServiceServer server;
+
+  private SentimentApiService service;
+
+  @BeforeEach
+  void setUp() {
+    RestClient.Builder builder = RestClient.builder().baseUrl("http://api");
+    server = MockRestServiceServer.bindTo(builder).build();
+    service =
+        new SentimentApiService(
+            builder.build(), new ApiCircuitBreaker(5, Duration.ofSeconds(30), meterRegistry), cache, meterRegistry);
+    ReflectionTestUtils.setField(service, "maxAttempts", 1);
+    ReflectionTestUtils.setField(service, "backoff", Duration.ofMillis(1));
+  }
+
+  @Test
+  void unchangedListIsRevalidatedAndReused() {
+    // Prepare stubbing for a first full response and an unchanged revalidation
+    server
+        .expect(requestTo(EMOTIONS))
+        .andExpect(headerDoesNotExist(HttpHeaders.IF_NONE_MATCH))
+        .andRespond(
+            withSuccess(
+                    "[{\"id\":1,\"text\":\"nice\",\"type\":\"POSITIVE\",\"score\":0.9}]", MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.ETAG, ETAG));
+    server
+        .expect(requestTo(EMOTIONS))
+        .andExpect(header(HttpHeaders.IF_NONE_MATCH, ETAG))
+        .andRespond(withStatus(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, ETAG));
+
+    // Execute test
+    List<EmotionResponse> first = service.getAllEmotions();
+    cache.invalidateAll();
+    List<EmotionResponse> revalidated = service.getAllEmotions();
+
+    // Verify the results
+    server.verify();
+    Assertions.assertSame(first, revalidated);
+    Assertions.assertEquals("nice", revalidated.getFirst().getText());
+    Assertions.assertEquals(
+        1,
+        meterRegistry
+            .counter(SentimentApiService.NOT_MODIFIED_METRIC, "endpoint", "/api/emotions/all")
+            .count());
+  }
+
+  @Test
+  void createIsRetriedWithTheSameIdempotencyKeyUpToTheAttemptCap() {
+    // Prepare stubbing for an API that is unavailable twice and then creates the emotion
+    ReflectionTestUtils.setField(service, "maxAttempts", 3);
+    List<String> keys = new ArrayList<>();
+    server
+        .expect(ExpectedCount.times(2), requestTo(CREATE))
+        .andExpect(request -> keys.add(request.getHeaders().getFirst("Idempotency-Key")))
+        .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+    server
+        .expect(requestTo(CREATE))
+        .andExpect(request -> keys.add(request.getHeaders().getFirst("Idempotency-Key")))
+        .andRespond(withStatus(HttpStatus.CREATED));
+
+    // Execute test
+    HttpStatusCode status = service.createEmotion(emotionRequest());
+
+    // Verify the results
+    server.verify();
+    Assertions.assertEquals(HttpStatus.CREATED, status);
+    Assertions.assertEquals(3, keys.size());
+    Assertions.assertNotNull(keys.getFirst());
+    Assertions.assertEquals(1, Set.copyOf(keys).size());
+    Assertions.assertEquals(2, retries("/api/emotions/create"));
+  }
+
+  @Test
+  void retriesStopAtTheAttemptCap() {
+    // Prepare stubbing for an API that stays unavailable
+    ReflectionTestUtils.setField(service, "maxAttempts", 3);
+    server.expect(ExpectedCount.times(3), requestTo(CREATE)).andRespond(withStatus(HttpStatus.BAD_GATEWAY));
+
+    // Execute test
+    Assertions.assertThrows(HttpServerErrorException.class, () -> service.createEmotion(emotionRequest()));
+
+    // Verify the results
+    server.verify();
+    Assertions.assertEquals(2, retries("/api/emotions/create"));
+  }
+
+  @Test
+  void timeoutsAndClientErrorsAreNotRetried() {
+    // Prepare stubbing for a timed out call and a rejected one
+    ReflectionTestUtils.setField(service, "maxAttempts", 3);
+    server
+        .expect(ExpectedCount.once(), requestTo(CREATE))
+        .andRespond(withException(new HttpTimeoutException("request timed out")));
+    server.expect(ExpectedCount.once(), requestTo(CREATE)).andRespond(withStatus(HttpStatus.CONFLICT));
+
+    // Execute test
+    Assertions.assertThrows(ApiUnavailableException.class, () -> service.createEmotion(emotionRequest()));
+    Assertions.assertThrows(PresentElementException.class, () -> service.createEmotion(emotionRequest()));
+
+    // Verify the results
+    server.verify();
+    Assertions.assertEquals(0, retries("/api/emotions/create"));
+  }
+
+  private double retries(String endpoint) {
+    return meterRegistry.counter(SentimentApiService.RETRIES_METRIC, "endpoint", endpoint).count();
+  }
+
+  private static EmotionRequest emotionRequest() {
+    ClientRequest client = new ClientRequest();
+    client.setEmail("a@local.mail");
+    return new EmotionRequest("nice", client);
+  }
+}